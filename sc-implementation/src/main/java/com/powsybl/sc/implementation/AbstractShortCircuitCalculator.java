@@ -47,6 +47,12 @@ public abstract class AbstractShortCircuitCalculator {
 
     public abstract void computeCurrents();
 
+    protected void setCurrents(double[] i) {
+        io = new Complex(i[ShortCircuitKernels.O], i[ShortCircuitKernels.O + 1]);
+        id = new Complex(i[ShortCircuitKernels.D], i[ShortCircuitKernels.D + 1]);
+        ii = new Complex(i[ShortCircuitKernels.I], i[ShortCircuitKernels.I + 1]);
+    }
+
     public Complex geta() {
         return new Complex(-0.5, FastMath.sqrt(3.) / 2);
     }
@@ -7,25 +7,38 @@
  */
 package com.powsybl.sc.implementation;
 
-import com.powsybl.iidm.network.Branch;
 import com.powsybl.iidm.network.Bus;
 import com.powsybl.iidm.network.Network;
-import com.powsybl.iidm.network.ThreeWindingsTransformer;
 import com.powsybl.openloadflow.OpenLoadFlowParameters;
+import com.powsybl.openloadflow.ac.AcLoadFlowContext;
 import com.powsybl.openloadflow.ac.AcLoadFlowParameters;
+import com.powsybl.openloadflow.ac.AcloadFlowEngine;
 import com.powsybl.openloadflow.graph.EvenShiloachGraphDecrementalConnectivityFactory;
+import com.powsybl.openloadflow.network.LfBranch;
+import com.powsybl.openloadflow.network.LfBus;
 import com.powsybl.openloadflow.network.LfNetwork;
 import com.powsybl.openloadflow.network.LfNetworkParameters;
 import com.powsybl.openloadflow.network.impl.LfNetworkLoaderImpl;
 import com.powsybl.sc.util.AdmittanceEquationSystem;
+import com.powsybl.sc.util.AdmittanceMatrixCache;
 import com.powsybl.sc.util.CalculationLocation;
+import com.powsybl.sc.util.ImpedanceLinearResolution;
+import com.powsybl.sc.util.LfBusIndex;
 import com.powsybl.sc.util.extensions.ShortCircuitExtensions;
 import org.apache.commons.math3.complex.Complex;
 import org.apache.commons.math3.util.Pair;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.lang.ref.Cleaner;
 import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
 
 /**
  * @author Jean-Baptiste Heyberger <jbheyberger at gmail.com>
@@ -34,11 +47,13 @@ public abstract class AbstractShortCircuitEngine {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(AbstractShortCircuitEngine.class);
 
+    private static final Cleaner COLUMN_CLEANER = Cleaner.create(); // releases the impedance columns of the lazy profiles
+
     protected final Network network;
 
     protected final ShortCircuitEngineParameters parameters;
 
-    protected final List<LfNetwork> lfNetworks;
+    protected final List<LfNetwork> lfNetworks; // one lfNetwork per synchronous component
 
     protected final Map<ShortCircuitFault, ShortCircuitResult> resultsPerFault = new LinkedHashMap<>();
 
@@ -48,20 +63,64 @@ public abstract class AbstractShortCircuitEngine {
 
     protected final AcLoadFlowParameters acLoadFlowParameters;
 
+    protected final LfBusIndex lfBusIndex; // direct correspondence between iidm busses and lfBusses
+
+    private final AtomicBoolean cancelled = new AtomicBoolean(false);
+
+    private BiConsumer<ShortCircuitFault, ShortCircuitResult> resultConsumer; // optional sink notified of each result as soon as it is computed
+
+    private boolean resultsKept = true;
+
+    private final Object resultConsumerLock = new Object();
+
+    private AdmittanceMatrixCache admittanceMatrixCache; // optional matrices kept between runs on successive states of the network
+
     protected AbstractShortCircuitEngine(Network network, ShortCircuitEngineParameters parameters) {
+        this(network, parameters, loadLfNetworks(network, parameters));
+    }
+
+    protected AbstractShortCircuitEngine(Network network, ShortCircuitEngineParameters parameters, List<LfNetwork> lfNetworks) {
+        // lfNetworks might be shared between engines working on the same network, they must have been loaded with loadLfNetworks
         this.network = Objects.requireNonNull(network);
         this.parameters = Objects.requireNonNull(parameters);
-        this.lfNetworks = LfNetwork.load(network, new LfNetworkLoaderImpl(), new LfNetworkParameters());
+        this.lfNetworks = Objects.requireNonNull(lfNetworks);
+        this.lfBusIndex = new LfBusIndex(network, lfNetworks);
         this.acLoadFlowParameters = getAcLoadFlowParametersFromParam();
+    }
+
+    public static List<LfNetwork> loadLfNetworks(Network network, ShortCircuitEngineParameters parameters) {
+        List<LfNetwork> lfNetworks = LfNetwork.load(network, new LfNetworkLoaderImpl(), new LfNetworkParameters().setComputeMainConnectedComponentOnly(false));
         ShortCircuitNorm shortCircuitNorm = parameters.getNorm();
         ShortCircuitExtensions.add(network, lfNetworks, shortCircuitNorm.getNormExtensions());
+        return lfNetworks;
     }
 
-    protected AcLoadFlowParameters getAcLoadFlowParametersFromParam() {
+    public static AcLoadFlowParameters createAcLoadFlowParameters(ShortCircuitEngineParameters parameters) {
         OpenLoadFlowParameters loadflowParametersExt = OpenLoadFlowParameters.get(parameters.getLoadFlowParameters());
         return OpenLoadFlowParameters.createAcParameters(parameters.getLoadFlowParameters(), loadflowParametersExt, parameters.getMatrixFactory(), new EvenShiloachGraphDecrementalConnectivityFactory<>(), false, false);
     }
 
+    /**
+     * Computes the pre-fault state directly on the lfNetworks used by the engines, without any load flow on the iidm network.
+     * Only needed if the voltage profile is CALCULATED and the lfNetworks were not loaded from an already computed iidm state.
+     */
+    public static void runPreFaultLoadFlow(List<LfNetwork> lfNetworks, ShortCircuitEngineParameters parameters) {
+        AcLoadFlowParameters acParameters = createAcLoadFlowParameters(parameters);
+        for (LfNetwork lfNetwork : lfNetworks) {
+            if (!hasGenerator(lfNetwork)) {
+                continue; // no pre-fault state to compute without any source
+            }
+            try (AcLoadFlowContext context = new AcLoadFlowContext(lfNetwork, acParameters)) {
+                new AcloadFlowEngine(context)
+                        .run();
+            }
+        }
+    }
+
+    protected AcLoadFlowParameters getAcLoadFlowParametersFromParam() {
+        return createAcLoadFlowParameters(parameters);
+    }
+
     protected AdmittanceEquationSystem.AdmittancePeriodType getAdmittancePeriodTypeFromParam() {
         AdmittanceEquationSystem.AdmittancePeriodType admittancePeriodType = AdmittanceEquationSystem.AdmittancePeriodType.ADM_TRANSIENT;
         if (parameters.getPeriodType() == ShortCircuitEngineParameters.PeriodType.SUB_TRANSIENT) {
@@ -82,7 +141,10 @@ public abstract class AbstractShortCircuitEngine {
 
     protected void buildSystematicList(ShortCircuitFault.ShortCircuitType type) {
         List<ShortCircuitFault> scfSystematic = new ArrayList<>();
-        parameters.setVoltageUpdate(false);
+        if (resultConsumer == null) {
+            // the profiles of all the faults would be kept in memory, they are only computed if the results are consumed as they come
+            parameters.setVoltageUpdate(false);
+        }
         for (Bus bus : network.getBusBreakerView().getBuses()) {
             ShortCircuitFault sc = new ShortCircuitFault(bus.getId(), bus.getId(), new ShortCircuitFaultImpedance(new Complex(0.)), type); //TODO : check validity of voltage levels if no connexity
             scfSystematic.add(sc);
@@ -93,11 +155,10 @@ public abstract class AbstractShortCircuitEngine {
     protected Pair<List<CalculationLocation>, List<CalculationLocation>> buildFaultListsFromInputs() {
         // We handle a pre-treatement of faults given in input:
         // - filtering faults because of some inconsistencies on the bus identification
-        // - addition of info in each fault to ease the identification in LfNetwork of iidm info
+        // - addition of info in each fault to identify its busses in the LfNetwork
 
         List<CalculationLocation> faultList = new ArrayList<>();
         List<CalculationLocation> biphasedFaultList = new ArrayList<>();
-        Map<String, Pair<String, Integer >> tmpListBus1 = new HashMap<>();
         for (ShortCircuitFault scfe : parameters.getShortCircuitFaults()) {
             String busName = scfe.getBusLocation();
             String bus2Name = scfe.getBus2Location();
@@ -106,8 +167,7 @@ public abstract class AbstractShortCircuitEngine {
                 if (scfe.getType() == ShortCircuitFault.ShortCircuitType.BIPHASED_COMMON_SUPPORT) {
                     throw new IllegalArgumentException(" short circuit fault : " + busName + " must have a second voltage level defined because it is a common support fault");
                 }
-                Pair<String, Integer> branchFaultInfo = buildFaultBranchFromBusId(busName, network); // creates additional info for fault, identifying location through iidm branches instead of iidm busses to easily get lf busses
-                scfe.setIidmBusInfo(branchFaultInfo); // the short circuit fault info is now enriched with the couple iidmBranchId + iidmBranchSide and not only the iidm bus name in order to be able to identify the busses in the LfNetwork
+                lfBusIndex.locate(scfe); // the short circuit fault info is now enriched with the number of the LfBus in order to be able to identify the busses in the LfNetwork
                 faultList.add(scfe);
 
             } else {
@@ -115,15 +175,7 @@ public abstract class AbstractShortCircuitEngine {
                     throw new IllegalArgumentException(" short circuit fault : " + busName + " has a second bus defined : " + bus2Name + " but is not a common support fault");
                 }
 
-                // Step 1 : get info at bus 1 initialization of bus 2 list
-                tmpListBus1.computeIfAbsent(busName, k -> buildFaultBranchFromBusId(busName, network));
-
-                // step 2 : get info at bus 2
-                Pair<String, Integer > branchBus2FaultInfo = buildFaultBranchFromBusId(bus2Name, network);
-                Pair<String, Integer > branchBus1FaultInfo = tmpListBus1.get(busName);
-
-                scfe.setIidmBusInfo(branchBus1FaultInfo);
-                scfe.setIidmBus2Info(branchBus2FaultInfo);
+                lfBusIndex.locate(scfe);
                 biphasedFaultList.add(scfe);
             }
         }
@@ -131,83 +183,415 @@ public abstract class AbstractShortCircuitEngine {
         return new Pair<>(faultList, biphasedFaultList);
     }
 
-    protected static Pair<String, Integer > buildFaultBranchFromBusId(String busId, Network tmpNetwork) {
-        Pair<String, Integer > branchFaultInfo = buildFaultDipoleFromBusId(busId, tmpNetwork);
-        if (branchFaultInfo.getKey().equals("")) {
-            // Bus not found in branches, try three windings transformers
-            branchFaultInfo = buildFaultT3WbranchFromBusId(busId, tmpNetwork);
+    protected Map<LfNetwork, List<CalculationLocation>> splitPerLfNetwork(List<CalculationLocation> faultList) {
+        Map<LfNetwork, List<CalculationLocation>> faultListPerLfNetwork = new HashMap<>();
+        for (CalculationLocation calculationLocation : faultList) {
+            if (calculationLocation.getLfBusNum() < 0) {
+                continue; // fault could not be located in any lfNetwork
+            }
+            LfNetwork lfNetwork = lfBusIndex.getLfNetwork(calculationLocation.getBusLocation());
+            faultListPerLfNetwork.computeIfAbsent(lfNetwork, k -> new ArrayList<>()).add(calculationLocation);
+        }
+        return faultListPerLfNetwork;
+    }
+
+    private static boolean hasGenerator(LfNetwork lfNetwork) {
+        for (LfBus lfBus : lfNetwork.getBuses()) {
+            if (!lfBus.getGenerators().isEmpty()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Requests the computation to stop, the engine throws a {@link CancellationException} at its next cancellation check.
+     */
+    public void cancel() {
+        cancelled.set(true);
+    }
+
+    public boolean isCancelled() {
+        return cancelled.get();
+    }
+
+    /**
+     * Sets a sink notified of each fault result as soon as its block is post-processed.
+     * The sink is called from the thread solving the fault, never concurrently: a sink that blocks slows the computation down.
+     * With several synchronous components, results of different components might be interleaved.
+     * A systematic analysis only computes voltage profiles if a sink is set, as they are then not all kept in memory.
+     */
+    public void setResultConsumer(BiConsumer<ShortCircuitFault, ShortCircuitResult> resultConsumer) {
+        this.resultConsumer = resultConsumer;
+    }
+
+    /**
+     * If false, results are only given to the result consumer and resultsPerFault stays empty, so that memory does not grow with the number of faults.
+     */
+    public void setResultsKept(boolean resultsKept) {
+        this.resultsKept = resultsKept;
+    }
+
+    public boolean isResultsKept() {
+        return resultsKept;
+    }
+
+    /**
+     * Sets the admittance matrices to reuse and to keep for the next run, see {@link AdmittanceMatrixCache}.
+     * The matrices are not closed by the engine.
+     */
+    void setAdmittanceMatrixCache(AdmittanceMatrixCache admittanceMatrixCache) {
+        this.admittanceMatrixCache = admittanceMatrixCache;
+    }
+
+    protected AdmittanceMatrixCache getAdmittanceMatrixCache() {
+        return admittanceMatrixCache;
+    }
+
+    protected void addResult(ShortCircuitFault scf, ShortCircuitResult res, Map<ShortCircuitFault, ShortCircuitResult> results) {
+        if (resultConsumer != null) {
+            synchronized (resultConsumerLock) {
+                resultConsumer.accept(scf, res);
+            }
+        }
+        if (resultsKept) {
+            results.put(scf, res);
+        }
+    }
+
+    /**
+     * Returns the LfBusses of the lfNetwork where post-fault voltages are computed, or null if all busses are monitored.
+     * Busses outside of this set are reported without voltage drop, so branch currents and feeder contributions
+     * are only consistent for a feeder neighbourhood inside the monitored busses.
+     */
+    protected Set<LfBus> getMonitoredBusses(LfNetwork lfNetwork) {
+        if (parameters.getMonitoredBusIds().isEmpty()) {
+            return null;
+        }
+        Set<LfBus> monitoredBusses = new LinkedHashSet<>();
+        for (String busId : parameters.getMonitoredBusIds()) {
+            if (lfBusIndex.getLfNetwork(busId) == lfNetwork) {
+                monitoredBusses.add(lfBusIndex.getLfBus(busId));
+            }
+        }
+        return monitoredBusses;
+    }
+
+    /**
+     * Releases the off-heap impedance columns of a resolution once its results are processed.
+     * With lazy voltage profiles, the columns read by the profile builders are retained by their results and stay
+     * resident until the results are garbage collected, the columns of the other faults are released right away.
+     */
+    protected void releaseResolution(ImpedanceLinearResolution resolution) {
+        resolution.close();
+    }
+
+    /**
+     * Fills the voltage profile of the result with the given builder, right now or on the first access to the profile
+     * if lazy voltage profiles are enabled. The builder then keeps the off-heap columns of the given linear resolution
+     * results it reads until the result is garbage collected.
+     */
+    protected void buildVoltageProfile(ShortCircuitResult res, Runnable voltageProfileBuilder,
+                                       ImpedanceLinearResolution.ImpedanceLinearResolutionResult... linearResolutionResults) {
+        if (parameters.isLazyVoltageProfile()) {
+            setVoltageProfileBuilder(res, voltageProfileBuilder, linearResolutionResults);
+        } else {
+            voltageProfileBuilder.run();
+        }
+    }
+
+    private static void setVoltageProfileBuilder(ShortCircuitResult res, Runnable voltageProfileBuilder,
+                                                 ImpedanceLinearResolution.ImpedanceLinearResolutionResult... linearResolutionResults) {
+        List<ImpedanceLinearResolution.ImpedanceLinearResolutionResult> columnHolders = new ArrayList<>();
+        for (ImpedanceLinearResolution.ImpedanceLinearResolutionResult linearResolutionResult : linearResolutionResults) {
+            if (linearResolutionResult != null) {
+                linearResolutionResult.retainColumns();
+                columnHolders.add(linearResolutionResult);
+            }
+        }
+        res.setVoltageProfileBuilder(voltageProfileBuilder);
+        // the cleaning action must not reference the result, otherwise it would never become unreachable
+        COLUMN_CLEANER.register(res, () -> columnHolders.forEach(ImpedanceLinearResolution.ImpedanceLinearResolutionResult::releaseColumns));
+    }
+
+    protected VoltageProfilePropagation createVoltageProfilePropagation(LfNetwork lfNetwork, boolean balanced) {
+        // the block is computed on the post-processing pool, not on the solving executor whose tasks wait for it
+        return new VoltageProfilePropagation(lfNetwork.getBuses().size(), balanced, getMinVoltageDropPu(), VoltageProfilePropagation.DEFAULT_BLOCK_SIZE,
+                parameters.getPostProcessingExecutor());
+    }
+
+    /**
+     * Queues a result with a voltage profile computed with the other profiles of the block, or on its first access if lazy
+     * voltage profiles are enabled. The homopolar result and the io and ii currents are null for balanced faults.
+     */
+    protected void addResult(VoltageProfilePropagation propagation, ShortCircuitFault scf, ShortCircuitResult res,
+                             ImpedanceLinearResolution.ImpedanceLinearResolutionResult directResult,
+                             ImpedanceLinearResolution.ImpedanceLinearResolutionResult homopolarResult,
+                             Complex id, Complex io, Complex ii, Map<ShortCircuitFault, ShortCircuitResult> results) {
+        if (parameters.isLazyVoltageProfile()) {
+            setVoltageProfileBuilder(res, propagation.createVoltageProfileBuilder(res, directResult, homopolarResult, id, io, ii),
+                    directResult, homopolarResult);
+            propagation.add(scf, res);
+        } else {
+            propagation.add(scf, res, directResult, homopolarResult, id, io, ii);
+        }
+        if (propagation.isFull()) {
+            flushResults(propagation, results);
+        }
+    }
+
+    /**
+     * Queues a result without voltage profile, results being added in their order of computation.
+     */
+    protected void addResult(VoltageProfilePropagation propagation, ShortCircuitFault scf, ShortCircuitResult res,
+                             Map<ShortCircuitFault, ShortCircuitResult> results) {
+        propagation.add(scf, res);
+        if (propagation.isFull()) {
+            flushResults(propagation, results);
         }
-        return branchFaultInfo;
     }
 
-    protected static Pair<String, Integer > buildFaultDipoleFromBusId(String busId, Network tmpNetwork) {
-        // improve with direct correspondence between iidm busses and lfBusses when available in PowSyBl, because this loop is not very efficient
-        Bus bus = tmpNetwork.getBusBreakerView().getBus(busId);
-        String branchId = "";
-        int branchSide = 0;
-        boolean isFound = false;
-        for (Branch<?> branch : tmpNetwork.getBranches()) {
-            Bus bus1 = branch.getTerminal1().getBusBreakerView().getBus();
-            Bus bus2 = branch.getTerminal2().getBusBreakerView().getBus();
-            if (bus == bus1) {
-                branchId = branch.getId();
-                branchSide = 1;
-                isFound = true;
-                break;
-            } else if (bus == bus2) {
-                branchId = branch.getId();
-                branchSide = 2;
-                isFound = true;
-                break;
+    /**
+     * Computes the voltage profiles of the queued results, then their feeders, concurrently if a post-processing executor is set.
+     * Results only read the linear resolution results and the lfNetwork, they are added in their order of computation.
+     */
+    protected void flushResults(VoltageProfilePropagation propagation, Map<ShortCircuitFault, ShortCircuitResult> results) {
+        checkCancelled();
+        List<ShortCircuitFault> blockFaults = new ArrayList<>();
+        List<ShortCircuitResult> blockResults = new ArrayList<>();
+        try {
+            propagation.flush((scf, res) -> {
+                blockFaults.add(scf);
+                blockResults.add(res);
+            });
+        } catch (RuntimeException e) {
+            // same as a failure of a component task, the other components are stopped at their next cancellation check
+            cancel();
+            throw e;
+        }
+        checkCancelled();
+
+        Executor postProcessingExecutor = parameters.getPostProcessingExecutor();
+        if (postProcessingExecutor == null || blockResults.size() < 2) {
+            for (int r = 0; r < blockResults.size(); r++) {
+                updateFeedersResult(blockFaults.get(r), blockResults.get(r));
+            }
+        } else {
+            List<CompletableFuture<Void>> futures = new ArrayList<>(blockResults.size());
+            for (int r = 0; r < blockResults.size(); r++) {
+                ShortCircuitFault scf = blockFaults.get(r);
+                ShortCircuitResult res = blockResults.get(r);
+                futures.add(CompletableFuture.runAsync(() -> updateFeedersResult(scf, res), postProcessingExecutor));
+            }
+            for (CompletableFuture<Void> future : futures) {
+                waitFor(future);
             }
         }
 
-        if (!isFound) {
-            LOGGER.warn(" input CC Bus {} could not be associated with a bipole", busId);
+        for (int r = 0; r < blockResults.size(); r++) {
+            addResult(blockFaults.get(r), blockResults.get(r), results);
         }
+    }
 
-        return new Pair<>(branchId, branchSide);
+    private static void updateFeedersResult(ShortCircuitFault scf, ShortCircuitResult res) {
+        if (scf.isWithFeederResult()) {
+            res.updateFeedersResult(); // feeders are updated only if voltageUpdate is made
+        }
     }
 
-    protected static Pair<String, Integer> buildFaultT3WbranchFromBusId(String busId, Network tmpNetwork) {
-        // improve with direct correspondence between iidm busses and lfBusses when available in PowSyBl, because this loop is not very efficient
-        Bus bus = tmpNetwork.getBusBreakerView().getBus(busId);
-        String branchId = "";
-        int legNum = 0;
-        boolean isFound = false;
-        for (ThreeWindingsTransformer t3w : tmpNetwork.getThreeWindingsTransformers()) {
-            Bus bus1 = t3w.getLeg1().getTerminal().getBusBreakerView().getBus();
-            Bus bus2 = t3w.getLeg2().getTerminal().getBusBreakerView().getBus();
-            Bus bus3 = t3w.getLeg3().getTerminal().getBusBreakerView().getBus();
+    /**
+     * Voltage drops below this magnitude are not stored in the voltage profiles, they are treated as no drop.
+     */
+    protected double getMinVoltageDropPu() {
+        // voltages are in pu of the nominal voltage of each bus
+        return parameters.getMinVoltageDropProportionalThreshold() / 100.;
+    }
 
-            if (bus == bus1) {
-                branchId = t3w.getId();
-                legNum = 1;
-                isFound = true;
-                break;
-            } else if (bus == bus2) {
-                branchId = t3w.getId();
-                legNum = 2;
-                isFound = true;
-                break;
-            } else if (bus == bus3) {
-                branchId = t3w.getId();
-                legNum = 3;
-                isFound = true;
-                break;
+    /**
+     * Returns, for each faulted bus, the busses whose impedance terms must not be dropped from its column as they are read
+     * by the feeders: the feeder busses of the faults at this bus with feeder results and the other ends of their branches.
+     * A null set keeps every term of the column, the feeders being computed on the whole lfNetwork.
+     */
+    protected Function<LfBus, Set<LfBus>> getKeptBussesProvider(LfNetwork lfNetwork, List<CalculationLocation> faultList,
+                                                                List<CalculationLocation> biphasedFaultList) {
+        Map<LfBus, Set<LfBus>> keptBusses = new HashMap<>();
+        Set<LfBus> wholeColumnBusses = new HashSet<>();
+        for (List<CalculationLocation> locations : List.of(faultList, biphasedFaultList)) {
+            for (CalculationLocation location : locations) {
+                ShortCircuitFault scf = (ShortCircuitFault) location;
+                if (!scf.isVoltageUpdate() || !scf.isWithFeederResult()) {
+                    continue;
+                }
+                List<LfBus> faultBusses = new ArrayList<>(2);
+                addFaultBus(lfNetwork, scf.getLfBusNum(), scf.getLfBusInfo(), faultBusses);
+                if (locations == biphasedFaultList) {
+                    addFaultBus(lfNetwork, scf.getLfBus2Num(), scf.getLfBus2Info(), faultBusses);
+                }
+                // the feeders of a biphased common support fault are computed around both busses from both columns
+                for (LfBus faultBus : faultBusses) {
+                    Set<LfBus> feederBusses = getFeederBusses(lfNetwork, faultBus);
+                    for (LfBus columnBus : faultBusses) {
+                        if (feederBusses == null) {
+                            wholeColumnBusses.add(columnBus);
+                        } else {
+                            addFeederNeighbourhood(feederBusses, keptBusses.computeIfAbsent(columnBus, k -> new HashSet<>()));
+                        }
+                    }
+                }
             }
         }
+        if (!wholeColumnBusses.isEmpty()) {
+            LOGGER.warn("Impedance drop tolerance disabled for {} fault busses of network {} because their feeders are not bounded",
+                    wholeColumnBusses.size(), lfNetwork);
+        }
+        return bus -> wholeColumnBusses.contains(bus) ? null : keptBusses.getOrDefault(bus, Collections.emptySet());
+    }
 
-        if (!isFound) {
-            LOGGER.warn(" input CC Bus {} could not be associated with a tripole", busId);
+    private static void addFaultBus(LfNetwork lfNetwork, int lfBusNum, String lfBusId, List<LfBus> faultBusses) {
+        if (lfBusNum >= 0 && lfBusNum < lfNetwork.getBuses().size() && lfNetwork.getBus(lfBusNum).getId().equals(lfBusId)) {
+            faultBusses.add(lfNetwork.getBus(lfBusNum));
         }
+    }
 
-        return new Pair<>(branchId, legNum);
+    static void addFeederNeighbourhood(Set<LfBus> feederBusses, Set<LfBus> keptBusses) {
+        for (LfBus bus : feederBusses) {
+            keptBusses.add(bus);
+            for (LfBranch branch : bus.getBranches()) {
+                if (branch.getBus1() != null) {
+                    keptBusses.add(branch.getBus1());
+                }
+                if (branch.getBus2() != null) {
+                    keptBusses.add(branch.getBus2());
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the busses where the feeder contributions of a fault at the given bus are computed: the busses at most
+     * feederRadius branches away from the faulted bus, and the busses of the feeder voltage levels.
+     * Returns null if the neighbourhood is not bounded, meaning all the busses of the lfNetwork.
+     */
+    protected Set<LfBus> getFeederBusses(LfNetwork lfNetwork, LfBus faultBus) {
+        if (!parameters.isFeederNeighbourhoodBounded()) {
+            return null;
+        }
+        Set<LfBus> feederBusses = new LinkedHashSet<>();
+        if (parameters.getFeederRadius() >= 0) {
+            feederBusses.add(faultBus);
+            List<LfBus> layer = List.of(faultBus);
+            for (int depth = 0; depth < parameters.getFeederRadius() && !layer.isEmpty(); depth++) {
+                List<LfBus> nextLayer = new ArrayList<>();
+                for (LfBus bus : layer) {
+                    for (LfBranch branch : bus.getBranches()) {
+                        LfBus otherBus = branch.getBus1() == bus ? branch.getBus2() : branch.getBus1();
+                        if (otherBus != null && feederBusses.add(otherBus)) {
+                            nextLayer.add(otherBus);
+                        }
+                    }
+                }
+                layer = nextLayer;
+            }
+        }
+        if (!parameters.getFeederVoltageLevelIds().isEmpty()) {
+            for (LfBus bus : lfNetwork.getBuses()) {
+                if (parameters.getFeederVoltageLevelIds().contains(bus.getVoltageLevelId())) {
+                    feederBusses.add(bus);
+                }
+            }
+        }
+        return feederBusses;
+    }
+
+    protected void checkCancelled() {
+        // checked between phases and between fault blocks, the thread running the engine might also have been interrupted
+        if (Thread.currentThread().isInterrupted()) {
+            cancelled.set(true);
+        }
+        if (cancelled.get()) {
+            throw new CancellationException("Short circuit computation cancelled");
+        }
+    }
+
+    public void run() {
+        checkCancelled();
+
+        // building a contingency list with all voltage levels
+        if (parameters.getAnalysisType() == ShortCircuitEngineParameters.AnalysisType.SYSTEMATIC) {
+            buildSystematicList(getSystematicFaultType());
+        }
+
+        // We handle a pre-treatement of faults given in input:
+        // - filtering of some inconsistencies on the bus identification
+        // - addition of info in each fault to identify its busses in the LfNetwork
+        Pair<List<CalculationLocation>, List<CalculationLocation>> faultLists = buildFaultListsFromInputs();
+
+        solverFaultList = faultLists.getKey();
+        solverBiphasedFaultList = faultLists.getValue();
+
+        checkCancelled();
+
+        // each fault is routed to the lfNetwork of its synchronous component
+        Map<LfNetwork, List<CalculationLocation>> faultListPerLfNetwork = splitPerLfNetwork(solverFaultList);
+        Map<LfNetwork, List<CalculationLocation>> biphasedFaultListPerLfNetwork = splitPerLfNetwork(solverBiphasedFaultList);
+
+        List<LfNetwork> faultedLfNetworks = new ArrayList<>();
+        for (LfNetwork lfNetwork : lfNetworks) {
+            if (!faultListPerLfNetwork.containsKey(lfNetwork) && !biphasedFaultListPerLfNetwork.containsKey(lfNetwork)) {
+                continue;
+            }
+            if (!hasGenerator(lfNetwork)) {
+                LOGGER.warn("Faults in network {} are ignored because it has no generator", lfNetwork);
+                continue;
+            }
+            faultedLfNetworks.add(lfNetwork);
+        }
+
+        // components are independent, each of them is solved with its own admittance matrices and the results are merged in the order of the lfNetworks
+        resultsPerFault.clear();
+        if (faultedLfNetworks.size() == 1) {
+            LfNetwork lfNetwork = faultedLfNetworks.get(0);
+            resultsPerFault.putAll(runOnLfNetwork(lfNetwork,
+                    faultListPerLfNetwork.getOrDefault(lfNetwork, Collections.emptyList()),
+                    biphasedFaultListPerLfNetwork.getOrDefault(lfNetwork, Collections.emptyList())));
+        } else {
+            List<CompletableFuture<Map<ShortCircuitFault, ShortCircuitResult>>> futures = new ArrayList<>();
+            for (LfNetwork lfNetwork : faultedLfNetworks) {
+                List<CalculationLocation> faultList = faultListPerLfNetwork.getOrDefault(lfNetwork, Collections.emptyList());
+                List<CalculationLocation> biphasedFaultList = biphasedFaultListPerLfNetwork.getOrDefault(lfNetwork, Collections.emptyList());
+                futures.add(CompletableFuture.supplyAsync(() -> runOnLfNetwork(lfNetwork, faultList, biphasedFaultList), parameters.getExecutor()));
+            }
+            for (CompletableFuture<Map<ShortCircuitFault, ShortCircuitResult>> future : futures) {
+                resultsPerFault.putAll(waitFor(future));
+            }
+        }
+    }
+
+    private <T> T waitFor(CompletableFuture<T> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            // the other tasks are stopped at their next cancellation check
+            cancel();
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Short circuit computation cancelled");
+        } catch (ExecutionException e) {
+            cancel();
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
     }
 
     public Map<ShortCircuitFault, ShortCircuitResult> getResultsPerFault() {
         return resultsPerFault;
     }
 
-    public abstract void run();
+    protected abstract ShortCircuitFault.ShortCircuitType getSystematicFaultType();
+
+    /**
+     * Solves the faults located in one synchronous component and returns their results in the order they are computed.
+     */
+    protected abstract Map<ShortCircuitFault, ShortCircuitResult> runOnLfNetwork(LfNetwork lfNetwork, List<CalculationLocation> faultList, List<CalculationLocation> biphasedFaultList);
 }
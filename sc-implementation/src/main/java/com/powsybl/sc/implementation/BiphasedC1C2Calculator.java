@@ -70,63 +70,7 @@ public class BiphasedC1C2Calculator extends BiphasedCommonSupportShortCircuitCal
         // From computed Ic1 we get complex values : I1o, I1d, I1i, I2o, I2d, I2i using step 1 formulas expressed with Ic1
         // Then compute the voltages from current values
 
-        computeZt(); // computes zt = rt + j.xt
-        computeIc(); // computes Ic of common support from zt
-        computeCurrents(); // computes Io, Id, Ii for both supports from computed Ic
-        computeVoltages(); // computes Vo, Vd, Vi from computed currents and computed terms of the impedance matrix
+        compute(ShortCircuitFault.ShortCircuitBiphasedType.C1_C2);
 
     }
-
-    @Override
-    public void computeIc() {
-
-        // Compute Ic1 :
-        // Complex expression :
-        //                                             a * (V1d(init) - V2d(init))
-        // Ic1 = ---------------------------------------------------------------------------------------------------------
-        //        Zf + 1/3*(Zd_11 - Zd_12 + Zd_22 - Zd_21 + Zo_11 - Zo_21 + Zo_22 - Zo_12 + Zi_22 - Zi_12 + Zi_11 - Zi_21)
-        //
-
-        Complex numerator = geta().multiply(initV.subtract(v2dInit));
-        ic = numerator.divide(zt);
-    }
-
-    @Override
-    public void computeZt() {
-        //  Zt = Zf + 1/3*(Zd_11 - Zd_12 + Zd_22 - Zd_21 + Zo_11 - Zo_21 + Zo_22 - Zo_12 + Zi_22 - Zi_12 + Zi_11 - Zi_21)
-        Complex ztmp = zdf.subtract(zd12)
-                .add(zd22)
-                .subtract(zd21)
-                .add(zof)
-                .subtract(zo21)
-                .add(zo22)
-                .subtract(zo12)
-                .add(zi22)
-                .subtract(zi12)
-                .add(zif)
-                .subtract(zi21);
-
-        zt = zfault.getZg().add(ztmp.divide(3.));
-    }
-
-    @Override
-    public void computeCurrents() {
-        // step 3:
-        // get the currents vectors
-        // [ I1o ]               [ 1 ]
-        // [ I1d ] = 1/3 * Ic1 * [ a²]
-        // [ I1i ]               [ a ]
-        //
-        // [ I2o ]               [ 1 ]
-        // [ I2d ] = -1/3 *Ic1 * [ a²]
-        // [ I2i ]               [ a ]
-
-        io = ic.divide(3.);
-        id = io.multiply(geta2());
-        ii = io.multiply(geta());
-
-        i2o = io.multiply(-1.);
-        i2d = id.multiply(-1.);
-        i2i = ii.multiply(-1.);
-    }
 }
@@ -41,8 +41,6 @@ public class BiphasedCommonSupportShortCircuitCalculator extends AbstractShortCi
     protected Complex v2d;
     protected Complex v2i;
 
-    protected Complex zt; // values of total impedance used to get Ic
-
     protected Complex ic; // short circuit phase C1 current circulating from common support 1 to 2
 
     public BiphasedCommonSupportShortCircuitCalculator(Complex zdf, Complex zof, ShortCircuitFaultImpedance zFault,
@@ -67,35 +65,49 @@ public class BiphasedCommonSupportShortCircuitCalculator extends AbstractShortCi
         this.v2dInit = v2dInit;
     }
 
-    public void computeZt() { }
-
-    public void computeIc() { }
-
-    public void computeCurrents() { }
-
-    public void computeVoltages() {
-        // Function using no input args
-        // [ Vof ] = -tM * inv(Yo) * M * [ Iof ]
-        // [ Vdf ] = -tM * inv(Yd) * M * [ Idf ] + tM * [ V(init) ]
-        // [ Vif ] = -tM * inv(Yd) * M * [ Iif ]
-
-        //get the voltage vectors
-        // Vo :
-        // [v1o]          [ zof_11    zof_12 ]   [ i1o ]
-        // [v2o] = -1  *  [ zof_21    zof_22 ] * [ i2o ]
+    protected void compute(ShortCircuitFault.ShortCircuitBiphasedType type) {
+        // zif and zi_ij are the direct terms, as expected by the kernel
+        double[] z = new double[ShortCircuitKernels.IMPEDANCES_SIZE];
+        set(z, ShortCircuitKernels.Z11, zdf);
+        set(z, ShortCircuitKernels.Z12, zd12);
+        set(z, ShortCircuitKernels.Z21, zd21);
+        set(z, ShortCircuitKernels.Z22, zd22);
+        set(z, ShortCircuitKernels.HOMOPOLAR + ShortCircuitKernels.Z11, zof);
+        set(z, ShortCircuitKernels.HOMOPOLAR + ShortCircuitKernels.Z12, zo12);
+        set(z, ShortCircuitKernels.HOMOPOLAR + ShortCircuitKernels.Z21, zo21);
+        set(z, ShortCircuitKernels.HOMOPOLAR + ShortCircuitKernels.Z22, zo22);
+
+        double[] i = new double[ShortCircuitKernels.COMMON_SUPPORT_SIZE];
+        double[] v = new double[ShortCircuitKernels.COMMON_SUPPORT_SIZE];
+        ShortCircuitKernels.computeBiphasedCommonSupport(type, z, zfault.getZg().getReal(), zfault.getZg().getImaginary(),
+                initV.getReal(), initV.getImaginary(), v2dInit.getReal(), v2dInit.getImaginary(), i, v);
+
+        setCurrents(i);
+        ic = io.multiply(3.);
+        i2o = get(i, ShortCircuitKernels.BUS2 + ShortCircuitKernels.O);
+        i2d = get(i, ShortCircuitKernels.BUS2 + ShortCircuitKernels.D);
+        i2i = get(i, ShortCircuitKernels.BUS2 + ShortCircuitKernels.I);
+
+        vo = get(v, ShortCircuitKernels.O);
+        vd = get(v, ShortCircuitKernels.D);
+        vi = get(v, ShortCircuitKernels.I);
+        v2o = get(v, ShortCircuitKernels.BUS2 + ShortCircuitKernels.O);
+        v2d = get(v, ShortCircuitKernels.BUS2 + ShortCircuitKernels.D);
+        v2i = get(v, ShortCircuitKernels.BUS2 + ShortCircuitKernels.I);
+    }
 
-        vo = zof.multiply(io).add(zo12.multiply(i2o)).multiply(-1.);
-        v2o = zo21.multiply(io).add(zo22.multiply(i2o)).multiply(-1.);
+    @Override
+    public void computeCurrents() {
+        // currents are computed at construction
+    }
 
-        // Vd :
-        // [v1d]          [ zdf_11    zdf_12 ]   [ i1d ]    [v1d_init]
-        // [v2d] = -1  *  [ zdf_21    zdf_22 ] * [ i2d ] +  [v2d_init]
-        vd = initV.subtract(zdf.multiply(id).add(zd12.multiply(i2d)));
-        v2d = v2dInit.subtract(zd21.multiply(id).add(zd22.multiply(i2d)));
+    private static void set(double[] z, int offset, Complex value) {
+        z[offset] = value.getReal();
+        z[offset + 1] = value.getImaginary();
+    }
 
-        // Vi :
-        vi = zif.multiply(ii).add(zi12.multiply(i2i)).multiply(-1.);
-        v2i = zi21.multiply(ii).add(zi22.multiply(i2i)).multiply(-1.);
+    private static Complex get(double[] x, int offset) {
+        return new Complex(x[offset], x[offset + 1]);
     }
 
     public Complex getI2d() {
@@ -23,7 +23,14 @@ public class BiphasedGroundShortCircuitCalculator extends AbstractShortCircuitCa
     }
 
     public void computeCurrents() {
-        computeCurrentsGeneralForm();
+        // closed form of the general form system
+        double[] i = new double[ShortCircuitKernels.CURRENTS_SIZE];
+        ShortCircuitKernels.computeBiphasedGroundCurrents(zdf.getReal(), zdf.getImaginary(), zof.getReal(), zof.getImaginary(),
+                zfault.getZg().getReal(), zfault.getZg().getImaginary(),
+                zfault.getZb().getReal(), zfault.getZb().getImaginary(),
+                zfault.getZc().getReal(), zfault.getZc().getImaginary(),
+                initV.getReal(), initV.getImaginary(), i);
+        setCurrents(i);
     }
 
     public void computeCurrentsSimplified() {
@@ -58,14 +58,10 @@ public class BiphasedShortCircuitCalculator extends AbstractShortCircuitCalculat
         // From computed Ic1 we get complex values : I1o, I1d, I1i, I2o, I2d, I2i using step 1 formulas expressed with Ic1
         // Then compute the voltages from current values
 
-        Complex zt = zdf.multiply(2).add(zfault.getZb());
-
-        Complex ib = initV.multiply(-Math.sqrt(3.)).divide(zt).multiply(new Complex(0., 1.));
-
-        // Compute the currents from step 1 formula :
-        io = new Complex(0.);
-        id = ib.divide(3.).multiply(geta().subtract(geta2()));
-        ii = id.multiply(-1.);
+        double[] i = new double[ShortCircuitKernels.CURRENTS_SIZE];
+        ShortCircuitKernels.computeBiphasedCurrents(zdf.getReal(), zdf.getImaginary(), zfault.getZb().getReal(), zfault.getZb().getImaginary(),
+                initV.getReal(), initV.getImaginary(), i);
+        setCurrents(i);
 
     }
 }
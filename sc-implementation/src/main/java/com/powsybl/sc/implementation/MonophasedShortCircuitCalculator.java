@@ -64,13 +64,9 @@ public class MonophasedShortCircuitCalculator extends AbstractShortCircuitCalcul
         // Ic = ----------------------------- = -----------------
         //       1/3 * (Zof + 2 * Zdf) + Zground            Zt
 
-        Complex z1 = zdf.multiply(2.).add(zof);
-        Complex z2 = z1.divide(3.);
-        Complex zt = zfault.getZg().add(z2);
-        Complex ic = initV.multiply(geta()).divide(zt);
-
-        io = ic.divide(3.);
-        id = io.multiply(geta2());
-        ii = io.multiply(geta());
+        double[] i = new double[ShortCircuitKernels.CURRENTS_SIZE];
+        ShortCircuitKernels.computeMonophasedCurrents(zdf.getReal(), zdf.getImaginary(), zof.getReal(), zof.getImaginary(),
+                zfault.getZg().getReal(), zfault.getZg().getImaginary(), initV.getReal(), initV.getImaginary(), i);
+        setCurrents(i);
     }
 }
@@ -9,18 +9,14 @@ package com.powsybl.sc.implementation;
 
 import com.google.auto.service.AutoService;
 import com.google.common.base.Stopwatch;
+import com.powsybl.computation.CompletableFutureTask;
 import com.powsybl.computation.ComputationManager;
 import com.powsybl.iidm.network.Bus;
 import com.powsybl.iidm.network.Network;
-import com.powsybl.loadflow.LoadFlow;
 import com.powsybl.loadflow.LoadFlowParameters;
-import com.powsybl.loadflow.LoadFlowResult;
 import com.powsybl.math.matrix.MatrixFactory;
 import com.powsybl.math.matrix.SparseMatrixFactory;
-import com.powsybl.openloadflow.OpenLoadFlowProvider;
-import com.powsybl.openloadflow.network.LfBus;
-import com.powsybl.sc.util.FeedersAtBusResult;
-import com.powsybl.security.LimitViolation;
+import com.powsybl.openloadflow.network.LfNetwork;
 import com.powsybl.shortcircuit.*;
 import org.apache.commons.math3.complex.Complex;
 import org.apache.commons.math3.util.Pair;
@@ -29,7 +25,12 @@ import org.slf4j.LoggerFactory;
 
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.SubmissionPublisher;
 import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
 
 /**
  * @author Jean-Baptiste Heyberger <jbheyberger at gmail.com>
@@ -64,12 +65,105 @@ public class OpenShortCircuitProvider implements ShortCircuitAnalysisProvider {
 
         Objects.requireNonNull(network);
         Objects.requireNonNull(parameters);
-        Stopwatch stopwatch = Stopwatch.createStarted();
+        Objects.requireNonNull(computationManager);
+
+        // the analysis runs on the computation manager executor, cancelling the returned future interrupts it
+        // and the engines stop at their next cancellation check
+        return CompletableFutureTask.runAsync(() -> runAnalysis(network, faults, parameters, faultParameters), computationManager.getExecutor());
+    }
+
+    /**
+     * Streaming variant of the analysis: each fault result is published as soon as it is computed, and is not kept once delivered.
+     * The analysis starts when a subscriber subscribes, each subscription runs its own analysis, which is cancelled when the
+     * subscription is cancelled.
+     * The solver waits when the subscriber buffer is full, so that a slow subscriber bounds the memory used by pending results.
+     * Results are delivered on the common pool, so that a solver waiting for the subscriber never holds a thread of the
+     * computation manager executor that the delivery needs.
+     */
+    public Flow.Publisher<FaultResult> publish(Network network, List<Fault> faults, ComputationManager computationManager) {
+        return publish(network, faults, new ShortCircuitParameters(), computationManager, Collections.emptyList());
+    }
+
+    public Flow.Publisher<FaultResult> publish(Network network, List<Fault> faults, ShortCircuitParameters parameters, ComputationManager computationManager,
+                                               List<FaultParameters> faultParameters) {
+        Objects.requireNonNull(network);
+        Objects.requireNonNull(parameters);
+        Objects.requireNonNull(computationManager);
+
+        return subscriber -> {
+            SubmissionPublisher<FaultResult> publisher = new SubmissionPublisher<>(ForkJoinPool.commonPool(), Flow.defaultBufferSize());
+            CancellableSubscriber cancellableSubscriber = new CancellableSubscriber(subscriber);
+            publisher.subscribe(cancellableSubscriber);
+            CompletableFutureTask<Void> task = CompletableFutureTask.runAsync(() -> {
+                runAnalysis(network, faults, parameters, faultParameters, publisher::submit, true);
+                return null;
+            }, computationManager.getExecutor());
+            task.whenComplete((r, e) -> {
+                if (e != null) {
+                    publisher.closeExceptionally(e);
+                } else {
+                    publisher.close();
+                }
+            });
+            // interrupting the analysis stops the engines at their next cancellation check
+            cancellableSubscriber.cancelled.thenRun(() -> task.cancel(true));
+        };
+    }
+
+    /**
+     * Forwards to the subscriber, and records the cancellation of its subscription.
+     */
+    private static final class CancellableSubscriber implements Flow.Subscriber<FaultResult> {
+
+        private final Flow.Subscriber<? super FaultResult> subscriber;
+
+        private final CompletableFuture<Void> cancelled = new CompletableFuture<>();
+
+        private CancellableSubscriber(Flow.Subscriber<? super FaultResult> subscriber) {
+            this.subscriber = Objects.requireNonNull(subscriber);
+        }
 
-        LoadFlowParameters lfParameters = new LoadFlowParameters();
-        LoadFlow.Runner loadFlowRunner = new LoadFlow.Runner(new OpenLoadFlowProvider(matrixFactory));
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            subscriber.onSubscribe(new Flow.Subscription() {
+                @Override
+                public void request(long n) {
+                    subscription.request(n);
+                }
+
+                @Override
+                public void cancel() {
+                    subscription.cancel();
+                    cancelled.complete(null);
+                }
+            });
+        }
+
+        @Override
+        public void onNext(FaultResult item) {
+            subscriber.onNext(item);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            subscriber.onError(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+            subscriber.onComplete();
+        }
+    }
 
-        LoadFlowResult lfResult = loadFlowRunner.run(network, lfParameters);
+    private ShortCircuitAnalysisResult runAnalysis(Network network, List<Fault> faults, ShortCircuitParameters parameters, List<FaultParameters> faultParameters) {
+        List<FaultResult> faultResults = new ArrayList<>();
+        runAnalysis(network, faults, parameters, faultParameters, faultResults::add, false);
+        return new ShortCircuitAnalysisResult(faultResults);
+    }
+
+    private void runAnalysis(Network network, List<Fault> faults, ShortCircuitParameters parameters, List<FaultParameters> faultParameters,
+                             Consumer<FaultResult> faultResultSink, boolean streamed) {
+        Stopwatch stopwatch = Stopwatch.createStarted();
 
         // building of fault lists
         List<ShortCircuitFault> faultsList = new ArrayList<>();
@@ -79,8 +173,11 @@ public class OpenShortCircuitProvider implements ShortCircuitAnalysisProvider {
         boolean existBalancedFaults = faultTypes.getKey();
         boolean existUnbalancedFaults = faultTypes.getValue();
 
+        // voltage profiles are only computed for the faults that need them
+        boolean voltageUpdate = applyFaultParameters(scFaultToFault, parameters, faultParameters);
+
         //Parameters that could be added in the short circuit provider API later:
-        // Voltage Profile
+        // Voltage Profile, nominal voltages do not need any pre-fault state
         ShortCircuitEngineParameters.VoltageProfileType voltageProfile = ShortCircuitEngineParameters.VoltageProfileType.NOMINAL;
 
         // Selective or Systematic short circuit analysis
@@ -92,84 +189,98 @@ public class OpenShortCircuitProvider implements ShortCircuitAnalysisProvider {
         LoadFlowParameters loadFlowParameters = new LoadFlowParameters();
         ShortCircuitNorm shortCircuitNorm = new ShortCircuitNormNone();
 
-        ShortCircuitEngineParameters scbParameters = new ShortCircuitEngineParameters(loadFlowParameters, matrixFactory, at, faultsList, true, voltageProfile, false, periodType, shortCircuitNorm);
+        ShortCircuitEngineParameters scbParameters = new ShortCircuitEngineParameters(loadFlowParameters, matrixFactory, at, faultsList, voltageUpdate, voltageProfile, false, periodType, shortCircuitNorm);
+        scbParameters.setMinVoltageDropProportionalThreshold(parameters.getMinVoltageDropProportionalThreshold());
 
-        // lists to store the results
-        List<FaultResult> faultResults = new ArrayList<>();
+        // the lfNetworks are loaded once and shared by the balanced and unbalanced engines
+        List<LfNetwork> lfNetworks = AbstractShortCircuitEngine.loadLfNetworks(network, scbParameters);
 
         if (existBalancedFaults) {
-            runBalancedAnalysis(network, scbParameters, scFaultToFault, faultResults);
+            ShortCircuitBalancedEngine scbEngine = new ShortCircuitBalancedEngine(network, scbParameters, lfNetworks);
+            runEngine(scbEngine, (scFault, scResult) -> buildFaultResult(scFaultToFault.get(scFault), scFault, scResult, parameters.isWithFortescueResult()), faultResultSink, streamed);
         }
 
         if (existUnbalancedFaults) {
-            runUnbalancedAnalysis(network, scbParameters, scFaultToFault, faultResults);
+            ShortCircuitUnbalancedEngine scuEngine = new ShortCircuitUnbalancedEngine(network, scbParameters, lfNetworks);
+            runEngine(scuEngine, (scFault, scResult) -> buildFaultResult(scFaultToFault.get(scFault), scFault, scResult, parameters.isWithFortescueResult()), faultResultSink, streamed);
         }
 
         LOGGER.info("Short circuit calculation done in {} ms", stopwatch.elapsed(TimeUnit.MILLISECONDS));
-
-        return CompletableFuture.completedFuture(new ShortCircuitAnalysisResult(faultResults));
     }
 
-    public void runUnbalancedAnalysis(Network network, ShortCircuitEngineParameters scbParameters, Map<ShortCircuitFault, Fault> scFaultToFault, List<FaultResult> faultResults) {
-        ShortCircuitUnbalancedEngine scuEngine = new ShortCircuitUnbalancedEngine(network, scbParameters);
-        scuEngine.run();
-
-        // the results per faults might be inconsistent if many busses per voltage level
-        // TODO : see how this could be improved by allowing results per electrical bus on the short circuit provider
-        for (Map.Entry<ShortCircuitFault, ShortCircuitResult> scResult : scuEngine.resultsPerFault.entrySet()) {
-            ShortCircuitFault scFault = scResult.getKey();
-
-            double iccMagnitude = scResult.getValue().getIk().abs();
-
-            Fault fault = scFaultToFault.get(scFault);
-
-            List<FeederResult> feederResults = new ArrayList<>();
-            List<LimitViolation> limitViolations = new ArrayList<>();
-            MagnitudeFaultResult magnitudeFaultResult = new MagnitudeFaultResult(fault, 0., feederResults, limitViolations, iccMagnitude, FaultResult.Status.SUCCESS);
-            faultResults.add(magnitudeFaultResult);
+    /**
+     * Sets the result flags of each fault from its fault parameters, or from the analysis parameters if the fault has none.
+     * Returns true if at least one fault needs the post-fault voltage profile. Limit violations are not computed.
+     */
+    private static boolean applyFaultParameters(Map<ShortCircuitFault, Fault> scFaultToFault, ShortCircuitParameters parameters, List<FaultParameters> faultParameters) {
+        Map<String, FaultParameters> faultParametersById = new HashMap<>();
+        if (faultParameters != null) {
+            for (FaultParameters fp : faultParameters) {
+                faultParametersById.put(fp.getId(), fp);
+            }
         }
+        boolean voltageUpdate = false;
+        for (Map.Entry<ShortCircuitFault, Fault> e : scFaultToFault.entrySet()) {
+            ShortCircuitFault scFault = e.getKey();
+            FaultParameters fp = faultParametersById.get(e.getValue().getId());
+            if (fp != null) {
+                scFault.setWithVoltageResult(fp.isWithVoltageResult());
+                scFault.setWithFeederResult(fp.isWithFeederResult());
+            } else {
+                scFault.setWithVoltageResult(parameters.isWithVoltageResult());
+                scFault.setWithFeederResult(parameters.isWithFeederResult());
+            }
+            voltageUpdate |= scFault.isVoltageUpdate();
+        }
+        return voltageUpdate;
     }
 
-    public void runBalancedAnalysis(Network network, ShortCircuitEngineParameters scbParameters, Map<ShortCircuitFault, Fault> scFaultToFault, List<FaultResult> faultResults) {
-        ShortCircuitBalancedEngine scbEngine = new ShortCircuitBalancedEngine(network, scbParameters);
-        scbEngine.run();
-
-        // the results per faults might be inconsistent if many busses per voltage level
-        // TODO : see how this could be improved by allowing results per electrical bus on the short circuit provider
-        for (Map.Entry<ShortCircuitFault, ShortCircuitResult> scFaultResult : scbEngine.resultsPerFault.entrySet()) {
-            ShortCircuitFault scFault = scFaultResult.getKey();
-            ShortCircuitResult scResult = scFaultResult.getValue();
+    private static void runEngine(AbstractShortCircuitEngine engine, BiFunction<ShortCircuitFault, ShortCircuitResult, FaultResult> faultResultBuilder,
+                                  Consumer<FaultResult> faultResultSink, boolean streamed) {
+        if (streamed) {
+            // results are delivered as they are computed and not retained by the engine
+            engine.setResultConsumer((scFault, scResult) -> faultResultSink.accept(faultResultBuilder.apply(scFault, scResult)));
+            engine.setResultsKept(false);
+            engine.run();
+        } else {
+            // results are delivered once all components are solved, in the order of the input faults
+            engine.run();
+            for (Map.Entry<ShortCircuitFault, ShortCircuitResult> scResult : engine.getResultsPerFault().entrySet()) {
+                faultResultSink.accept(faultResultBuilder.apply(scResult.getKey(), scResult.getValue()));
+            }
+        }
+    }
 
-            double iccMagnitude = scResult.getIk().abs();
+    public void runUnbalancedAnalysis(Network network, ShortCircuitEngineParameters scbParameters, Map<ShortCircuitFault, Fault> scFaultToFault, List<FaultResult> faultResults) {
+        runUnbalancedAnalysis(network, scbParameters, AbstractShortCircuitEngine.loadLfNetworks(network, scbParameters), scFaultToFault, faultResults);
+    }
 
-            Fault fault = scFaultToFault.get(scFault);
+    public void runUnbalancedAnalysis(Network network, ShortCircuitEngineParameters scbParameters, List<LfNetwork> lfNetworks, Map<ShortCircuitFault, Fault> scFaultToFault, List<FaultResult> faultResults) {
+        ShortCircuitUnbalancedEngine scuEngine = new ShortCircuitUnbalancedEngine(network, scbParameters, lfNetworks);
+        runEngine(scuEngine, (scFault, scResult) -> buildFaultResult(scFaultToFault.get(scFault), scFault, scResult, false), faultResults::add, false);
+    }
 
-            List<FeederResult> feederResultsProvider = new ArrayList<>();
-            fillFeederResults(feederResultsProvider, scResult);
+    public void runBalancedAnalysis(Network network, ShortCircuitEngineParameters scbParameters, Map<ShortCircuitFault, Fault> scFaultToFault, List<FaultResult> faultResults) {
+        runBalancedAnalysis(network, scbParameters, AbstractShortCircuitEngine.loadLfNetworks(network, scbParameters), scFaultToFault, faultResults);
+    }
 
-            List<LimitViolation> limitViolations = new ArrayList<>();
+    public void runBalancedAnalysis(Network network, ShortCircuitEngineParameters scbParameters, List<LfNetwork> lfNetworks, Map<ShortCircuitFault, Fault> scFaultToFault, List<FaultResult> faultResults) {
+        ShortCircuitBalancedEngine scbEngine = new ShortCircuitBalancedEngine(network, scbParameters, lfNetworks);
+        runEngine(scbEngine, (scFault, scResult) -> buildFaultResult(scFaultToFault.get(scFault), scFault, scResult, false), faultResults::add, false);
+    }
 
-            MagnitudeFaultResult magnitudeFaultResult = new MagnitudeFaultResult(fault, 0., feederResultsProvider, limitViolations, iccMagnitude, FaultResult.Status.SUCCESS);
-            faultResults.add(magnitudeFaultResult);
+    // the results per faults might be inconsistent if many busses per voltage level
+    // TODO : see how this could be improved by allowing results per electrical bus on the short circuit provider
+    // fault results are views over the short circuit results, feeder results being built only when read
+    private FaultResult buildFaultResult(Fault fault, ShortCircuitFault scFault, ShortCircuitResult scResult, boolean withFortescueResult) {
+        if (withFortescueResult) {
+            return new ShortCircuitFortescueFaultResult(fault, scResult, scFault.isWithFeederResult());
         }
+        return new ShortCircuitMagnitudeFaultResult(fault, scResult, scFault.isWithFeederResult());
     }
 
     public void fillFeederResults(List<FeederResult> feederResultsProvider, ShortCircuitResult scResult) {
-        for (Map.Entry<LfBus, FeedersAtBusResult> busAndFeedersAtBusResult : scResult.getFeedersResultDirect().entrySet()) {
-            LfBus lfBus = busAndFeedersAtBusResult.getKey();
-            FeedersAtBusResult feedersAtBusResult = busAndFeedersAtBusResult.getValue();
-            for (com.powsybl.sc.util.FeederResult feederResult : feedersAtBusResult.getBusFeedersResult()) {
-                Complex iCont = feederResult.getIContribution();
-
-                double magnitude = Math.sqrt(3.) * iCont.abs() * 100. / lfBus.getNominalV(); // same dimension as Ik3
-
-                String feederId = lfBus.getId() + "_" + feederResult.getFeeder().getId();
-
-                MagnitudeFeederResult magnitudeFeederResult = new MagnitudeFeederResult(feederId, magnitude);
-                feederResultsProvider.add(magnitudeFeederResult);
-            }
-        }
-
+        feederResultsProvider.addAll(new ShortCircuitFeederResultList(scResult));
     }
 
     public Pair<Boolean, Boolean> buildFaultLists(Network network, List<Fault> faults, List<ShortCircuitFault> balancedFaultsList, Map<ShortCircuitFault, Fault> scFaultToFault) {
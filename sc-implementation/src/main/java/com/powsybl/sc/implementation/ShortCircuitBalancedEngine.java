@@ -16,6 +16,8 @@ import com.powsybl.sc.util.ImpedanceLinearResolution;
 import com.powsybl.sc.util.ImpedanceLinearResolutionParameters;
 import org.apache.commons.math3.complex.Complex;
 
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -27,34 +29,57 @@ public class ShortCircuitBalancedEngine extends AbstractShortCircuitEngine {
         super(network, parameters);
     }
 
+    public ShortCircuitBalancedEngine(Network network, ShortCircuitEngineParameters parameters, List<LfNetwork> lfNetworks) {
+        super(network, parameters, lfNetworks);
+    }
+
     @Override
-    public void run() { //can handle both selective and systematic analysis with one single matrix inversion
-        LfNetwork lfNetwork = lfNetworks.get(0);
+    protected ShortCircuitFault.ShortCircuitType getSystematicFaultType() {
+        return ShortCircuitFault.ShortCircuitType.TRIPHASED_GROUND;
+    }
 
-        // building a contingency list with all voltage levels
-        if (parameters.getAnalysisType() == ShortCircuitEngineParameters.AnalysisType.SYSTEMATIC) {
-            buildSystematicList(ShortCircuitFault.ShortCircuitType.TRIPHASED_GROUND);
+    @Override
+    protected Map<ShortCircuitFault, ShortCircuitResult> runOnLfNetwork(LfNetwork lfNetwork, List<CalculationLocation> faultList, List<CalculationLocation> biphasedFaultList) {
+        //can handle both selective and systematic analysis with one single matrix inversion
+        Map<ShortCircuitFault, ShortCircuitResult> results = new LinkedHashMap<>();
+        if (faultList.isEmpty()) {
+            return results; // biphased common support faults are not handled by the balanced engine
         }
 
-        solverFaultList = buildFaultListsFromInputs().getKey();
-
         ImpedanceLinearResolutionParameters linearResolutionParameters = new ImpedanceLinearResolutionParameters(acLoadFlowParameters,
-                parameters.getMatrixFactory(), solverFaultList, parameters.isVoltageUpdate(), getAdmittanceVoltageProfileTypeFromParam(),
+                parameters.getMatrixFactory(), faultList, parameters.isVoltageUpdate(), getAdmittanceVoltageProfileTypeFromParam(),
                 getAdmittancePeriodTypeFromParam(), AdmittanceEquationSystem.AdmittanceType.ADM_THEVENIN, parameters.isIgnoreShunts());
+        linearResolutionParameters.setMonitoredBusses(getMonitoredBusses(lfNetwork));
+        linearResolutionParameters.setOffHeapColumns(parameters.isOffHeapImpedanceColumns());
+        linearResolutionParameters.setAdmittanceMatrixCache(getAdmittanceMatrixCache());
+        linearResolutionParameters.setAbsoluteZDropTolerance(parameters.getAbsoluteZDropTolerance());
+        linearResolutionParameters.setRelativeZDropTolerance(parameters.getRelativeZDropTolerance());
+        if (linearResolutionParameters.isSparseColumns()) {
+            linearResolutionParameters.setKeptBussesProvider(getKeptBussesProvider(lfNetwork, faultList, biphasedFaultList));
+        }
 
         ImpedanceLinearResolution directResolution = new ImpedanceLinearResolution(lfNetwork, linearResolutionParameters);
-
-        directResolution.run();
-
-        //Build the ShortCircuit results using the Thevenin computation results
-        resultsPerFault.clear();
-        processAdmittanceLinearResolutionResults(lfNetwork, directResolution);
-
+        try {
+            directResolution.run();
+            checkCancelled();
+
+            //Build the ShortCircuit results using the Thevenin computation results
+            processAdmittanceLinearResolutionResults(lfNetwork, directResolution, faultList, results);
+        } finally {
+            releaseResolution(directResolution);
+        }
+        return results;
     }
 
-    protected void processAdmittanceLinearResolutionResults(LfNetwork lfNetwork, ImpedanceLinearResolution directResolution) {
+    protected void processAdmittanceLinearResolutionResults(LfNetwork lfNetwork, ImpedanceLinearResolution directResolution,
+                                                            List<CalculationLocation> faultList, Map<ShortCircuitFault, ShortCircuitResult> results) {
+
+        // faults are located in the lfNetwork, we can now group them by bus number
+        ShortCircuitFaultIndex faultIndex = new ShortCircuitFaultIndex(faultList, lfNetwork);
+        VoltageProfilePropagation propagation = createVoltageProfilePropagation(lfNetwork, true);
 
         for (ImpedanceLinearResolution.ImpedanceLinearResolutionResult linearResolutionResult : directResolution.results) {
+            checkCancelled();
             LfBus bus = linearResolutionResult.getBus();
 
             // For each contingency that matches the given bus of the linear resolution we compute:
@@ -64,17 +89,7 @@ public class ShortCircuitBalancedEngine extends AbstractShortCircuitEngine {
             Complex vInit = linearResolutionResult.getEth();
             Complex zth = linearResolutionResult.getZthEq(); //new Complex(linearResolutionResult.getRthz11(), linearResolutionResult.getXthz12());
 
-            for (CalculationLocation calculationLocation : solverFaultList) {
-                ShortCircuitFault scfe = (ShortCircuitFault) calculationLocation;
-                ShortCircuitFault scf = null;
-                if (bus.getId().equals(scfe.getLfBusInfo())) {
-                    scf = scfe;
-                }
-
-                if (scf == null) {
-                    continue;
-                }
-
+            for (ShortCircuitFault scf : faultIndex.getFaults(bus.getNum())) {
                 Complex zfToGround = scf.getZf().getZg();
                 Complex ztotal = zfToGround.add(zth);
 
@@ -87,29 +102,20 @@ public class ShortCircuitBalancedEngine extends AbstractShortCircuitEngine {
                 Complex zth20hz = linearResolutionResult.getZthEq20Hz();
 
                 ShortCircuitResult res = new ShortCircuitResult(scf, bus, id, zth, vInit, dv, linearResolutionResult.getEqSysFeeders(), parameters.getNorm(), zth20hz);
-                if (parameters.isVoltageUpdate()) {
+                if (parameters.isVoltageUpdate() && scf.isVoltageUpdate()) {
                     //we get the lfNetwork to process the results
                     res.setLfNetwork(lfNetwork);
 
                     res.setTrueVoltageProfileUpdate();
+                    res.setFeederBusses(getFeederBusses(lfNetwork, bus));
 
-                    // we compute the delta values to be added to Vinit if we want the post-fault voltage :
-                    // [dVk_r] = [Vk_r] - [Vk_r_init] = - i_nf_r * [zknf_r] + i_nf_i * [zknf_i]
-                    // [dVk_i] = [Vk_i] - [Vk_i_init] = - i_nf_r * [zknf_i] - i_nf_i * [zknf_Vr]
-                    int nbBusses = lfNetwork.getBuses().size();
-                    res.createEmptyFortescueVoltageVector(nbBusses);
-
-                    for (Map.Entry<Integer, Complex> zd : linearResolutionResult.getBusToZknf().entrySet()) {
-                        int busNum = zd.getKey();
-                        Complex zdBus = zd.getValue();
-                        Complex deltaV = zdBus.multiply(id).multiply(-1.);
-                        res.fillVoltageInFortescueVector(busNum, deltaV);
-                    }
+                    // the voltage profiles are computed by blocks of faults
+                    addResult(propagation, scf, res, linearResolutionResult, null, id, null, null, results);
+                } else {
+                    addResult(propagation, scf, res, results);
                 }
-
-                res.updateFeedersResult(); // feeders are updated only if voltageUpdate is made
-                resultsPerFault.put(scf, res);
             }
         }
+        flushResults(propagation, results);
     }
 }
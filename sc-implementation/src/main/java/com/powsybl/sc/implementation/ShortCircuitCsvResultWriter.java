@@ -0,0 +1,192 @@
+/**
+ * Copyright (c) 2022, Jean-Baptiste Heyberger & Geoffroy Jamgotchian
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ * SPDX-License-Identifier: MPL-2.0
+ */
+package com.powsybl.sc.implementation;
+
+import com.powsybl.openloadflow.network.LfBranch;
+import com.powsybl.openloadflow.network.LfBus;
+import com.powsybl.sc.util.FeederResult;
+import com.powsybl.sc.util.FeedersAtBusResult;
+import com.powsybl.shortcircuit.FortescueValue;
+import org.apache.commons.math3.complex.Complex;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.BiConsumer;
+
+/**
+ * Streams short circuit results to CSV files as they are computed, one file per kind of result:
+ * fault currents and voltages, bus voltage deltas, branch currents and direct feeder contributions.
+ * Rows are written straight from the values of each result, busses without voltage drop are not written.
+ * Sequence values are given as magnitude and angle (rad), in the order direct, homopolar, inverse, in pu except Ik (kA).
+ *
+ * @author Jean-Baptiste Heyberger <jbheyberger at gmail.com>
+ */
+public class ShortCircuitCsvResultWriter implements BiConsumer<ShortCircuitFault, ShortCircuitResult>, Closeable {
+
+    public static final String FAULTS_FILE_NAME = "faults.csv";
+    public static final String BUS_VOLTAGES_FILE_NAME = "bus-voltages.csv";
+    public static final String BRANCH_CURRENTS_FILE_NAME = "branch-currents.csv";
+    public static final String FEEDERS_FILE_NAME = "feeders.csv";
+
+    private static final char SEPARATOR = ';';
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final Writer faultsWriter;
+    private final Writer busVoltagesWriter;
+    private final Writer branchCurrentsWriter;
+    private final Writer feedersWriter;
+
+    private final double[] busDv = new double[6]; // voltage deltas of the written bus, reused as writing is synchronized
+
+    public ShortCircuitCsvResultWriter(Path directory) {
+        Objects.requireNonNull(directory);
+        try {
+            faultsWriter = createWriter(directory.resolve(FAULTS_FILE_NAME),
+                    "fault_id;bus_id;type;ik;i_d_mag;i_d_ang;i_o_mag;i_o_ang;i_i_mag;i_i_ang;v_d_mag;v_d_ang;v_o_mag;v_o_ang;v_i_mag;v_i_ang");
+            busVoltagesWriter = createWriter(directory.resolve(BUS_VOLTAGES_FILE_NAME),
+                    "fault_id;bus_id;dv_d_mag;dv_d_ang;dv_o_mag;dv_o_ang;dv_i_mag;dv_i_ang");
+            branchCurrentsWriter = createWriter(directory.resolve(BRANCH_CURRENTS_FILE_NAME),
+                    "fault_id;branch_id;di1_d_mag;di1_d_ang;di1_o_mag;di1_o_ang;di1_i_mag;di1_i_ang;di2_d_mag;di2_d_ang;di2_o_mag;di2_o_ang;di2_i_mag;di2_i_ang");
+            feedersWriter = createWriter(directory.resolve(FEEDERS_FILE_NAME),
+                    "fault_id;bus_id;feeder_id;i_re;i_im");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static Writer createWriter(Path file, String header) throws IOException {
+        Writer writer = new BufferedWriter(Files.newBufferedWriter(file, StandardCharsets.UTF_8), BUFFER_SIZE);
+        writer.write(header);
+        writer.write('\n');
+        return writer;
+    }
+
+    @Override
+    public synchronized void accept(ShortCircuitFault fault, ShortCircuitResult result) {
+        Objects.requireNonNull(fault);
+        Objects.requireNonNull(result);
+        try {
+            writeFault(fault, result);
+            if (result.isVoltageProfileUpdated() && result.getLfNetwork() != null && result.getBusNum2Dv() != null) {
+                writeBusVoltages(fault, result);
+                writeBranchCurrents(fault, result);
+                writeFeeders(fault, result);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void writeFault(ShortCircuitFault fault, ShortCircuitResult result) throws IOException {
+        faultsWriter.write(fault.getFaultId());
+        faultsWriter.write(SEPARATOR);
+        faultsWriter.write(result.getLfBus().getId());
+        faultsWriter.write(SEPARATOR);
+        faultsWriter.write(fault.getType().name());
+        writeValue(faultsWriter, result.getIk().abs());
+        writeFortescueValue(faultsWriter, result.getiFortescue());
+        writeFortescueValue(faultsWriter, result.getvFortescue());
+        faultsWriter.write('\n');
+    }
+
+    private void writeBusVoltages(ShortCircuitFault fault, ShortCircuitResult result) throws IOException {
+        // only the busses of the compact row of the profile can have a voltage drop
+        VoltageProfilePropagation.VoltageProfileList busNum2Dv = result.getBuiltVoltageProfile();
+        for (int v = 0; v < busNum2Dv.getStoredCount(); v++) {
+            if (!busNum2Dv.hasVoltageDropAt(v)) {
+                continue;
+            }
+            busNum2Dv.copyValueAt(v, busDv, 0);
+            busVoltagesWriter.write(fault.getFaultId());
+            busVoltagesWriter.write(SEPARATOR);
+            busVoltagesWriter.write(result.getLfNetwork().getBus(busNum2Dv.getBusNum(v)).getId());
+            // same columns as writeFortescueValue, read from the real and imaginary parts of the sequences
+            for (int i = 0; i < busDv.length; i += 2) {
+                writeValue(busVoltagesWriter, VoltageProfilePropagation.magnitude(busDv, i));
+                writeValue(busVoltagesWriter, VoltageProfilePropagation.angle(busDv, i));
+            }
+            busVoltagesWriter.write('\n');
+        }
+    }
+
+    private void writeBranchCurrents(ShortCircuitFault fault, ShortCircuitResult result) throws IOException {
+        Map<LfBranch, FortescueValue> branchDi1 = result.getBranchDi1();
+        Map<LfBranch, FortescueValue> branchDi2 = result.getBranchDi2();
+        if (branchDi1 == null) {
+            return; // feeders not requested
+        }
+        for (Map.Entry<LfBranch, FortescueValue> e : branchDi1.entrySet()) {
+            branchCurrentsWriter.write(fault.getFaultId());
+            branchCurrentsWriter.write(SEPARATOR);
+            branchCurrentsWriter.write(e.getKey().getId());
+            writeFortescueValue(branchCurrentsWriter, e.getValue());
+            writeFortescueValue(branchCurrentsWriter, branchDi2.get(e.getKey()));
+            branchCurrentsWriter.write('\n');
+        }
+    }
+
+    private void writeFeeders(ShortCircuitFault fault, ShortCircuitResult result) throws IOException {
+        Map<LfBus, FeedersAtBusResult> feedersResult = result.getFeedersResultDirect();
+        if (feedersResult == null) {
+            return;
+        }
+        for (Map.Entry<LfBus, FeedersAtBusResult> e : feedersResult.entrySet()) {
+            for (FeederResult feederResult : e.getValue().getBusFeedersResult()) {
+                Complex i = feederResult.getIContribution();
+                feedersWriter.write(fault.getFaultId());
+                feedersWriter.write(SEPARATOR);
+                feedersWriter.write(e.getKey().getId());
+                feedersWriter.write(SEPARATOR);
+                feedersWriter.write(feederResult.getFeeder().getId());
+                writeValue(feedersWriter, i.getReal());
+                writeValue(feedersWriter, i.getImaginary());
+                feedersWriter.write('\n');
+            }
+        }
+    }
+
+    private static void writeFortescueValue(Writer writer, FortescueValue value) throws IOException {
+        writeValue(writer, value.getPositiveMagnitude());
+        writeValue(writer, value.getPositiveAngle());
+        writeValue(writer, value.getZeroMagnitude());
+        writeValue(writer, value.getZeroAngle());
+        writeValue(writer, value.getNegativeMagnitude());
+        writeValue(writer, value.getNegativeAngle());
+    }
+
+    private static void writeValue(Writer writer, double value) throws IOException {
+        writer.write(SEPARATOR);
+        if (!Double.isNaN(value)) { // a missing sequence gives an empty cell
+            writer.write(Double.toString(value));
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        IOException exception = null;
+        for (Writer writer : List.of(faultsWriter, busVoltagesWriter, branchCurrentsWriter, feedersWriter)) {
+            try {
+                writer.close();
+            } catch (IOException e) {
+                exception = e;
+            }
+        }
+        if (exception != null) {
+            throw new UncheckedIOException(exception);
+        }
+    }
+}
@@ -10,8 +10,12 @@ package com.powsybl.sc.implementation;
 import com.powsybl.loadflow.LoadFlowParameters;
 import com.powsybl.math.matrix.MatrixFactory;
 
+import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * @author Jean-Baptiste Heyberger <jbheyberger at gmail.com>
@@ -51,6 +55,28 @@ public class ShortCircuitEngineParameters {
 
     private ShortCircuitNorm norm;
 
+    private Executor executor = ForkJoinPool.commonPool(); // used to solve the synchronous components of the network concurrently
+
+    private Executor postProcessingExecutor = null; // used to compute the voltage profiles and feeders of the faults of a block concurrently, null to compute them in the solving thread
+
+    private int feederRadius = -1; // max number of branches between the faulted bus and the busses where feeder contributions are computed, -1 if unbounded
+
+    private Set<String> feederVoltageLevelIds = Collections.emptySet(); // voltage levels where feeder contributions are always computed
+
+    private Set<String> monitoredBusIds = Collections.emptySet(); // bus breaker view busses where post-fault voltages are computed, all busses if empty
+
+    private boolean lazyVoltageProfile = false; // voltage profiles and feeders are only computed on their first access
+
+    private boolean offHeapImpedanceColumns = false; // impedance columns used for voltage profiles are kept off-heap until the lfNetwork is processed, or until their result is garbage collected with lazy profiles, not compatible with a drop tolerance
+
+    private boolean batchFaultEvaluation = false; // fault currents of the unbalanced engine are evaluated all at once on arrays, intended for systematic analyses
+
+    private double absoluteZDropTolerance = 0; // in pu, impedance terms below max(absolute, relative * |Zth|) are left out of the voltage profiles
+
+    private double relativeZDropTolerance = 0;
+
+    private double minVoltageDropProportionalThreshold = 0; // in % of the nominal voltage, smaller voltage drops are left out of the voltage profile
+
     public ShortCircuitEngineParameters(LoadFlowParameters loadFlowParameters, MatrixFactory matrixFactory, AnalysisType analysisType, List<ShortCircuitFault> faults, boolean isVoltageExport, VoltageProfileType vProfile, boolean ignoreShunts, PeriodType periodType, ShortCircuitNorm norm) {
         this.loadFlowParameters = Objects.requireNonNull(loadFlowParameters);
         this.matrixFactory = Objects.requireNonNull(matrixFactory);
@@ -63,6 +89,22 @@ public class ShortCircuitEngineParameters {
         this.norm = norm;
     }
 
+    public ShortCircuitEngineParameters(ShortCircuitEngineParameters other) {
+        this(other.loadFlowParameters, other.matrixFactory, other.analysisType, other.shortCircuitFaults, other.voltageUpdate,
+                other.vProfile, other.ignoreShunts, other.periodType, other.norm);
+        this.executor = other.executor;
+        this.postProcessingExecutor = other.postProcessingExecutor;
+        this.feederRadius = other.feederRadius;
+        this.feederVoltageLevelIds = other.feederVoltageLevelIds;
+        this.minVoltageDropProportionalThreshold = other.minVoltageDropProportionalThreshold;
+        this.monitoredBusIds = other.monitoredBusIds;
+        this.lazyVoltageProfile = other.lazyVoltageProfile;
+        this.offHeapImpedanceColumns = other.offHeapImpedanceColumns;
+        this.batchFaultEvaluation = other.batchFaultEvaluation;
+        this.absoluteZDropTolerance = other.absoluteZDropTolerance;
+        this.relativeZDropTolerance = other.relativeZDropTolerance;
+    }
+
     public LoadFlowParameters getLoadFlowParameters() {
         return loadFlowParameters;
     }
@@ -106,4 +148,136 @@ public class ShortCircuitEngineParameters {
     public void setVoltageUpdate(boolean bool) {
         voltageUpdate = bool;
     }
+
+    public Executor getExecutor() {
+        return executor;
+    }
+
+    /**
+     * Sets the executor solving the synchronous components, the calling thread waits for them.
+     * It should not be a bounded pool whose own tasks run engines, such as the variants of a {@link ShortCircuitMultiVariantRunner}.
+     */
+    public void setExecutor(Executor executor) {
+        checkExecutors(Objects.requireNonNull(executor), postProcessingExecutor);
+        this.executor = executor;
+    }
+
+    public Executor getPostProcessingExecutor() {
+        return postProcessingExecutor;
+    }
+
+    /**
+     * Sets the pool where the faults of a block are post-processed concurrently, or null to post-process them in the solving thread.
+     * The voltage profiles of large blocks are also propagated on this pool, see {@link VoltageProfilePropagation}.
+     * It cannot be the executor solving the components unless it is a {@link ForkJoinPool}, as the component tasks wait for
+     * the post-processing tasks and would exhaust a bounded pool.
+     */
+    public void setPostProcessingExecutor(Executor postProcessingExecutor) {
+        checkExecutors(executor, postProcessingExecutor);
+        this.postProcessingExecutor = postProcessingExecutor;
+    }
+
+    private static void checkExecutors(Executor executor, Executor postProcessingExecutor) {
+        if (postProcessingExecutor == executor && !(executor instanceof ForkJoinPool)) {
+            throw new IllegalArgumentException("The faults cannot be post-processed on the executor solving their components");
+        }
+    }
+
+    public int getFeederRadius() {
+        return feederRadius;
+    }
+
+    public void setFeederRadius(int feederRadius) {
+        this.feederRadius = feederRadius;
+    }
+
+    public Set<String> getFeederVoltageLevelIds() {
+        return feederVoltageLevelIds;
+    }
+
+    public void setFeederVoltageLevelIds(Set<String> feederVoltageLevelIds) {
+        this.feederVoltageLevelIds = Objects.requireNonNull(feederVoltageLevelIds);
+    }
+
+    public Set<String> getMonitoredBusIds() {
+        return monitoredBusIds;
+    }
+
+    public void setMonitoredBusIds(Set<String> monitoredBusIds) {
+        this.monitoredBusIds = Objects.requireNonNull(monitoredBusIds);
+    }
+
+    public boolean isLazyVoltageProfile() {
+        return lazyVoltageProfile;
+    }
+
+    public void setLazyVoltageProfile(boolean lazyVoltageProfile) {
+        this.lazyVoltageProfile = lazyVoltageProfile;
+    }
+
+    public boolean isOffHeapImpedanceColumns() {
+        return offHeapImpedanceColumns;
+    }
+
+    public void setOffHeapImpedanceColumns(boolean offHeapImpedanceColumns) {
+        checkImpedanceColumns(offHeapImpedanceColumns, absoluteZDropTolerance, relativeZDropTolerance);
+        this.offHeapImpedanceColumns = offHeapImpedanceColumns;
+    }
+
+    public boolean isBatchFaultEvaluation() {
+        return batchFaultEvaluation;
+    }
+
+    public void setBatchFaultEvaluation(boolean batchFaultEvaluation) {
+        this.batchFaultEvaluation = batchFaultEvaluation;
+    }
+
+    public double getAbsoluteZDropTolerance() {
+        return absoluteZDropTolerance;
+    }
+
+    public void setAbsoluteZDropTolerance(double absoluteZDropTolerance) {
+        if (absoluteZDropTolerance < 0) {
+            throw new IllegalArgumentException("Impedance drop tolerance must be positive: " + absoluteZDropTolerance);
+        }
+        checkImpedanceColumns(offHeapImpedanceColumns, absoluteZDropTolerance, relativeZDropTolerance);
+        this.absoluteZDropTolerance = absoluteZDropTolerance;
+    }
+
+    public double getRelativeZDropTolerance() {
+        return relativeZDropTolerance;
+    }
+
+    public void setRelativeZDropTolerance(double relativeZDropTolerance) {
+        if (relativeZDropTolerance < 0) {
+            throw new IllegalArgumentException("Impedance drop tolerance must be positive: " + relativeZDropTolerance);
+        }
+        checkImpedanceColumns(offHeapImpedanceColumns, absoluteZDropTolerance, relativeZDropTolerance);
+        this.relativeZDropTolerance = relativeZDropTolerance;
+    }
+
+    private static void checkImpedanceColumns(boolean offHeapImpedanceColumns, double absoluteZDropTolerance, double relativeZDropTolerance) {
+        // off-heap columns are stored whole, the tolerance would silently be ignored
+        if (offHeapImpedanceColumns && (absoluteZDropTolerance > 0 || relativeZDropTolerance > 0)) {
+            throw new IllegalArgumentException("Impedance columns cannot be both off-heap and sparse with a drop tolerance");
+        }
+    }
+
+    public double getMinVoltageDropProportionalThreshold() {
+        return minVoltageDropProportionalThreshold;
+    }
+
+    public void setMinVoltageDropProportionalThreshold(double minVoltageDropProportionalThreshold) {
+        if (minVoltageDropProportionalThreshold < 0) {
+            throw new IllegalArgumentException("Voltage drop threshold must be positive: " + minVoltageDropProportionalThreshold);
+        }
+        this.minVoltageDropProportionalThreshold = minVoltageDropProportionalThreshold;
+    }
+
+    /**
+     * Feeder contributions are computed at all busses if no radius and no voltage level are given.
+     */
+    public boolean isFeederNeighbourhoodBounded() {
+        return feederRadius >= 0 || !feederVoltageLevelIds.isEmpty();
+    }
 }
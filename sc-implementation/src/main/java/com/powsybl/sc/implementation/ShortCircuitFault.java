@@ -29,6 +29,17 @@ public class ShortCircuitFault extends CalculationLocation {
         this.biphasedType = biphasedType;
     }
 
+    public ShortCircuitFault(ShortCircuitFault other) {
+        // copy of the fault definition only, the copy has to be located again in the lfNetwork
+        super(other.getBusLocation(), other.getBus2Location());
+        this.zf = other.zf;
+        this.type = other.type;
+        this.faultId = other.faultId;
+        this.biphasedType = other.biphasedType;
+        this.withVoltageResult = other.withVoltageResult;
+        this.withFeederResult = other.withFeederResult;
+    }
+
 
     public enum ShortCircuitType {
         TRIPHASED_GROUND,
@@ -52,6 +63,10 @@ public class ShortCircuitFault extends CalculationLocation {
 
     private ShortCircuitBiphasedType biphasedType;
 
+    private boolean withVoltageResult = true; // post-fault voltage profile, only computed if voltage update is enabled in the engine parameters
+
+    private boolean withFeederResult = true; // branch currents and feeder contributions, they need the post-fault voltage profile
+
     public ShortCircuitType getType() {
         return type;
     }
@@ -67,4 +82,25 @@ public class ShortCircuitFault extends CalculationLocation {
     public String getFaultId() {
         return faultId;
     }
+
+    public boolean isWithVoltageResult() {
+        return withVoltageResult;
+    }
+
+    public void setWithVoltageResult(boolean withVoltageResult) {
+        this.withVoltageResult = withVoltageResult;
+    }
+
+    public boolean isWithFeederResult() {
+        return withFeederResult;
+    }
+
+    public void setWithFeederResult(boolean withFeederResult) {
+        this.withFeederResult = withFeederResult;
+    }
+
+    @Override
+    public boolean isVoltageUpdate() {
+        return withVoltageResult || withFeederResult;
+    }
 }
@@ -0,0 +1,332 @@
+/**
+ * Copyright (c) 2022, Jean-Baptiste Heyberger & Geoffroy Jamgotchian
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ * SPDX-License-Identifier: MPL-2.0
+ */
+package com.powsybl.sc.implementation;
+
+import org.apache.commons.math3.complex.Complex;
+import org.apache.commons.math3.util.FastMath;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Evaluation of the fortescue currents and fault voltages of many faults of the same type at once.
+ * Inputs and outputs are stored as one array per real or imaginary part, and each fault type is a loop over the faults
+ * with the formulas of {@link ShortCircuitKernels} written inline, without any call nor branch in the loop body.
+ *
+ * Fault voltages are the voltage drops at the faulted bus: Vo = -Zof * Io, Vd = -Zdf * Id and Vi = -Zdf * Ii.
+ *
+ * @author Jean-Baptiste Heyberger <jbheyberger at gmail.com>
+ */
+public class ShortCircuitFaultBatch {
+
+    private static final double SQRT3 = FastMath.sqrt(3.);
+    private static final double SQRT3_2 = SQRT3 / 2;
+
+    private final ShortCircuitFault.ShortCircuitType type;
+
+    private int size = 0;
+
+    private boolean computed = false;
+
+    // inputs
+    private double[] zdRe;
+    private double[] zdIm;
+    private double[] zoRe;
+    private double[] zoIm;
+    private double[] vRe;
+    private double[] vIm;
+    private double[] zgRe;
+    private double[] zgIm;
+    private double[] zbRe;
+    private double[] zbIm;
+    private double[] zcRe;
+    private double[] zcIm;
+
+    // outputs
+    private double[] ioRe;
+    private double[] ioIm;
+    private double[] idRe;
+    private double[] idIm;
+    private double[] iiRe;
+    private double[] iiIm;
+    private double[] voRe;
+    private double[] voIm;
+    private double[] vdRe;
+    private double[] vdIm;
+    private double[] viRe;
+    private double[] viIm;
+
+    // caller's index attached to each fault, for instance the number of its linear resolution result
+    private int[] tags;
+
+    public ShortCircuitFaultBatch(ShortCircuitFault.ShortCircuitType type, int capacity) {
+        this.type = Objects.requireNonNull(type);
+        if (type != ShortCircuitFault.ShortCircuitType.MONOPHASED
+                && type != ShortCircuitFault.ShortCircuitType.BIPHASED
+                && type != ShortCircuitFault.ShortCircuitType.BIPHASED_GROUND) {
+            throw new IllegalArgumentException("Batch evaluation not available for faults of type " + type);
+        }
+        if (capacity < 0) {
+            throw new IllegalArgumentException("Negative capacity: " + capacity);
+        }
+        allocate(capacity);
+    }
+
+    private void allocate(int capacity) {
+        zdRe = resize(zdRe, capacity);
+        zdIm = resize(zdIm, capacity);
+        zoRe = resize(zoRe, capacity);
+        zoIm = resize(zoIm, capacity);
+        vRe = resize(vRe, capacity);
+        vIm = resize(vIm, capacity);
+        zgRe = resize(zgRe, capacity);
+        zgIm = resize(zgIm, capacity);
+        zbRe = resize(zbRe, capacity);
+        zbIm = resize(zbIm, capacity);
+        zcRe = resize(zcRe, capacity);
+        zcIm = resize(zcIm, capacity);
+        // outputs are reused from one computation to the next
+        ioRe = resize(ioRe, capacity);
+        ioIm = resize(ioIm, capacity);
+        idRe = resize(idRe, capacity);
+        idIm = resize(idIm, capacity);
+        iiRe = resize(iiRe, capacity);
+        iiIm = resize(iiIm, capacity);
+        voRe = resize(voRe, capacity);
+        voIm = resize(voIm, capacity);
+        vdRe = resize(vdRe, capacity);
+        vdIm = resize(vdIm, capacity);
+        viRe = resize(viRe, capacity);
+        viIm = resize(viIm, capacity);
+        tags = tags == null ? new int[capacity] : Arrays.copyOf(tags, capacity);
+    }
+
+    private static double[] resize(double[] array, int capacity) {
+        return array == null ? new double[capacity] : Arrays.copyOf(array, capacity);
+    }
+
+    public ShortCircuitFault.ShortCircuitType getType() {
+        return type;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Adds a fault and returns its index in the batch.
+     */
+    public int add(Complex zdf, Complex zof, Complex initV, ShortCircuitFaultImpedance zFault) {
+        return add(zdf, zof, initV, zFault, 0);
+    }
+
+    /**
+     * Adds a fault with a tag given back by {@link #getTag(int)} and returns its index in the batch.
+     */
+    public int add(Complex zdf, Complex zof, Complex initV, ShortCircuitFaultImpedance zFault, int tag) {
+        if (size == zdRe.length) {
+            allocate(Math.max(16, 2 * size));
+        }
+        int k = size++;
+        zdRe[k] = zdf.getReal();
+        zdIm[k] = zdf.getImaginary();
+        zoRe[k] = zof.getReal();
+        zoIm[k] = zof.getImaginary();
+        vRe[k] = initV.getReal();
+        vIm[k] = initV.getImaginary();
+        zgRe[k] = zFault.getZg().getReal();
+        zgIm[k] = zFault.getZg().getImaginary();
+        zbRe[k] = zFault.getZb().getReal();
+        zbIm[k] = zFault.getZb().getImaginary();
+        zcRe[k] = zFault.getZc().getReal();
+        zcIm[k] = zFault.getZc().getImaginary();
+        tags[k] = tag;
+        computed = false;
+        return k;
+    }
+
+    public void compute() {
+        switch (type) {
+            case MONOPHASED:
+                computeMonophased();
+                break;
+            case BIPHASED:
+                computeBiphased();
+                break;
+            case BIPHASED_GROUND:
+                computeBiphasedGround();
+                break;
+            default:
+                throw new IllegalStateException("Unexpected fault type: " + type);
+        }
+        computeFaultVoltages();
+        computed = true;
+    }
+
+    private void computeMonophased() {
+        for (int k = 0; k < size; k++) {
+            // Io = a * Vd(init) / (Zof + 2 * Zdf + 3 * Zground), Id = a² * Io, Ii = a * Io
+            double ztRe = zoRe[k] + 2 * zdRe[k] + 3 * zgRe[k];
+            double ztIm = zoIm[k] + 2 * zdIm[k] + 3 * zgIm[k];
+            double avRe = -0.5 * vRe[k] - SQRT3_2 * vIm[k];
+            double avIm = -0.5 * vIm[k] + SQRT3_2 * vRe[k];
+            double den = ztRe * ztRe + ztIm * ztIm;
+            double oRe = (avRe * ztRe + avIm * ztIm) / den;
+            double oIm = (avIm * ztRe - avRe * ztIm) / den;
+            ioRe[k] = oRe;
+            ioIm[k] = oIm;
+            idRe[k] = -0.5 * oRe + SQRT3_2 * oIm;
+            idIm[k] = -0.5 * oIm - SQRT3_2 * oRe;
+            iiRe[k] = -0.5 * oRe - SQRT3_2 * oIm;
+            iiIm[k] = -0.5 * oIm + SQRT3_2 * oRe;
+        }
+    }
+
+    private void computeBiphased() {
+        for (int k = 0; k < size; k++) {
+            // Id = Vd(init) / (2 * Zdf + Zb), Ii = -Id, Io = 0
+            double ztRe = 2 * zdRe[k] + zbRe[k];
+            double ztIm = 2 * zdIm[k] + zbIm[k];
+            double den = ztRe * ztRe + ztIm * ztIm;
+            double dRe = (vRe[k] * ztRe + vIm[k] * ztIm) / den;
+            double dIm = (vIm[k] * ztRe - vRe[k] * ztIm) / den;
+            ioRe[k] = 0.;
+            ioIm[k] = 0.;
+            idRe[k] = dRe;
+            idIm[k] = dIm;
+            iiRe[k] = -dRe;
+            iiIm[k] = -dIm;
+        }
+    }
+
+    private void computeBiphasedGround() {
+        for (int k = 0; k < size; k++) {
+            // 2x2 system of ShortCircuitKernels.computeBiphasedGroundCurrents solved with the Cramer rule
+            double m11Re = zoRe[k] + 0.5 * zdRe[k] + SQRT3_2 * zdIm[k] - 1.5 * zbRe[k] - SQRT3_2 * zbIm[k] - 3 * zgRe[k];
+            double m11Im = zoIm[k] + 0.5 * zdIm[k] - SQRT3_2 * zdRe[k] - 1.5 * zbIm[k] + SQRT3_2 * zbRe[k] - 3 * zgIm[k];
+            double m12Re = SQRT3 * (zdIm[k] - zbIm[k]);
+            double m12Im = -SQRT3 * (zdRe[k] - zbRe[k]);
+            double m21Re = zoRe[k] + 0.5 * zdRe[k] - SQRT3_2 * zdIm[k] - 1.5 * zcRe[k] + SQRT3_2 * zcIm[k] - 3 * zgRe[k];
+            double m21Im = zoIm[k] + 0.5 * zdIm[k] + SQRT3_2 * zdRe[k] - 1.5 * zcIm[k] - SQRT3_2 * zcRe[k] - 3 * zgIm[k];
+            double m22Re = -SQRT3 * (zdIm[k] - zcIm[k]);
+            double m22Im = SQRT3 * (zdRe[k] - zcRe[k]);
+
+            double b1Re = 0.5 * vRe[k] - SQRT3_2 * vIm[k];
+            double b1Im = 0.5 * vIm[k] + SQRT3_2 * vRe[k];
+            double b2Re = 0.5 * vRe[k] + SQRT3_2 * vIm[k];
+            double b2Im = 0.5 * vIm[k] - SQRT3_2 * vRe[k];
+
+            double detRe = m11Re * m22Re - m11Im * m22Im - (m12Re * m21Re - m12Im * m21Im);
+            double detIm = m11Re * m22Im + m11Im * m22Re - (m12Re * m21Im + m12Im * m21Re);
+            double den = detRe * detRe + detIm * detIm;
+
+            double n1Re = b1Re * m22Re - b1Im * m22Im - (m12Re * b2Re - m12Im * b2Im);
+            double n1Im = b1Re * m22Im + b1Im * m22Re - (m12Re * b2Im + m12Im * b2Re);
+            double n2Re = m11Re * b2Re - m11Im * b2Im - (m21Re * b1Re - m21Im * b1Im);
+            double n2Im = m11Re * b2Im + m11Im * b2Re - (m21Re * b1Im + m21Im * b1Re);
+
+            double oRe = (n1Re * detRe + n1Im * detIm) / den;
+            double oIm = (n1Im * detRe - n1Re * detIm) / den;
+            double dRe = (n2Re * detRe + n2Im * detIm) / den;
+            double dIm = (n2Im * detRe - n2Re * detIm) / den;
+            ioRe[k] = oRe;
+            ioIm[k] = oIm;
+            idRe[k] = dRe;
+            idIm[k] = dIm;
+            iiRe[k] = -oRe - dRe;
+            iiIm[k] = -oIm - dIm;
+        }
+    }
+
+    private void computeFaultVoltages() {
+        for (int k = 0; k < size; k++) {
+            voRe[k] = -(zoRe[k] * ioRe[k] - zoIm[k] * ioIm[k]);
+            voIm[k] = -(zoRe[k] * ioIm[k] + zoIm[k] * ioRe[k]);
+            vdRe[k] = -(zdRe[k] * idRe[k] - zdIm[k] * idIm[k]);
+            vdIm[k] = -(zdRe[k] * idIm[k] + zdIm[k] * idRe[k]);
+            viRe[k] = -(zdRe[k] * iiRe[k] - zdIm[k] * iiIm[k]);
+            viIm[k] = -(zdRe[k] * iiIm[k] + zdIm[k] * iiRe[k]);
+        }
+    }
+
+    private void checkComputed(int k) {
+        if (!computed) {
+            throw new IllegalStateException("Batch has not been computed");
+        }
+        Objects.checkIndex(k, size);
+    }
+
+    public int getTag(int k) {
+        Objects.checkIndex(k, size);
+        return tags[k];
+    }
+
+    /**
+     * Real part of the given component of the currents of fault k, as ordered in {@link ShortCircuitKernels},
+     * the imaginary part being at component + 1.
+     */
+    public double getCurrent(int k, int component) {
+        checkComputed(k);
+        return switch (component) {
+            case ShortCircuitKernels.O -> ioRe[k];
+            case ShortCircuitKernels.O + 1 -> ioIm[k];
+            case ShortCircuitKernels.D -> idRe[k];
+            case ShortCircuitKernels.D + 1 -> idIm[k];
+            case ShortCircuitKernels.I -> iiRe[k];
+            case ShortCircuitKernels.I + 1 -> iiIm[k];
+            default -> throw new IllegalArgumentException("Unknown component: " + component);
+        };
+    }
+
+    /**
+     * Real part of the given component of the fault voltages of fault k, as ordered in {@link ShortCircuitKernels},
+     * the imaginary part being at component + 1.
+     */
+    public double getVoltage(int k, int component) {
+        checkComputed(k);
+        return switch (component) {
+            case ShortCircuitKernels.O -> voRe[k];
+            case ShortCircuitKernels.O + 1 -> voIm[k];
+            case ShortCircuitKernels.D -> vdRe[k];
+            case ShortCircuitKernels.D + 1 -> vdIm[k];
+            case ShortCircuitKernels.I -> viRe[k];
+            case ShortCircuitKernels.I + 1 -> viIm[k];
+            default -> throw new IllegalArgumentException("Unknown component: " + component);
+        };
+    }
+
+    public Complex getIo(int k) {
+        checkComputed(k);
+        return new Complex(ioRe[k], ioIm[k]);
+    }
+
+    public Complex getId(int k) {
+        checkComputed(k);
+        return new Complex(idRe[k], idIm[k]);
+    }
+
+    public Complex getIi(int k) {
+        checkComputed(k);
+        return new Complex(iiRe[k], iiIm[k]);
+    }
+
+    public Complex getVo(int k) {
+        checkComputed(k);
+        return new Complex(voRe[k], voIm[k]);
+    }
+
+    public Complex getVd(int k) {
+        checkComputed(k);
+        return new Complex(vdRe[k], vdIm[k]);
+    }
+
+    public Complex getVi(int k) {
+        checkComputed(k);
+        return new Complex(viRe[k], viIm[k]);
+    }
+}
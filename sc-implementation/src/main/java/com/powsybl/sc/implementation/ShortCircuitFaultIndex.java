@@ -0,0 +1,56 @@
+/**
+ * Copyright (c) 2022, Jean-Baptiste Heyberger & Geoffroy Jamgotchian
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ * SPDX-License-Identifier: MPL-2.0
+ */
+package com.powsybl.sc.implementation;
+
+import com.powsybl.openloadflow.network.LfNetwork;
+import com.powsybl.sc.util.CalculationLocation;
+
+import java.util.*;
+
+/**
+ * Groups the faults of a given lfNetwork by the number of their first LfBus, in one pass over the fault list.
+ * Faults are kept in their input order for each bus only: the engines visit the busses in the order of the linear
+ * resolution results, so results of faults at different busses do not come out in the order of the input faults.
+ *
+ * @author Jean-Baptiste Heyberger <jbheyberger at gmail.com>
+ */
+public class ShortCircuitFaultIndex {
+
+    private final Map<Integer, List<ShortCircuitFault>> faultsPerBusNum = new HashMap<>();
+
+    private final Map<ShortCircuitFault.ShortCircuitType, Map<Integer, List<ShortCircuitFault>>> faultsPerTypeAndBusNum = new EnumMap<>(ShortCircuitFault.ShortCircuitType.class);
+
+    public ShortCircuitFaultIndex(List<CalculationLocation> faults, LfNetwork lfNetwork) {
+        Objects.requireNonNull(faults);
+        Objects.requireNonNull(lfNetwork);
+        int nbBusses = lfNetwork.getBuses().size();
+        for (CalculationLocation calculationLocation : faults) {
+            ShortCircuitFault scf = (ShortCircuitFault) calculationLocation;
+            int busNum = scf.getLfBusNum();
+            if (busNum < 0 || busNum >= nbBusses || !lfNetwork.getBus(busNum).getId().equals(scf.getLfBusInfo())) {
+                continue; // fault could not be located in this lfNetwork
+            }
+            faultsPerBusNum.computeIfAbsent(busNum, k -> new ArrayList<>()).add(scf);
+            faultsPerTypeAndBusNum.computeIfAbsent(scf.getType(), k -> new HashMap<>())
+                    .computeIfAbsent(busNum, k -> new ArrayList<>())
+                    .add(scf);
+        }
+    }
+
+    public List<ShortCircuitFault> getFaults(int busNum) {
+        return faultsPerBusNum.getOrDefault(busNum, Collections.emptyList());
+    }
+
+    public List<ShortCircuitFault> getFaults(int busNum, ShortCircuitFault.ShortCircuitType type) {
+        Map<Integer, List<ShortCircuitFault>> faultsPerBusNumForType = faultsPerTypeAndBusNum.get(type);
+        if (faultsPerBusNumForType == null) {
+            return Collections.emptyList();
+        }
+        return faultsPerBusNumForType.getOrDefault(busNum, Collections.emptyList());
+    }
+}
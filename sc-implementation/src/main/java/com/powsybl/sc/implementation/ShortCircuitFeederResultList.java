@@ -0,0 +1,186 @@
+/**
+ * Copyright (c) 2022, Jean-Baptiste Heyberger & Geoffroy Jamgotchian
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ * SPDX-License-Identifier: MPL-2.0
+ */
+package com.powsybl.sc.implementation;
+
+import com.powsybl.openloadflow.network.LfBus;
+import com.powsybl.sc.util.FeedersAtBusResult;
+import com.powsybl.shortcircuit.FeederResult;
+import com.powsybl.shortcircuit.FortescueFeederResult;
+import com.powsybl.shortcircuit.FortescueValue;
+import com.powsybl.shortcircuit.MagnitudeFeederResult;
+import org.apache.commons.math3.complex.Complex;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Read only view of the feeder contributions of a short circuit result as a list of provider feeder results.
+ * The magnitude of a feeder is its direct contribution for a balanced fault, and the largest of its phase currents,
+ * rebuilt from its sequence contributions, for an unbalanced fault. Fortescue feeder results give the sequence
+ * contributions in kA instead.
+ * Nothing is built until the list is first read, the feeder ids, made of the bus id and the feeder id, being only built
+ * when requested.
+ *
+ * @author Jean-Baptiste Heyberger <jbheyberger at gmail.com>
+ */
+public class ShortCircuitFeederResultList extends AbstractList<FeederResult> {
+
+    /**
+     * Feeder result with the magnitude of the contribution, in the same dimension as Ik3.
+     */
+    public static class ShortCircuitFeederResult extends MagnitudeFeederResult {
+
+        private final LfBus lfBus;
+
+        private final com.powsybl.sc.util.FeederResult feederResult;
+
+        private String connectableId;
+
+        ShortCircuitFeederResult(LfBus lfBus, com.powsybl.sc.util.FeederResult feederResult) {
+            this(lfBus, feederResult, feederResult.getIContribution().abs());
+        }
+
+        ShortCircuitFeederResult(LfBus lfBus, com.powsybl.sc.util.FeederResult feederResult, double iMagnitude) {
+            super(feederResult.getFeeder().getId(), Math.sqrt(3.) * iMagnitude * 100. / lfBus.getNominalV());
+            this.lfBus = lfBus;
+            this.feederResult = feederResult;
+        }
+
+        @Override
+        public String getConnectableId() {
+            if (connectableId == null) {
+                connectableId = lfBus.getId() + "_" + feederResult.getFeeder().getId();
+            }
+            return connectableId;
+        }
+    }
+
+    /**
+     * Feeder result with the sequence values of the contribution in kA.
+     */
+    public static class ShortCircuitFortescueFeederResult extends FortescueFeederResult {
+
+        private final LfBus lfBus;
+
+        private final String feederId;
+
+        private String connectableId;
+
+        ShortCircuitFortescueFeederResult(LfBus lfBus, String feederId, FortescueValue current) {
+            super(feederId, current);
+            this.lfBus = lfBus;
+            this.feederId = feederId;
+        }
+
+        @Override
+        public String getConnectableId() {
+            if (connectableId == null) {
+                connectableId = lfBus.getId() + "_" + feederId;
+            }
+            return connectableId;
+        }
+    }
+
+    private final ShortCircuitResult scResult;
+
+    private final boolean fortescue;
+
+    private List<FeederResult> feederResults;
+
+    public ShortCircuitFeederResultList(ShortCircuitResult scResult) {
+        this(scResult, false);
+    }
+
+    public ShortCircuitFeederResultList(ShortCircuitResult scResult, boolean fortescue) {
+        this.scResult = Objects.requireNonNull(scResult);
+        this.fortescue = fortescue;
+    }
+
+    private synchronized List<FeederResult> getFeederResults() {
+        if (feederResults == null) {
+            List<FeederResult> results = new ArrayList<>();
+            Map<LfBus, FeedersAtBusResult> feedersResult = scResult.getFeedersResultDirect();
+            if (feedersResult != null) {
+                boolean balanced = scResult.getShortCircuitFault().getType() == ShortCircuitFault.ShortCircuitType.TRIPHASED_GROUND;
+                for (Map.Entry<LfBus, FeedersAtBusResult> e : feedersResult.entrySet()) {
+                    if (balanced) {
+                        for (com.powsybl.sc.util.FeederResult feederResult : e.getValue().getBusFeedersResult()) {
+                            if (fortescue) {
+                                results.add(createFortescueFeederResult(e.getKey(), feederResult, null, null));
+                            } else {
+                                results.add(new ShortCircuitFeederResult(e.getKey(), feederResult));
+                            }
+                        }
+                    } else {
+                        addUnbalancedFeederResults(e.getKey(), e.getValue(), results);
+                    }
+                }
+            }
+            feederResults = results;
+        }
+        return feederResults;
+    }
+
+    private void addUnbalancedFeederResults(LfBus bus, FeedersAtBusResult feedersDirect, List<FeederResult> results) {
+        // inverse feeders are built from the direct ones and are in the same order, homopolar feeders might differ
+        List<com.powsybl.sc.util.FeederResult> direct = feedersDirect.getBusFeedersResult();
+        List<com.powsybl.sc.util.FeederResult> inverse = scResult.getFeedersResultsInverse().get(bus).getBusFeedersResult();
+        Map<String, Complex> homopolarById = new HashMap<>();
+        for (com.powsybl.sc.util.FeederResult feederResult : scResult.getFeedersResultsHomopolar().get(bus).getBusFeedersResult()) {
+            homopolarById.put(feederResult.getFeeder().getId(), feederResult.getIContribution());
+        }
+        for (int i = 0; i < direct.size(); i++) {
+            com.powsybl.sc.util.FeederResult feederResult = direct.get(i);
+            Complex io = homopolarById.getOrDefault(feederResult.getFeeder().getId(), Complex.ZERO);
+            Complex ii = inverse.get(i).getIContribution();
+            if (fortescue) {
+                results.add(createFortescueFeederResult(bus, feederResult, io, ii));
+            } else {
+                results.add(new ShortCircuitFeederResult(bus, feederResult, getMaxPhaseMagnitude(feederResult.getIContribution(), io, ii)));
+            }
+        }
+    }
+
+    private FeederResult createFortescueFeederResult(LfBus bus, com.powsybl.sc.util.FeederResult feederResult, Complex io, Complex ii) {
+        // contributions are converted with the base current of the feeder bus, io and ii being null for a balanced fault
+        double factor = scResult.getSequenceCurrentFactor(bus);
+        Complex id = feederResult.getIContribution();
+        FortescueValue current = io == null
+                ? new FortescueValue(id.abs() * factor, id.getArgument())
+                : new FortescueValue(id.abs() * factor, io.abs() * factor, ii.abs() * factor, id.getArgument(), io.getArgument(), ii.getArgument());
+        return new ShortCircuitFortescueFeederResult(bus, feederResult.getFeeder().getId(), current);
+    }
+
+    static double getMaxPhaseMagnitude(Complex id, Complex io, Complex ii) {
+        // Ia = Io + Id + Ii, Ib = Io + a².Id + a.Ii, Ic = Io + a.Id + a².Ii with a = -1/2 + j.sqrt(3)/2
+        double halfSqrt3 = Math.sqrt(3.) / 2.;
+        double sr = io.getReal() - 0.5 * (id.getReal() + ii.getReal());
+        double si = io.getImaginary() - 0.5 * (id.getImaginary() + ii.getImaginary());
+        // rotated part of Ib, opposite in Ic: j.sqrt(3)/2.(Ii - Id)
+        double rr = -halfSqrt3 * (ii.getImaginary() - id.getImaginary());
+        double ri = halfSqrt3 * (ii.getReal() - id.getReal());
+        double ia = Math.hypot(io.getReal() + id.getReal() + ii.getReal(), io.getImaginary() + id.getImaginary() + ii.getImaginary());
+        double ib = Math.hypot(sr + rr, si + ri);
+        double ic = Math.hypot(sr - rr, si - ri);
+        return Math.max(ia, Math.max(ib, ic));
+    }
+
+    @Override
+    public FeederResult get(int index) {
+        return getFeederResults().get(index);
+    }
+
+    @Override
+    public int size() {
+        return getFeederResults().size();
+    }
+}
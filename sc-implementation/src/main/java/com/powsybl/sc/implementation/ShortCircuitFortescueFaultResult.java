@@ -0,0 +1,48 @@
+/**
+ * Copyright (c) 2022, Jean-Baptiste Heyberger & Geoffroy Jamgotchian
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ * SPDX-License-Identifier: MPL-2.0
+ */
+package com.powsybl.sc.implementation;
+
+import com.powsybl.shortcircuit.Fault;
+import com.powsybl.shortcircuit.FeederResult;
+import com.powsybl.shortcircuit.FortescueFaultResult;
+import com.powsybl.shortcircuit.FortescueValue;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Provider fault result giving the sequence values of the current and voltage at the faulted bus, in kA and in kV
+ * phase to ground, with the feeder results read from the short circuit result only when they are requested.
+ *
+ * @author Jean-Baptiste Heyberger <jbheyberger at gmail.com>
+ */
+public class ShortCircuitFortescueFaultResult extends FortescueFaultResult {
+
+    private final List<FeederResult> feederResults;
+
+    public ShortCircuitFortescueFaultResult(Fault fault, ShortCircuitResult scResult, boolean withFeederResult) {
+        super(fault, 0., Collections.emptyList(), Collections.emptyList(),
+                scale(scResult.getiFortescue(), scResult.getSequenceCurrentFactor(scResult.getLfBus())),
+                scale(scResult.getvFortescue(), scResult.getSequenceVoltageFactor()),
+                Collections.emptyList(), null, Status.SUCCESS);
+        this.feederResults = withFeederResult ? new ShortCircuitFeederResultList(scResult, true) : Collections.emptyList();
+    }
+
+    /**
+     * Returns the sequence values multiplied by a positive factor, angles being unchanged.
+     */
+    static FortescueValue scale(FortescueValue value, double factor) {
+        return new FortescueValue(value.getPositiveMagnitude() * factor, value.getZeroMagnitude() * factor, value.getNegativeMagnitude() * factor,
+                value.getPositiveAngle(), value.getZeroAngle(), value.getNegativeAngle());
+    }
+
+    @Override
+    public List<FeederResult> getFeederResults() {
+        return Collections.unmodifiableList(feederResults);
+    }
+}
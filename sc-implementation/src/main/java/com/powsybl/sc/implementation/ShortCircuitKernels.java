@@ -0,0 +1,264 @@
+/**
+ * Copyright (c) 2022, Jean-Baptiste Heyberger & Geoffroy Jamgotchian
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ * SPDX-License-Identifier: MPL-2.0
+ */
+package com.powsybl.sc.implementation;
+
+import org.apache.commons.math3.util.FastMath;
+
+import java.util.Objects;
+
+/**
+ * Allocation free computation of the fortescue currents and voltages of the unbalanced faults, complex values being
+ * given as real and imaginary parts and results written in arrays provided by the caller.
+ * Formulas are the ones described in the short circuit calculators, which only wrap these kernels.
+ *
+ * Result arrays hold the real and imaginary parts of the zero, direct and inverse components at offsets {@link #O},
+ * {@link #D} and {@link #I}, common support results also hold the components of the second bus at offset {@link #BUS2}.
+ * Single bus kernels can write at a given offset, so that the results of many faults are stored in the same array.
+ *
+ * @author Jean-Baptiste Heyberger <jbheyberger at gmail.com>
+ */
+public final class ShortCircuitKernels {
+
+    public static final int O = 0;
+    public static final int D = 2;
+    public static final int I = 4;
+    public static final int BUS2 = 6;
+
+    public static final int CURRENTS_SIZE = 6;
+    public static final int COMMON_SUPPORT_SIZE = 12;
+
+    // offsets of the impedance terms between the two busses of a common support fault, direct terms first then zero terms
+    public static final int Z11 = 0;
+    public static final int Z12 = 2;
+    public static final int Z21 = 4;
+    public static final int Z22 = 6;
+    public static final int HOMOPOLAR = 8;
+
+    public static final int IMPEDANCES_SIZE = 16;
+
+    private static final double SQRT3 = FastMath.sqrt(3.);
+    private static final double SQRT3_2 = SQRT3 / 2;
+
+    private ShortCircuitKernels() {
+    }
+
+    /**
+     * Triphased fault: Id = Vd(init) / (Zdf + Zground), Io = Ii = 0
+     */
+    public static void computeTriphasedCurrents(double zdRe, double zdIm, double zgRe, double zgIm,
+                                                double vRe, double vIm, double[] i, int offset) {
+        i[offset + O] = 0.;
+        i[offset + O + 1] = 0.;
+        divide(vRe, vIm, zdRe + zgRe, zdIm + zgIm, i, offset + D);
+        i[offset + I] = 0.;
+        i[offset + I + 1] = 0.;
+    }
+
+    public static void computeMonophasedCurrents(double zdRe, double zdIm, double zoRe, double zoIm,
+                                                 double zgRe, double zgIm, double vRe, double vIm, double[] i) {
+        computeMonophasedCurrents(zdRe, zdIm, zoRe, zoIm, zgRe, zgIm, vRe, vIm, i, 0);
+    }
+
+    /**
+     * Monophased fault: Ic = a * Vd(init) / (1/3 * (Zof + 2 * Zdf) + Zground), Io = Ic / 3, Id = a² * Io, Ii = a * Io
+     */
+    public static void computeMonophasedCurrents(double zdRe, double zdIm, double zoRe, double zoIm,
+                                                 double zgRe, double zgIm, double vRe, double vIm, double[] i, int offset) {
+        double ztRe = zgRe + (2 * zdRe + zoRe) / 3.;
+        double ztIm = zgIm + (2 * zdIm + zoIm) / 3.;
+
+        // Io = a * Vd(init) / (3 * Zt)
+        divide(-0.5 * vRe - SQRT3_2 * vIm, -0.5 * vIm + SQRT3_2 * vRe, 3 * ztRe, 3 * ztIm, i, offset + O);
+        multiplyA2(i, offset + O, i, offset + D);
+        multiplyA(i, offset + O, i, offset + I);
+    }
+
+    public static void computeBiphasedCurrents(double zdRe, double zdIm, double zbRe, double zbIm,
+                                               double vRe, double vIm, double[] i) {
+        computeBiphasedCurrents(zdRe, zdIm, zbRe, zbIm, vRe, vIm, i, 0);
+    }
+
+    /**
+     * Biphased fault: Ib = -j * sqrt(3) * Vd(init) / (2 * Zdf + Zf) and Id = 1/3 * (a - a²) * Ib reduces to
+     * Id = Vd(init) / (2 * Zdf + Zf), Ii = -Id, Io = 0
+     */
+    public static void computeBiphasedCurrents(double zdRe, double zdIm, double zbRe, double zbIm,
+                                               double vRe, double vIm, double[] i, int offset) {
+        i[offset + O] = 0.;
+        i[offset + O + 1] = 0.;
+        divide(vRe, vIm, 2 * zdRe + zbRe, 2 * zdIm + zbIm, i, offset + D);
+        i[offset + I] = -i[offset + D];
+        i[offset + I + 1] = -i[offset + D + 1];
+    }
+
+    public static void computeBiphasedGroundCurrents(double zdRe, double zdIm, double zoRe, double zoIm,
+                                                     double zgRe, double zgIm, double zbRe, double zbIm, double zcRe, double zcIm,
+                                                     double vRe, double vIm, double[] i) {
+        computeBiphasedGroundCurrents(zdRe, zdIm, zoRe, zoIm, zgRe, zgIm, zbRe, zbIm, zcRe, zcIm, vRe, vIm, i, 0);
+    }
+
+    /**
+     * Biphased ground fault with fault impedances Zb, Zc and Zg, closed form of the 13 equations system of
+     * {@link BiphasedGroundShortCircuitCalculator#computeCurrentsGeneralForm()}.
+     * Replacing Ii = -Io - Id in Vb - Zg * 3 * Io = Zb * Ib and Vc - Zg * 3 * Io = Zc * Ic gives the 2x2 system:
+     *
+     * [ Zo - a.Zd - (1 - a).Zb - 3.Zg      (a² - a).(Zd - Zb) ]   [ Io ]   [ -a².Vd(init) ]
+     * [ Zo - a².Zd - (1 - a²).Zc - 3.Zg    (a - a²).(Zd - Zc) ] . [ Id ] = [ -a.Vd(init)  ]
+     *
+     * solved with the Cramer rule.
+     */
+    public static void computeBiphasedGroundCurrents(double zdRe, double zdIm, double zoRe, double zoIm,
+                                                     double zgRe, double zgIm, double zbRe, double zbIm, double zcRe, double zcIm,
+                                                     double vRe, double vIm, double[] i, int offset) {
+        double m11Re = zoRe + 0.5 * zdRe + SQRT3_2 * zdIm - 1.5 * zbRe - SQRT3_2 * zbIm - 3 * zgRe;
+        double m11Im = zoIm + 0.5 * zdIm - SQRT3_2 * zdRe - 1.5 * zbIm + SQRT3_2 * zbRe - 3 * zgIm;
+        // (a² - a) = -j.sqrt(3)
+        double m12Re = SQRT3 * (zdIm - zbIm);
+        double m12Im = -SQRT3 * (zdRe - zbRe);
+        double m21Re = zoRe + 0.5 * zdRe - SQRT3_2 * zdIm - 1.5 * zcRe + SQRT3_2 * zcIm - 3 * zgRe;
+        double m21Im = zoIm + 0.5 * zdIm + SQRT3_2 * zdRe - 1.5 * zcIm - SQRT3_2 * zcRe - 3 * zgIm;
+        // (a - a²) = j.sqrt(3)
+        double m22Re = -SQRT3 * (zdIm - zcIm);
+        double m22Im = SQRT3 * (zdRe - zcRe);
+
+        double b1Re = 0.5 * vRe - SQRT3_2 * vIm;
+        double b1Im = 0.5 * vIm + SQRT3_2 * vRe;
+        double b2Re = 0.5 * vRe + SQRT3_2 * vIm;
+        double b2Im = 0.5 * vIm - SQRT3_2 * vRe;
+
+        double detRe = m11Re * m22Re - m11Im * m22Im - (m12Re * m21Re - m12Im * m21Im);
+        double detIm = m11Re * m22Im + m11Im * m22Re - (m12Re * m21Im + m12Im * m21Re);
+
+        divide(b1Re * m22Re - b1Im * m22Im - (m12Re * b2Re - m12Im * b2Im),
+               b1Re * m22Im + b1Im * m22Re - (m12Re * b2Im + m12Im * b2Re),
+               detRe, detIm, i, offset + O);
+        divide(m11Re * b2Re - m11Im * b2Im - (m21Re * b1Re - m21Im * b1Im),
+               m11Re * b2Im + m11Im * b2Re - (m21Re * b1Im + m21Im * b1Re),
+               detRe, detIm, i, offset + D);
+        i[offset + I] = -i[offset + O] - i[offset + D];
+        i[offset + I + 1] = -i[offset + O + 1] - i[offset + D + 1];
+    }
+
+    /**
+     * Voltage drops at the faulted bus of a single bus fault: Vo = -Zof * Io, Vd = -Zdf * Id and Vi = -Zdf * Ii,
+     * the inverse impedance being the direct one. Currents are read from i and voltages written in v, at the same offset.
+     */
+    public static void computeFaultVoltages(double zdRe, double zdIm, double zoRe, double zoIm, double[] i, double[] v, int offset) {
+        v[offset + O] = -(zoRe * i[offset + O] - zoIm * i[offset + O + 1]);
+        v[offset + O + 1] = -(zoRe * i[offset + O + 1] + zoIm * i[offset + O]);
+        v[offset + D] = -(zdRe * i[offset + D] - zdIm * i[offset + D + 1]);
+        v[offset + D + 1] = -(zdRe * i[offset + D + 1] + zdIm * i[offset + D]);
+        v[offset + I] = -(zdRe * i[offset + I] - zdIm * i[offset + I + 1]);
+        v[offset + I + 1] = -(zdRe * i[offset + I + 1] + zdIm * i[offset + I]);
+    }
+
+    /**
+     * Biphased common support fault between phase c of bus 1 and phase a, b or c of bus 2, the inverse impedances being
+     * the direct ones:
+     *
+     *                                 a * V1d(init) - k * V2d(init)
+     * Ic1 = --------------------------------------------------------------------------------------
+     *        Zf + 1/3*(2*Zd_11 + 2*Zd_22 + Zo_11 + Zo_22 - Zo_12 - Zo_21 + s * (Zd_12 + Zd_21))
+     *
+     * with k = 1, a², a and s = 1, 1, -2 for C1_A2, C1_B2 and C1_C2 faults. Currents are written in i and voltages
+     * in v, z holding the impedance terms at offsets {@link #Z11}, {@link #Z12}, {@link #Z21}, {@link #Z22} for the
+     * direct terms and {@link #HOMOPOLAR} plus these offsets for the zero terms.
+     */
+    public static void computeBiphasedCommonSupport(ShortCircuitFault.ShortCircuitBiphasedType type, double[] z,
+                                                    double zgRe, double zgIm,
+                                                    double v1Re, double v1Im, double v2Re, double v2Im,
+                                                    double[] i, double[] v) {
+        Objects.requireNonNull(type);
+        int zo = HOMOPOLAR;
+        double s = type == ShortCircuitFault.ShortCircuitBiphasedType.C1_C2 ? -2. : 1.;
+        double ztRe = zgRe + (2 * z[Z11] + 2 * z[Z22] + z[zo + Z11] + z[zo + Z22] - z[zo + Z12] - z[zo + Z21]
+                + s * (z[Z12] + z[Z21])) / 3.;
+        double ztIm = zgIm + (2 * z[Z11 + 1] + 2 * z[Z22 + 1] + z[zo + Z11 + 1] + z[zo + Z22 + 1] - z[zo + Z12 + 1] - z[zo + Z21 + 1]
+                + s * (z[Z12 + 1] + z[Z21 + 1])) / 3.;
+
+        // numerator a * V1d(init) - k * V2d(init), using v as a scratch area
+        v[0] = v1Re;
+        v[1] = v1Im;
+        multiplyA(v, 0, v, 2);
+        v[4] = v2Re;
+        v[5] = v2Im;
+        switch (type) {
+            case C1_A2:
+                break;
+            case C1_B2:
+                multiplyA2(v, 4, v, 4);
+                break;
+            case C1_C2:
+                multiplyA(v, 4, v, 4);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown biphased type: " + type);
+        }
+
+        // Io = Ic1 / 3, Id = a² * Io, Ii = a * Io
+        divide(v[2] - v[4], v[3] - v[5], 3 * ztRe, 3 * ztIm, i, O);
+        multiplyA2(i, O, i, D);
+        multiplyA(i, O, i, I);
+
+        int i2d = type == ShortCircuitFault.ShortCircuitBiphasedType.C1_A2 ? O : type == ShortCircuitFault.ShortCircuitBiphasedType.C1_B2 ? I : D;
+        int i2i = type == ShortCircuitFault.ShortCircuitBiphasedType.C1_A2 ? O : type == ShortCircuitFault.ShortCircuitBiphasedType.C1_B2 ? D : I;
+        i[BUS2 + O] = -i[O];
+        i[BUS2 + O + 1] = -i[O + 1];
+        i[BUS2 + D] = -i[i2d];
+        i[BUS2 + D + 1] = -i[i2d + 1];
+        i[BUS2 + I] = -i[i2i];
+        i[BUS2 + I + 1] = -i[i2i + 1];
+
+        // [V1] = [V1(init)] - [Z11 Z12; Z21 Z22] * [I1; I2] for each component, only the direct one having an initial voltage
+        computeVoltages(z, zo, i, O, 0., 0., 0., 0., v);
+        computeVoltages(z, 0, i, D, v1Re, v1Im, v2Re, v2Im, v);
+        computeVoltages(z, 0, i, I, 0., 0., 0., 0., v);
+    }
+
+    private static void computeVoltages(double[] z, int zOffset, double[] i, int component,
+                                        double v1Re, double v1Im, double v2Re, double v2Im, double[] v) {
+        double i1Re = i[component];
+        double i1Im = i[component + 1];
+        double i2Re = i[BUS2 + component];
+        double i2Im = i[BUS2 + component + 1];
+        v[component] = v1Re - (multiplyRe(z, zOffset + Z11, i1Re, i1Im) + multiplyRe(z, zOffset + Z12, i2Re, i2Im));
+        v[component + 1] = v1Im - (multiplyIm(z, zOffset + Z11, i1Re, i1Im) + multiplyIm(z, zOffset + Z12, i2Re, i2Im));
+        v[BUS2 + component] = v2Re - (multiplyRe(z, zOffset + Z21, i1Re, i1Im) + multiplyRe(z, zOffset + Z22, i2Re, i2Im));
+        v[BUS2 + component + 1] = v2Im - (multiplyIm(z, zOffset + Z21, i1Re, i1Im) + multiplyIm(z, zOffset + Z22, i2Re, i2Im));
+    }
+
+    private static double multiplyRe(double[] z, int offset, double re, double im) {
+        return z[offset] * re - z[offset + 1] * im;
+    }
+
+    private static double multiplyIm(double[] z, int offset, double re, double im) {
+        return z[offset] * im + z[offset + 1] * re;
+    }
+
+    // a = -1/2 + j.sqrt(3)/2
+    private static void multiplyA(double[] x, int offset, double[] out, int outOffset) {
+        double re = x[offset];
+        double im = x[offset + 1];
+        out[outOffset] = -0.5 * re - SQRT3_2 * im;
+        out[outOffset + 1] = -0.5 * im + SQRT3_2 * re;
+    }
+
+    // a² = -1/2 - j.sqrt(3)/2
+    private static void multiplyA2(double[] x, int offset, double[] out, int outOffset) {
+        double re = x[offset];
+        double im = x[offset + 1];
+        out[outOffset] = -0.5 * re + SQRT3_2 * im;
+        out[outOffset + 1] = -0.5 * im - SQRT3_2 * re;
+    }
+
+    private static void divide(double xRe, double xIm, double yRe, double yIm, double[] out, int outOffset) {
+        double denominator = yRe * yRe + yIm * yIm;
+        out[outOffset] = (xRe * yRe + xIm * yIm) / denominator;
+        out[outOffset + 1] = (xIm * yRe - xRe * yIm) / denominator;
+    }
+}
@@ -0,0 +1,36 @@
+/**
+ * Copyright (c) 2022, Jean-Baptiste Heyberger & Geoffroy Jamgotchian
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ * SPDX-License-Identifier: MPL-2.0
+ */
+package com.powsybl.sc.implementation;
+
+import com.powsybl.shortcircuit.Fault;
+import com.powsybl.shortcircuit.FeederResult;
+import com.powsybl.shortcircuit.MagnitudeFaultResult;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Provider fault result giving the magnitude of the short circuit current, with the feeder results read from the
+ * short circuit result only when they are requested.
+ *
+ * @author Jean-Baptiste Heyberger <jbheyberger at gmail.com>
+ */
+public class ShortCircuitMagnitudeFaultResult extends MagnitudeFaultResult {
+
+    private final List<FeederResult> feederResults;
+
+    public ShortCircuitMagnitudeFaultResult(Fault fault, ShortCircuitResult scResult, boolean withFeederResult) {
+        super(fault, 0., Collections.emptyList(), Collections.emptyList(), scResult.getIk().abs(), Status.SUCCESS);
+        this.feederResults = withFeederResult ? new ShortCircuitFeederResultList(scResult) : Collections.emptyList();
+    }
+
+    @Override
+    public List<FeederResult> getFeederResults() {
+        return Collections.unmodifiableList(feederResults);
+    }
+}
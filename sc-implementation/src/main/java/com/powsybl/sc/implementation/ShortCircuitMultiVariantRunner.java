@@ -0,0 +1,148 @@
+/**
+ * Copyright (c) 2022, Jean-Baptiste Heyberger & Geoffroy Jamgotchian
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ * SPDX-License-Identifier: MPL-2.0
+ */
+package com.powsybl.sc.implementation;
+
+import com.powsybl.iidm.network.Network;
+import com.powsybl.iidm.network.VariantManager;
+
+import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiFunction;
+
+/**
+ * Runs the same short circuit analysis on several variants of a network, each variant being computed concurrently in its own task.
+ * The fault definitions and the engine parameters are shared by all variants. Each variant gets its own copy of the faults,
+ * because the engine writes the location of each fault in the lfNetwork of this variant.
+ * Results are given per variant in the order of the input variants, each of them keyed by the input faults.
+ * The variants are run on their own executor, as each variant waits for its components solved on the executor of the parameters:
+ * sharing a bounded pool between both would let the waiting variants take all its threads.
+ *
+ * @author Jean-Baptiste Heyberger <jbheyberger at gmail.com>
+ */
+public class ShortCircuitMultiVariantRunner {
+
+    private final Network network;
+
+    private final ShortCircuitEngineParameters parameters;
+
+    private final BiFunction<Network, ShortCircuitEngineParameters, AbstractShortCircuitEngine> engineFactory;
+
+    private final Executor variantExecutor;
+
+    private final List<AbstractShortCircuitEngine> runningEngines = new CopyOnWriteArrayList<>();
+
+    private final AtomicBoolean cancelled = new AtomicBoolean(false);
+
+    public ShortCircuitMultiVariantRunner(Network network, ShortCircuitEngineParameters parameters,
+                                          BiFunction<Network, ShortCircuitEngineParameters, AbstractShortCircuitEngine> engineFactory) {
+        this(network, parameters, engineFactory, ForkJoinPool.commonPool());
+    }
+
+    public ShortCircuitMultiVariantRunner(Network network, ShortCircuitEngineParameters parameters,
+                                          BiFunction<Network, ShortCircuitEngineParameters, AbstractShortCircuitEngine> engineFactory,
+                                          Executor variantExecutor) {
+        this.network = Objects.requireNonNull(network);
+        this.parameters = Objects.requireNonNull(parameters);
+        this.engineFactory = Objects.requireNonNull(engineFactory);
+        this.variantExecutor = Objects.requireNonNull(variantExecutor);
+        if (variantExecutor == parameters.getExecutor() && !(variantExecutor instanceof ForkJoinPool)) {
+            throw new IllegalArgumentException("The variants cannot be run on the executor solving their components");
+        }
+    }
+
+    public Map<String, Map<ShortCircuitFault, ShortCircuitResult>> run(List<String> variantIds) {
+        Objects.requireNonNull(variantIds);
+
+        // the working variant becomes local to each thread, the previous state of the variant manager is restored at the end
+        VariantManager variantManager = network.getVariantManager();
+        boolean multiThreadAccessAllowed = variantManager.isVariantMultiThreadAccessAllowed();
+        String workingVariantId = variantManager.getWorkingVariantId();
+        variantManager.allowVariantMultiThreadAccess(true);
+        try {
+            List<CompletableFuture<Map<ShortCircuitFault, ShortCircuitResult>>> futures = new ArrayList<>();
+            for (String variantId : variantIds) {
+                futures.add(CompletableFuture.supplyAsync(() -> runVariant(variantId), variantExecutor));
+            }
+
+            Map<String, Map<ShortCircuitFault, ShortCircuitResult>> resultsPerVariant = new LinkedHashMap<>();
+            for (int i = 0; i < variantIds.size(); i++) {
+                resultsPerVariant.put(variantIds.get(i), waitForVariantResults(futures.get(i)));
+            }
+            return resultsPerVariant;
+        } finally {
+            variantManager.setWorkingVariant(workingVariantId);
+            if (!multiThreadAccessAllowed) {
+                variantManager.allowVariantMultiThreadAccess(false);
+            }
+        }
+    }
+
+    /**
+     * Stops all the variants being computed, each of them throws a {@link CancellationException} at its next cancellation check.
+     */
+    public void cancel() {
+        cancelled.set(true);
+        for (AbstractShortCircuitEngine engine : runningEngines) {
+            engine.cancel();
+        }
+    }
+
+    private Map<ShortCircuitFault, ShortCircuitResult> runVariant(String variantId) {
+        network.getVariantManager().setWorkingVariant(variantId);
+
+        List<ShortCircuitFault> variantFaults = new ArrayList<>();
+        Map<ShortCircuitFault, ShortCircuitFault> variantFaultToFault = new HashMap<>();
+        for (ShortCircuitFault fault : parameters.getShortCircuitFaults()) {
+            ShortCircuitFault variantFault = new ShortCircuitFault(fault);
+            variantFaults.add(variantFault);
+            variantFaultToFault.put(variantFault, fault);
+        }
+        ShortCircuitEngineParameters variantParameters = new ShortCircuitEngineParameters(parameters);
+        variantParameters.setShortCircuitFaults(variantFaults);
+
+        AbstractShortCircuitEngine engine = engineFactory.apply(network, variantParameters);
+        runningEngines.add(engine);
+        if (cancelled.get()) {
+            engine.cancel(); // variants not started yet when cancelling stop before any computation
+        }
+        try {
+            engine.run();
+        } finally {
+            runningEngines.remove(engine);
+        }
+
+        // faults of a systematic analysis are built by the engine and are returned as they are
+        Map<ShortCircuitFault, ShortCircuitResult> results = new LinkedHashMap<>();
+        for (Map.Entry<ShortCircuitFault, ShortCircuitResult> e : engine.getResultsPerFault().entrySet()) {
+            results.put(variantFaultToFault.getOrDefault(e.getKey(), e.getKey()), e.getValue());
+        }
+        return results;
+    }
+
+    private Map<ShortCircuitFault, ShortCircuitResult> waitForVariantResults(CompletableFuture<Map<ShortCircuitFault, ShortCircuitResult>> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            cancel();
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Short circuit computation cancelled");
+        } catch (ExecutionException e) {
+            cancel();
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+}
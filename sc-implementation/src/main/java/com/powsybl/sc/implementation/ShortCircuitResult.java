@@ -20,6 +20,7 @@ import org.apache.commons.math3.complex.ComplexUtils;
 import org.apache.commons.math3.util.FastMath;
 
 import java.util.*;
+import java.util.function.Consumer;
 
 /**
  * @author Jean-Baptiste Heyberger <jbheyberger at gmail.com>
@@ -73,10 +74,16 @@ public class ShortCircuitResult {
     private FortescueValue vFortescue; //fortescue vector of voltages
 
     private boolean isVoltageProfileUpdated;
-    private List<FortescueValue> busNum2Dv;
+    private VoltageProfilePropagation.VoltageProfileList busNum2Dv;
     private Map<LfBranch, FortescueValue> branchDi1;
     private Map<LfBranch, FortescueValue> branchDi2;
 
+    private Runnable voltageProfileBuilder; // fills the voltage profile on its first access, null if the profile is filled by the engine
+
+    static final FortescueValue NO_VOLTAGE_DROP = new FortescueValue(0., 0.); // voltage delta of the busses below the threshold or not extracted
+
+    private Set<LfBus> feederBusses; // busses where feeders and branch currents are reconstructed, all busses of the lfNetwork if null
+
     private FeedersAtNetwork eqSysFeedersDirect; // This contains the equivalent admittance of feeders's injectors, they are built when the AdmittanceEquationSystem is built and put in input of the sc result
     private FeedersAtNetwork eqSysFeedersHomopolar;
 
@@ -186,6 +193,19 @@ public class ShortCircuitResult {
     }
 
     public ComplexMatrix getDiFromDv(LfBranch branch, FortescueValue dv1Fort, FortescueValue dv2Fort, FortescueType fType) {
+        Complex dv1 = ComplexUtils.polar2Complex(dv1Fort.getPositiveMagnitude(), dv1Fort.getPositiveAngle());
+        Complex dv2 = ComplexUtils.polar2Complex(dv2Fort.getPositiveMagnitude(), dv2Fort.getPositiveAngle());
+        if (fType == FortescueType.HOMOPOLAR) {
+            dv1 = ComplexUtils.polar2Complex(dv1Fort.getZeroMagnitude(), dv1Fort.getZeroAngle());
+            dv2 = ComplexUtils.polar2Complex(dv2Fort.getZeroMagnitude(), dv2Fort.getZeroAngle());
+        } else if (fType == FortescueType.INVERSE) {
+            dv1 = ComplexUtils.polar2Complex(dv1Fort.getNegativeMagnitude(), dv1Fort.getNegativeAngle());
+            dv2 = ComplexUtils.polar2Complex(dv2Fort.getNegativeMagnitude(), dv2Fort.getNegativeAngle());
+        }
+        return getDiFromDv(branch, dv1, dv2, fType);
+    }
+
+    public ComplexMatrix getDiFromDv(LfBranch branch, Complex dv1, Complex dv2, FortescueType fType) {
         AdmittanceEquationSystem.AdmittanceType admType = AdmittanceEquationSystem.AdmittanceType.ADM_THEVENIN;
         if (fType == FortescueType.HOMOPOLAR) {
             admType = AdmittanceEquationSystem.AdmittanceType.ADM_THEVENIN_HOMOPOLAR;
@@ -197,15 +217,6 @@ public class ShortCircuitResult {
         Complex y21 = yBranch.get(1, 0);
         Complex y22 = yBranch.get(1, 1);
 
-        Complex dv1 = ComplexUtils.polar2Complex(dv1Fort.getPositiveMagnitude(), dv1Fort.getPositiveAngle());
-        Complex dv2 = ComplexUtils.polar2Complex(dv2Fort.getPositiveMagnitude(), dv2Fort.getPositiveAngle());
-        if (fType == FortescueType.HOMOPOLAR) {
-            dv1 = ComplexUtils.polar2Complex(dv1Fort.getZeroMagnitude(), dv1Fort.getZeroAngle());
-            dv2 = ComplexUtils.polar2Complex(dv2Fort.getZeroMagnitude(), dv2Fort.getZeroAngle());
-        } else if (fType == FortescueType.INVERSE) {
-            dv1 = ComplexUtils.polar2Complex(dv1Fort.getNegativeMagnitude(), dv1Fort.getNegativeAngle());
-            dv2 = ComplexUtils.polar2Complex(dv2Fort.getNegativeMagnitude(), dv2Fort.getNegativeAngle());
-        }
         Complex di1 = y11.multiply(dv1).add(y12.multiply(dv2));
         Complex di2 = y21.multiply(dv1).add(y22.multiply(dv2));
 
@@ -217,15 +228,16 @@ public class ShortCircuitResult {
 
     }
 
-    public void updateFeedersResult() {
-        if (!isVoltageProfileUpdated) {
-            return;
+    public synchronized void updateFeedersResult() {
+        if (!isVoltageProfileUpdated || busNum2Dv == null) {
+            return; // a lazy profile not built yet gets its feeders when it is built
         }
         // Building the structure to support the feeders result, a FeederResult is built from each Feeder in input
         feedersResultDirect = new HashMap<>(); // TODO : homopolar
         feedersResultsHomopolar = new HashMap<>();
         feedersResultsInverse = new HashMap<>();
-        for (LfBus bus : lfNetwork.getBuses()) {
+        Collection<LfBus> busses = feederBusses != null ? feederBusses : lfNetwork.getBuses();
+        for (LfBus bus : busses) {
             // Init of feeder results
             FeedersAtBus busFeedersDirect = eqSysFeedersDirect.busToFeeders.get(bus);
             FeedersAtBusResult feedersAtBusResultDirect = new FeedersAtBusResult(busFeedersDirect);
@@ -248,7 +260,7 @@ public class ShortCircuitResult {
         }
 
         // For each branch, we build the sum of currents at busses from branches
-        // 1- Input is the voltage delta at each end of the branch
+        // 1- Input is the full voltage delta at each end of the branch, the voltage drop threshold only applies to the profile
         // 2- Then we compute dI = [Ybranch].dV
         // 3- Then dI is added to the sum of current of bus
         // 4- The resulting sum of current at each bus is the current coming from branches,
@@ -258,17 +270,24 @@ public class ShortCircuitResult {
         branchDi1 = new HashMap<>();
         branchDi2 = new HashMap<>();
 
-        for (LfBranch branch : lfNetwork.getBranches()) {
+        // only the branches connected to the feeder busses are needed, a bus outside of them gets no current sum
+        Collection<LfBranch> branches = lfNetwork.getBranches();
+        if (feederBusses != null) {
+            branches = new LinkedHashSet<>();
+            for (LfBus bus : feederBusses) {
+                branches.addAll(bus.getBranches());
+            }
+        }
+
+        for (LfBranch branch : branches) {
             LfBus bus1 = branch.getBus1();
             LfBus bus2 = branch.getBus2();
             if (bus1 != null && bus2 != null) {
                 int busNum1 = bus1.getNum();
                 int busNum2 = bus2.getNum();
-                FortescueValue dv1Fort = busNum2Dv.get(busNum1);
-                FortescueValue dv2Fort = busNum2Dv.get(busNum2);
 
                 // Direct
-                ComplexMatrix di = getDiFromDv(branch, dv1Fort, dv2Fort, FortescueType.DIRECT);
+                ComplexMatrix di = getDiFromDv(branch, busNum2Dv.getDv(busNum1, FortescueType.DIRECT), busNum2Dv.getDv(busNum2, FortescueType.DIRECT), FortescueType.DIRECT);
                 Complex di1 = di.get(0, 0);
                 Complex di2 = di.get(1, 0);
 
@@ -276,8 +295,8 @@ public class ShortCircuitResult {
                 FeedersAtBusResult resultDirectBus2Feeders = feedersResultDirect.get(bus2); // TODO : homopolar
                 // Feeders : compute the sum of currents from branches at each bus
                 // dI coming from branch to the bus are added to the actual sum of current at bus
-                resultDirectBus1Feeders.addItofeedersSum(di1);
-                resultDirectBus2Feeders.addItofeedersSum(di2);
+                addItoFeedersSum(resultDirectBus1Feeders, di1);
+                addItoFeedersSum(resultDirectBus2Feeders, di2);
 
                 if (shortCircuitFault.getType() == ShortCircuitFault.ShortCircuitType.TRIPHASED_GROUND) {
                     branchDi1.put(branch, new FortescueValue(di1.abs(), di1.getArgument()));
@@ -286,7 +305,7 @@ public class ShortCircuitResult {
                 }
 
                 // Homopolar
-                ComplexMatrix dio = getDiFromDv(branch, dv1Fort, dv2Fort, FortescueType.HOMOPOLAR);
+                ComplexMatrix dio = getDiFromDv(branch, busNum2Dv.getDv(busNum1, FortescueType.HOMOPOLAR), busNum2Dv.getDv(busNum2, FortescueType.HOMOPOLAR), FortescueType.HOMOPOLAR);
                 Complex dio1 = dio.get(0, 0);
                 Complex dio2 = dio.get(1, 0);
 
@@ -294,11 +313,11 @@ public class ShortCircuitResult {
                 FeedersAtBusResult resultHomopolarBus2Feeders = feedersResultsHomopolar.get(bus2); // TODO : homopolar
                 // Feeders : compute the sum of currents from branches at each bus
                 // dI coming from branch to the bus are added to the actual sum of current at bus
-                resultHomopolarBus1Feeders.addItofeedersSum(dio1);
-                resultHomopolarBus2Feeders.addItofeedersSum(dio2);
+                addItoFeedersSum(resultHomopolarBus1Feeders, dio1);
+                addItoFeedersSum(resultHomopolarBus2Feeders, dio2);
 
                 // Inverse
-                ComplexMatrix dii = getDiFromDv(branch, dv1Fort, dv2Fort, FortescueType.INVERSE);
+                ComplexMatrix dii = getDiFromDv(branch, busNum2Dv.getDv(busNum1, FortescueType.INVERSE), busNum2Dv.getDv(busNum2, FortescueType.INVERSE), FortescueType.INVERSE);
                 Complex dii1 = dii.get(0, 0);
                 Complex dii2 = dii.get(1, 0);
 
@@ -306,8 +325,8 @@ public class ShortCircuitResult {
                 FeedersAtBusResult resultInverseBus2Feeders = feedersResultsInverse.get(bus2); // TODO : homopolar
                 // Feeders : compute the sum of currents from branches at each bus
                 // dI coming from branch to the bus are added to the actual sum of current at bus
-                resultInverseBus1Feeders.addItofeedersSum(dii1);
-                resultInverseBus2Feeders.addItofeedersSum(dii2);
+                addItoFeedersSum(resultInverseBus1Feeders, dii1);
+                addItoFeedersSum(resultInverseBus2Feeders, dii2);
 
                 branchDi1.put(branch, new FortescueValue(di1.abs(), dio1.abs(), dii1.abs(),
                         di1.getArgument(), dio1.getArgument(), dii1.getArgument()));
@@ -319,7 +338,7 @@ public class ShortCircuitResult {
 
         // computing feeders contribution of each feeder at bus from the sum of currents at bus
         // and based on the admittance dispatch key of feeders
-        for (LfBus bus : lfNetwork.getBuses()) {
+        for (LfBus bus : busses) {
             FeedersAtBusResult busFeedersDirect = feedersResultDirect.get(bus);
             busFeedersDirect.updateContributions();
 
@@ -336,6 +355,20 @@ public class ShortCircuitResult {
         }
     }
 
+    private static void addItoFeedersSum(FeedersAtBusResult feedersAtBusResult, Complex di) {
+        if (feedersAtBusResult != null) { // null if the bus is outside of the feeder busses
+            feedersAtBusResult.addItofeedersSum(di);
+        }
+    }
+
+    public void setFeederBusses(Set<LfBus> feederBusses) {
+        this.feederBusses = feederBusses;
+    }
+
+    public Set<LfBus> getFeederBusses() {
+        return feederBusses;
+    }
+
     public Complex getId() {
         return ComplexUtils.polar2Complex(iFortescue.getPositiveMagnitude(), iFortescue.getPositiveAngle());
     }
@@ -364,27 +397,33 @@ public class ShortCircuitResult {
         return lfNetwork;
     }
 
-    public Map<LfBus, FeedersAtBusResult> getFeedersResultDirect() {
+    public synchronized Map<LfBus, FeedersAtBusResult> getFeedersResultDirect() {
+        ensureVoltageProfile();
         return feedersResultDirect;
     }
 
-    public Map<LfBus, FeedersAtBusResult> getFeedersResultsHomopolar() {
+    public synchronized Map<LfBus, FeedersAtBusResult> getFeedersResultsHomopolar() {
+        ensureVoltageProfile();
         return feedersResultsHomopolar;
     }
 
-    public Map<LfBus, FeedersAtBusResult> getFeedersResultsInverse() {
+    public synchronized Map<LfBus, FeedersAtBusResult> getFeedersResultsInverse() {
+        ensureVoltageProfile();
         return feedersResultsInverse;
     }
 
-    public List<FortescueValue> getBusNum2Dv() {
+    public synchronized List<FortescueValue> getBusNum2Dv() {
+        ensureVoltageProfile();
         return busNum2Dv;
     }
 
-    public Map<LfBranch, FortescueValue> getBranchDi1() {
+    public synchronized Map<LfBranch, FortescueValue> getBranchDi1() {
+        ensureVoltageProfile();
         return branchDi1;
     }
 
-    public Map<LfBranch, FortescueValue> getBranchDi2() {
+    public synchronized Map<LfBranch, FortescueValue> getBranchDi2() {
+        ensureVoltageProfile();
         return branchDi2;
     }
 
@@ -392,6 +431,28 @@ public class ShortCircuitResult {
         return isVoltageProfileUpdated;
     }
 
+    public void setVoltageProfileBuilder(Runnable voltageProfileBuilder) {
+        this.voltageProfileBuilder = voltageProfileBuilder;
+    }
+
+    /**
+     * Returns true if the voltage profile is built on its first access.
+     * Once built, it can be dropped with {@link #releaseVoltageProfile()}, it is then built again on the next access.
+     * Building, releasing and reading the profile and its feeders are made under the lock of the result.
+     */
+    public boolean isVoltageProfileLazy() {
+        return voltageProfileBuilder != null;
+    }
+
+    private synchronized void ensureVoltageProfile() {
+        if (busNum2Dv == null && voltageProfileBuilder != null) {
+            voltageProfileBuilder.run();
+            if (shortCircuitFault.isWithFeederResult()) {
+                updateFeedersResult();
+            }
+        }
+    }
+
     public ShortCircuitFault getShortCircuitFault() {
         return shortCircuitFault;
     }
@@ -402,6 +463,24 @@ public class ShortCircuitResult {
         return 1000. * 100. / lfBus.getNominalV();
     }
 
+    /**
+     * Returns the factor converting a sequence current flowing at the given bus from pu into kA, with the same base
+     * current and voltage factor as Ik: I(kA) = c * i(pu) * I(base) / (sqrt(3) * 1000), see getIkpp.
+     */
+    public double getSequenceCurrentFactor(LfBus bus) {
+        double c = norm.getCmaxVoltageFactor(lfBus.getNominalV());
+        return c * 100. / (Math.sqrt(3.) * bus.getNominalV());
+    }
+
+    /**
+     * Returns the factor converting a sequence voltage at the faulted bus from pu into a phase to ground voltage in kV,
+     * with the same voltage factor as Ik: V(kV) = c * v(pu) * Un / sqrt(3).
+     */
+    public double getSequenceVoltageFactor() {
+        double c = norm.getCmaxVoltageFactor(lfBus.getNominalV());
+        return c * lfBus.getNominalV() / Math.sqrt(3.);
+    }
+
     public double getPeakCoef(double r, double x) {
         if (x == 0.) {
             throw new IllegalArgumentException("Peak current could not be computed because Xth is zero = ");
@@ -562,7 +641,7 @@ public class ShortCircuitResult {
             Complex zBranch = new Complex(branch.getPiModel().getR(), branch.getPiModel().getX());
             FortescueValue di1 = getBranchDi1().get(branch);
             FortescueValue di2 = getBranchDi2().get(branch);
-            if (zBranch.getImaginary() < epsilon) {
+            if (di1 == null || di2 == null || zBranch.getImaginary() < epsilon) {
                 continue;
             } else if (di1.getPositiveMagnitude() > epsilon || di2.getPositiveMagnitude() > epsilon) {
                 // we only look at ratio for branches with significant short circuit currents
@@ -576,21 +655,76 @@ public class ShortCircuitResult {
         isVoltageProfileUpdated = true;
     }
 
-    public void createEmptyFortescueVoltageVector(int nbBusses) {
-        List<FortescueValue> busNum2Dv = new ArrayList<>();
-        for (int i = 0; i < nbBusses; i++) {
-            FortescueValue mdV = new FortescueValue(0., 0.);
-            busNum2Dv.add(mdV);
-        }
-        this.busNum2Dv = busNum2Dv;
+    /**
+     * Returns false if the bus has been left out of the voltage profile, its voltage drop being below the threshold or
+     * the bus not being extracted.
+     */
+    public synchronized boolean hasVoltageDrop(int busNum) {
+        ensureVoltageProfile();
+        return busNum2Dv.hasVoltageDrop(busNum);
+    }
+
+    /**
+     * Sets the voltage profile as a view over the voltage deltas of the extracted busses, see {@link VoltageProfilePropagation}.
+     * The busses whose drop is below the threshold of the profile are left out of it, but are still used for branch
+     * currents and feeders.
+     */
+    synchronized void setVoltageProfile(VoltageProfilePropagation.VoltageProfileList busNum2Dv) {
+        this.busNum2Dv = Objects.requireNonNull(busNum2Dv);
+    }
+
+    synchronized VoltageProfilePropagation.VoltageProfileList getVoltageProfile() {
+        return busNum2Dv;
     }
 
-    public void fillVoltageInFortescueVector(int busNum, Complex dV) {
-        this.busNum2Dv.set(busNum, new FortescueValue(dV.abs(), dV.getArgument()));
+    /**
+     * Same as {@link #getBusNum2Dv()}, building the profile if needed, with primitive access to the voltage deltas.
+     */
+    synchronized VoltageProfilePropagation.VoltageProfileList getBuiltVoltageProfile() {
+        ensureVoltageProfile();
+        return busNum2Dv;
     }
 
-    public void fillVoltageInFortescueVector(int busNum, Complex dVd, Complex dVo, Complex dVi) {
-        this.busNum2Dv.set(busNum, new FortescueValue(dVd.abs(), dVo.abs(), dVi.abs(), dVd.getArgument(), dVo.getArgument(), dVi.getArgument()));
+    /**
+     * Gives this result to the reader with its voltage profile built, and returns false without calling it if the result
+     * has no voltage profile. A lazy profile built for the read is released afterward, so that copying the profile of
+     * many results does not keep all of them in memory.
+     */
+    synchronized boolean readVoltageProfile(Consumer<ShortCircuitResult> reader) {
+        if (!isVoltageProfileUpdated || lfNetwork == null || busNum2Dv == null && voltageProfileBuilder == null) {
+            return false;
+        }
+        boolean built = busNum2Dv != null;
+        try {
+            ensureVoltageProfile();
+            reader.accept(this);
+        } finally {
+            if (!built) {
+                releaseVoltageProfile();
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Drops the voltage profile and everything derived from it, the scalar results at the faulted bus are kept.
+     * Used to move the profile out of the heap, it is given back with {@link #restoreVoltageProfile}.
+     */
+    public synchronized void releaseVoltageProfile() {
+        busNum2Dv = null;
+        branchDi1 = null;
+        branchDi2 = null;
+        feedersResultDirect = null;
+        feedersResultsHomopolar = null;
+        feedersResultsInverse = null;
+    }
+
+    synchronized void restoreVoltageProfile(VoltageProfilePropagation.VoltageProfileList busNum2Dv) {
+        // branch currents and feeders contributions are fully determined by the voltage profile, they are recomputed if requested
+        setVoltageProfile(busNum2Dv);
+        if (shortCircuitFault.isWithFeederResult()) {
+            updateFeedersResult();
+        }
     }
 
     public void setLfNetwork(LfNetwork lfNetwork) {
@@ -83,6 +83,9 @@ public class ShortCircuitResultPrinter {
     public void printDIAtBranchPu() {
         LOGGER.info("---Branch currents :  ");
         for (LfBranch branch : shortCircuitResult.getLfNetwork().getBranches()) {
+            if (!shortCircuitResult.getBranchDi1().containsKey(branch)) {
+                continue; // branch current not reconstructed, out of the feeder busses
+            }
             LOGGER.info("  -> dI1({}) = {} (Pu) ", branch.getId(), getStringFortescueValue(shortCircuitResult.getBranchDi1().get(branch)));
             LOGGER.info("  -> dI2({}) = {} (Pu) ", branch.getId(), getStringFortescueValue(shortCircuitResult.getBranchDi2().get(branch)));
         }
@@ -92,6 +95,9 @@ public class ShortCircuitResultPrinter {
         LOGGER.info("---Feeders : ");
         for (LfBus bus : shortCircuitResult.getLfNetwork().getBuses()) {
             FeedersAtBusResult feedBus = shortCircuitResult.getFeedersResultDirect().get(bus);
+            if (feedBus == null) {
+                continue; // bus out of the feeder busses
+            }
             for (FeederResult fr : feedBus.getBusFeedersResult()) {
                 if (fr.getIContribution().abs() > EPSILON) {
                     LOGGER.info("  -> Direct Feeder {} : {} has I (Pu) contribution  =  {}", fr.getFeeder().getFeederType(), fr.getFeeder().getId(), fr.getIContribution());
@@ -0,0 +1,270 @@
+/**
+ * Copyright (c) 2022, Jean-Baptiste Heyberger & Geoffroy Jamgotchian
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ * SPDX-License-Identifier: MPL-2.0
+ */
+package com.powsybl.sc.implementation;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.function.BiConsumer;
+
+/**
+ * Store of short circuit results keeping the voltage profiles in memory up to a given budget.
+ * When the budget is exceeded, the least recently used profiles are written to segment files and released,
+ * they are read back when their result is accessed again, branch currents and feeders being recomputed from the profile.
+ * The scalar results at the faulted bus always stay in memory.
+ * The compact rows of the profiles are written as they are, see {@link VoltageProfilePropagation}, the busses that have
+ * not been extracted take no space.
+ *
+ * The store is meant to be set as the result consumer of an engine that does not keep its results:
+ * <pre>
+ *     engine.setResultConsumer(store);
+ *     engine.setResultsKept(false);
+ * </pre>
+ *
+ * @author Jean-Baptiste Heyberger <jbheyberger at gmail.com>
+ */
+public class ShortCircuitResultStore implements BiConsumer<ShortCircuitFault, ShortCircuitResult>, Closeable {
+
+    public static final long DEFAULT_SEGMENT_SIZE = 256L * 1024 * 1024;
+
+    // rough heap footprint of a voltage profile, used to compare it with the memory budget
+    private static final long BRANCH_HEAP_SIZE = 224; // two FortescueValue branch currents, their map entries and the feeders results
+
+    private static final class SpilledProfile {
+
+        private final int segmentNum;
+
+        private final long position;
+
+        private final int nbBusses;
+
+        private final int nbValues; // number of busses of the row
+
+        private final boolean balanced;
+
+        private final double minVoltageDrop;
+
+        private SpilledProfile(int segmentNum, long position, int nbBusses, int nbValues, boolean balanced, double minVoltageDrop) {
+            this.segmentNum = segmentNum;
+            this.position = position;
+            this.nbBusses = nbBusses;
+            this.nbValues = nbValues;
+            this.balanced = balanced;
+            this.minVoltageDrop = minVoltageDrop;
+        }
+    }
+
+    private final Path directory;
+
+    private final long memoryBudget;
+
+    private final long segmentSize;
+
+    private final Map<ShortCircuitFault, ShortCircuitResult> results = new LinkedHashMap<>(); // in the order results were added
+
+    private final Map<ShortCircuitResult, Long> residentProfiles = new LinkedHashMap<>(16, 0.75f, true); // least recently used first
+
+    private final Map<ShortCircuitResult, SpilledProfile> spilledProfiles = new HashMap<>(); // a profile is written once, even if paged back in
+
+    private final List<Path> segmentPaths = new ArrayList<>();
+
+    private final List<FileChannel> segments = new ArrayList<>();
+
+    private long residentSize = 0;
+
+    private static int getValueSize(boolean balanced) {
+        return balanced ? 2 : 6;
+    }
+
+    private static int getBusSize(boolean balanced) {
+        return Integer.BYTES + getValueSize(balanced) * Double.BYTES; // bus number, real and imaginary parts of the sequences
+    }
+
+    public ShortCircuitResultStore(Path directory, long memoryBudget) {
+        this(directory, memoryBudget, DEFAULT_SEGMENT_SIZE);
+    }
+
+    public ShortCircuitResultStore(Path directory, long memoryBudget, long segmentSize) {
+        this.directory = Objects.requireNonNull(directory);
+        if (memoryBudget < 0) {
+            throw new IllegalArgumentException("Memory budget must be positive: " + memoryBudget);
+        }
+        if (segmentSize <= 0) {
+            throw new IllegalArgumentException("Segment size must be strictly positive: " + segmentSize);
+        }
+        this.memoryBudget = memoryBudget;
+        this.segmentSize = segmentSize;
+    }
+
+    @Override
+    public synchronized void accept(ShortCircuitFault fault, ShortCircuitResult result) {
+        Objects.requireNonNull(fault);
+        Objects.requireNonNull(result);
+        results.put(fault, result);
+        // lazy profiles are not built yet and can be built again, they are not managed by the store
+        if (result.isVoltageProfileUpdated() && !result.isVoltageProfileLazy() && result.getBusNum2Dv() != null) {
+            addResident(result);
+            spillUntilBudget(null);
+        }
+    }
+
+    /**
+     * Returns the result of the fault with its voltage profile in memory.
+     * The profile might be released again by a later access to the store, it should be used before.
+     */
+    public synchronized ShortCircuitResult get(ShortCircuitFault fault) {
+        ShortCircuitResult result = results.get(fault);
+        if (result == null) {
+            return null;
+        }
+        if (residentProfiles.containsKey(result)) {
+            residentProfiles.get(result); // marks the profile as recently used
+        } else if (spilledProfiles.containsKey(result)) {
+            SpilledProfile spilledProfile = spilledProfiles.get(result);
+            result.restoreVoltageProfile(readProfile(spilledProfile));
+            addResident(result);
+            spillUntilBudget(result);
+        }
+        return result;
+    }
+
+    public synchronized Set<ShortCircuitFault> getFaults() {
+        return Collections.unmodifiableSet(new LinkedHashSet<>(results.keySet()));
+    }
+
+    public synchronized int size() {
+        return results.size();
+    }
+
+    public synchronized long getResidentSize() {
+        return residentSize;
+    }
+
+    public synchronized int getResidentProfileCount() {
+        return residentProfiles.size();
+    }
+
+    private static long estimateHeapSize(ShortCircuitResult result) {
+        VoltageProfilePropagation.VoltageProfileList profile = result.getVoltageProfile();
+        long size = (long) profile.getValues().length * Double.BYTES + (long) profile.getStoredCount() * Integer.BYTES;
+        if (result.getLfNetwork() != null) {
+            size += result.getLfNetwork().getBranches().size() * BRANCH_HEAP_SIZE;
+        }
+        return size;
+    }
+
+    private void addResident(ShortCircuitResult result) {
+        long size = estimateHeapSize(result);
+        residentProfiles.put(result, size);
+        residentSize += size;
+    }
+
+    private void spillUntilBudget(ShortCircuitResult pinnedResult) {
+        Iterator<Map.Entry<ShortCircuitResult, Long>> it = residentProfiles.entrySet().iterator();
+        while (residentSize > memoryBudget && it.hasNext()) {
+            Map.Entry<ShortCircuitResult, Long> e = it.next();
+            ShortCircuitResult result = e.getKey();
+            if (result == pinnedResult) {
+                continue; // the result just paged in is about to be used
+            }
+            if (!spilledProfiles.containsKey(result)) {
+                spilledProfiles.put(result, writeProfile(result.getVoltageProfile()));
+            }
+            result.releaseVoltageProfile();
+            residentSize -= e.getValue();
+            it.remove();
+        }
+    }
+
+    private SpilledProfile writeProfile(VoltageProfilePropagation.VoltageProfileList profile) {
+        int nbValues = profile.getStoredCount();
+        int valueSize = getValueSize(profile.isBalanced());
+        double[] busDv = profile.getValues();
+        ByteBuffer buffer = ByteBuffer.allocate(nbValues * getBusSize(profile.isBalanced()));
+        for (int v = 0; v < nbValues; v++) {
+            buffer.putInt(profile.getBusNum(v));
+            for (int i = valueSize * v; i < valueSize * (v + 1); i++) {
+                buffer.putDouble(busDv[i]);
+            }
+        }
+        buffer.flip();
+
+        try {
+            // profiles are appended to the last segment, a new segment is started once it is full
+            if (segments.isEmpty() || segments.get(segments.size() - 1).size() + buffer.remaining() > segmentSize) {
+                Path segmentPath = Files.createTempFile(directory, "sc-results-", ".seg");
+                segmentPaths.add(segmentPath);
+                segments.add(FileChannel.open(segmentPath, StandardOpenOption.READ, StandardOpenOption.WRITE));
+            }
+            int segmentNum = segments.size() - 1;
+            FileChannel segment = segments.get(segmentNum);
+            long position = segment.size();
+            long writePosition = position;
+            while (buffer.hasRemaining()) {
+                writePosition += segment.write(buffer, writePosition);
+            }
+            return new SpilledProfile(segmentNum, position, profile.size(), nbValues, profile.isBalanced(), profile.getMinVoltageDrop());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private VoltageProfilePropagation.VoltageProfileList readProfile(SpilledProfile spilledProfile) {
+        ByteBuffer buffer = ByteBuffer.allocate(spilledProfile.nbValues * getBusSize(spilledProfile.balanced));
+        try {
+            FileChannel segment = segments.get(spilledProfile.segmentNum);
+            long readPosition = spilledProfile.position;
+            while (buffer.hasRemaining()) {
+                int read = segment.read(buffer, readPosition);
+                if (read < 0) {
+                    throw new IllegalStateException("Unexpected end of short circuit result segment " + segmentPaths.get(spilledProfile.segmentNum));
+                }
+                readPosition += read;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        buffer.flip();
+
+        int valueSize = getValueSize(spilledProfile.balanced);
+        int[] busNums = new int[spilledProfile.nbValues];
+        double[] busDv = new double[valueSize * spilledProfile.nbValues];
+        for (int v = 0; v < spilledProfile.nbValues; v++) {
+            busNums[v] = buffer.getInt();
+            for (int i = valueSize * v; i < valueSize * (v + 1); i++) {
+                busDv[i] = buffer.getDouble();
+            }
+        }
+        return new VoltageProfilePropagation.VoltageProfileList(spilledProfile.nbBusses, busNums, busDv, spilledProfile.balanced,
+                spilledProfile.minVoltageDrop);
+    }
+
+    @Override
+    public synchronized void close() {
+        IOException exception = null;
+        for (int i = 0; i < segments.size(); i++) {
+            try {
+                segments.get(i).close();
+                Files.deleteIfExists(segmentPaths.get(i));
+            } catch (IOException e) {
+                exception = e;
+            }
+        }
+        segments.clear();
+        segmentPaths.clear();
+        if (exception != null) {
+            throw new UncheckedIOException(exception);
+        }
+    }
+}
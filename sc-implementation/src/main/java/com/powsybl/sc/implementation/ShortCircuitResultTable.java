@@ -0,0 +1,701 @@
+/**
+ * Copyright (c) 2022, Jean-Baptiste Heyberger & Geoffroy Jamgotchian
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ * SPDX-License-Identifier: MPL-2.0
+ */
+package com.powsybl.sc.implementation;
+
+import com.powsybl.openloadflow.network.LfBranch;
+import com.powsybl.openloadflow.network.LfBus;
+import com.powsybl.openloadflow.network.LfNetwork;
+import com.powsybl.shortcircuit.FortescueValue;
+import org.apache.commons.math3.complex.Complex;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.function.BiConsumer;
+
+/**
+ * Columnar copy of short circuit results, detached from the lfNetworks and from the result objects.
+ * Scalar results of all faults are stored in primitive arrays indexed by fault number.
+ * Voltage profiles and branch currents are stored per lfNetwork, in one primitive array per quantity where each fault
+ * with a voltage profile takes one row of fixed size. Each value takes the real and imaginary parts of the 3 sequences,
+ * ordered as {@link ShortCircuitResult.FortescueType}. Bus and branch ids are stored once per lfNetwork.
+ * Feeder contributions are not stored, they are derived from the voltage profile.
+ *
+ * Voltage profiles and branch currents may be stored with a reduced {@link Precision} to save memory and export size,
+ * values being rounded when added to the table. Scalar results at the faulted bus are always stored in double precision.
+ *
+ * The table can be exported with {@link #write(Path)} to a little-endian binary columnar file, laid out as:
+ * <pre>
+ *     int magic ("SCRT"), int version, int precision (ordinal of {@link Precision}), int faultCount
+ *     per fault: int length, UTF-8 fault id
+ *     double[faultCount] ik, double[6 * faultCount] currents, double[6 * faultCount] voltages
+ *     int[faultCount] table numbers (-1 without voltage profile), int[faultCount] rows
+ *     int tableCount
+ *     per table: int busCount, bus ids, int branchCount, branch ids, int rowCount,
+ *                busDv, branchDi1 and branchDi2 rows of 6 * busCount and 6 * branchCount values, each one written as:
+ *                    DOUBLE: double[rowCount * rowSize]
+ *                    FLOAT: float[rowCount * rowSize]
+ *                    INT16: double[rowCount] scales, short[rowCount * rowSize] quantized values
+ * </pre>
+ *
+ * The table is meant to be set as the result consumer of an engine that does not keep its results:
+ * <pre>
+ *     engine.setResultConsumer(table);
+ *     engine.setResultsKept(false);
+ * </pre>
+ * Results kept by the engine are still copied, the table never holds them. A lazy voltage profile is built only for
+ * the copy and released afterward, so that the kept results are not all left with their profile built.
+ *
+ * @author Jean-Baptiste Heyberger <jbheyberger at gmail.com>
+ */
+public class ShortCircuitResultTable implements BiConsumer<ShortCircuitFault, ShortCircuitResult> {
+
+    private static final int VALUE_SIZE = 6; // real and imaginary parts of the 3 sequences
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    public static final int MAGIC = 0x53435254; // "SCRT"
+
+    public static final int VERSION = 2;
+
+    private static final int WRITE_BUFFER_SIZE = 1 << 16;
+
+    static final int DEFAULT_MAX_CHUNK_SIZE = 1 << 24; // values per chunk of rows
+
+    private static final int MAX_ARRAY_SIZE = Integer.MAX_VALUE - 8;
+
+    private static final int MAX_FAULT_COUNT = MAX_ARRAY_SIZE / VALUE_SIZE;
+
+    public enum Precision {
+        DOUBLE, // 8 bytes per value, no rounding
+        FLOAT, // 4 bytes per value, relative error below 2^-24 (6e-8)
+        INT16; // 2 bytes per value and one scale per row, absolute error below the max magnitude of the row values / 65534
+    }
+
+    /**
+     * Rows of fixed size stored with a given precision, a missing value is stored as NaN.
+     * Rows are stored in chunks of at most maxChunkSize values, so that no array index overflows whatever the number of
+     * rows, the last chunk growing by doubling its capacity.
+     */
+    private abstract static class RowArray {
+
+        protected final int rowSize;
+
+        protected final int rowsPerChunk;
+
+        private int chunkCount = 0;
+
+        private int lastChunkRowCapacity = 0;
+
+        protected RowArray(int rowSize, int maxChunkSize) {
+            this.rowSize = rowSize;
+            this.rowsPerChunk = Math.max(1, maxChunkSize / Math.max(1, rowSize));
+        }
+
+        static RowArray create(Precision precision, int rowSize, int maxChunkSize) {
+            return switch (precision) {
+                case DOUBLE -> new DoubleRowArray(rowSize, maxChunkSize);
+                case FLOAT -> new FloatRowArray(rowSize, maxChunkSize);
+                case INT16 -> new QuantizedRowArray(rowSize, maxChunkSize);
+            };
+        }
+
+        /**
+         * Makes room for the given row, rows being added in sequence.
+         */
+        final void ensureRow(int row) {
+            int chunk = row / rowsPerChunk;
+            int chunkRow = row - chunk * rowsPerChunk;
+            if (chunk == chunkCount) {
+                lastChunkRowCapacity = Math.min(INITIAL_CAPACITY, rowsPerChunk);
+                addChunk(lastChunkRowCapacity);
+                chunkCount++;
+            } else if (chunkRow >= lastChunkRowCapacity) {
+                lastChunkRowCapacity = (int) Math.min(rowsPerChunk, 2L * lastChunkRowCapacity);
+                growLastChunk(lastChunkRowCapacity);
+            }
+        }
+
+        protected int getChunkRowCount(int chunk, int rowCount) {
+            return Math.min(rowsPerChunk, rowCount - chunk * rowsPerChunk);
+        }
+
+        protected int getChunkCount() {
+            return chunkCount;
+        }
+
+        protected abstract void addChunk(int rowCapacity);
+
+        protected abstract void growLastChunk(int rowCapacity);
+
+        abstract void setRow(int row, double[] values);
+
+        abstract double get(int row, int i);
+
+        abstract void write(FileChannel channel, ByteBuffer buffer, int rowCount) throws IOException;
+    }
+
+    private static final class DoubleRowArray extends RowArray {
+
+        private final List<double[]> chunks = new ArrayList<>();
+
+        private DoubleRowArray(int rowSize, int maxChunkSize) {
+            super(rowSize, maxChunkSize);
+        }
+
+        @Override
+        protected void addChunk(int rowCapacity) {
+            chunks.add(new double[rowCapacity * rowSize]);
+        }
+
+        @Override
+        protected void growLastChunk(int rowCapacity) {
+            int last = chunks.size() - 1;
+            chunks.set(last, Arrays.copyOf(chunks.get(last), rowCapacity * rowSize));
+        }
+
+        @Override
+        void setRow(int row, double[] rowValues) {
+            System.arraycopy(rowValues, 0, chunks.get(row / rowsPerChunk), (row % rowsPerChunk) * rowSize, rowSize);
+        }
+
+        @Override
+        double get(int row, int i) {
+            return chunks.get(row / rowsPerChunk)[(row % rowsPerChunk) * rowSize + i];
+        }
+
+        @Override
+        void write(FileChannel channel, ByteBuffer buffer, int rowCount) throws IOException {
+            for (int chunk = 0; chunk < getChunkCount(); chunk++) {
+                putDoubles(channel, buffer, chunks.get(chunk), getChunkRowCount(chunk, rowCount) * rowSize);
+            }
+        }
+    }
+
+    private static final class FloatRowArray extends RowArray {
+
+        private final List<float[]> chunks = new ArrayList<>();
+
+        private FloatRowArray(int rowSize, int maxChunkSize) {
+            super(rowSize, maxChunkSize);
+        }
+
+        @Override
+        protected void addChunk(int rowCapacity) {
+            chunks.add(new float[rowCapacity * rowSize]);
+        }
+
+        @Override
+        protected void growLastChunk(int rowCapacity) {
+            int last = chunks.size() - 1;
+            chunks.set(last, Arrays.copyOf(chunks.get(last), rowCapacity * rowSize));
+        }
+
+        @Override
+        void setRow(int row, double[] rowValues) {
+            float[] values = chunks.get(row / rowsPerChunk);
+            int offset = (row % rowsPerChunk) * rowSize;
+            for (int i = 0; i < rowSize; i++) {
+                values[offset + i] = (float) rowValues[i];
+            }
+        }
+
+        @Override
+        double get(int row, int i) {
+            return chunks.get(row / rowsPerChunk)[(row % rowsPerChunk) * rowSize + i];
+        }
+
+        @Override
+        void write(FileChannel channel, ByteBuffer buffer, int rowCount) throws IOException {
+            for (int chunk = 0; chunk < getChunkCount(); chunk++) {
+                putFloats(channel, buffer, chunks.get(chunk), getChunkRowCount(chunk, rowCount) * rowSize);
+            }
+        }
+    }
+
+    private static final class QuantizedRowArray extends RowArray {
+
+        private static final short NAN_VALUE = Short.MIN_VALUE; // quantized values are in [-32767, 32767]
+
+        private final List<double[]> scaleChunks = new ArrayList<>();
+
+        private final List<short[]> chunks = new ArrayList<>();
+
+        private QuantizedRowArray(int rowSize, int maxChunkSize) {
+            super(rowSize, maxChunkSize);
+        }
+
+        @Override
+        protected void addChunk(int rowCapacity) {
+            scaleChunks.add(new double[rowCapacity]);
+            chunks.add(new short[rowCapacity * rowSize]);
+        }
+
+        @Override
+        protected void growLastChunk(int rowCapacity) {
+            int last = chunks.size() - 1;
+            scaleChunks.set(last, Arrays.copyOf(scaleChunks.get(last), rowCapacity));
+            chunks.set(last, Arrays.copyOf(chunks.get(last), rowCapacity * rowSize));
+        }
+
+        @Override
+        void setRow(int row, double[] rowValues) {
+            // one scale per row, so that the largest value of the row is mapped to the largest quantized value
+            double maxAbs = 0;
+            for (double value : rowValues) {
+                if (!Double.isNaN(value)) {
+                    maxAbs = Math.max(maxAbs, Math.abs(value));
+                }
+            }
+            double scale = maxAbs > 0 ? maxAbs / Short.MAX_VALUE : 1;
+            int chunk = row / rowsPerChunk;
+            int chunkRow = row % rowsPerChunk;
+            scaleChunks.get(chunk)[chunkRow] = scale;
+            short[] values = chunks.get(chunk);
+            int offset = chunkRow * rowSize;
+            for (int i = 0; i < rowSize; i++) {
+                double value = rowValues[i];
+                values[offset + i] = Double.isNaN(value) ? NAN_VALUE : (short) Math.round(value / scale);
+            }
+        }
+
+        @Override
+        double get(int row, int i) {
+            int chunk = row / rowsPerChunk;
+            int chunkRow = row % rowsPerChunk;
+            short value = chunks.get(chunk)[chunkRow * rowSize + i];
+            return value == NAN_VALUE ? Double.NaN : value * scaleChunks.get(chunk)[chunkRow];
+        }
+
+        @Override
+        void write(FileChannel channel, ByteBuffer buffer, int rowCount) throws IOException {
+            // all the scales come first, then all the values
+            for (int chunk = 0; chunk < getChunkCount(); chunk++) {
+                putDoubles(channel, buffer, scaleChunks.get(chunk), getChunkRowCount(chunk, rowCount));
+            }
+            for (int chunk = 0; chunk < getChunkCount(); chunk++) {
+                putShorts(channel, buffer, chunks.get(chunk), getChunkRowCount(chunk, rowCount) * rowSize);
+            }
+        }
+    }
+
+    /**
+     * Voltage profiles and branch currents of the faults located in the same lfNetwork.
+     */
+    public static final class NetworkTable {
+
+        private final int tableNum;
+
+        private final String[] busIds;
+
+        private final String[] branchIds;
+
+        private final int busRowSize;
+
+        private final int branchRowSize;
+
+        private final RowArray busDv;
+
+        private final RowArray branchDi1;
+
+        private final RowArray branchDi2;
+
+        private final double[] busRow; // reused to convert the values of a row before storing them
+
+        private final double[] noVoltageDropRow; // values of a row where no bus has a voltage drop, copied before each row
+
+        private final double[] branchRow;
+
+        private int rowCount = 0;
+
+        private NetworkTable(int tableNum, LfNetwork lfNetwork, Precision precision, int maxChunkSize) {
+            this.tableNum = tableNum;
+            List<LfBus> busses = lfNetwork.getBuses();
+            List<LfBranch> branches = lfNetwork.getBranches();
+            // a row is stored in a single array
+            if ((long) VALUE_SIZE * Math.max(busses.size(), branches.size()) > MAX_ARRAY_SIZE) {
+                throw new IllegalArgumentException("Too many busses or branches in the lfNetwork for a result table row");
+            }
+            busIds = new String[busses.size()];
+            for (LfBus bus : busses) {
+                busIds[bus.getNum()] = bus.getId();
+            }
+            branchIds = new String[branches.size()];
+            for (LfBranch branch : branches) {
+                branchIds[branch.getNum()] = branch.getId();
+            }
+            busRowSize = VALUE_SIZE * busIds.length;
+            branchRowSize = VALUE_SIZE * branchIds.length;
+            busDv = RowArray.create(precision, busRowSize, maxChunkSize);
+            branchDi1 = RowArray.create(precision, branchRowSize, maxChunkSize);
+            branchDi2 = RowArray.create(precision, branchRowSize, maxChunkSize);
+            busRow = new double[busRowSize];
+            branchRow = new double[branchRowSize];
+            noVoltageDropRow = new double[busRowSize];
+            for (int i = 0; i < busRowSize; i += VALUE_SIZE) {
+                // zero direct delta and no other sequence, as given by the profile for a bus without drop
+                Arrays.fill(noVoltageDropRow, i + 2, i + VALUE_SIZE, Double.NaN);
+            }
+        }
+
+        public List<String> getBusIds() {
+            return Collections.unmodifiableList(Arrays.asList(busIds));
+        }
+
+        public List<String> getBranchIds() {
+            return Collections.unmodifiableList(Arrays.asList(branchIds));
+        }
+
+        public int getRowCount() {
+            return rowCount;
+        }
+
+        private int addRow(ShortCircuitResult result) {
+            if (rowCount == Integer.MAX_VALUE) {
+                throw new IllegalStateException("Too many rows in the result table");
+            }
+            int row = rowCount++;
+            busDv.ensureRow(row);
+            branchDi1.ensureRow(row);
+            branchDi2.ensureRow(row);
+
+            // only the busses of the compact row of the profile are written over the empty row
+            VoltageProfilePropagation.VoltageProfileList busNum2Dv = result.getBuiltVoltageProfile();
+            System.arraycopy(noVoltageDropRow, 0, busRow, 0, busRowSize);
+            for (int i = 0; i < busNum2Dv.getStoredCount(); i++) {
+                if (busNum2Dv.hasVoltageDropAt(i)) {
+                    busNum2Dv.copyValueAt(i, busRow, VALUE_SIZE * busNum2Dv.getBusNum(i));
+                }
+            }
+            busDv.setRow(row, busRow);
+
+            // branches out of the feeder neighbourhood have no current
+            setBranchRow(branchDi1, row, result.getBranchDi1());
+            setBranchRow(branchDi2, row, result.getBranchDi2());
+            return row;
+        }
+
+        private void setBranchRow(RowArray branchDi, int row, Map<LfBranch, FortescueValue> branchValues) {
+            Arrays.fill(branchRow, Double.NaN);
+            if (branchValues != null) {
+                for (Map.Entry<LfBranch, FortescueValue> e : branchValues.entrySet()) {
+                    putValue(branchRow, VALUE_SIZE * e.getKey().getNum(), e.getValue());
+                }
+            }
+            branchDi.setRow(row, branchRow);
+        }
+    }
+
+    private final List<ShortCircuitFault> faults = new ArrayList<>();
+
+    private final Map<ShortCircuitFault, Integer> faultNums = new HashMap<>();
+
+    private final Map<LfNetwork, NetworkTable> tablesPerLfNetwork = new WeakHashMap<>(); // the table does not keep the lfNetworks alive
+
+    private final List<NetworkTable> tables = new ArrayList<>();
+
+    private final Precision precision;
+
+    private final int maxChunkSize;
+
+    private double[] ik = new double[INITIAL_CAPACITY];
+
+    private double[] currents = new double[INITIAL_CAPACITY * VALUE_SIZE];
+
+    private double[] voltages = new double[INITIAL_CAPACITY * VALUE_SIZE];
+
+    private int[] tableNums = new int[INITIAL_CAPACITY]; // -1 if the fault has no voltage profile
+
+    private int[] rows = new int[INITIAL_CAPACITY];
+
+    public ShortCircuitResultTable() {
+        this(Precision.DOUBLE);
+    }
+
+    public ShortCircuitResultTable(Precision precision) {
+        this(precision, DEFAULT_MAX_CHUNK_SIZE);
+    }
+
+    ShortCircuitResultTable(Precision precision, int maxChunkSize) {
+        this.precision = Objects.requireNonNull(precision);
+        if (maxChunkSize <= 0) {
+            throw new IllegalArgumentException("Invalid chunk size: " + maxChunkSize);
+        }
+        this.maxChunkSize = maxChunkSize;
+    }
+
+    public Precision getPrecision() {
+        return precision;
+    }
+
+    @Override
+    public synchronized void accept(ShortCircuitFault fault, ShortCircuitResult result) {
+        Objects.requireNonNull(fault);
+        Objects.requireNonNull(result);
+        if (faultNums.containsKey(fault)) {
+            throw new IllegalArgumentException("Fault " + fault.getFaultId() + " already in the result table");
+        }
+        int faultNum = faults.size();
+        if (faultNum == ik.length) {
+            if (faultNum == MAX_FAULT_COUNT) {
+                throw new IllegalStateException("Too many faults in the result table");
+            }
+            int capacity = (int) Math.min(MAX_FAULT_COUNT, 2L * faultNum);
+            ik = Arrays.copyOf(ik, capacity);
+            currents = Arrays.copyOf(currents, capacity * VALUE_SIZE);
+            voltages = Arrays.copyOf(voltages, capacity * VALUE_SIZE);
+            tableNums = Arrays.copyOf(tableNums, capacity);
+            rows = Arrays.copyOf(rows, capacity);
+        }
+        faults.add(fault);
+        faultNums.put(fault, faultNum);
+
+        ik[faultNum] = result.getIk().abs();
+        putValue(currents, faultNum * VALUE_SIZE, result.getiFortescue());
+        putValue(voltages, faultNum * VALUE_SIZE, result.getvFortescue());
+
+        tableNums[faultNum] = -1;
+        rows[faultNum] = -1;
+        result.readVoltageProfile(r -> {
+            NetworkTable table = tablesPerLfNetwork.computeIfAbsent(r.getLfNetwork(), lfNetwork -> {
+                NetworkTable newTable = new NetworkTable(tables.size(), lfNetwork, precision, maxChunkSize);
+                tables.add(newTable);
+                return newTable;
+            });
+            tableNums[faultNum] = table.tableNum;
+            rows[faultNum] = table.addRow(r);
+        });
+    }
+
+    private static void putValue(double[] values, int offset, FortescueValue value) {
+        // magnitudes and angles are converted to real and imaginary parts, a missing sequence gives NaN
+        putComplex(values, offset + 2 * ShortCircuitResult.FortescueType.DIRECT.ordinal(), value.getPositiveMagnitude(), value.getPositiveAngle());
+        putComplex(values, offset + 2 * ShortCircuitResult.FortescueType.HOMOPOLAR.ordinal(), value.getZeroMagnitude(), value.getZeroAngle());
+        putComplex(values, offset + 2 * ShortCircuitResult.FortescueType.INVERSE.ordinal(), value.getNegativeMagnitude(), value.getNegativeAngle());
+    }
+
+    private static void putComplex(double[] values, int offset, double magnitude, double angle) {
+        values[offset] = magnitude * Math.cos(angle);
+        values[offset + 1] = magnitude * Math.sin(angle);
+    }
+
+    private static Complex getComplex(double[] values, int offset, ShortCircuitResult.FortescueType type) {
+        int i = offset + 2 * type.ordinal();
+        return new Complex(values[i], values[i + 1]);
+    }
+
+    private static Complex getComplex(RowArray values, int row, int offset, ShortCircuitResult.FortescueType type) {
+        int i = offset + 2 * type.ordinal();
+        return new Complex(values.get(row, i), values.get(row, i + 1));
+    }
+
+    public synchronized int getFaultCount() {
+        return faults.size();
+    }
+
+    public synchronized ShortCircuitFault getFault(int faultNum) {
+        return faults.get(faultNum);
+    }
+
+    /**
+     * Returns the number of the fault in the table, or -1 if the fault has no result.
+     */
+    public synchronized int getFaultNum(ShortCircuitFault fault) {
+        return faultNums.getOrDefault(fault, -1);
+    }
+
+    public synchronized double getIk(int faultNum) {
+        checkFaultNum(faultNum);
+        return ik[faultNum];
+    }
+
+    public synchronized Complex getCurrent(int faultNum, ShortCircuitResult.FortescueType type) {
+        checkFaultNum(faultNum);
+        return getComplex(currents, faultNum * VALUE_SIZE, type);
+    }
+
+    public synchronized Complex getVoltage(int faultNum, ShortCircuitResult.FortescueType type) {
+        checkFaultNum(faultNum);
+        return getComplex(voltages, faultNum * VALUE_SIZE, type);
+    }
+
+    public synchronized boolean hasVoltageProfile(int faultNum) {
+        checkFaultNum(faultNum);
+        return tableNums[faultNum] >= 0;
+    }
+
+    /**
+     * Returns the table holding the voltage profile of the fault, with the ids of its busses and branches.
+     */
+    public synchronized NetworkTable getNetworkTable(int faultNum) {
+        checkVoltageProfile(faultNum);
+        return tables.get(tableNums[faultNum]);
+    }
+
+    public synchronized Complex getBusDv(int faultNum, int busNum, ShortCircuitResult.FortescueType type) {
+        NetworkTable table = getNetworkTable(faultNum);
+        return getComplex(table.busDv, rows[faultNum], VALUE_SIZE * busNum, type);
+    }
+
+    public synchronized Complex getBranchDi1(int faultNum, int branchNum, ShortCircuitResult.FortescueType type) {
+        NetworkTable table = getNetworkTable(faultNum);
+        return getComplex(table.branchDi1, rows[faultNum], VALUE_SIZE * branchNum, type);
+    }
+
+    public synchronized Complex getBranchDi2(int faultNum, int branchNum, ShortCircuitResult.FortescueType type) {
+        NetworkTable table = getNetworkTable(faultNum);
+        return getComplex(table.branchDi2, rows[faultNum], VALUE_SIZE * branchNum, type);
+    }
+
+    /**
+     * Returns a copy of the voltage profile row of the fault, 6 values per bus ordered by bus number.
+     */
+    public synchronized double[] getBusDvRow(int faultNum) {
+        NetworkTable table = getNetworkTable(faultNum);
+        double[] row = new double[table.busRowSize];
+        for (int i = 0; i < row.length; i++) {
+            row[i] = table.busDv.get(rows[faultNum], i);
+        }
+        return row;
+    }
+
+    /**
+     * Writes the whole table to a binary columnar file, the arrays are copied to the file in bulk without any per value object.
+     */
+    public synchronized void write(Path file) {
+        Objects.requireNonNull(file);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(WRITE_BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            int faultCount = faults.size();
+            putInt(channel, buffer, MAGIC);
+            putInt(channel, buffer, VERSION);
+            putInt(channel, buffer, precision.ordinal());
+            putInt(channel, buffer, faultCount);
+            for (ShortCircuitFault fault : faults) {
+                putString(channel, buffer, fault.getFaultId());
+            }
+            putDoubles(channel, buffer, ik, faultCount);
+            putDoubles(channel, buffer, currents, faultCount * VALUE_SIZE);
+            putDoubles(channel, buffer, voltages, faultCount * VALUE_SIZE);
+            putInts(channel, buffer, tableNums, faultCount);
+            putInts(channel, buffer, rows, faultCount);
+            putInt(channel, buffer, tables.size());
+            for (NetworkTable table : tables) {
+                putInt(channel, buffer, table.busIds.length);
+                for (String busId : table.busIds) {
+                    putString(channel, buffer, busId);
+                }
+                putInt(channel, buffer, table.branchIds.length);
+                for (String branchId : table.branchIds) {
+                    putString(channel, buffer, branchId);
+                }
+                putInt(channel, buffer, table.rowCount);
+                table.busDv.write(channel, buffer, table.rowCount);
+                table.branchDi1.write(channel, buffer, table.rowCount);
+                table.branchDi2.write(channel, buffer, table.rowCount);
+            }
+            flush(channel, buffer);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void ensureRemaining(FileChannel channel, ByteBuffer buffer, int size) throws IOException {
+        if (buffer.remaining() < size) {
+            flush(channel, buffer);
+        }
+    }
+
+    private static void flush(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    private static void putInt(FileChannel channel, ByteBuffer buffer, int value) throws IOException {
+        ensureRemaining(channel, buffer, Integer.BYTES);
+        buffer.putInt(value);
+    }
+
+    private static void putString(FileChannel channel, ByteBuffer buffer, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        putInt(channel, buffer, bytes.length);
+        int offset = 0;
+        while (offset < bytes.length) {
+            ensureRemaining(channel, buffer, 1);
+            int length = Math.min(buffer.remaining(), bytes.length - offset);
+            buffer.put(bytes, offset, length);
+            offset += length;
+        }
+    }
+
+    private static void putInts(FileChannel channel, ByteBuffer buffer, int[] values, int count) throws IOException {
+        int offset = 0;
+        while (offset < count) {
+            ensureRemaining(channel, buffer, Integer.BYTES);
+            int length = Math.min(buffer.remaining() / Integer.BYTES, count - offset);
+            buffer.asIntBuffer().put(values, offset, length);
+            buffer.position(buffer.position() + length * Integer.BYTES);
+            offset += length;
+        }
+    }
+
+    private static void putDoubles(FileChannel channel, ByteBuffer buffer, double[] values, int count) throws IOException {
+        int offset = 0;
+        while (offset < count) {
+            ensureRemaining(channel, buffer, Double.BYTES);
+            int length = Math.min(buffer.remaining() / Double.BYTES, count - offset);
+            buffer.asDoubleBuffer().put(values, offset, length);
+            buffer.position(buffer.position() + length * Double.BYTES);
+            offset += length;
+        }
+    }
+
+    private static void putFloats(FileChannel channel, ByteBuffer buffer, float[] values, int count) throws IOException {
+        int offset = 0;
+        while (offset < count) {
+            ensureRemaining(channel, buffer, Float.BYTES);
+            int length = Math.min(buffer.remaining() / Float.BYTES, count - offset);
+            buffer.asFloatBuffer().put(values, offset, length);
+            buffer.position(buffer.position() + length * Float.BYTES);
+            offset += length;
+        }
+    }
+
+    private static void putShorts(FileChannel channel, ByteBuffer buffer, short[] values, int count) throws IOException {
+        int offset = 0;
+        while (offset < count) {
+            ensureRemaining(channel, buffer, Short.BYTES);
+            int length = Math.min(buffer.remaining() / Short.BYTES, count - offset);
+            buffer.asShortBuffer().put(values, offset, length);
+            buffer.position(buffer.position() + length * Short.BYTES);
+            offset += length;
+        }
+    }
+
+    private void checkFaultNum(int faultNum) {
+        if (faultNum < 0 || faultNum >= faults.size()) {
+            throw new IllegalArgumentException("No fault " + faultNum + " in the result table");
+        }
+    }
+
+    private void checkVoltageProfile(int faultNum) {
+        checkFaultNum(faultNum);
+        if (tableNums[faultNum] < 0) {
+            throw new IllegalStateException("Fault " + faults.get(faultNum).getFaultId() + " has no voltage profile");
+        }
+    }
+}
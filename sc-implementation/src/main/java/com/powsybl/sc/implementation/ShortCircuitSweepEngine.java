@@ -0,0 +1,238 @@
+/**
+ * Copyright (c) 2022, Jean-Baptiste Heyberger & Geoffroy Jamgotchian
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ * SPDX-License-Identifier: MPL-2.0
+ */
+package com.powsybl.sc.implementation;
+
+import com.powsybl.iidm.network.Bus;
+import com.powsybl.iidm.network.Network;
+import com.powsybl.openloadflow.network.LfBus;
+import com.powsybl.openloadflow.network.LfNetwork;
+import com.powsybl.sc.util.AdmittanceEquationSystem;
+import com.powsybl.sc.util.CalculationLocation;
+import com.powsybl.sc.util.ImpedanceLinearResolution;
+import com.powsybl.sc.util.ImpedanceLinearResolutionParameters;
+import org.apache.commons.math3.complex.Complex;
+
+import java.util.*;
+
+/**
+ * Evaluates a set of busses with many fault impedances and fault types.
+ * Zth and Zof are computed once per bus, then all combinations of fault impedance and fault type are evaluated
+ * in a loop on primitive values, without building any fault or result object, into a {@link ShortCircuitSweepResult}.
+ * Biphased common support faults are not handled, and no voltage profile nor feeder result is computed.
+ *
+ * @author Jean-Baptiste Heyberger <jbheyberger at gmail.com>
+ */
+public class ShortCircuitSweepEngine extends AbstractShortCircuitEngine {
+
+    private static final double SQRT3 = Math.sqrt(3.);
+
+    private final List<String> busIds;
+
+    private final List<ShortCircuitFaultImpedance> impedances;
+
+    private final List<ShortCircuitFault.ShortCircuitType> types;
+
+    private final Map<ShortCircuitFault, Integer> locationToBusIndex = new HashMap<>(); // one location per bus of the sweep
+
+    private final boolean homopolarNeeded;
+
+    // fault impedances as primitive values, indexed like impedances
+    private final double[] zgr;
+    private final double[] zgi;
+    private final double[] zbr;
+    private final double[] zbi;
+    private final double[] zcr;
+    private final double[] zci;
+
+    private ShortCircuitSweepResult sweepResult;
+
+    public ShortCircuitSweepEngine(Network network, ShortCircuitEngineParameters parameters, List<String> busIds,
+                                   List<ShortCircuitFaultImpedance> impedances, List<ShortCircuitFault.ShortCircuitType> types) {
+        this(network, parameters, loadLfNetworks(network, parameters), busIds, impedances, types);
+    }
+
+    public ShortCircuitSweepEngine(Network network, ShortCircuitEngineParameters parameters, List<LfNetwork> lfNetworks, List<String> busIds,
+                                   List<ShortCircuitFaultImpedance> impedances, List<ShortCircuitFault.ShortCircuitType> types) {
+        // the sweep locations replace the fault list, so the engine works on a copy of the caller's parameters
+        super(network, new ShortCircuitEngineParameters(parameters), lfNetworks);
+        this.impedances = List.copyOf(Objects.requireNonNull(impedances));
+        this.types = List.copyOf(Objects.requireNonNull(types));
+        if (this.types.contains(ShortCircuitFault.ShortCircuitType.BIPHASED_COMMON_SUPPORT)) {
+            throw new IllegalArgumentException("Biphased common support faults are not handled by the sweep");
+        }
+
+        // a systematic sweep is made on all busses of the bus breaker view
+        if (parameters.getAnalysisType() == ShortCircuitEngineParameters.AnalysisType.SYSTEMATIC) {
+            List<String> allBusIds = new ArrayList<>();
+            for (Bus bus : network.getBusBreakerView().getBuses()) {
+                allBusIds.add(bus.getId());
+            }
+            this.busIds = allBusIds;
+        } else {
+            this.busIds = List.copyOf(Objects.requireNonNull(busIds));
+        }
+
+        homopolarNeeded = this.types.contains(ShortCircuitFault.ShortCircuitType.MONOPHASED)
+                || this.types.contains(ShortCircuitFault.ShortCircuitType.BIPHASED_GROUND);
+
+        // the sweep locations are given to the engine as faults, only their bus is used
+        ShortCircuitFault.ShortCircuitType locationType = homopolarNeeded ? ShortCircuitFault.ShortCircuitType.MONOPHASED : ShortCircuitFault.ShortCircuitType.TRIPHASED_GROUND;
+        List<ShortCircuitFault> locations = new ArrayList<>();
+        for (int busIndex = 0; busIndex < this.busIds.size(); busIndex++) {
+            String busId = this.busIds.get(busIndex);
+            ShortCircuitFault location = new ShortCircuitFault(busId, busId, new ShortCircuitFaultImpedance(new Complex(0.)), locationType);
+            locations.add(location);
+            locationToBusIndex.put(location, busIndex);
+        }
+        this.parameters.setShortCircuitFaults(locations);
+
+        int nbImpedances = this.impedances.size();
+        zgr = new double[nbImpedances];
+        zgi = new double[nbImpedances];
+        zbr = new double[nbImpedances];
+        zbi = new double[nbImpedances];
+        zcr = new double[nbImpedances];
+        zci = new double[nbImpedances];
+        for (int z = 0; z < nbImpedances; z++) {
+            ShortCircuitFaultImpedance zf = this.impedances.get(z);
+            zgr[z] = zf.getZg().getReal();
+            zgi[z] = zf.getZg().getImaginary();
+            zbr[z] = zf.getZb().getReal();
+            zbi[z] = zf.getZb().getImaginary();
+            zcr[z] = zf.getZc().getReal();
+            zci[z] = zf.getZc().getImaginary();
+        }
+    }
+
+    @Override
+    public void run() {
+        // components write the rows of their own busses, the table can be shared
+        sweepResult = new ShortCircuitSweepResult(busIds, impedances, types);
+        super.run();
+    }
+
+    public ShortCircuitSweepResult getSweepResult() {
+        return sweepResult;
+    }
+
+    @Override
+    protected void buildSystematicList(ShortCircuitFault.ShortCircuitType type) {
+        // the locations of a systematic sweep have already been built for all busses
+    }
+
+    @Override
+    protected ShortCircuitFault.ShortCircuitType getSystematicFaultType() {
+        return homopolarNeeded ? ShortCircuitFault.ShortCircuitType.MONOPHASED : ShortCircuitFault.ShortCircuitType.TRIPHASED_GROUND;
+    }
+
+    @Override
+    protected Map<ShortCircuitFault, ShortCircuitResult> runOnLfNetwork(LfNetwork lfNetwork, List<CalculationLocation> faultList, List<CalculationLocation> biphasedFaultList) {
+        if (faultList.isEmpty()) {
+            return Collections.emptyMap();
+        }
+
+        ImpedanceLinearResolution directResolution = new ImpedanceLinearResolution(lfNetwork, new ImpedanceLinearResolutionParameters(acLoadFlowParameters,
+                parameters.getMatrixFactory(), faultList, false, getAdmittanceVoltageProfileTypeFromParam(),
+                getAdmittancePeriodTypeFromParam(), AdmittanceEquationSystem.AdmittanceType.ADM_THEVENIN, parameters.isIgnoreShunts()));
+        directResolution.run();
+        checkCancelled();
+
+        ImpedanceLinearResolution homopolarResolution = null;
+        if (homopolarNeeded) {
+            homopolarResolution = new ImpedanceLinearResolution(lfNetwork, new ImpedanceLinearResolutionParameters(acLoadFlowParameters,
+                    parameters.getMatrixFactory(), faultList, false, getAdmittanceVoltageProfileTypeFromParam(),
+                    getAdmittancePeriodTypeFromParam(), AdmittanceEquationSystem.AdmittanceType.ADM_THEVENIN_HOMOPOLAR, parameters.isIgnoreShunts()));
+            homopolarResolution.run();
+            checkCancelled();
+        }
+
+        // several sweep busses might be merged into the same LfBus, they share the same resolution result
+        Map<Integer, Integer> busNumToResultNum = new HashMap<>();
+        for (int numResult = 0; numResult < directResolution.results.size(); numResult++) {
+            busNumToResultNum.put(directResolution.results.get(numResult).getBus().getNum(), numResult);
+        }
+
+        // kernel outputs reused for all the evaluations of the component
+        double[] currents = new double[ShortCircuitKernels.CURRENTS_SIZE];
+        double[] voltages = new double[ShortCircuitKernels.CURRENTS_SIZE];
+        for (CalculationLocation location : faultList) {
+            checkCancelled();
+            Integer numResult = busNumToResultNum.get(location.getLfBusNum());
+            if (numResult == null) {
+                continue;
+            }
+            ImpedanceLinearResolution.ImpedanceLinearResolutionResult directResult = directResolution.results.get(numResult);
+            Complex zof = homopolarResolution != null ? homopolarResolution.results.get(numResult).getZthEq() : new Complex(0.);
+            evaluate(locationToBusIndex.get((ShortCircuitFault) location), directResult.getBus(), directResult.getEth(), directResult.getZthEq(), zof,
+                    currents, voltages);
+        }
+
+        // results are only available through the sweep table
+        return Collections.emptyMap();
+    }
+
+    private void evaluate(int busIndex, LfBus lfBus, Complex eth, Complex zdf, Complex zof, double[] currents, double[] voltages) {
+        double er = eth.getReal();
+        double ei = eth.getImaginary();
+        double zdr = zdf.getReal();
+        double zdi = zdf.getImaginary();
+        double zor = zof.getReal();
+        double zoi = zof.getImaginary();
+
+        // same conversion to kA as in ShortCircuitResult
+        double nominalV = lfBus.getNominalV();
+        double ibase = 1000. * 100. / nominalV;
+        double ikCoef = parameters.getNorm().getCmaxVoltageFactor(nominalV) * ibase / 1000.;
+
+        for (int z = 0; z < impedances.size(); z++) {
+            for (int t = 0; t < types.size(); t++) {
+                ShortCircuitFault.ShortCircuitType type = types.get(t);
+                // same formulas as the engines, see ShortCircuitKernels
+                double ikFactor;
+                int ikComponent;
+                switch (type) {
+                    case TRIPHASED_GROUND:
+                        ShortCircuitKernels.computeTriphasedCurrents(zdr, zdi, zgr[z], zgi[z], er, ei, currents, 0);
+                        ikFactor = 1. / SQRT3; // Ik3" = c * Id / sqrt(3)
+                        ikComponent = ShortCircuitKernels.D;
+                        break;
+                    case MONOPHASED:
+                        ShortCircuitKernels.computeMonophasedCurrents(zdr, zdi, zor, zoi, zgr[z], zgi[z], er, ei, currents, 0);
+                        ikFactor = SQRT3; // Ik1" = c * 3 * Io / sqrt(3)
+                        ikComponent = ShortCircuitKernels.O;
+                        break;
+                    case BIPHASED:
+                        ShortCircuitKernels.computeBiphasedCurrents(zdr, zdi, zbr[z], zbi[z], er, ei, currents, 0);
+                        ikFactor = 1.; // Ik2" = c * Id
+                        ikComponent = ShortCircuitKernels.D;
+                        break;
+                    case BIPHASED_GROUND:
+                        ShortCircuitKernels.computeBiphasedGroundCurrents(zdr, zdi, zor, zoi, zgr[z], zgi[z], zbr[z], zbi[z], zcr[z], zci[z],
+                                er, ei, currents, 0);
+                        ikFactor = SQRT3; // IkE2E" = Ik2EL2" + Ik2EL3" = c * 3 * Io / sqrt(3)
+                        ikComponent = ShortCircuitKernels.O;
+                        break;
+                    default:
+                        throw new IllegalStateException("Unexpected fault type: " + type);
+                }
+                ShortCircuitKernels.computeFaultVoltages(zdr, zdi, zor, zoi, currents, voltages, 0);
+
+                // post-fault direct voltage and magnitudes of the zero and inverse voltage drops
+                sweepResult.set(sweepResult.getRow(busIndex, z, t),
+                        ikCoef * ikFactor * magnitude(currents, ikComponent),
+                        Math.hypot(er + voltages[ShortCircuitKernels.D], ei + voltages[ShortCircuitKernels.D + 1]),
+                        magnitude(voltages, ShortCircuitKernels.O),
+                        magnitude(voltages, ShortCircuitKernels.I));
+            }
+        }
+    }
+
+    private static double magnitude(double[] values, int component) {
+        return Math.hypot(values[component], values[component + 1]);
+    }
+}
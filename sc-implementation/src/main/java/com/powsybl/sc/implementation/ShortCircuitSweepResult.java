@@ -0,0 +1,110 @@
+/**
+ * Copyright (c) 2022, Jean-Baptiste Heyberger & Geoffroy Jamgotchian
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ * SPDX-License-Identifier: MPL-2.0
+ */
+package com.powsybl.sc.implementation;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Compact table of the results of a fault impedance sweep, with one row per bus, fault impedance and fault type.
+ * Each row gives Ik (kA) and the magnitudes (pu) of the direct, homopolar and inverse voltages at the faulted bus.
+ * Rows of busses that could not be located in a network with a source are filled with NaN.
+ *
+ * @author Jean-Baptiste Heyberger <jbheyberger at gmail.com>
+ */
+public class ShortCircuitSweepResult {
+
+    private final List<String> busIds;
+
+    private final List<ShortCircuitFaultImpedance> impedances;
+
+    private final List<ShortCircuitFault.ShortCircuitType> types;
+
+    private final double[] ik;
+    private final double[] vd;
+    private final double[] vo;
+    private final double[] vi;
+
+    ShortCircuitSweepResult(List<String> busIds, List<ShortCircuitFaultImpedance> impedances, List<ShortCircuitFault.ShortCircuitType> types) {
+        this.busIds = List.copyOf(Objects.requireNonNull(busIds));
+        this.impedances = List.copyOf(Objects.requireNonNull(impedances));
+        this.types = List.copyOf(Objects.requireNonNull(types));
+        int nbRows = busIds.size() * impedances.size() * types.size();
+        ik = new double[nbRows];
+        vd = new double[nbRows];
+        vo = new double[nbRows];
+        vi = new double[nbRows];
+        Arrays.fill(ik, Double.NaN);
+        Arrays.fill(vd, Double.NaN);
+        Arrays.fill(vo, Double.NaN);
+        Arrays.fill(vi, Double.NaN);
+    }
+
+    public List<String> getBusIds() {
+        return busIds;
+    }
+
+    public List<ShortCircuitFaultImpedance> getImpedances() {
+        return impedances;
+    }
+
+    public List<ShortCircuitFault.ShortCircuitType> getTypes() {
+        return types;
+    }
+
+    public int getRowCount() {
+        return ik.length;
+    }
+
+    public int getRow(int busIndex, int impedanceIndex, int typeIndex) {
+        Objects.checkIndex(busIndex, busIds.size());
+        Objects.checkIndex(impedanceIndex, impedances.size());
+        Objects.checkIndex(typeIndex, types.size());
+        return (busIndex * impedances.size() + impedanceIndex) * types.size() + typeIndex;
+    }
+
+    void set(int row, double ikValue, double vdValue, double voValue, double viValue) {
+        ik[row] = ikValue;
+        vd[row] = vdValue;
+        vo[row] = voValue;
+        vi[row] = viValue;
+    }
+
+    public double getIk(int row) {
+        return ik[row];
+    }
+
+    public double getVd(int row) {
+        return vd[row];
+    }
+
+    public double getVo(int row) {
+        return vo[row];
+    }
+
+    public double getVi(int row) {
+        return vi[row];
+    }
+
+    public double getIk(int busIndex, int impedanceIndex, int typeIndex) {
+        return ik[getRow(busIndex, impedanceIndex, typeIndex)];
+    }
+
+    public double getVd(int busIndex, int impedanceIndex, int typeIndex) {
+        return vd[getRow(busIndex, impedanceIndex, typeIndex)];
+    }
+
+    public double getVo(int busIndex, int impedanceIndex, int typeIndex) {
+        return vo[getRow(busIndex, impedanceIndex, typeIndex)];
+    }
+
+    public double getVi(int busIndex, int impedanceIndex, int typeIndex) {
+        return vi[getRow(busIndex, impedanceIndex, typeIndex)];
+    }
+}
@@ -0,0 +1,173 @@
+/**
+ * Copyright (c) 2022, Jean-Baptiste Heyberger & Geoffroy Jamgotchian
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ * SPDX-License-Identifier: MPL-2.0
+ */
+package com.powsybl.sc.implementation;
+
+import com.powsybl.iidm.network.Network;
+import com.powsybl.iidm.network.VariantManager;
+import com.powsybl.openloadflow.network.LfNetwork;
+import com.powsybl.sc.util.AdmittanceEquationSystem;
+import com.powsybl.sc.util.AdmittanceMatrixCache;
+import com.powsybl.sc.util.AdmittanceSnapshot;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Runs the same short circuit analysis on a sequence of network states, given as variants of the network.
+ * For each step, the admittance terms of the direct and homopolar systems are compared to the ones of the previous step.
+ * If no term changed and the voltage profile is nominal, the faults give the same results as the previous step, which are
+ * reused without any factorization. Otherwise, the step is computed: if only the values of the terms changed, the admittance
+ * matrices of the previous step are updated in place and their LU decompositions are updated instead of being computed
+ * again, the matrices are built again if the structure changed.
+ * Results of each step are given to the step consumer as soon as the step is done, only the last computed step is kept in memory.
+ *
+ * @author Jean-Baptiste Heyberger <jbheyberger at gmail.com>
+ */
+public class ShortCircuitTimeSeriesEngine {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ShortCircuitTimeSeriesEngine.class);
+
+    public enum StepStatus {
+        COMPUTED, // admittance terms changed since the previous step, the step has been computed
+        UNCHANGED; // same admittance terms as the previous step, results of the previous step are reused
+    }
+
+    @FunctionalInterface
+    public interface EngineFactory {
+        AbstractShortCircuitEngine create(Network network, ShortCircuitEngineParameters parameters, List<LfNetwork> lfNetworks);
+    }
+
+    @FunctionalInterface
+    public interface StepConsumer {
+        void accept(String variantId, StepStatus status, Map<ShortCircuitFault, ShortCircuitResult> results);
+    }
+
+    private final Network network;
+
+    private final ShortCircuitEngineParameters parameters;
+
+    private final EngineFactory engineFactory;
+
+    private final AtomicBoolean cancelled = new AtomicBoolean(false);
+
+    private volatile AbstractShortCircuitEngine runningEngine;
+
+    public ShortCircuitTimeSeriesEngine(Network network, ShortCircuitEngineParameters parameters, EngineFactory engineFactory) {
+        this.network = Objects.requireNonNull(network);
+        this.parameters = Objects.requireNonNull(parameters);
+        this.engineFactory = Objects.requireNonNull(engineFactory);
+    }
+
+    public void run(List<String> variantIds, StepConsumer stepConsumer) {
+        Objects.requireNonNull(variantIds);
+        Objects.requireNonNull(stepConsumer);
+
+        VariantManager variantManager = network.getVariantManager();
+        String workingVariantId = variantManager.getWorkingVariantId();
+        try (AdmittanceMatrixCache admittanceMatrixCache = new AdmittanceMatrixCache()) {
+            List<AdmittanceSnapshot> previousSnapshots = null;
+            Map<ShortCircuitFault, ShortCircuitResult> previousResults = null;
+            for (String variantId : variantIds) {
+                checkCancelled();
+                variantManager.setWorkingVariant(variantId);
+
+                List<LfNetwork> lfNetworks = AbstractShortCircuitEngine.loadLfNetworks(network, parameters);
+                if (parameters.getVoltageProfileType() == ShortCircuitEngineParameters.VoltageProfileType.CALCULATED) {
+                    AbstractShortCircuitEngine.runPreFaultLoadFlow(lfNetworks, parameters);
+                }
+                AbstractShortCircuitEngine engine = engineFactory.create(network, parameters, lfNetworks);
+
+                List<AdmittanceSnapshot> snapshots = createSnapshots(engine, lfNetworks);
+                if (previousSnapshots != null && isStructureChanged(previousSnapshots, snapshots)) {
+                    admittanceMatrixCache.clear();
+                }
+                engine.setAdmittanceMatrixCache(admittanceMatrixCache);
+                if (previousResults != null && isUnchanged(previousSnapshots, snapshots)) {
+                    LOGGER.debug("Step {}: no admittance change, results of the previous step are reused", variantId);
+                    stepConsumer.accept(variantId, StepStatus.UNCHANGED, previousResults);
+                } else {
+                    runningEngine = engine;
+                    if (cancelled.get()) {
+                        engine.cancel();
+                    }
+                    try {
+                        engine.run();
+                    } finally {
+                        runningEngine = null;
+                    }
+                    previousResults = Collections.unmodifiableMap(new LinkedHashMap<>(engine.getResultsPerFault()));
+                    stepConsumer.accept(variantId, StepStatus.COMPUTED, previousResults);
+                }
+                previousSnapshots = snapshots;
+            }
+        } finally {
+            variantManager.setWorkingVariant(workingVariantId);
+        }
+    }
+
+    /**
+     * Requests the computation to stop, the current step throws a {@link CancellationException} at its next cancellation check.
+     */
+    public void cancel() {
+        cancelled.set(true);
+        AbstractShortCircuitEngine engine = runningEngine;
+        if (engine != null) {
+            engine.cancel();
+        }
+    }
+
+    private void checkCancelled() {
+        if (Thread.currentThread().isInterrupted()) {
+            cancelled.set(true);
+        }
+        if (cancelled.get()) {
+            throw new CancellationException("Short circuit computation cancelled");
+        }
+    }
+
+    private List<AdmittanceSnapshot> createSnapshots(AbstractShortCircuitEngine engine, List<LfNetwork> lfNetworks) {
+        List<AdmittanceSnapshot> snapshots = new ArrayList<>();
+        for (LfNetwork lfNetwork : lfNetworks) {
+            for (AdmittanceEquationSystem.AdmittanceType admittanceType : List.of(AdmittanceEquationSystem.AdmittanceType.ADM_THEVENIN,
+                    AdmittanceEquationSystem.AdmittanceType.ADM_THEVENIN_HOMOPOLAR)) {
+                snapshots.add(AdmittanceSnapshot.create(lfNetwork, admittanceType, engine.getAdmittanceVoltageProfileTypeFromParam(),
+                        engine.getAdmittancePeriodTypeFromParam(), parameters.isIgnoreShunts()));
+            }
+        }
+        return snapshots;
+    }
+
+    private static boolean isStructureChanged(List<AdmittanceSnapshot> previousSnapshots, List<AdmittanceSnapshot> snapshots) {
+        if (previousSnapshots.size() != snapshots.size()) {
+            return true;
+        }
+        for (int i = 0; i < snapshots.size(); i++) {
+            if (snapshots.get(i).countChangedTerms(previousSnapshots.get(i)) == AdmittanceSnapshot.STRUCTURE_CHANGED) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean isUnchanged(List<AdmittanceSnapshot> previousSnapshots, List<AdmittanceSnapshot> snapshots) {
+        // with a calculated voltage profile, the Thevenin voltages depend on the pre-fault state even if the admittances did not change
+        if (parameters.getVoltageProfileType() != ShortCircuitEngineParameters.VoltageProfileType.NOMINAL
+                || previousSnapshots.size() != snapshots.size()) {
+            return false;
+        }
+        for (int i = 0; i < snapshots.size(); i++) {
+            if (snapshots.get(i).countChangedTerms(previousSnapshots.get(i)) != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
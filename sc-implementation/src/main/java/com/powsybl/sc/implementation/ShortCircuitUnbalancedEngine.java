@@ -12,11 +12,13 @@ import com.powsybl.openloadflow.network.LfBus;
 import com.powsybl.openloadflow.network.LfNetwork;
 import com.powsybl.sc.util.*;
 import org.apache.commons.math3.complex.Complex;
-import org.apache.commons.math3.util.Pair;
 
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
 
 /**
  * @author Jean-Baptiste Heyberger <jbheyberger at gmail.com>
@@ -27,77 +29,102 @@ public class ShortCircuitUnbalancedEngine extends AbstractShortCircuitEngine {
         super(network, parameters);
     }
 
-    @Override
-    public void run() {
-        LfNetwork lfNetwork = lfNetworks.get(0);
-
-        if (parameters.getAnalysisType() == ShortCircuitEngineParameters.AnalysisType.SYSTEMATIC) {
-            buildSystematicList(ShortCircuitFault.ShortCircuitType.MONOPHASED); // TODO : by default it is monophased, could be changed to choose type of systematic default
-            // Biphased common support faults will not be supported yet in systematic
-        }
+    public ShortCircuitUnbalancedEngine(Network network, ShortCircuitEngineParameters parameters, List<LfNetwork> lfNetworks) {
+        super(network, parameters, lfNetworks);
+    }
 
-        // We handle a pre-treatement of faults given in input:
-        // - filtering of some inconsistencies on the bus identification
-        // - addition of info in each fault to ease the identification in LfNetwork of iidm info
-        Pair<List<CalculationLocation>, List<CalculationLocation>> faultLists = buildFaultListsFromInputs();
+    @Override
+    protected ShortCircuitFault.ShortCircuitType getSystematicFaultType() {
+        // TODO : by default it is monophased, could be changed to choose type of systematic default
+        // Biphased common support faults will not be supported yet in systematic
+        return ShortCircuitFault.ShortCircuitType.MONOPHASED;
+    }
 
-        solverFaultList = faultLists.getKey();
-        solverBiphasedFaultList = faultLists.getValue();
+    @Override
+    protected Map<ShortCircuitFault, ShortCircuitResult> runOnLfNetwork(LfNetwork lfNetwork, List<CalculationLocation> faultList, List<CalculationLocation> biphasedFaultList) {
 
         ImpedanceLinearResolutionParameters admittanceLinearResolutionParametersHomopolar = new ImpedanceLinearResolutionParameters(acLoadFlowParameters,
-                parameters.getMatrixFactory(), solverFaultList, parameters.isVoltageUpdate(),
+                parameters.getMatrixFactory(), faultList, parameters.isVoltageUpdate(),
                 getAdmittanceVoltageProfileTypeFromParam(), getAdmittancePeriodTypeFromParam(), AdmittanceEquationSystem.AdmittanceType.ADM_THEVENIN_HOMOPOLAR,
-                parameters.isIgnoreShunts(), solverBiphasedFaultList);
+                parameters.isIgnoreShunts(), biphasedFaultList);
 
         ImpedanceLinearResolutionParameters admittanceLinearResolutionParametersDirect = new ImpedanceLinearResolutionParameters(acLoadFlowParameters,
-                parameters.getMatrixFactory(), solverFaultList, parameters.isVoltageUpdate(),
+                parameters.getMatrixFactory(), faultList, parameters.isVoltageUpdate(),
                 getAdmittanceVoltageProfileTypeFromParam(), getAdmittancePeriodTypeFromParam(), AdmittanceEquationSystem.AdmittanceType.ADM_THEVENIN,
-                parameters.isIgnoreShunts(), solverBiphasedFaultList);
+                parameters.isIgnoreShunts(), biphasedFaultList);
+
+        // both resolutions extract the voltage deltas at the same busses
+        Set<LfBus> monitoredBusses = getMonitoredBusses(lfNetwork);
+        admittanceLinearResolutionParametersHomopolar.setMonitoredBusses(monitoredBusses);
+        admittanceLinearResolutionParametersDirect.setMonitoredBusses(monitoredBusses);
+        admittanceLinearResolutionParametersHomopolar.setOffHeapColumns(parameters.isOffHeapImpedanceColumns());
+        admittanceLinearResolutionParametersDirect.setOffHeapColumns(parameters.isOffHeapImpedanceColumns());
+        Function<LfBus, Set<LfBus>> keptBussesProvider = null;
+        for (ImpedanceLinearResolutionParameters linearResolutionParameters : List.of(admittanceLinearResolutionParametersDirect, admittanceLinearResolutionParametersHomopolar)) {
+            linearResolutionParameters.setAbsoluteZDropTolerance(parameters.getAbsoluteZDropTolerance());
+            linearResolutionParameters.setRelativeZDropTolerance(parameters.getRelativeZDropTolerance());
+            linearResolutionParameters.setAdmittanceMatrixCache(getAdmittanceMatrixCache());
+            if (linearResolutionParameters.isSparseColumns()) {
+                if (keptBussesProvider == null) {
+                    keptBussesProvider = getKeptBussesProvider(lfNetwork, faultList, biphasedFaultList);
+                }
+                linearResolutionParameters.setKeptBussesProvider(keptBussesProvider);
+            }
+        }
 
         ImpedanceLinearResolution directResolution = new ImpedanceLinearResolution(lfNetwork, admittanceLinearResolutionParametersDirect);
         ImpedanceLinearResolution homopolarResolution = new ImpedanceLinearResolution(lfNetwork, admittanceLinearResolutionParametersHomopolar);
 
-        directResolution.run();
-        homopolarResolution.run();
-
-        //Build the ShortCircuit results using the linear resolution computation results
-        resultsPerFault.clear();
-        processAdmittanceLinearResolutionResults(lfNetwork, directResolution, homopolarResolution, ShortCircuitFault.ShortCircuitType.MONOPHASED);
-        processAdmittanceLinearResolutionResults(lfNetwork, directResolution, homopolarResolution, ShortCircuitFault.ShortCircuitType.BIPHASED);
-        processAdmittanceLinearResolutionResults(lfNetwork, directResolution, homopolarResolution, ShortCircuitFault.ShortCircuitType.BIPHASED_GROUND);
-        processAdmittanceLinearResolutionResults(lfNetwork, directResolution, homopolarResolution, ShortCircuitFault.ShortCircuitType.BIPHASED_COMMON_SUPPORT);
+        Map<ShortCircuitFault, ShortCircuitResult> results = new LinkedHashMap<>();
+        try {
+            directResolution.run();
+            checkCancelled();
+            homopolarResolution.run();
+            checkCancelled();
+
+            //Build the ShortCircuit results using the linear resolution computation results, faults being grouped by bus number and type
+            ShortCircuitFaultIndex faultIndex = new ShortCircuitFaultIndex(faultList, lfNetwork);
+            ShortCircuitFaultIndex biphasedFaultIndex = new ShortCircuitFaultIndex(biphasedFaultList, lfNetwork);
+            processAdmittanceLinearResolutionResults(lfNetwork, directResolution, homopolarResolution, faultIndex, ShortCircuitFault.ShortCircuitType.MONOPHASED, results);
+            processAdmittanceLinearResolutionResults(lfNetwork, directResolution, homopolarResolution, faultIndex, ShortCircuitFault.ShortCircuitType.BIPHASED, results);
+            processAdmittanceLinearResolutionResults(lfNetwork, directResolution, homopolarResolution, faultIndex, ShortCircuitFault.ShortCircuitType.BIPHASED_GROUND, results);
+            processAdmittanceLinearResolutionResults(lfNetwork, directResolution, homopolarResolution, biphasedFaultIndex, ShortCircuitFault.ShortCircuitType.BIPHASED_COMMON_SUPPORT, results);
+        } finally {
+            releaseResolution(directResolution);
+            releaseResolution(homopolarResolution);
+        }
+        return results;
     }
 
-    public void processAdmittanceLinearResolutionResults(LfNetwork lfNetwork, ImpedanceLinearResolution directResolution, ImpedanceLinearResolution homopolarResolution, ShortCircuitFault.ShortCircuitType shortCircuitType) {
+    public void processAdmittanceLinearResolutionResults(LfNetwork lfNetwork, ImpedanceLinearResolution directResolution, ImpedanceLinearResolution homopolarResolution,
+                                                         ShortCircuitFaultIndex faultIndex, ShortCircuitFault.ShortCircuitType shortCircuitType,
+                                                         Map<ShortCircuitFault, ShortCircuitResult> results) {
+
+        if (parameters.isBatchFaultEvaluation() && shortCircuitType != ShortCircuitFault.ShortCircuitType.BIPHASED_COMMON_SUPPORT) {
+            processBatch(lfNetwork, directResolution, homopolarResolution, faultIndex, shortCircuitType, results);
+            return;
+        }
+
+        // kernel inputs and outputs, reused for all the faults
+        VoltageProfilePropagation propagation = createVoltageProfilePropagation(lfNetwork, false);
+        double[] currents = new double[ShortCircuitKernels.CURRENTS_SIZE];
+        double[] voltages = new double[ShortCircuitKernels.CURRENTS_SIZE];
+        double[] z = new double[ShortCircuitKernels.IMPEDANCES_SIZE];
+        double[] commonSupportCurrents = new double[ShortCircuitKernels.COMMON_SUPPORT_SIZE];
+        double[] commonSupportVoltages = new double[ShortCircuitKernels.COMMON_SUPPORT_SIZE];
 
         int numResult = 0;
         for (ImpedanceLinearResolution.ImpedanceLinearResolutionResult directResult : directResolution.results) {
 
+            checkCancelled();
             ImpedanceLinearResolution.ImpedanceLinearResolutionResult homopolarResult = homopolarResolution.results.get(numResult);
             numResult++;
 
             LfBus lfBus1 = directResult.getBus();
 
-            List<ShortCircuitFault> matchingFaultsAtBus1 = new ArrayList<>(); //We build a list of all faults with bus1 matching with bus1 of ImpedanceLinearResolutionResult
-
-            if (shortCircuitType == ShortCircuitFault.ShortCircuitType.MONOPHASED
-                    || shortCircuitType == ShortCircuitFault.ShortCircuitType.BIPHASED
-                    || shortCircuitType == ShortCircuitFault.ShortCircuitType.BIPHASED_GROUND) {
-                for (CalculationLocation calculationLocation : solverFaultList) {
-                    ShortCircuitFault scfe = (ShortCircuitFault) calculationLocation;
-                    if (lfBus1.getId().equals(scfe.getLfBusInfo()) && scfe.getType() == shortCircuitType) {
-                        matchingFaultsAtBus1.add(scfe);
-                    }
-                }
-            }
-
-            if (shortCircuitType == ShortCircuitFault.ShortCircuitType.BIPHASED_COMMON_SUPPORT) {
-                for (CalculationLocation calculationLocation : solverBiphasedFaultList) {
-                    ShortCircuitFault scfe = (ShortCircuitFault) calculationLocation;
-                    if (lfBus1.getId().equals(scfe.getLfBusInfo()) && scfe.getType() == shortCircuitType) {
-                        matchingFaultsAtBus1.add(scfe);
-                    }
-                }
+            List<ShortCircuitFault> matchingFaultsAtBus1 = faultIndex.getFaults(lfBus1.getNum(), shortCircuitType); // all faults of the given type with bus1 matching with bus1 of ImpedanceLinearResolutionResult
+            if (matchingFaultsAtBus1.isEmpty()) {
+                continue;
             }
 
             Complex v1dInit = directResult.getEth();
@@ -106,106 +133,150 @@ public class ShortCircuitUnbalancedEngine extends AbstractShortCircuitEngine {
 
             for (ShortCircuitFault scf : matchingFaultsAtBus1) {
 
-                Complex io = new Complex(0.);
-                Complex id = new Complex(0.);
-                Complex ii = new Complex(0.);
-
                 ShortCircuitResult res;
 
                 if (shortCircuitType == ShortCircuitFault.ShortCircuitType.MONOPHASED
                         || shortCircuitType == ShortCircuitFault.ShortCircuitType.BIPHASED
                         || shortCircuitType == ShortCircuitFault.ShortCircuitType.BIPHASED_GROUND) {
+                    ShortCircuitFaultImpedance zf = scf.getZf();
                     if (shortCircuitType == ShortCircuitFault.ShortCircuitType.MONOPHASED) {
-                        MonophasedShortCircuitCalculator monophasedCalculator = new MonophasedShortCircuitCalculator(zdf, zof, scf.getZf(), v1dInit);
-                        monophasedCalculator.computeCurrents();
-
-                        io = monophasedCalculator.getIo();
-                        id = monophasedCalculator.getId();
-                        ii = monophasedCalculator.getIi();
-
+                        ShortCircuitKernels.computeMonophasedCurrents(zdf.getReal(), zdf.getImaginary(), zof.getReal(), zof.getImaginary(),
+                                zf.getZg().getReal(), zf.getZg().getImaginary(), v1dInit.getReal(), v1dInit.getImaginary(), currents);
                     } else if (shortCircuitType == ShortCircuitFault.ShortCircuitType.BIPHASED) {
-                        BiphasedShortCircuitCalculator biphasedCalculator = new BiphasedShortCircuitCalculator(zdf, zof, scf.getZf(), v1dInit);
-                        biphasedCalculator.computeCurrents();
-
-                        io = biphasedCalculator.getIo();
-                        id = biphasedCalculator.getId();
-                        ii = biphasedCalculator.getIi();
-                    } else if (shortCircuitType == ShortCircuitFault.ShortCircuitType.BIPHASED_GROUND) {
-                        BiphasedGroundShortCircuitCalculator biphasedGrCalculator = new BiphasedGroundShortCircuitCalculator(zdf, zof, scf.getZf(), v1dInit);
-                        biphasedGrCalculator.computeCurrents();
-
-                        io = biphasedGrCalculator.getIo();
-                        id = biphasedGrCalculator.getId();
-                        ii = biphasedGrCalculator.getIi();
+                        ShortCircuitKernels.computeBiphasedCurrents(zdf.getReal(), zdf.getImaginary(), zf.getZb().getReal(), zf.getZb().getImaginary(),
+                                v1dInit.getReal(), v1dInit.getImaginary(), currents);
+                    } else {
+                        ShortCircuitKernels.computeBiphasedGroundCurrents(zdf.getReal(), zdf.getImaginary(), zof.getReal(), zof.getImaginary(),
+                                zf.getZg().getReal(), zf.getZg().getImaginary(), zf.getZb().getReal(), zf.getZb().getImaginary(),
+                                zf.getZc().getReal(), zf.getZc().getImaginary(), v1dInit.getReal(), v1dInit.getImaginary(), currents);
                     }
-
-                    res = buildUnbalancedResult(id, io, ii, zdf, zof,
-                            directResult, homopolarResult,
+                    ShortCircuitKernels.computeFaultVoltages(zdf.getReal(), zdf.getImaginary(), zof.getReal(), zof.getImaginary(), currents, voltages, 0);
+                    // the result keeps its own values, kernel arrays being reused for the next fault
+                    Complex io = get(currents, ShortCircuitKernels.O);
+                    Complex id = get(currents, ShortCircuitKernels.D);
+                    Complex ii = get(currents, ShortCircuitKernels.I);
+
+                    res = buildUnbalancedResult(id, io, ii, get(voltages, ShortCircuitKernels.D), get(voltages, ShortCircuitKernels.O), get(voltages, ShortCircuitKernels.I),
+                            zdf, zof, directResult, homopolarResult,
                             scf, lfBus1, v1dInit, lfNetwork);
-
-                    res.updateFeedersResult(); // feeders are updated only if voltageUpdate is made. TODO : see if update of homopolar feeders are to be updated
-                    resultsPerFault.put(scf, res);
+                    addUnbalancedResult(propagation, scf, res, directResult, homopolarResult, id, io, ii, results);
 
                 } else if (shortCircuitType == ShortCircuitFault.ShortCircuitType.BIPHASED_COMMON_SUPPORT) {
 
-                    int numBiphasedResult = 0;
-                    ImpedanceLinearResolution.ImpedanceLinearResolutionResult.ImpedanceLinearResolutionResultBiphased biphasedHomopolarResult;
-                    for (ImpedanceLinearResolution.ImpedanceLinearResolutionResult.ImpedanceLinearResolutionResultBiphased biphasedDirectResult : directResult.getBiphasedResultsAtBus()) {
-                        biphasedHomopolarResult = homopolarResult.getBiphasedResultsAtBus().get(numBiphasedResult);
-                        numBiphasedResult++;
-
-                        LfBus lfBus2 = biphasedDirectResult.getBus2();
-                        if (lfBus2.getId().equals(scf.getLfBus2Info())) {
-
-                            Complex zo12 = biphasedHomopolarResult.getZ12();
-                            Complex zo22 = biphasedHomopolarResult.getZ22();
-                            Complex zo21 = biphasedHomopolarResult.getZ21();
-
-                            Complex zd12 = biphasedDirectResult.getZ12();
-                            Complex zd22 = biphasedDirectResult.getZ22();
-                            Complex zd21 = biphasedDirectResult.getZ21();
-
-                            BiphasedCommonSupportShortCircuitCalculator biCsSc;
-                            if (scf.getBiphasedType() == ShortCircuitFault.ShortCircuitBiphasedType.C1_A2) {
-                                biCsSc = new BiphasedC1A2Calculator(zdf, zof, scf.getZf(), v1dInit, biphasedDirectResult.getV2(),
-                                        zo12, zo22, zo21,
-                                        zd12, zd22, zd21);
-                            } else if (scf.getBiphasedType() == ShortCircuitFault.ShortCircuitBiphasedType.C1_B2) {
-                                biCsSc = new BiphasedC1B2Calculator(zdf, zof, scf.getZf(), v1dInit, biphasedDirectResult.getV2(),
-                                        zo12, zo22, zo21,
-                                        zd12, zd22, zd21);
-                            } else if (scf.getBiphasedType() == ShortCircuitFault.ShortCircuitBiphasedType.C1_C2) {
-                                biCsSc = new BiphasedC1C2Calculator(zdf, zof, scf.getZf(), v1dInit, biphasedDirectResult.getV2(),
-                                        zo12, zo22, zo21,
-                                        zd12, zd22, zd21);
-                            } else {
-                                throw new IllegalArgumentException(" short circuit fault of type : " + scf.getBiphasedType() + " not yet handled");
-                            }
-
-                            //biCsSc.computeCurrents();
-                            //biphasedCommonCalculator.computeVoltages();
-                            //LfBus lfBus2 = biphasedDirectResult.getBus2();
-                            Complex v2dInit = biphasedDirectResult.getV2();
-
-                            res = buildUnbalancedCommunSuppportResult(biCsSc.getId(), biCsSc.getIo(), biCsSc.getIi(),
-                                    biCsSc.getI2d(), biCsSc.getI2o(), biCsSc.getI2i(),
-                                    biCsSc.getVd(), biCsSc.getVo(), biCsSc.getVi(),
-                                    biCsSc.getV2d(), biCsSc.getV2o(), biCsSc.getV2i(),
-                                    zdf, zof,
-                                    directResult, homopolarResult, scf,
-                                    lfBus1, v1dInit, lfNetwork,
-                                    lfBus2, v2dInit, biphasedDirectResult, biphasedHomopolarResult);
-
-                            res.updateFeedersResult(); // feeders are updated only if voltageUpdate is made. TODO : see if update of homopolar feeders are to be updated
-                            resultsPerFault.put(scf, res);
-
-                        } else {
-                            throw new IllegalArgumentException(" Post-processing of short circuit type = " + shortCircuitType + "not yet implemented");
-                        }
+                    ImpedanceLinearResolution.ImpedanceLinearResolutionResult.ImpedanceLinearResolutionResultBiphased biphasedDirectResult = directResult.getBiphasedResult(scf.getLfBus2Num());
+                    ImpedanceLinearResolution.ImpedanceLinearResolutionResult.ImpedanceLinearResolutionResultBiphased biphasedHomopolarResult = homopolarResult.getBiphasedResult(scf.getLfBus2Num());
+
+                    if (biphasedDirectResult == null || biphasedHomopolarResult == null) {
+                        throw new IllegalArgumentException(" Biphased fault second bus = " + scf.getLfBus2Info() + " : no linear resolution result found at bus " + lfBus1.getId());
+                    }
+
+                    LfBus lfBus2 = biphasedDirectResult.getBus2();
+
+                    set(z, ShortCircuitKernels.Z11, zdf);
+                    set(z, ShortCircuitKernels.Z12, biphasedDirectResult.getZ12());
+                    set(z, ShortCircuitKernels.Z21, biphasedDirectResult.getZ21());
+                    set(z, ShortCircuitKernels.Z22, biphasedDirectResult.getZ22());
+                    set(z, ShortCircuitKernels.HOMOPOLAR + ShortCircuitKernels.Z11, zof);
+                    set(z, ShortCircuitKernels.HOMOPOLAR + ShortCircuitKernels.Z12, biphasedHomopolarResult.getZ12());
+                    set(z, ShortCircuitKernels.HOMOPOLAR + ShortCircuitKernels.Z21, biphasedHomopolarResult.getZ21());
+                    set(z, ShortCircuitKernels.HOMOPOLAR + ShortCircuitKernels.Z22, biphasedHomopolarResult.getZ22());
+
+                    Complex v2dInit = biphasedDirectResult.getV2();
+                    ShortCircuitFault.ShortCircuitBiphasedType biphasedType = scf.getBiphasedType();
+                    if (biphasedType == null) {
+                        throw new IllegalArgumentException(" short circuit fault of type : " + biphasedType + " not yet handled");
                     }
+                    ShortCircuitKernels.computeBiphasedCommonSupport(biphasedType, z, scf.getZf().getZg().getReal(), scf.getZf().getZg().getImaginary(),
+                            v1dInit.getReal(), v1dInit.getImaginary(), v2dInit.getReal(), v2dInit.getImaginary(),
+                            commonSupportCurrents, commonSupportVoltages);
+
+                    res = buildUnbalancedCommunSuppportResult(get(commonSupportCurrents, ShortCircuitKernels.D), get(commonSupportCurrents, ShortCircuitKernels.O), get(commonSupportCurrents, ShortCircuitKernels.I),
+                            get(commonSupportCurrents, ShortCircuitKernels.BUS2 + ShortCircuitKernels.D), get(commonSupportCurrents, ShortCircuitKernels.BUS2 + ShortCircuitKernels.O), get(commonSupportCurrents, ShortCircuitKernels.BUS2 + ShortCircuitKernels.I),
+                            get(commonSupportVoltages, ShortCircuitKernels.D), get(commonSupportVoltages, ShortCircuitKernels.O), get(commonSupportVoltages, ShortCircuitKernels.I),
+                            get(commonSupportVoltages, ShortCircuitKernels.BUS2 + ShortCircuitKernels.D), get(commonSupportVoltages, ShortCircuitKernels.BUS2 + ShortCircuitKernels.O), get(commonSupportVoltages, ShortCircuitKernels.BUS2 + ShortCircuitKernels.I),
+                            zdf, zof,
+                            directResult, homopolarResult, scf,
+                            lfBus1, v1dInit, lfNetwork,
+                            lfBus2, v2dInit, biphasedDirectResult, biphasedHomopolarResult);
+                    addResult(propagation, scf, res, results); // TODO : see if update of homopolar feeders are to be updated
                 }
             }
         }
+        flushResults(propagation, results);
+    }
+
+    private void processBatch(LfNetwork lfNetwork, ImpedanceLinearResolution directResolution, ImpedanceLinearResolution homopolarResolution,
+                              ShortCircuitFaultIndex faultIndex, ShortCircuitFault.ShortCircuitType shortCircuitType,
+                              Map<ShortCircuitFault, ShortCircuitResult> results) {
+        // first pass gathers the faults of the given type with their linear resolution results, currents are then computed all at once
+        ShortCircuitFaultBatch batch = new ShortCircuitFaultBatch(shortCircuitType, directResolution.results.size());
+        VoltageProfilePropagation propagation = createVoltageProfilePropagation(lfNetwork, false);
+        List<ShortCircuitFault> batchFaults = new ArrayList<>();
+        for (int numResult = 0; numResult < directResolution.results.size(); numResult++) {
+            ImpedanceLinearResolution.ImpedanceLinearResolutionResult directResult = directResolution.results.get(numResult);
+            ImpedanceLinearResolution.ImpedanceLinearResolutionResult homopolarResult = homopolarResolution.results.get(numResult);
+            for (ShortCircuitFault scf : faultIndex.getFaults(directResult.getBus().getNum(), shortCircuitType)) {
+                batch.add(directResult.getZthEq(), homopolarResult.getZthEq(), directResult.getEth(), scf.getZf(), numResult);
+                batchFaults.add(scf);
+            }
+        }
+        checkCancelled();
+        batch.compute();
+
+        for (int k = 0; k < batch.size(); k++) {
+            if (k % 1000 == 0) {
+                checkCancelled();
+            }
+            ShortCircuitFault scf = batchFaults.get(k);
+            int numResult = batch.getTag(k);
+            ImpedanceLinearResolution.ImpedanceLinearResolutionResult directResult = directResolution.results.get(numResult);
+            ImpedanceLinearResolution.ImpedanceLinearResolutionResult homopolarResult = homopolarResolution.results.get(numResult);
+            // each value is read once, the result keeping its own values
+            Complex io = getCurrent(batch, k, ShortCircuitKernels.O);
+            Complex id = getCurrent(batch, k, ShortCircuitKernels.D);
+            Complex ii = getCurrent(batch, k, ShortCircuitKernels.I);
+            ShortCircuitResult res = buildUnbalancedResult(id, io, ii,
+                    getVoltage(batch, k, ShortCircuitKernels.D), getVoltage(batch, k, ShortCircuitKernels.O), getVoltage(batch, k, ShortCircuitKernels.I),
+                    directResult.getZthEq(), homopolarResult.getZthEq(),
+                    directResult, homopolarResult,
+                    scf, directResult.getBus(), directResult.getEth(), lfNetwork);
+            addUnbalancedResult(propagation, scf, res, directResult, homopolarResult, id, io, ii, results);
+        }
+        flushResults(propagation, results);
+    }
+
+    private void addUnbalancedResult(VoltageProfilePropagation propagation, ShortCircuitFault scf, ShortCircuitResult res,
+                                     ImpedanceLinearResolution.ImpedanceLinearResolutionResult directResult,
+                                     ImpedanceLinearResolution.ImpedanceLinearResolutionResult homopolarResult,
+                                     Complex id, Complex io, Complex ii, Map<ShortCircuitFault, ShortCircuitResult> results) {
+        if (res.isVoltageProfileUpdated()) {
+            // The post-fault voltage values for the network busses are computed as follow :
+            // [ Vof ] = -inv(Yo) * M * [ Iof ]
+            // [ Vdf ] = -inv(Yd) * M * [ Idf ] + [ V(init) ]
+            // [ Vif ] = -inv(Yd) * M * [ Iif ]
+            // dMo = inv(Yo) * M
+            // dMd = inv(Yd) * M
+            addResult(propagation, scf, res, directResult, homopolarResult, id, io, ii, results);
+        } else {
+            addResult(propagation, scf, res, results);
+        }
+    }
+
+    private static void set(double[] x, int offset, Complex value) {
+        x[offset] = value.getReal();
+        x[offset + 1] = value.getImaginary();
+    }
+
+    private static Complex get(double[] x, int offset) {
+        return new Complex(x[offset], x[offset + 1]);
+    }
+
+    private static Complex getCurrent(ShortCircuitFaultBatch batch, int k, int component) {
+        return new Complex(batch.getCurrent(k, component), batch.getCurrent(k, component + 1));
+    }
+
+    private static Complex getVoltage(ShortCircuitFaultBatch batch, int k, int component) {
+        return new Complex(batch.getVoltage(k, component), batch.getVoltage(k, component + 1));
     }
 
     public ShortCircuitResult buildUnbalancedResult(Complex id, Complex io, Complex ii, Complex zdf, Complex zof,
@@ -222,6 +293,23 @@ public class ShortCircuitUnbalancedEngine extends AbstractShortCircuitEngine {
         Complex vd = zdf.multiply(id).multiply(-1.);
         Complex vi = zdf.multiply(ii).multiply(-1.);
 
+        ShortCircuitResult res = buildUnbalancedResult(id, io, ii, vd, vo, vi, zdf, zof, directResult, homopolarResult, scf, lfBus1, v1dInit, lfNetwork);
+        if (res.isVoltageProfileUpdated()) {
+            buildVoltageProfile(res, createVoltageProfilePropagation(lfNetwork, false).createVoltageProfileBuilder(res, directResult, homopolarResult, id, io, ii),
+                    directResult, homopolarResult);
+        }
+        return res;
+    }
+
+    /**
+     * Builds the result without its voltage profile, which is computed by the caller.
+     */
+    private ShortCircuitResult buildUnbalancedResult(Complex id, Complex io, Complex ii, Complex vd, Complex vo, Complex vi,
+                                                     Complex zdf, Complex zof,
+                                                     ImpedanceLinearResolution.ImpedanceLinearResolutionResult directResult,
+                                                     ImpedanceLinearResolution.ImpedanceLinearResolutionResult homopolarResult,
+                                                     ShortCircuitFault scf, LfBus lfBus1, Complex v1dInit,
+                                                     LfNetwork lfNetwork) {
         //record the results
         FeedersAtNetwork equationSystemFeedersDirect = directResult.getEqSysFeeders();
         FeedersAtNetwork equationSystemFeedersHomopolar = homopolarResult.getEqSysFeeders();
@@ -233,37 +321,10 @@ public class ShortCircuitUnbalancedEngine extends AbstractShortCircuitEngine {
                 equationSystemFeedersDirect, equationSystemFeedersHomopolar, parameters.getNorm(),
                 directResult.getZthEq20Hz(), homopolarResult.getZthEq20Hz());
 
-        if (parameters.isVoltageUpdate()) {
+        if (parameters.isVoltageUpdate() && scf.isVoltageUpdate()) {
             res.setLfNetwork(lfNetwork);
             res.setTrueVoltageProfileUpdate();
-            // The post-fault voltage values for the network busses are computed as follow :
-            // [ Vof ] = -inv(Yo) * M * [ Iof ]
-            // [ Vdf ] = -inv(Yd) * M * [ Idf ] + [ V(init) ]
-            // [ Vif ] = -inv(Yd) * M * [ Iif ]
-            // dMo = inv(Yo) * M
-            // dMd = inv(Yd) * M
-
-            int nbBusses = lfNetwork.getBuses().size();
-            res.createEmptyFortescueVoltageVector(nbBusses);
-
-            for (Map.Entry<Integer, Complex> zd : directResult.getBusToZknf().entrySet()) {
-                int busNum = zd.getKey();
-
-                //direct
-                Complex zdBus = zd.getValue();
-                Complex deltaVd = zdBus.multiply(id);
-
-                //inverse
-                Complex deltaVi = zdBus.multiply(ii);
-
-                //homopolar
-                Complex zo = homopolarResult.getBusToZknf().get(busNum);
-                Complex deltaVo = zo.multiply(io);
-
-                //System.out.println(" dVth(" + vdr.getKey() + ") = " + edVr + " + j(" + edVi + ")");
-
-                res.fillVoltageInFortescueVector(busNum, deltaVd, deltaVo, deltaVi);
-            }
+            res.setFeederBusses(getFeederBusses(lfNetwork, lfBus1));
         }
 
         return res;
@@ -292,37 +353,22 @@ public class ShortCircuitUnbalancedEngine extends AbstractShortCircuitEngine {
                 dv2d, dv2o, dv2i,
                 lfBus2, directResult.getZthEq20Hz(), homopolarResult.getZthEq20Hz());
 
-        if (parameters.isVoltageUpdate()) {
+        if (parameters.isVoltageUpdate() && scf.isVoltageUpdate()) {
             res.setLfNetwork(lfNetwork);
             res.setTrueVoltageProfileUpdate();
+            Set<LfBus> feederBusses = getFeederBusses(lfNetwork, lfBus1);
+            if (feederBusses != null) {
+                feederBusses.addAll(getFeederBusses(lfNetwork, lfBus2));
+            }
+            res.setFeederBusses(feederBusses);
             // The post-fault voltage values for the network busses are computed as follow :
             // [ Vof ] = -inv(Yo) * M * [ Iof ]
             // [ Vdf ] = -inv(Yd) * M * [ Idf ] + [ V(init) ]
             // [ Vif ] = -inv(Yd) * M * [ Iif ]
             // dMo = inv(Yo) * M
             // dMd = inv(Yd) * M
-
-            int nbBusses = lfNetwork.getBuses().size();
-            res.createEmptyFortescueVoltageVector(nbBusses);
-
-            for (Map.Entry<Integer, Complex> zd : directResult.getBusToZknf().entrySet()) {
-                int busNum = zd.getKey();
-
-                //direct
-                Complex zdBus2 = biphasedDirectResult.getBus2ToZknf().get(busNum);
-                Complex deltaVd = id.multiply(zd.getValue()).add(i2d.multiply(zdBus2));
-
-                //inverse
-                Complex deltaVi = ii.multiply(zd.getValue()).add(i2i.multiply(zdBus2));
-
-                //homopolar
-                Complex zoBus = homopolarResult.getBusToZknf().get(busNum);
-                Complex zoBus2 = biphasedHomopolarResult.getBus2ToZknf().get(busNum);
-
-                Complex deltaVo = io.multiply(zoBus).add(i2o.multiply(zoBus2));
-
-                res.fillVoltageInFortescueVector(busNum, deltaVd, deltaVo, deltaVi);
-            }
+            buildVoltageProfile(res, createVoltageProfilePropagation(lfNetwork, false).createCommonSupportVoltageProfileBuilder(res, directResult, homopolarResult,
+                    biphasedDirectResult, biphasedHomopolarResult, id, io, ii, i2d, i2o, i2i), directResult, homopolarResult);
         }
 
         return res;
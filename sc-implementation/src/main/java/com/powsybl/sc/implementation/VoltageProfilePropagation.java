@@ -0,0 +1,533 @@
+/**
+ * Copyright (c) 2022, Jean-Baptiste Heyberger & Geoffroy Jamgotchian
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ * SPDX-License-Identifier: MPL-2.0
+ */
+package com.powsybl.sc.implementation;
+
+import com.powsybl.openloadflow.network.LfBus;
+import com.powsybl.sc.util.ImpedanceLinearResolution;
+import com.powsybl.sc.util.SparseImpedanceColumn;
+import com.powsybl.shortcircuit.FortescueValue;
+import org.apache.commons.math3.complex.Complex;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.function.BiConsumer;
+
+/**
+ * Computes the post-fault voltage deltas of a block of faults at once, each delta being a sum of impedance columns
+ * multiplied by fault currents:
+ *
+ * [dV] = [z(k,nf1) ... z(k,nfm)] * diag(I(f1) ... I(fm))
+ *
+ * The impedance columns are read as primitives over their own bus index set, sparse and monitored columns being
+ * consumed as they are, see {@link ImpedanceLinearResolution.ImpedanceLinearResolutionResult#getZknfColumn()}. Each fault
+ * gets a compact row: the numbers of the stored busses in increasing order, with the real and imaginary parts of their
+ * deltas, ordered as {@link ShortCircuitResult.FortescueType} for unbalanced faults. A term missing in only some of the
+ * columns of a bus has been dropped as negligible and is taken as zero.
+ *
+ * The voltage drop threshold is applied while building the row: only the busses whose drop is above it on a sequence
+ * are stored, and the feeder neighbourhood of the fault whatever its drop, as branch currents and feeders are computed
+ * from its full deltas. The rows are given to the results as read only views, see {@link VoltageProfileList}. The profiles of a large block are computed
+ * by one task per fault on the given executor, in the calling thread otherwise.
+ *
+ * Signs follow the engines: dV = -Zd * Id for balanced faults, dVd = Zd * Id, dVo = Zo * Io and dVi = Zd * Ii for
+ * unbalanced faults.
+ *
+ * Results are queued with or without voltage profile, and handed to the consumer in their order of addition when the block
+ * is flushed, their profile being filled.
+ *
+ * @author Jean-Baptiste Heyberger <jbheyberger at gmail.com>
+ */
+public class VoltageProfilePropagation {
+
+    public static final int DEFAULT_BLOCK_SIZE = 64;
+
+    private static final long MIN_PARALLEL_VALUES = 1L << 16; // smaller blocks are always computed in the calling thread
+
+    /**
+     * Read only voltage profile over a compact row of voltage deltas, the busses missing from the row have no voltage drop.
+     * The feeder neighbourhood being stored whatever its drop, the threshold is also applied to the values given by the
+     * list: busses whose drop is below it on every sequence are given as {@link ShortCircuitResult#NO_VOLTAGE_DROP}.
+     * Branch currents and feeders are computed from the full deltas, see {@link #getDv}.
+     */
+    static final class VoltageProfileList extends AbstractList<FortescueValue> {
+
+        private final int nbBusses;
+
+        private final int[] busNums; // in increasing order
+
+        private final double[] busDv; // deltas of each bus of busNums
+
+        private final boolean balanced;
+
+        private final int valueSize;
+
+        private final double minVoltageDrop;
+
+        private volatile FortescueValue[] fortescueValues; // values of the stored busses built on their first read
+
+        VoltageProfileList(int nbBusses, int[] busNums, double[] busDv, boolean balanced, double minVoltageDrop) {
+            this.nbBusses = nbBusses;
+            this.busNums = Objects.requireNonNull(busNums);
+            this.busDv = Objects.requireNonNull(busDv);
+            this.balanced = balanced;
+            this.valueSize = getValueSize(balanced);
+            this.minVoltageDrop = minVoltageDrop;
+            if (busDv.length != valueSize * busNums.length) {
+                throw new IllegalArgumentException("Voltage deltas do not match the bus numbers: " + busDv.length + " values for " + busNums.length + " busses");
+            }
+        }
+
+        double[] getValues() {
+            return busDv;
+        }
+
+        boolean isBalanced() {
+            return balanced;
+        }
+
+        double getMinVoltageDrop() {
+            return minVoltageDrop;
+        }
+
+        /**
+         * Returns the number of busses of the row, the i-th one being {@link #getBusNum(int)}.
+         */
+        int getStoredCount() {
+            return busNums.length;
+        }
+
+        int getBusNum(int i) {
+            return busNums[i];
+        }
+
+        private int indexOf(int busNum) {
+            return Arrays.binarySearch(busNums, busNum);
+        }
+
+        boolean hasVoltageDrop(int busNum) {
+            Objects.checkIndex(busNum, nbBusses);
+            int i = indexOf(busNum);
+            return i >= 0 && hasVoltageDropAt(i);
+        }
+
+        /**
+         * Same as {@link #hasVoltageDrop(int)} for the i-th bus of the row.
+         */
+        boolean hasVoltageDropAt(int i) {
+            // drops are compared squared to avoid a square root per sequence
+            return isAbove(busDv, valueSize * i, valueSize, minVoltageDrop * minVoltageDrop);
+        }
+
+        /**
+         * Returns the full voltage delta of the bus on the given sequence, whatever the threshold, zero if not stored.
+         */
+        Complex getDv(int busNum, ShortCircuitResult.FortescueType fType) {
+            int i = indexOf(busNum);
+            if (i < 0 || balanced && fType != ShortCircuitResult.FortescueType.DIRECT) {
+                return Complex.ZERO;
+            }
+            int j = valueSize * i + 2 * fType.ordinal();
+            return new Complex(busDv[j], busDv[j + 1]);
+        }
+
+        /**
+         * Copies the real and imaginary parts of the voltage deltas of the bus as given by {@link #get}, ordered as
+         * {@link ShortCircuitResult.FortescueType}, without building any value: a bus without voltage drop gives a zero direct
+         * delta, and the sequences that are not given are NaN.
+         */
+        void copyValue(int busNum, double[] values, int offset) {
+            int i = indexOf(busNum);
+            if (i < 0 || !hasVoltageDropAt(i)) {
+                values[offset] = 0.;
+                values[offset + 1] = 0.;
+                Arrays.fill(values, offset + 2, offset + 6, Double.NaN);
+                return;
+            }
+            copyValueAt(i, values, offset);
+        }
+
+        /**
+         * Same as {@link #copyValue(int, double[], int)} for the i-th bus of the row, whatever its voltage drop.
+         */
+        void copyValueAt(int i, double[] values, int offset) {
+            System.arraycopy(busDv, valueSize * i, values, offset, valueSize);
+            if (balanced) {
+                Arrays.fill(values, offset + 2, offset + 6, Double.NaN);
+            }
+        }
+
+        @Override
+        public FortescueValue get(int busNum) {
+            if (!hasVoltageDrop(busNum)) {
+                return ShortCircuitResult.NO_VOLTAGE_DROP;
+            }
+            FortescueValue[] values = fortescueValues;
+            if (values == null) {
+                values = new FortescueValue[busNums.length];
+                fortescueValues = values;
+            }
+            // values are immutable, a value built twice by concurrent reads is the same
+            int i = indexOf(busNum);
+            FortescueValue value = values[i];
+            if (value == null) {
+                value = createValue(valueSize * i);
+                values[i] = value;
+            }
+            return value;
+        }
+
+        private FortescueValue createValue(int i) {
+            if (balanced) {
+                return new FortescueValue(magnitude(busDv, i), angle(busDv, i));
+            }
+            return new FortescueValue(magnitude(busDv, i), magnitude(busDv, i + 2), magnitude(busDv, i + 4),
+                    angle(busDv, i), angle(busDv, i + 2), angle(busDv, i + 4));
+        }
+
+        @Override
+        public int size() {
+            return nbBusses;
+        }
+    }
+
+    /**
+     * Impedance columns of a profile, the deltas of each sequence being the sum of the columns multiplied by their
+     * current on this sequence.
+     */
+    private static final class ProfileColumns {
+
+        private final SparseImpedanceColumn[] columns; // a null column has not been extracted
+
+        private final double[] currents; // real and imaginary parts of the current of each column on each sequence, 6 per column, 2 for balanced faults
+
+        private final int[] keptBusNums; // busses stored whatever their drop in increasing order, null to store all the busses
+
+        private ProfileColumns(SparseImpedanceColumn[] columns, double[] currents, int[] keptBusNums) {
+            this.columns = columns;
+            this.currents = currents;
+            this.keptBusNums = keptBusNums;
+        }
+
+        private int getTermCount() {
+            int count = 0;
+            for (SparseImpedanceColumn column : columns) {
+                count += size(column);
+            }
+            return count;
+        }
+    }
+
+    private final int nbBusses;
+
+    private final boolean balanced;
+
+    private final double minVoltageDrop;
+
+    private final int blockSize;
+
+    private final Executor executor; // null to compute the block in the calling thread
+
+    private final List<ShortCircuitFault> faults = new ArrayList<>();
+
+    private final List<ShortCircuitResult> results = new ArrayList<>();
+
+    private final int[] profileResultNums; // index in the queued results of each profile of the block
+
+    private final ProfileColumns[] profileColumns;
+
+    private int profileCount = 0;
+
+    public VoltageProfilePropagation(int nbBusses, boolean balanced, double minVoltageDrop, int blockSize) {
+        this(nbBusses, balanced, minVoltageDrop, blockSize, null);
+    }
+
+    public VoltageProfilePropagation(int nbBusses, boolean balanced, double minVoltageDrop, int blockSize, Executor executor) {
+        if (blockSize <= 0) {
+            throw new IllegalArgumentException("Invalid block size: " + blockSize);
+        }
+        this.nbBusses = nbBusses;
+        this.balanced = balanced;
+        this.minVoltageDrop = minVoltageDrop;
+        this.blockSize = blockSize;
+        this.executor = executor;
+        profileResultNums = new int[blockSize];
+        profileColumns = new ProfileColumns[blockSize];
+    }
+
+    public boolean isBalanced() {
+        return balanced;
+    }
+
+    private static int getValueSize(boolean balanced) {
+        return balanced ? 2 : 6;
+    }
+
+    private static int size(SparseImpedanceColumn column) {
+        return column != null ? column.size() : 0;
+    }
+
+    /**
+     * Queues a result without voltage profile to be computed.
+     */
+    public void add(ShortCircuitFault scf, ShortCircuitResult res) {
+        faults.add(Objects.requireNonNull(scf));
+        results.add(Objects.requireNonNull(res));
+    }
+
+    /**
+     * Queues a result whose voltage profile is computed from the impedance columns of the linear resolution results,
+     * the homopolar result and the io and ii currents being ignored for balanced faults.
+     */
+    public void add(ShortCircuitFault scf, ShortCircuitResult res,
+                    ImpedanceLinearResolution.ImpedanceLinearResolutionResult directResult,
+                    ImpedanceLinearResolution.ImpedanceLinearResolutionResult homopolarResult,
+                    Complex id, Complex io, Complex ii) {
+        if (profileCount == blockSize) {
+            throw new IllegalStateException("Voltage profile block is full");
+        }
+        int p = profileCount++;
+        profileResultNums[p] = results.size();
+        add(scf, res);
+        profileColumns[p] = createColumns(res, directResult, homopolarResult, id, io, ii);
+    }
+
+    private ProfileColumns createColumns(ShortCircuitResult res,
+                                         ImpedanceLinearResolution.ImpedanceLinearResolutionResult directResult,
+                                         ImpedanceLinearResolution.ImpedanceLinearResolutionResult homopolarResult,
+                                         Complex id, Complex io, Complex ii) {
+        if (balanced) {
+            return new ProfileColumns(new SparseImpedanceColumn[] {directResult.getZknfColumn()},
+                    new double[] {-id.getReal(), -id.getImaginary()}, getKeptBusNums(res));
+        }
+        double[] currents = new double[12];
+        setCurrents(currents, 0, id, null, ii);
+        setCurrents(currents, 1, null, io, null);
+        return new ProfileColumns(new SparseImpedanceColumn[] {directResult.getZknfColumn(), homopolarResult.getZknfColumn()}, currents,
+                getKeptBusNums(res));
+    }
+
+    /**
+     * Returns the busses whose full deltas are read by the feeders of the result: its feeder busses and the other ends of
+     * their branches, none without feeder results, null if the feeders are computed on the whole lfNetwork.
+     */
+    private static int[] getKeptBusNums(ShortCircuitResult res) {
+        if (!res.getShortCircuitFault().isWithFeederResult()) {
+            return new int[0];
+        }
+        if (res.getFeederBusses() == null) {
+            return null;
+        }
+        Set<LfBus> keptBusses = new HashSet<>();
+        AbstractShortCircuitEngine.addFeederNeighbourhood(res.getFeederBusses(), keptBusses);
+        int[] keptBusNums = keptBusses.stream().mapToInt(LfBus::getNum).toArray();
+        Arrays.sort(keptBusNums);
+        return keptBusNums;
+    }
+
+    private static void setCurrents(double[] currents, int numColumn, Complex id, Complex io, Complex ii) {
+        setCurrent(currents, 6 * numColumn, id);
+        setCurrent(currents, 6 * numColumn + 2, io);
+        setCurrent(currents, 6 * numColumn + 4, ii);
+    }
+
+    private static void setCurrent(double[] currents, int c, Complex i) {
+        // a null current means the column does not contribute to the sequence
+        if (i != null) {
+            currents[c] = i.getReal();
+            currents[c + 1] = i.getImaginary();
+        }
+    }
+
+    public boolean isFull() {
+        return profileCount == blockSize || results.size() >= blockSize;
+    }
+
+    /**
+     * Computes the voltage profiles of the block and hands all the queued results to the consumer.
+     */
+    public void flush(BiConsumer<ShortCircuitFault, ShortCircuitResult> consumer) {
+        VoltageProfileList[] profiles = new VoltageProfileList[profileCount];
+        long termCount = 0;
+        for (int p = 0; p < profileCount; p++) {
+            termCount += profileColumns[p].getTermCount();
+        }
+        if (executor == null || profileCount < 2 || termCount < MIN_PARALLEL_VALUES) {
+            for (int p = 0; p < profileCount; p++) {
+                profiles[p] = propagate(profileColumns[p]);
+            }
+        } else {
+            CompletableFuture<?>[] futures = new CompletableFuture<?>[profileCount];
+            for (int p = 0; p < profileCount; p++) {
+                int q = p;
+                futures[p] = CompletableFuture.runAsync(() -> profiles[q] = propagate(profileColumns[q]), executor);
+            }
+            waitFor(futures);
+        }
+        for (int p = 0; p < profileCount; p++) {
+            results.get(profileResultNums[p]).setVoltageProfile(profiles[p]);
+            profileColumns[p] = null; // the columns of the block are not kept until the next one
+        }
+
+        for (int r = 0; r < results.size(); r++) {
+            consumer.accept(faults.get(r), results.get(r));
+        }
+        faults.clear();
+        results.clear();
+        profileCount = 0;
+    }
+
+    /**
+     * Waits for the profile tasks, a failure or an interruption cancelling the remaining ones. The cause of a failure is thrown
+     * as is, so that the engine can cancel its other components as for a failure of its own tasks.
+     */
+    private static void waitFor(CompletableFuture<?>[] futures) {
+        try {
+            CompletableFuture.allOf(futures).get();
+        } catch (InterruptedException e) {
+            cancel(futures);
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Voltage profile propagation interrupted");
+        } catch (ExecutionException e) {
+            cancel(futures);
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private static void cancel(CompletableFuture<?>[] futures) {
+        for (CompletableFuture<?> future : futures) {
+            future.cancel(false);
+        }
+    }
+
+    /**
+     * Returns a builder computing the voltage profile of a single result on its own, used for lazy profiles.
+     * The impedance columns are only read when the builder is run.
+     */
+    public Runnable createVoltageProfileBuilder(ShortCircuitResult res,
+                                                ImpedanceLinearResolution.ImpedanceLinearResolutionResult directResult,
+                                                ImpedanceLinearResolution.ImpedanceLinearResolutionResult homopolarResult,
+                                                Complex id, Complex io, Complex ii) {
+        return () -> res.setVoltageProfile(propagate(createColumns(res, directResult, homopolarResult, id, io, ii)));
+    }
+
+    /**
+     * Returns a builder computing the voltage profile of a biphased common support fault, from the columns of both busses:
+     * dVd = Zd * Id + Zd2 * I2d, dVo = Zo * Io + Zo2 * I2o and dVi = Zd * Ii + Zd2 * I2i.
+     */
+    public Runnable createCommonSupportVoltageProfileBuilder(ShortCircuitResult res,
+                                                             ImpedanceLinearResolution.ImpedanceLinearResolutionResult directResult,
+                                                             ImpedanceLinearResolution.ImpedanceLinearResolutionResult homopolarResult,
+                                                             ImpedanceLinearResolution.ImpedanceLinearResolutionResult.ImpedanceLinearResolutionResultBiphased biphasedDirectResult,
+                                                             ImpedanceLinearResolution.ImpedanceLinearResolutionResult.ImpedanceLinearResolutionResultBiphased biphasedHomopolarResult,
+                                                             Complex id, Complex io, Complex ii, Complex i2d, Complex i2o, Complex i2i) {
+        if (balanced) {
+            throw new IllegalStateException("Common support faults are unbalanced");
+        }
+        return () -> {
+            double[] currents = new double[24];
+            setCurrents(currents, 0, id, null, ii);
+            setCurrents(currents, 1, i2d, null, i2i);
+            setCurrents(currents, 2, null, io, null);
+            setCurrents(currents, 3, null, i2o, null);
+            res.setVoltageProfile(propagate(new ProfileColumns(new SparseImpedanceColumn[] {directResult.getZknfColumn(),
+                biphasedDirectResult.getBus2ZknfColumn(), homopolarResult.getZknfColumn(), biphasedHomopolarResult.getBus2ZknfColumn()}, currents,
+                getKeptBusNums(res))));
+        };
+    }
+
+    static double magnitude(double[] values, int i) {
+        return Math.hypot(values[i], values[i + 1]);
+    }
+
+    static double angle(double[] values, int i) {
+        return Math.atan2(values[i + 1], values[i]);
+    }
+
+    private static boolean isAbove(double[] busDv, int offset, int valueSize, double minVoltageDrop2) {
+        for (int j = offset; j < offset + valueSize; j += 2) {
+            if (busDv[j] * busDv[j] + busDv[j + 1] * busDv[j + 1] >= minVoltageDrop2) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Merges the columns in increasing bus order, each bus getting the sum of the terms of the columns where it is present
+     * multiplied by their currents. The bus is only stored if kept or if its drop is above the threshold.
+     */
+    private VoltageProfileList propagate(ProfileColumns profile) {
+        SparseImpedanceColumn[] columns = profile.columns;
+        double[] currents = profile.currents;
+        int valueSize = getValueSize(balanced);
+        int capacity = profile.getTermCount();
+        int[] busNums = new int[capacity];
+        double[] busDv = new double[valueSize * capacity];
+        int[] positions = new int[columns.length]; // next term of each column
+        int[] keptBusNums = profile.keptBusNums;
+        int keptPosition = 0;
+        double minVoltageDrop2 = minVoltageDrop * minVoltageDrop;
+        int size = 0;
+        while (true) {
+            int busNum = Integer.MAX_VALUE;
+            for (int j = 0; j < columns.length; j++) {
+                if (positions[j] < size(columns[j])) {
+                    busNum = Math.min(busNum, columns[j].getBusNum(positions[j]));
+                }
+            }
+            if (busNum == Integer.MAX_VALUE) {
+                break;
+            }
+            int offset = valueSize * size;
+            for (int j = 0; j < columns.length; j++) {
+                int i = positions[j];
+                if (i >= size(columns[j]) || columns[j].getBusNum(i) != busNum) {
+                    continue;
+                }
+                double zr = columns[j].getReal(i);
+                double zi = columns[j].getImaginary(i);
+                int c = 6 * j;
+                for (int v = offset; v < offset + valueSize; v += 2) {
+                    double ir = currents[c];
+                    double ii = currents[c + 1];
+                    busDv[v] += zr * ir - zi * ii;
+                    busDv[v + 1] += zr * ii + zi * ir;
+                    c += 2;
+                }
+                positions[j]++;
+            }
+            while (keptBusNums != null && keptPosition < keptBusNums.length && keptBusNums[keptPosition] < busNum) {
+                keptPosition++;
+            }
+            boolean kept = keptBusNums == null || keptPosition < keptBusNums.length && keptBusNums[keptPosition] == busNum;
+            if (kept || isAbove(busDv, offset, valueSize, minVoltageDrop2)) {
+                busNums[size++] = busNum;
+            } else {
+                Arrays.fill(busDv, offset, offset + valueSize, 0.); // the slot is reused by the next bus
+            }
+        }
+        if (size < capacity) {
+            // busses present in several columns or left out
+            busNums = Arrays.copyOf(busNums, size);
+            busDv = Arrays.copyOf(busDv, valueSize * size);
+        }
+        return new VoltageProfileList(nbBusses, busNums, busDv, balanced, minVoltageDrop);
+    }
+}
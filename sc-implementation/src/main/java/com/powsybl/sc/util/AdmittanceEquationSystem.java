@@ -268,7 +268,8 @@ public final class AdmittanceEquationSystem {
 
         EquationSystem<VariableType, EquationType> equationSystem = new EquationSystem<>();
 
-        if (admittanceType == AdmittanceType.ADM_ADMIT) {
+        // the load flow giving the power injections is run only if parameters are given, otherwise the lfNetwork is assumed to already hold the pre-fault state
+        if (admittanceType == AdmittanceType.ADM_ADMIT && acLoadFlowParameters != null) {
             try (AcLoadFlowContext context = new AcLoadFlowContext(network, acLoadFlowParameters)) {
                 new AcloadFlowEngine(context)
                         .run();
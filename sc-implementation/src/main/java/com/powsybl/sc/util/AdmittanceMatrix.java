@@ -80,9 +80,9 @@ public class AdmittanceMatrix implements AutoCloseable {
         }
     }
 
-    private final EquationSystem<VariableType, EquationType> equationSystem;
+    private EquationSystem<VariableType, EquationType> equationSystem;
 
-    private final LfNetwork lfNetwork;
+    private LfNetwork lfNetwork;
 
     private final MatrixFactory matrixFactory;
 
@@ -101,6 +101,12 @@ public class AdmittanceMatrix implements AutoCloseable {
     private List<Integer> busNumToRowI; //given a number of bus, provides the Row and Column to the matrix
     private List<Integer> busNumToColI;
 
+    // positions of the elements in the order they are added to the matrix, and their index in it, to update their values in place
+    private int elementCount = 0;
+    private int[] elementColumns = new int[16];
+    private int[] elementRows = new int[16];
+    private int[] elementIndexes = new int[16];
+
     public AdmittanceMatrix(EquationSystem<VariableType, EquationType> equationSystem, MatrixFactory matrixFactory, LfNetwork network) {
         this.equationSystem = Objects.requireNonNull(equationSystem);
         this.matrixFactory = Objects.requireNonNull(matrixFactory);
@@ -205,10 +211,7 @@ public class AdmittanceMatrix implements AutoCloseable {
                         yColumn = admSys.varToColNum.get(v); // the matrix is the transposed of the admittance matrix
                     }
                     if (!admSys.isSubAdmittance || admSys.varToColNum.containsKey(v)) {
-                        for (EquationTerm<VariableType, EquationType> equationTerm : e2.getValue()) {
-                            double value = ((LinearEquationTerm) equationTerm).getCoefficient(v);
-                            matrix.add(yColumn, yRow, value); //matrix is here the transposed of Y
-                        }
+                        addElement(yColumn, yRow, getCoefficient(v, e2.getValue())); //matrix is here the transposed of Y
                     }
                 }
             }
@@ -232,6 +235,87 @@ public class AdmittanceMatrix implements AutoCloseable {
 
     }
 
+    private static double getCoefficient(Variable<VariableType> v, List<EquationTerm<VariableType, EquationType>> terms) {
+        double value = 0;
+        for (EquationTerm<VariableType, EquationType> equationTerm : terms) {
+            value += ((LinearEquationTerm) equationTerm).getCoefficient(v);
+        }
+        return value;
+    }
+
+    private void addElement(int column, int row, double value) {
+        if (elementCount == elementIndexes.length) {
+            elementColumns = Arrays.copyOf(elementColumns, 2 * elementCount);
+            elementRows = Arrays.copyOf(elementRows, 2 * elementCount);
+            elementIndexes = Arrays.copyOf(elementIndexes, 2 * elementCount);
+        }
+        elementColumns[elementCount] = column;
+        elementRows[elementCount] = row;
+        elementIndexes[elementCount] = matrix.addAndGetIndex(column, row, value);
+        elementCount++;
+    }
+
+    /**
+     * Updates the matrix with the admittance terms of another state of the same network, given by its equation system.
+     * The values are set in place and the LU decomposition, if any, is updated instead of being computed again, which
+     * reuses its symbolic analysis. Returns false, leaving the matrix unchanged, if the busses or the positions of the
+     * terms are not the same, the matrix must then be built again.
+     */
+    public boolean update(EquationSystem<VariableType, EquationType> otherEquationSystem, LfNetwork otherNetwork) {
+        if (admSys.isSubAdmittance) {
+            throw new IllegalStateException("Only the full admittance matrix can be updated");
+        }
+        if (otherNetwork.getBuses().size() != lfNetwork.getBuses().size() || !isSameBusIndexing(otherEquationSystem)) {
+            return false;
+        }
+        // values are read in the same order as they have been added to the matrix
+        double[] values = new double[elementCount];
+        int numElement = 0;
+        for (var eq : otherEquationSystem.getIndex().getSortedEquationsToSolve()) {
+            int yRow = eq.getColumn();
+            for (Map.Entry<Variable<VariableType>, List<EquationTerm<VariableType, EquationType>>> e2 : indexTermsByVariable(eq).entrySet()) {
+                int yColumn = e2.getKey().getRow();
+                if (numElement == elementCount || elementColumns[numElement] != yColumn || elementRows[numElement] != yRow) {
+                    return false;
+                }
+                values[numElement++] = getCoefficient(e2.getKey(), e2.getValue());
+            }
+        }
+        if (numElement != elementCount) {
+            return false;
+        }
+
+        for (int i = 0; i < elementCount; i++) {
+            matrix.setAtIndex(elementIndexes[i], values[i]);
+        }
+        equationSystem = otherEquationSystem;
+        lfNetwork = otherNetwork;
+        admSys = new AdmittanceSystem();
+        if (lu != null) {
+            lu.update();
+        }
+        return true;
+    }
+
+    private boolean isSameBusIndexing(EquationSystem<VariableType, EquationType> otherEquationSystem) {
+        // the accessors of the rows and columns of the busses stay valid
+        if (otherEquationSystem.getIndex().getSortedEquationsToSolve().size() != getRowCount()
+                || otherEquationSystem.getIndex().getSortedVariablesToFind().size() != getColCount()) {
+            return false;
+        }
+        for (var eq : otherEquationSystem.getIndex().getSortedEquationsToSolve()) {
+            if (getRowBus(eq.getElementNum(), eq.getType()) != eq.getColumn()) {
+                return false;
+            }
+        }
+        for (Variable<VariableType> v : otherEquationSystem.getIndex().getSortedVariablesToFind()) {
+            if (getColBus(v.getElementNum(), v.getType()) != v.getRow()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     private double[] createStateVector(LfNetwork network, VoltageInitializer initializer) {
         double[] x = new double[equationSystem.getIndex().getSortedVariablesToFind().size()];
         for (Variable<VariableType> v : equationSystem.getIndex().getSortedVariablesToFind()) {
@@ -303,6 +387,109 @@ public class AdmittanceMatrix implements AutoCloseable {
         return tmpV;
     }
 
+    /**
+     * Same as {@link #getDeltaV(DenseMatrix, int)} restricted to the given busses, only their rows of m are read.
+     */
+    public Map<Integer, Complex> getDeltaV(DenseMatrix m, int numColumn, Collection<LfBus> busses) {
+        Map<Integer, Complex> tmpV = new HashMap<>();
+        for (LfBus bus : busses) {
+            int row = getColBus(bus.getNum(), VariableType.BUS_VR);
+            tmpV.put(bus.getNum(), new Complex(m.get(row, 2 * numColumn), -m.get(row, 2 * numColumn + 1)));
+        }
+        return tmpV;
+    }
+
+    /**
+     * Same as {@link #getDeltaV(DenseMatrix, int)} with the values written to the given column of the off-heap store,
+     * the column being filled on the heap first and stored at once.
+     */
+    public void getDeltaV(DenseMatrix m, int numColumn, ImpedanceColumns columns, int numStoredColumn) {
+        double[] values = createColumn(columns);
+        for (Variable<VariableType> v : equationSystem.getIndex().getSortedVariablesToFind()) {
+            if (v.getType() != VariableType.BUS_VR) {
+                continue;
+            }
+            int row = v.getRow();
+            if (admSys.isSubAdmittance) {
+                if (admSys.varToColNum.containsKey(v)) {
+                    row = admSys.varToColNum.get(v);
+                } else {
+                    throw new IllegalArgumentException("Could not update variable V num = " + v.getElementNum() + ", index not found in the subsystem");
+                }
+            }
+            int storedRow = columns.getRow(v.getElementNum());
+            if (storedRow >= 0) {
+                values[2 * storedRow] = m.get(row, 2 * numColumn);
+                values[2 * storedRow + 1] = -m.get(row, 2 * numColumn + 1);
+            }
+        }
+        columns.setColumn(numStoredColumn, values);
+    }
+
+    /**
+     * Same as {@link #getDeltaV(DenseMatrix, int, Collection)} with the values written to the given column of the off-heap store.
+     */
+    public void getDeltaV(DenseMatrix m, int numColumn, Collection<LfBus> busses, ImpedanceColumns columns, int numStoredColumn) {
+        double[] values = createColumn(columns);
+        // the busses are the rows of the store, written at their position in it
+        for (LfBus bus : busses) {
+            int row = getColBus(bus.getNum(), VariableType.BUS_VR);
+            int storedRow = columns.getRow(bus.getNum());
+            values[2 * storedRow] = m.get(row, 2 * numColumn);
+            values[2 * storedRow + 1] = -m.get(row, 2 * numColumn + 1);
+        }
+        columns.setColumn(numStoredColumn, values);
+    }
+
+    private static double[] createColumn(ImpedanceColumns columns) {
+        double[] values = new double[2 * columns.getRowCount()];
+        Arrays.fill(values, Double.NaN); // busses that are not extracted
+        return values;
+    }
+
+    /**
+     * Same as {@link #getDeltaV(DenseMatrix, int)}, restricted to the given busses if not null, where only the terms whose
+     * magnitude is above the drop tolerance are kept, as well as the terms of the busses flagged in kept if not null.
+     */
+    public SparseImpedanceColumn getSparseDeltaV(DenseMatrix m, int numColumn, Collection<LfBus> busses, double dropTolerance, boolean[] kept) {
+        int capacity = busses != null ? busses.size() : lfNetwork.getBuses().size();
+        int[] busNums = new int[capacity];
+        double[] values = new double[2 * capacity];
+        int size = 0;
+        if (busses != null) {
+            for (LfBus bus : busses) {
+                int row = getColBus(bus.getNum(), VariableType.BUS_VR);
+                size = addSparseTerm(busNums, values, size, bus.getNum(), m.get(row, 2 * numColumn), -m.get(row, 2 * numColumn + 1), dropTolerance, kept);
+            }
+        } else {
+            for (Variable<VariableType> v : equationSystem.getIndex().getSortedVariablesToFind()) {
+                if (v.getType() != VariableType.BUS_VR) {
+                    continue;
+                }
+                int row = v.getRow();
+                if (admSys.isSubAdmittance) {
+                    if (admSys.varToColNum.containsKey(v)) {
+                        row = admSys.varToColNum.get(v);
+                    } else {
+                        throw new IllegalArgumentException("Could not update variable V num = " + v.getElementNum() + ", index not found in the subsystem");
+                    }
+                }
+                size = addSparseTerm(busNums, values, size, v.getElementNum(), m.get(row, 2 * numColumn), -m.get(row, 2 * numColumn + 1), dropTolerance, kept);
+            }
+        }
+        return new SparseImpedanceColumn(busNums, values, size);
+    }
+
+    private static int addSparseTerm(int[] busNums, double[] values, int size, int busNum, double re, double im, double dropTolerance, boolean[] kept) {
+        if ((kept == null || !kept[busNum]) && Math.hypot(re, im) < dropTolerance) {
+            return size;
+        }
+        busNums[size] = busNum;
+        values[2 * size] = re;
+        values[2 * size + 1] = im;
+        return size + 1;
+    }
+
     public List<DenseMatrix> getDeltaVFortescue(List<DenseMatrix> busNum2Dv, DenseMatrix md, DenseMatrix mo, DenseMatrix mi) {
         for (Variable<VariableType> v : equationSystem.getIndex().getSortedVariablesToFind()) {
             int row = v.getRow();
@@ -0,0 +1,57 @@
+/**
+ * Copyright (c) 2022, Jean-Baptiste Heyberger & Geoffroy Jamgotchian
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ * SPDX-License-Identifier: MPL-2.0
+ */
+package com.powsybl.sc.util;
+
+import com.powsybl.math.matrix.MatrixFactory;
+import com.powsybl.openloadflow.equations.EquationSystem;
+import com.powsybl.openloadflow.network.LfNetwork;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Admittance matrices kept between the resolutions of successive states of the same network.
+ * Matrices are identified by the component of the lfNetwork, the admittance type and the frequency. A matrix whose
+ * terms only changed in value is updated in place with its LU decomposition, see {@link AdmittanceMatrix#update},
+ * otherwise it is built again. The matrices are closed with the cache.
+ *
+ * @author Jean-Baptiste Heyberger <jbheyberger at gmail.com>
+ */
+public class AdmittanceMatrixCache implements AutoCloseable {
+
+    private final Map<List<Object>, AdmittanceMatrix> matrices = new ConcurrentHashMap<>();
+
+    public AdmittanceMatrix get(LfNetwork network, AdmittanceEquationSystem.AdmittanceType admittanceType, AdmittanceEquationSystem.FrequencyType frequencyType,
+                                EquationSystem<VariableType, EquationType> equationSystem, MatrixFactory matrixFactory) {
+        // components of different lfNetworks are resolved concurrently, each one with its own matrices
+        List<Object> key = List.of(network.getNumCC(), network.getNumSC(), admittanceType, frequencyType);
+        return matrices.compute(key, (k, y) -> {
+            if (y != null) {
+                if (y.update(equationSystem, network)) {
+                    return y;
+                }
+                y.close();
+            }
+            return new AdmittanceMatrix(equationSystem, matrixFactory, network);
+        });
+    }
+
+    /**
+     * Closes all the matrices, the next resolutions build them again.
+     */
+    public void clear() {
+        matrices.values().forEach(AdmittanceMatrix::close);
+        matrices.clear();
+    }
+
+    @Override
+    public void close() {
+        clear();
+    }
+}
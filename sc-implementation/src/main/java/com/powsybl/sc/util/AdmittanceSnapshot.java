@@ -0,0 +1,104 @@
+/**
+ * Copyright (c) 2022, Jean-Baptiste Heyberger & Geoffroy Jamgotchian
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ * SPDX-License-Identifier: MPL-2.0
+ */
+package com.powsybl.sc.util;
+
+import com.powsybl.openloadflow.equations.EquationSystem;
+import com.powsybl.openloadflow.equations.EquationTerm;
+import com.powsybl.openloadflow.equations.Variable;
+import com.powsybl.openloadflow.equations.VariableSet;
+import com.powsybl.openloadflow.network.LfBus;
+import com.powsybl.openloadflow.network.LfNetwork;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Copy of the terms of an admittance matrix, in the order they are added by {@link AdmittanceMatrix}.
+ * Comparing the snapshots of two network states gives the number of admittance terms that changed between them,
+ * without building nor factorizing any matrix.
+ *
+ * @author Jean-Baptiste Heyberger <jbheyberger at gmail.com>
+ */
+public final class AdmittanceSnapshot {
+
+    public static final int STRUCTURE_CHANGED = -1;
+
+    private final List<String> busIds;
+
+    private final int[] rows;
+
+    private final int[] columns;
+
+    private final double[] values;
+
+    private AdmittanceSnapshot(List<String> busIds, int[] rows, int[] columns, double[] values) {
+        this.busIds = busIds;
+        this.rows = rows;
+        this.columns = columns;
+        this.values = values;
+    }
+
+    public static AdmittanceSnapshot create(LfNetwork network, AdmittanceEquationSystem.AdmittanceType admittanceType,
+                                            AdmittanceEquationSystem.AdmittanceVoltageProfileType voltageProfileType,
+                                            AdmittanceEquationSystem.AdmittancePeriodType periodType, boolean ignoreShunts) {
+        Objects.requireNonNull(network);
+        // same equation system as the one built by the linear resolution, without any load flow
+        EquationSystem<VariableType, EquationType> equationSystem = AdmittanceEquationSystem.create(network, new VariableSet<>(), admittanceType, voltageProfileType,
+                periodType, ignoreShunts, new FeedersAtNetwork(), null, AdmittanceEquationSystem.FrequencyType.FREQ_50_HZ);
+
+        List<String> busIds = new ArrayList<>();
+        for (LfBus bus : network.getBuses()) {
+            busIds.add(bus.getId());
+        }
+
+        int size = 0;
+        int[] rows = new int[16];
+        int[] columns = new int[16];
+        double[] values = new double[16];
+        for (var eq : equationSystem.getIndex().getSortedEquationsToSolve()) {
+            for (EquationTerm<VariableType, EquationType> term : eq.getTerms()) {
+                for (Variable<VariableType> v : term.getVariables()) {
+                    if (size == values.length) {
+                        rows = Arrays.copyOf(rows, 2 * size);
+                        columns = Arrays.copyOf(columns, 2 * size);
+                        values = Arrays.copyOf(values, 2 * size);
+                    }
+                    rows[size] = eq.getColumn();
+                    columns[size] = v.getRow();
+                    values[size] = ((LinearEquationTerm) term).getCoefficient(v);
+                    size++;
+                }
+            }
+        }
+        return new AdmittanceSnapshot(busIds, Arrays.copyOf(rows, size), Arrays.copyOf(columns, size), Arrays.copyOf(values, size));
+    }
+
+    /**
+     * Returns the number of admittance terms whose value differs from the other snapshot,
+     * or {@link #STRUCTURE_CHANGED} if the busses or the positions of the terms are not the same.
+     */
+    public int countChangedTerms(AdmittanceSnapshot other) {
+        Objects.requireNonNull(other);
+        if (!busIds.equals(other.busIds) || !Arrays.equals(rows, other.rows) || !Arrays.equals(columns, other.columns)) {
+            return STRUCTURE_CHANGED;
+        }
+        int changed = 0;
+        for (int i = 0; i < values.length; i++) {
+            if (Double.compare(values[i], other.values[i]) != 0) {
+                changed++;
+            }
+        }
+        return changed;
+    }
+
+    public int getTermCount() {
+        return values.length;
+    }
+}
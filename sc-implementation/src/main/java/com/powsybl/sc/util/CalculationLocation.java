@@ -7,8 +7,6 @@
  */
 package com.powsybl.sc.util;
 
-import org.apache.commons.math3.util.Pair;
-
 import java.util.Objects;
 
 /**
@@ -20,14 +18,14 @@ public class CalculationLocation {
 
     private final String bus2Location; // used in case computations need 2 busses in input: for example in biphased common support short circuit computations
 
-    private Pair<String, Integer > iidmBusInfo; // additional iidm info to make the correspondence between iidm info and lfNetwork info
-
-    private Pair<String, Integer > iidmBus2Info; // additional iidm info to make the correspondence between iidm info and lfNetwork info in case of a biphased common support fault
-
     private String lfBusInfo; // additional info to have the correspondence between iidm and lfNetwork
 
     private String lfBus2Info; // additional info to have the correspondence between iidm and lfNetwork for bus 2
 
+    private int lfBusNum = -1; // number of the LfBus matching the location, -1 if not found in the lfNetwork
+
+    private int lfBus2Num = -1; // number of the LfBus matching bus 2, -1 if not found in the lfNetwork
+
     public CalculationLocation(String busLocation) {
         this(busLocation, "");
     }
@@ -45,22 +43,6 @@ public class CalculationLocation {
         return bus2Location;
     }
 
-    public void setIidmBusInfo(Pair<String, Integer> iidmBusInfo) {
-        this.iidmBusInfo = iidmBusInfo;
-    }
-
-    public void setIidmBus2Info(Pair<String, Integer> iidmBus2Info) {
-        this.iidmBus2Info = iidmBus2Info;
-    }
-
-    public Pair<String, Integer> getIidmBus2Info() {
-        return iidmBus2Info;
-    }
-
-    public Pair<String, Integer> getIidmBusInfo() {
-        return iidmBusInfo;
-    }
-
     public void setLfBusInfo(String lfBusInfo) {
         this.lfBusInfo = lfBusInfo;
     }
@@ -77,4 +59,27 @@ public class CalculationLocation {
         return lfBus2Info;
     }
 
+    public void setLfBusNum(int lfBusNum) {
+        this.lfBusNum = lfBusNum;
+    }
+
+    public void setLfBus2Num(int lfBus2Num) {
+        this.lfBus2Num = lfBus2Num;
+    }
+
+    public int getLfBusNum() {
+        return lfBusNum;
+    }
+
+    public int getLfBus2Num() {
+        return lfBus2Num;
+    }
+
+    /**
+     * Returns true if the voltage deltas of all the busses of the network are needed for this location.
+     */
+    public boolean isVoltageUpdate() {
+        return true;
+    }
+
 }
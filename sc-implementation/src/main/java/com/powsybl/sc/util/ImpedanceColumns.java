@@ -0,0 +1,217 @@
+/**
+ * Copyright (c) 2022, Jean-Baptiste Heyberger & Geoffroy Jamgotchian
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ * SPDX-License-Identifier: MPL-2.0
+ */
+package com.powsybl.sc.util;
+
+import org.apache.commons.math3.complex.Complex;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Off-heap store of the impedance terms z(k,nf) extracted from inv(Y), one column per faulted bus nf and one row per
+ * extracted bus k: all the busses, or the monitored busses only, indexed by their position in the monitored set.
+ * Each column is kept in its own direct buffer, written at once when the column is extracted, so that the solved columns
+ * do not weigh on the garbage collected heap. Values of busses that have not been extracted are NaN.
+ * <p>
+ * A column is never modified once stored, so it is read without locking, only the references to the columns are
+ * updated under the lock of the store.
+ * <p>
+ * Direct buffers are only given back to the system once they are no longer referenced and the garbage collector has run,
+ * closing the store drops its references to the columns so that they can be reclaimed. A column can be retained to stay
+ * readable after the store is closed, for instance by a voltage profile built on its first access: it is then dropped
+ * when its last holder releases it, the other columns being dropped on close.
+ *
+ * @author Jean-Baptiste Heyberger <jbheyberger at gmail.com>
+ */
+public class ImpedanceColumns implements AutoCloseable {
+
+    private final int nbBusses;
+
+    private final int[] rowBusNums; // bus number of each row in increasing order, null if there is a row per bus
+
+    private final AtomicReferenceArray<DoubleBuffer> columns;
+
+    private final int[] references; // number of holders of each column, retained columns are kept when the store is closed
+
+    private volatile boolean closed = false;
+
+    public ImpedanceColumns(int nbColumns, int nbBusses) {
+        this(nbColumns, nbBusses, null);
+    }
+
+    /**
+     * Creates a store with a row per bus of rowBusNums, in any order, or per bus of the network if null.
+     */
+    public ImpedanceColumns(int nbColumns, int nbBusses, int[] rowBusNums) {
+        if (nbColumns < 0 || nbBusses < 0) {
+            throw new IllegalArgumentException("Invalid impedance columns size: " + nbColumns + " x " + nbBusses);
+        }
+        this.nbBusses = nbBusses;
+        if (rowBusNums != null) {
+            this.rowBusNums = rowBusNums.clone();
+            Arrays.sort(this.rowBusNums);
+        } else {
+            this.rowBusNums = null;
+        }
+        this.columns = new AtomicReferenceArray<>(nbColumns);
+        this.references = new int[nbColumns];
+    }
+
+    public int getColumnCount() {
+        return columns.length();
+    }
+
+    public int getBusCount() {
+        return nbBusses;
+    }
+
+    public int getRowCount() {
+        return rowBusNums != null ? rowBusNums.length : nbBusses;
+    }
+
+    /**
+     * Returns the row of the bus, or a negative value if the bus has no row.
+     */
+    public int getRow(int busNum) {
+        return rowBusNums != null ? Arrays.binarySearch(rowBusNums, busNum) : busNum;
+    }
+
+    public int getBusNum(int row) {
+        return rowBusNums != null ? rowBusNums[row] : row;
+    }
+
+    public boolean hasColumn(int numColumn) {
+        checkOpen();
+        return columns.get(numColumn) != null;
+    }
+
+    /**
+     * Stores the column from the values of all the rows, real and imaginary parts interleaved, NaN marking the terms
+     * that have not been extracted. The column is written with a single bulk put before being published.
+     */
+    public synchronized void setColumn(int numColumn, double[] values) {
+        checkOpen();
+        if (columns.get(numColumn) != null) {
+            throw new IllegalStateException("Impedance column " + numColumn + " is already stored");
+        }
+        // native order to avoid byte swapping on access
+        int rowCount = getRowCount();
+        DoubleBuffer column = ByteBuffer.allocateDirect(2 * rowCount * Double.BYTES).order(ByteOrder.nativeOrder()).asDoubleBuffer();
+        column.put(0, values, 0, 2 * rowCount);
+        columns.set(numColumn, column);
+    }
+
+    public double getReal(int numColumn, int busNum) {
+        DoubleBuffer column = getColumn(numColumn);
+        int row = getRow(busNum);
+        return column != null && row >= 0 ? column.get(2 * row) : Double.NaN;
+    }
+
+    public double getImaginary(int numColumn, int busNum) {
+        DoubleBuffer column = getColumn(numColumn);
+        int row = getRow(busNum);
+        return column != null && row >= 0 ? column.get(2 * row + 1) : Double.NaN;
+    }
+
+    /**
+     * Copies the extracted terms of the column in increasing bus order, without the NaN of the other rows, and returns
+     * their number. The arrays must be able to hold the terms of all the rows.
+     */
+    public int copyColumn(int numColumn, int[] busNums, double[] values) {
+        DoubleBuffer column = getColumn(numColumn);
+        if (column == null) {
+            return 0;
+        }
+        int size = 0;
+        for (int row = 0; row < getRowCount(); row++) {
+            double re = column.get(2 * row);
+            if (Double.isNaN(re)) {
+                continue;
+            }
+            busNums[size] = getBusNum(row);
+            values[2 * size] = re;
+            values[2 * size + 1] = column.get(2 * row + 1);
+            size++;
+        }
+        return size;
+    }
+
+    /**
+     * Returns z(k,nf) with k the bus number and nf the column, or null if the term has not been extracted.
+     */
+    public Complex get(int numColumn, int busNum) {
+        double re = getReal(numColumn, busNum);
+        if (Double.isNaN(re)) {
+            return null;
+        }
+        return new Complex(re, getImaginary(numColumn, busNum));
+    }
+
+    /**
+     * Keeps the column readable after the store is closed, until it is released as many times as it has been retained.
+     */
+    public synchronized void retain(int numColumn) {
+        checkOpen();
+        references[numColumn]++;
+    }
+
+    public synchronized void release(int numColumn) {
+        if (references[numColumn] <= 0) {
+            throw new IllegalStateException("Impedance column " + numColumn + " is not retained");
+        }
+        references[numColumn]--;
+        if (closed && references[numColumn] == 0) {
+            columns.set(numColumn, null);
+        }
+    }
+
+    /**
+     * Returns the number of columns still referenced by the store, retained ones included once it is closed.
+     */
+    public synchronized int getResidentColumnCount() {
+        int count = 0;
+        for (int numColumn = 0; numColumn < columns.length(); numColumn++) {
+            if (columns.get(numColumn) != null) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private DoubleBuffer getColumn(int numColumn) {
+        DoubleBuffer column = columns.get(numColumn);
+        // closed is set before the unreferenced columns are dropped, a dropped column is always seen as released
+        if (column == null && closed) {
+            throw new IllegalStateException("Impedance column " + numColumn + " has been released");
+        }
+        return column;
+    }
+
+    private void checkOpen() {
+        if (closed) {
+            throw new IllegalStateException("Impedance columns have been closed");
+        }
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    @Override
+    public synchronized void close() {
+        closed = true;
+        for (int numColumn = 0; numColumn < columns.length(); numColumn++) {
+            if (references[numColumn] == 0) {
+                columns.set(numColumn, null);
+            }
+        }
+    }
+}
@@ -10,22 +10,18 @@ package com.powsybl.sc.util;
 import com.powsybl.math.matrix.DenseMatrix;
 import com.powsybl.openloadflow.equations.EquationSystem;
 import com.powsybl.openloadflow.equations.VariableSet;
-import com.powsybl.openloadflow.network.LfBranch;
 import com.powsybl.openloadflow.network.LfBus;
 import com.powsybl.openloadflow.network.LfNetwork;
 import org.apache.commons.math3.complex.Complex;
 import org.apache.commons.math3.complex.ComplexUtils;
 import org.apache.commons.math3.util.Pair;
 
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Map;
-import java.util.Objects;
+import java.util.*;
 
 /**
  * @author Jean-Baptiste Heyberger <jbheyberger at gmail.com>
  */
-public class ImpedanceLinearResolution {
+public class ImpedanceLinearResolution implements AutoCloseable {
 
     // This class is used to resolve problems with a similar structure
     // [ Vof ] = -tM * inv(Yo) * M * [ Iof ]
@@ -43,6 +39,8 @@ public class ImpedanceLinearResolution {
 
     public final List<ImpedanceLinearResolutionResult> results = new ArrayList<>();
 
+    private ImpedanceColumns zColumns; // off-heap impedance columns, null if they are stored in the maps of the results
+
     public ImpedanceLinearResolution(LfNetwork network, ImpedanceLinearResolutionParameters parameters) {
         this.network = Objects.requireNonNull(network);
         this.parameters = Objects.requireNonNull(parameters);
@@ -59,15 +57,20 @@ public class ImpedanceLinearResolution {
         // k is the bus index of the voltage Vk we want to compute and nf is the index of faulted bus
         private Complex zknf;
 
-        // This is a map to easily access the impedance terms resulting from inv(Y), extracting only useful z(i,j) terms
-        // the key stores the number of the bus k at which we want to compute the voltage from formula Vk = z(k,nf).icc, the value stores the resolved value [Res] = inv(Y)*[En],
-        // with n of vector [En] corresponding to the studied short circuit fault and values at lines of [Res] corresponding real and imaginary parts at bus in key
-        private Map<Integer, Complex> busToZknf;
+        // This is the column of the impedance terms resulting from inv(Y), extracting only useful z(i,j) terms
+        // each term is stored with the number of the bus k at which we want to compute the voltage from formula Vk = z(k,nf).icc, the value stores the resolved value [Res] = inv(Y)*[En],
+        // with n of vector [En] corresponding to the studied short circuit fault and values at lines of [Res] corresponding real and imaginary parts at bus k
+        // the terms below the drop tolerance are not stored if one is set, null if the column is stored off-heap
+        private SparseImpedanceColumn zknfColumn;
+
+        private int numColumn = -1; // column of the off-heap store holding the impedance terms, -1 if not stored off-heap
 
         private FeedersAtNetwork eqSysFeeders;
 
         private List<ImpedanceLinearResolutionResultBiphased> biphasedResultsAtBus; // we store here all necessary information for all biphased common ground faults with first bus equal to LfBus = bus
 
+        private Map<Integer, ImpedanceLinearResolutionResultBiphased> biphasedResultsByBus2Num; // same biphased results indexed by the number of their second bus
+
         public class ImpedanceLinearResolutionResultBiphased {
 
             private LfBus bus2;
@@ -80,11 +83,13 @@ public class ImpedanceLinearResolution {
             private Complex z21;
             private Complex z12;
 
-            // This map is similar to busToZknf map, applied for bus2 k
+            // This column is similar to zknfColumn, applied for bus2
             // store necessary data to compute voltage delta of the full grid for a common support biphased fault
-            // the key stores the number of the bus2 for a biphased common support fault, the value stores the resolved value [Res] = inv(Y)*[En],
-            // with n of vector [En] corresponding to the studied short circuit fault and values at lines of [Res] corresponding real and imaginary parts at bus2 in key
-            private Map<Integer, Complex> bus2ToZknf;
+            // the values store the resolved value [Res] = inv(Y)*[En],
+            // with n of vector [En] corresponding to the second bus of the biphased common support fault and values at lines of [Res] corresponding real and imaginary parts at bus k
+            private SparseImpedanceColumn bus2ZknfColumn;
+
+            private int numBus2Column = -1; // column of the off-heap store holding the same values as bus2ZknfColumn, -1 if not stored off-heap
 
             ImpedanceLinearResolutionResultBiphased(LfBus bus2, Complex v2, Complex z22, Complex z21, Complex z12, int numBus2Fault) {
                 this.bus2 = bus2;
@@ -99,7 +104,12 @@ public class ImpedanceLinearResolution {
             }
 
             public void updateWithVoltagesdelta2(AdmittanceMatrix y, DenseMatrix dEn) {
-                bus2ToZknf = y.getDeltaV(dEn, numBus2Fault);
+                if (zColumns != null) {
+                    storeDeltaV(y, dEn, numBus2Fault);
+                    numBus2Column = numBus2Fault;
+                    return;
+                }
+                bus2ZknfColumn = getDeltaV(y, dEn, numBus2Fault, z22, bus2);
                 //eqSysFeeders = feeders; // TODO : check if feeder are necessary for v2 : contains necessary data to update the contribution of feeders for each shortcircuit
             }
 
@@ -123,8 +133,11 @@ public class ImpedanceLinearResolution {
                 return v2;
             }
 
-            public Map<Integer, Complex> getBus2ToZknf() {
-                return bus2ToZknf;
+            /**
+             * Same as {@link ImpedanceLinearResolutionResult#getZknfColumn()} for the second bus of the fault.
+             */
+            public SparseImpedanceColumn getBus2ZknfColumn() {
+                return getColumn(bus2ZknfColumn, numBus2Column);
             }
         }
 
@@ -151,8 +164,47 @@ public class ImpedanceLinearResolution {
             return zthEq20Hz;
         }
 
-        public Map<Integer, Complex> getBusToZknf() {
-            return busToZknf;
+        /**
+         * Returns the extracted terms z(k,nf) in increasing bus order, as primitives whatever the storage: the heap column
+         * itself, or a copy of the off-heap column read without locking. Null if the voltage deltas have not been extracted.
+         */
+        public SparseImpedanceColumn getZknfColumn() {
+            return getColumn(zknfColumn, numColumn);
+        }
+
+        /**
+         * Keeps the off-heap columns of the result and of its biphased results readable once the resolution is closed,
+         * until {@link #releaseColumns()} is called. Does nothing if the columns are not stored off-heap.
+         */
+        public void retainColumns() {
+            updateColumnReferences(true);
+        }
+
+        public void releaseColumns() {
+            updateColumnReferences(false);
+        }
+
+        private void updateColumnReferences(boolean retain) {
+            if (zColumns == null) {
+                return;
+            }
+            updateColumnReference(numColumn, retain);
+            if (biphasedResultsAtBus != null) {
+                for (ImpedanceLinearResolutionResultBiphased biphasedResult : biphasedResultsAtBus) {
+                    updateColumnReference(biphasedResult.numBus2Column, retain);
+                }
+            }
+        }
+
+        private void updateColumnReference(int numStoredColumn, boolean retain) {
+            if (numStoredColumn < 0) {
+                return;
+            }
+            if (retain) {
+                zColumns.retain(numStoredColumn);
+            } else {
+                zColumns.release(numStoredColumn);
+            }
         }
 
         public Complex getZknf() {
@@ -167,12 +219,24 @@ public class ImpedanceLinearResolution {
             return biphasedResultsAtBus;
         }
 
+        public ImpedanceLinearResolutionResultBiphased getBiphasedResult(int bus2Num) {
+            if (biphasedResultsByBus2Num == null) {
+                return null;
+            }
+            return biphasedResultsByBus2Num.get(bus2Num);
+        }
+
         public void updatezknf(Complex enBus) {
             this.zknf = enBus;
         }
 
         public void updateWithVoltagesdelta(AdmittanceMatrix y, DenseMatrix dEn, int numDef, FeedersAtNetwork feeders) {
-            busToZknf = y.getDeltaV(dEn, numDef);
+            if (zColumns != null) {
+                storeDeltaV(y, dEn, numDef);
+                numColumn = numDef;
+            } else {
+                zknfColumn = getDeltaV(y, dEn, numDef, zthEq, bus);
+            }
             eqSysFeeders = feeders; // contains necessary data to update the contribution of feeders for each short circuit
         }
 
@@ -196,8 +260,54 @@ public class ImpedanceLinearResolution {
 
             if (biphasedResultsAtBus == null) {
                 biphasedResultsAtBus = new ArrayList<>();
+                biphasedResultsByBus2Num = new HashMap<>();
             }
             biphasedResultsAtBus.add(biphasedResult);
+            biphasedResultsByBus2Num.put(bus2.getNum(), biphasedResult);
+        }
+    }
+
+    private SparseImpedanceColumn getColumn(SparseImpedanceColumn column, int numStoredColumn) {
+        if (numStoredColumn < 0) {
+            return column;
+        }
+        int[] busNums = new int[zColumns.getRowCount()];
+        double[] values = new double[2 * zColumns.getRowCount()];
+        int size = zColumns.copyColumn(numStoredColumn, busNums, values);
+        return new SparseImpedanceColumn(busNums, values, size);
+    }
+
+    private SparseImpedanceColumn getDeltaV(AdmittanceMatrix y, DenseMatrix dEn, int numColumn, Complex zDiagonal, LfBus columnBus) {
+        // only the rows of the monitored busses are read if any, all the terms are kept without drop tolerance
+        if (!parameters.isSparseColumns()) {
+            return y.getSparseDeltaV(dEn, numColumn, parameters.getMonitoredBusses(), 0, null);
+        }
+        // terms are compared to the diagonal term of the column, the largest of the column
+        double dropTolerance = Math.max(parameters.getAbsoluteZDropTolerance(), parameters.getRelativeZDropTolerance() * zDiagonal.abs());
+        // the terms read by the feeders must be exact, a dropped term would give a wrong branch current
+        Set<LfBus> keptBusses = parameters.getKeptBussesProvider().apply(columnBus);
+        if (keptBusses == null) {
+            dropTolerance = 0;
+        }
+        boolean[] kept = null;
+        if (keptBusses != null && !keptBusses.isEmpty()) {
+            kept = new boolean[network.getBuses().size()];
+            for (LfBus keptBus : keptBusses) {
+                kept[keptBus.getNum()] = true;
+            }
+        }
+        return y.getSparseDeltaV(dEn, numColumn, parameters.getMonitoredBusses(), dropTolerance, kept);
+    }
+
+    private void storeDeltaV(AdmittanceMatrix y, DenseMatrix dEn, int numColumn) {
+        if (zColumns.hasColumn(numColumn)) {
+            return; // already extracted for another fault at the same bus
+        }
+        Set<LfBus> monitoredBusses = parameters.getMonitoredBusses();
+        if (monitoredBusses != null) {
+            y.getDeltaV(dEn, numColumn, monitoredBusses, zColumns, numColumn);
+        } else {
+            y.getDeltaV(dEn, numColumn, zColumns, numColumn);
         }
     }
 
@@ -221,51 +331,6 @@ public class ImpedanceLinearResolution {
         checkMatrixExtractionConsistency(z1, z2, lfBus1, lfBus1);
     }
 
-    public static LfBus getLfBusFromIidmBranch(String iidmBranchId, int branchSide, LfNetwork lfNetwork) {
-        LfBus bus = null;
-        for (LfBranch lfBranch : lfNetwork.getBranches()) {
-            String branchId = lfBranch.getId();
-            LfBranch.BranchType lfType = lfBranch.getBranchType();
-
-            if (lfType == LfBranch.BranchType.LINE || lfType == LfBranch.BranchType.TRANSFO_2) {
-                if (iidmBranchId.equals(branchId)) {
-                    if (branchSide == 1) {
-                        bus = lfBranch.getBus1();
-
-                    } else {
-                        bus = lfBranch.getBus2();
-                    }
-                    break;
-                }
-            } else if (lfType == LfBranch.BranchType.TRANSFO_3_LEG_1) {
-                String legId = iidmBranchId + "_leg_1";
-                if (legId.equals(branchId) && branchSide == 1) {
-                    // assumption made: side 2 bus is always the star bus of the T3W
-                    bus = lfBranch.getBus1();
-                    break;
-                }
-
-            } else if (lfType == LfBranch.BranchType.TRANSFO_3_LEG_2) {
-                String legId = iidmBranchId + "_leg_2";
-                if (legId.equals(branchId) && branchSide == 2) {
-                    // assumption made: side 2 bus is always the star bus of the T3W
-                    bus = lfBranch.getBus1();
-                    break;
-                }
-
-            } else if (lfType == LfBranch.BranchType.TRANSFO_3_LEG_3) {
-                String legId = iidmBranchId + "_leg_3";
-                if (legId.equals(branchId) && branchSide == 3) {
-                    // assumption made: side 2 bus is always the star bus of the T3W
-                    bus = lfBranch.getBus1();
-                    break;
-                }
-            }
-        }
-        return bus;
-
-    }
-
     public void run() {
 
         FeedersAtNetwork equationsSystemFeeders = new FeedersAtNetwork();
@@ -273,57 +338,60 @@ public class ImpedanceLinearResolution {
                 = AdmittanceEquationSystem.create(network, new VariableSet<>(), parameters.getAdmittanceType(), parameters.getTheveninVoltageProfileType(),
                 parameters.getTheveninPeriodType(), parameters.isTheveninIgnoreShunts(), equationsSystemFeeders, parameters.getAcLoadFlowParameters(), AdmittanceEquationSystem.FrequencyType.FREQ_50_HZ);
 
+        // the pre-fault state, if needed, has already been computed for the 50 Hz equation system, no need to run the load flow again
         FeedersAtNetwork equationsSystemFeeders20hz = new FeedersAtNetwork();
         EquationSystem<VariableType, EquationType> equationSystem20hz
                 = AdmittanceEquationSystem.create(network, new VariableSet<>(), parameters.getAdmittanceType(), parameters.getTheveninVoltageProfileType(),
-                parameters.getTheveninPeriodType(), parameters.isTheveninIgnoreShunts(), equationsSystemFeeders20hz, parameters.getAcLoadFlowParameters(), AdmittanceEquationSystem.FrequencyType.FREQ_20_HZ);
+                parameters.getTheveninPeriodType(), parameters.isTheveninIgnoreShunts(), equationsSystemFeeders20hz, null, AdmittanceEquationSystem.FrequencyType.FREQ_20_HZ);
 
         //Get bus by voltage level
+        // each LfBus gets a single column block in the extraction matrix, even if several locations point to it
+        // busNumToFaultNum gives the index of this block from the LfBus number, -1 if the bus is not an input bus
         List<LfBus> inputBusses = new ArrayList<>();
-        for (CalculationLocation faultBranchLocationInfo : parameters.getCalculationLocations()) {
-            String iidmBranchId = faultBranchLocationInfo.getIidmBusInfo().getKey();
-            int branchSide = faultBranchLocationInfo.getIidmBusInfo().getValue();
-
-            LfBus bus = getLfBusFromIidmBranch(iidmBranchId, branchSide, network);
+        int[] busNumToFaultNum = new int[network.getBuses().size()];
+        Arrays.fill(busNumToFaultNum, -1);
+        // voltage deltas are only extracted at busses where at least one location needs them
+        boolean[] voltageUpdateBusses = new boolean[network.getBuses().size()];
+        for (CalculationLocation calculationLocation : parameters.getCalculationLocations()) {
+            LfBus bus = getLfBus(calculationLocation.getLfBusNum(), calculationLocation.getLfBusInfo());
             if (bus != null) {
-                inputBusses.add(bus);
-                faultBranchLocationInfo.setLfBusInfo(bus.getId());
+                addInputBus(bus, inputBusses, busNumToFaultNum);
+                voltageUpdateBusses[bus.getNum()] |= calculationLocation.isVoltageUpdate();
             }
         }
 
-        // case it is a biphased common support input, supposing that the number of such input contingencies is low
+        // case it is a biphased common support input, second busses are grouped by first bus number
+        Map<Integer, Set<LfBus>> biphasedBus2PerBus1 = new HashMap<>();
         List<Pair<LfBus, LfBus>> biphasedinputBusses = new ArrayList<>();
         if (parameters.getBiphasedCalculationLocations() != null) {
-            for (CalculationLocation biphasedFaultBranchLocationInfo : parameters.getBiphasedCalculationLocations()) {
-
-                String iidmBranchId = biphasedFaultBranchLocationInfo.getIidmBusInfo().getKey();
-                int branchSide = biphasedFaultBranchLocationInfo.getIidmBusInfo().getValue();
-
-                String iidmBranch2Id = biphasedFaultBranchLocationInfo.getIidmBus2Info().getKey();
-                int branch2Side = biphasedFaultBranchLocationInfo.getIidmBus2Info().getValue();
-
-                LfBus bus1 = getLfBusFromIidmBranch(iidmBranchId, branchSide, network);
-                LfBus bus2 = getLfBusFromIidmBranch(iidmBranch2Id, branch2Side, network);
+            for (CalculationLocation biphasedCalculationLocation : parameters.getBiphasedCalculationLocations()) {
+                LfBus bus1 = getLfBus(biphasedCalculationLocation.getLfBusNum(), biphasedCalculationLocation.getLfBusInfo());
+                LfBus bus2 = getLfBus(biphasedCalculationLocation.getLfBus2Num(), biphasedCalculationLocation.getLfBus2Info());
 
                 if (bus1 != null && bus2 != null) {
-                    Pair<LfBus, LfBus> bussesPair = new Pair<>(bus1, bus2);
-                    biphasedinputBusses.add(bussesPair);
-                    biphasedFaultBranchLocationInfo.setLfBusInfo(bus1.getId());
-                    biphasedFaultBranchLocationInfo.setLfBus2Info(bus2.getId());
+                    if (biphasedBus2PerBus1.computeIfAbsent(bus1.getNum(), k -> new LinkedHashSet<>()).add(bus2)) {
+                        biphasedinputBusses.add(new Pair<>(bus1, bus2));
+                    }
+                    voltageUpdateBusses[bus1.getNum()] |= biphasedCalculationLocation.isVoltageUpdate();
                 }
             }
         }
 
         // Addition of biphased faults in the inputBusses
         for (Pair<LfBus, LfBus> pairBusses : biphasedinputBusses) {
-            LfBus bus1 = pairBusses.getKey();
-            LfBus bus2 = pairBusses.getValue();
-            if (!inputBusses.contains(bus1)) {
-                inputBusses.add(bus1);
-            }
-            if (!inputBusses.contains(bus2)) {
-                inputBusses.add(bus2);
+            addInputBus(pairBusses.getKey(), inputBusses, busNumToFaultNum);
+            addInputBus(pairBusses.getValue(), inputBusses, busNumToFaultNum);
+        }
+
+        // solved columns are kept off-heap, column numbers being the same as in the extraction matrix
+        // and rows being the monitored busses if any
+        if (parameters.isOffHeapColumns() && parameters.isVoltageUpdate()) {
+            close();
+            int[] monitoredBusNums = null;
+            if (parameters.getMonitoredBusses() != null) {
+                monitoredBusNums = parameters.getMonitoredBusses().stream().mapToInt(LfBus::getNum).toArray();
             }
+            zColumns = new ImpedanceColumns(inputBusses.size(), network.getBuses().size(), monitoredBusNums);
         }
 
         // Build of the structure of the extraction matrices
@@ -344,8 +412,9 @@ public class ImpedanceLinearResolution {
         //  - En_y_k is the vector t[ 0 0 ... 0 0 0 1 0 0 ... 0 0 ] where 1 corresponds to the line/column of the bus k where the imaginary part of Z matrix is modelled
 
         // Step 1 : build the extraction vectors
-        try (AdmittanceMatrix yd = new AdmittanceMatrix(equationSystem, parameters.getMatrixFactory(), network);
-             AdmittanceMatrix yd20hz = new AdmittanceMatrix(equationSystem20hz, parameters.getMatrixFactory(), network)) {
+        AdmittanceMatrix yd = getAdmittanceMatrix(equationSystem, AdmittanceEquationSystem.FrequencyType.FREQ_50_HZ);
+        AdmittanceMatrix yd20hz = getAdmittanceMatrix(equationSystem20hz, AdmittanceEquationSystem.FrequencyType.FREQ_20_HZ);
+        try {
 
             DenseMatrix en = new DenseMatrix(yd.getRowCount(), 2 * inputBusses.size());
             DenseMatrix en20hz = new DenseMatrix(yd.getRowCount(), 2 * inputBusses.size());
@@ -430,27 +499,17 @@ public class ImpedanceLinearResolution {
                 res.updatezknf(zknf);
 
                 // handle biphased common support faults extra data
-                for (Pair<LfBus, LfBus> pairBusses : biphasedinputBusses) {
-                    LfBus bus1 = pairBusses.getKey();
-                    if (bus1 == lfBus) {
+                Set<LfBus> biphasedBusses2 = biphasedBus2PerBus1.get(lfBus.getNum());
+                if (biphasedBusses2 != null) {
+                    for (LfBus bus2 : biphasedBusses2) {
                         // lfbus is also the first bus for a biphased common support, we store as an extension necessary additional data for the linear resolution post-processing
-                        LfBus bus2 = pairBusses.getValue();
                         int yCol1x = yd.getColBus(lfBus.getNum(), VariableType.BUS_VR);
                         int yCol1y = yd.getColBus(lfBus.getNum(), VariableType.BUS_VI);
                         int yCol2x = yd.getColBus(bus2.getNum(), VariableType.BUS_VR);
                         int yCol2y = yd.getColBus(bus2.getNum(), VariableType.BUS_VI);
 
-                        int numBus2Fault = 0; // get the right column of extraction matrix of bus2
-                        boolean bus2found = false;
-                        for (LfBus lfBus2 : inputBusses) {
-                            if (lfBus2 == bus2) {
-                                bus2found = true;
-                                break;
-                            }
-                            numBus2Fault++;
-                        }
-
-                        if (!bus2found) {
+                        int numBus2Fault = busNumToFaultNum[bus2.getNum()]; // get the right column of extraction matrix of bus2
+                        if (numBus2Fault < 0) {
                             throw new IllegalArgumentException(" Biphased fault second bus = " + bus2.getId() + " : not found in the extraction matrix");
                         }
 
@@ -483,7 +542,7 @@ public class ImpedanceLinearResolution {
                 }
 
                 //if required, do the same for all busses from the grid
-                if (parameters.isVoltageUpdate()) {
+                if (parameters.isVoltageUpdate() && voltageUpdateBusses[lfBus.getNum()]) {
                     // This equivalent to store  inv(Y)*[En]
                     res.updateWithVoltagesdelta(yd, zfromLu, numBusFault, equationsSystemFeeders);
                     if (res.biphasedResultsAtBus != null) {
@@ -499,6 +558,48 @@ public class ImpedanceLinearResolution {
                 this.results.add(res);
                 numBusFault++;
             }
+        } finally {
+            // matrices of the cache are kept for the next network state
+            if (parameters.getAdmittanceMatrixCache() == null) {
+                yd.close();
+                yd20hz.close();
+            }
+        }
+    }
+
+    private AdmittanceMatrix getAdmittanceMatrix(EquationSystem<VariableType, EquationType> equationSystem, AdmittanceEquationSystem.FrequencyType frequencyType) {
+        AdmittanceMatrixCache admittanceMatrixCache = parameters.getAdmittanceMatrixCache();
+        if (admittanceMatrixCache == null) {
+            return new AdmittanceMatrix(equationSystem, parameters.getMatrixFactory(), network);
+        }
+        return admittanceMatrixCache.get(network, parameters.getAdmittanceType(), frequencyType, equationSystem, parameters.getMatrixFactory());
+    }
+
+    /**
+     * Releases the off-heap impedance columns, voltage deltas of the results can no longer be read once closed except
+     * for the results whose columns have been retained, see {@link ImpedanceLinearResolutionResult#retainColumns()}.
+     */
+    @Override
+    public void close() {
+        if (zColumns != null) {
+            zColumns.close();
+        }
+    }
+
+    private LfBus getLfBus(int lfBusNum, String lfBusId) {
+        // locations have been associated with LfBusses beforehand, -1 means the location is not in any lfNetwork
+        // the id is also checked as the LfBus might belong to another lfNetwork
+        if (lfBusNum < 0 || lfBusNum >= network.getBuses().size()) {
+            return null;
+        }
+        LfBus bus = network.getBus(lfBusNum);
+        return bus.getId().equals(lfBusId) ? bus : null;
+    }
+
+    private static void addInputBus(LfBus bus, List<LfBus> inputBusses, int[] busNumToFaultNum) {
+        if (busNumToFaultNum[bus.getNum()] < 0) {
+            busNumToFaultNum[bus.getNum()] = inputBusses.size();
+            inputBusses.add(bus);
         }
     }
 
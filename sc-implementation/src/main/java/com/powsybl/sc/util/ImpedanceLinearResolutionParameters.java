@@ -9,9 +9,13 @@ package com.powsybl.sc.util;
 
 import com.powsybl.math.matrix.MatrixFactory;
 import com.powsybl.openloadflow.ac.AcLoadFlowParameters;
+import com.powsybl.openloadflow.network.LfBus;
 
+import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
 
 /**
  * @author Jean-Baptiste Heyberger <jbheyberger at gmail.com>
@@ -43,6 +47,21 @@ public class ImpedanceLinearResolutionParameters {
 
     private final boolean ignoreShunts;
 
+    private Set<LfBus> monitoredBusses; // busses where voltage deltas are extracted if voltage update is required, all busses if null
+
+    private boolean offHeapColumns = false; // impedance columns used for voltage deltas are stored off-heap instead of in maps
+
+    // impedance terms used for voltage deltas below max(absolute, relative * |Zth|) are dropped, columns being stored as sparse arrays
+    // not applied to off-heap columns
+    private double absoluteZDropTolerance = 0;
+
+    private double relativeZDropTolerance = 0;
+
+    // busses whose terms are never dropped from the column of a faulted bus, every term of the column is kept if null
+    private Function<LfBus, Set<LfBus>> keptBussesProvider = bus -> Collections.emptySet();
+
+    private AdmittanceMatrixCache admittanceMatrixCache; // matrices kept between resolutions of successive network states, built and closed by the resolution if null
+
     private final AdmittanceEquationSystem.AdmittanceVoltageProfileType voltageProfileType;
 
     private final AdmittanceEquationSystem.AdmittancePeriodType periodType;
@@ -105,4 +124,62 @@ public class ImpedanceLinearResolutionParameters {
     public AdmittanceEquationSystem.AdmittanceType getAdmittanceType() {
         return admittanceType;
     }
+
+    public Set<LfBus> getMonitoredBusses() {
+        return monitoredBusses;
+    }
+
+    public void setMonitoredBusses(Set<LfBus> monitoredBusses) {
+        this.monitoredBusses = monitoredBusses;
+    }
+
+    public boolean isOffHeapColumns() {
+        return offHeapColumns;
+    }
+
+    public void setOffHeapColumns(boolean offHeapColumns) {
+        this.offHeapColumns = offHeapColumns;
+    }
+
+    public double getAbsoluteZDropTolerance() {
+        return absoluteZDropTolerance;
+    }
+
+    public void setAbsoluteZDropTolerance(double absoluteZDropTolerance) {
+        if (absoluteZDropTolerance < 0) {
+            throw new IllegalArgumentException("Impedance drop tolerance must be positive: " + absoluteZDropTolerance);
+        }
+        this.absoluteZDropTolerance = absoluteZDropTolerance;
+    }
+
+    public double getRelativeZDropTolerance() {
+        return relativeZDropTolerance;
+    }
+
+    public void setRelativeZDropTolerance(double relativeZDropTolerance) {
+        if (relativeZDropTolerance < 0) {
+            throw new IllegalArgumentException("Impedance drop tolerance must be positive: " + relativeZDropTolerance);
+        }
+        this.relativeZDropTolerance = relativeZDropTolerance;
+    }
+
+    public Function<LfBus, Set<LfBus>> getKeptBussesProvider() {
+        return keptBussesProvider;
+    }
+
+    public void setKeptBussesProvider(Function<LfBus, Set<LfBus>> keptBussesProvider) {
+        this.keptBussesProvider = Objects.requireNonNull(keptBussesProvider);
+    }
+
+    public AdmittanceMatrixCache getAdmittanceMatrixCache() {
+        return admittanceMatrixCache;
+    }
+
+    public void setAdmittanceMatrixCache(AdmittanceMatrixCache admittanceMatrixCache) {
+        this.admittanceMatrixCache = admittanceMatrixCache;
+    }
+
+    public boolean isSparseColumns() {
+        return absoluteZDropTolerance > 0 || relativeZDropTolerance > 0;
+    }
 }
@@ -0,0 +1,103 @@
+/**
+ * Copyright (c) 2022, Jean-Baptiste Heyberger & Geoffroy Jamgotchian
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ * SPDX-License-Identifier: MPL-2.0
+ */
+package com.powsybl.sc.util;
+
+import com.powsybl.iidm.network.Bus;
+import com.powsybl.iidm.network.Network;
+import com.powsybl.iidm.network.Terminal;
+import com.powsybl.openloadflow.network.LfBus;
+import com.powsybl.openloadflow.network.LfNetwork;
+import org.apache.commons.math3.util.Pair;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Correspondence between the busses of the iidm bus breaker view and the LfBusses of the loaded lfNetworks.
+ * It is built once after the lfNetworks are loaded, so that each calculation location is found in constant time.
+ *
+ * @author Jean-Baptiste Heyberger <jbheyberger at gmail.com>
+ */
+public class LfBusIndex {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(LfBusIndex.class);
+
+    private final Map<String, Pair<LfNetwork, LfBus>> iidmBusIdToLfBus = new HashMap<>();
+
+    public LfBusIndex(Network network, List<LfNetwork> lfNetworks) {
+        Objects.requireNonNull(network);
+        Objects.requireNonNull(lfNetworks);
+
+        // LfBusses are built from the busses of the iidm bus view and share their ids
+        Map<String, Pair<LfNetwork, LfBus>> busViewIdToLfBus = new HashMap<>();
+        for (LfNetwork lfNetwork : lfNetworks) {
+            for (LfBus lfBus : lfNetwork.getBuses()) {
+                busViewIdToLfBus.put(lfBus.getId(), new Pair<>(lfNetwork, lfBus));
+            }
+        }
+
+        // each bus of the bus breaker view is merged into a bus of the bus view, we get it through one of its connected terminals
+        for (Bus bus : network.getBusBreakerView().getBuses()) {
+            for (Terminal terminal : bus.getConnectedTerminals()) {
+                Bus mergedBus = terminal.getBusView().getBus();
+                if (mergedBus != null) {
+                    Pair<LfNetwork, LfBus> lfBusInfo = busViewIdToLfBus.get(mergedBus.getId());
+                    if (lfBusInfo != null) {
+                        iidmBusIdToLfBus.put(bus.getId(), lfBusInfo);
+                    }
+                    break;
+                }
+            }
+        }
+    }
+
+    public LfBus getLfBus(String iidmBusId) {
+        Pair<LfNetwork, LfBus> lfBusInfo = iidmBusIdToLfBus.get(iidmBusId);
+        return lfBusInfo != null ? lfBusInfo.getValue() : null;
+    }
+
+    public LfNetwork getLfNetwork(String iidmBusId) {
+        Pair<LfNetwork, LfBus> lfBusInfo = iidmBusIdToLfBus.get(iidmBusId);
+        return lfBusInfo != null ? lfBusInfo.getKey() : null;
+    }
+
+    public void locate(CalculationLocation calculationLocation) {
+        // adds to the location the info to identify its busses in the lfNetwork
+        calculationLocation.setLfBusInfo(null);
+        calculationLocation.setLfBus2Info(null);
+        calculationLocation.setLfBusNum(-1);
+        calculationLocation.setLfBus2Num(-1);
+
+        LfBus lfBus = getLfBus(calculationLocation.getBusLocation());
+        if (lfBus == null) {
+            LOGGER.warn(" input CC Bus {} could not be associated with a bus of the lfNetwork", calculationLocation.getBusLocation());
+            return;
+        }
+
+        if (!calculationLocation.getBus2Location().isEmpty()) {
+            LfBus lfBus2 = getLfBus(calculationLocation.getBus2Location());
+            if (lfBus2 == null) {
+                LOGGER.warn(" input CC Bus {} could not be associated with a bus of the lfNetwork", calculationLocation.getBus2Location());
+                return;
+            }
+            if (getLfNetwork(calculationLocation.getBus2Location()) != getLfNetwork(calculationLocation.getBusLocation())) {
+                LOGGER.warn(" input CC Busses {} and {} are not in the same lfNetwork", calculationLocation.getBusLocation(), calculationLocation.getBus2Location());
+                return;
+            }
+            calculationLocation.setLfBus2Info(lfBus2.getId());
+            calculationLocation.setLfBus2Num(lfBus2.getNum());
+        }
+
+        calculationLocation.setLfBusInfo(lfBus.getId());
+        calculationLocation.setLfBusNum(lfBus.getNum());
+    }
+}
@@ -0,0 +1,83 @@
+/**
+ * Copyright (c) 2022, Jean-Baptiste Heyberger & Geoffroy Jamgotchian
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ * SPDX-License-Identifier: MPL-2.0
+ */
+package com.powsybl.sc.util;
+
+import org.apache.commons.math3.complex.Complex;
+
+import java.util.Arrays;
+
+/**
+ * Column of impedance terms z(k,nf) extracted from inv(Y) kept on the heap as primitives, only the extracted terms are
+ * stored: the monitored busses if any, and only the terms above the drop tolerance if one is set.
+ * Bus numbers are stored in increasing order with the real and imaginary parts of their term.
+ *
+ * @author Jean-Baptiste Heyberger <jbheyberger at gmail.com>
+ */
+public class SparseImpedanceColumn {
+
+    private final int[] busNums;
+
+    private final double[] values; // real and imaginary parts interleaved
+
+    /**
+     * Builds the column from the first size terms of the arrays, bus numbers may be in any order.
+     */
+    public SparseImpedanceColumn(int[] busNums, double[] values, int size) {
+        int[] sortedBusNums = Arrays.copyOf(busNums, size);
+        double[] sortedValues = Arrays.copyOf(values, 2 * size);
+        if (!isSorted(sortedBusNums)) {
+            // sort on bus number and position packed in a long, to avoid boxing
+            long[] keys = new long[size];
+            for (int i = 0; i < size; i++) {
+                keys[i] = ((long) busNums[i] << 32) | i;
+            }
+            Arrays.sort(keys);
+            for (int i = 0; i < size; i++) {
+                int j = (int) keys[i];
+                sortedBusNums[i] = busNums[j];
+                sortedValues[2 * i] = values[2 * j];
+                sortedValues[2 * i + 1] = values[2 * j + 1];
+            }
+        }
+        this.busNums = sortedBusNums;
+        this.values = sortedValues;
+    }
+
+    private static boolean isSorted(int[] busNums) {
+        for (int i = 1; i < busNums.length; i++) {
+            if (busNums[i - 1] > busNums[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public int size() {
+        return busNums.length;
+    }
+
+    public int getBusNum(int i) {
+        return busNums[i];
+    }
+
+    public double getReal(int i) {
+        return values[2 * i];
+    }
+
+    public double getImaginary(int i) {
+        return values[2 * i + 1];
+    }
+
+    /**
+     * Returns z(k,nf) with k the bus number, or null if the term has been dropped or not extracted.
+     */
+    public Complex get(int busNum) {
+        int i = Arrays.binarySearch(busNums, busNum);
+        return i >= 0 ? new Complex(values[2 * i], values[2 * i + 1]) : null;
+    }
+}
@@ -7,116 +7,85 @@
  */
 package com.powsybl.sc.util;
 
-import com.powsybl.iidm.network.Branch;
-import com.powsybl.iidm.network.Bus;
 import com.powsybl.iidm.network.Network;
-import com.powsybl.iidm.network.ThreeWindingsTransformer;
 import com.powsybl.openloadflow.ac.AcLoadFlowParameters;
 import com.powsybl.openloadflow.network.LfNetwork;
 import com.powsybl.openloadflow.network.LfNetworkParameters;
 import com.powsybl.openloadflow.network.impl.LfNetworkLoaderImpl;
 import com.powsybl.sc.util.extensions.ShortCircuitExtensions;
-import org.apache.commons.math3.util.Pair;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Objects;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 /**
  * @author Jean-Baptiste Heyberger <jbheyberger at gmail.com>
  */
 public class TheveninEquivalent {
 
-    private static final Logger LOGGER = LoggerFactory.getLogger(TheveninEquivalent.class);
-
     private final List<LfNetwork> lfNetworks;
 
     private final TheveninEquivalentParameters parameters;
 
-    private final ImpedanceLinearResolution impedanceLinearResolution;
+    private final List<ImpedanceLinearResolution> impedanceLinearResolutions = new ArrayList<>(); // one linear resolution per synchronous component with locations
 
     public TheveninEquivalent(Network network, TheveninEquivalentParameters parameters) {
-        lfNetworks = LfNetwork.load(network, new LfNetworkLoaderImpl(), new LfNetworkParameters());
+        lfNetworks = LfNetwork.load(network, new LfNetworkLoaderImpl(), new LfNetworkParameters().setComputeMainConnectedComponentOnly(false));
         ShortCircuitExtensions.add(network, lfNetworks);
         this.parameters = Objects.requireNonNull(parameters);
-        LfNetwork lfNetwork = lfNetworks.get(0);
-        impedanceLinearResolution = new ImpedanceLinearResolution(lfNetwork, generateAdmittanceLinearResolutionParam(network, parameters));
+        LfBusIndex lfBusIndex = new LfBusIndex(network, lfNetworks);
+
+        // each location is routed to the lfNetwork of its synchronous component
+        Map<LfNetwork, List<CalculationLocation>> locationsPerLfNetwork = new HashMap<>();
+        for (CalculationLocation calculationLocation : parameters.getLocations()) {
+            lfBusIndex.locate(calculationLocation);
+            if (calculationLocation.getLfBusNum() >= 0) {
+                locationsPerLfNetwork.computeIfAbsent(lfBusIndex.getLfNetwork(calculationLocation.getBusLocation()), k -> new ArrayList<>())
+                        .add(calculationLocation);
+            }
+        }
+        for (LfNetwork lfNetwork : lfNetworks) {
+            List<CalculationLocation> locations = locationsPerLfNetwork.get(lfNetwork);
+            if (locations != null) {
+                impedanceLinearResolutions.add(new ImpedanceLinearResolution(lfNetwork, generateAdmittanceLinearResolutionParam(locations, parameters)));
+            }
+        }
+        if (impedanceLinearResolutions.isEmpty()) {
+            impedanceLinearResolutions.add(new ImpedanceLinearResolution(lfNetworks.get(0), generateAdmittanceLinearResolutionParam(Collections.emptyList(), parameters)));
+        }
     }
 
     public ImpedanceLinearResolution getImpedanceLinearResolution() {
-        return impedanceLinearResolution;
+        // linear resolution of the first synchronous component with locations
+        return impedanceLinearResolutions.get(0);
     }
 
-    public void run() {
-        impedanceLinearResolution.run();
+    public List<ImpedanceLinearResolution> getImpedanceLinearResolutions() {
+        return impedanceLinearResolutions;
     }
 
-    private static Pair<String, Integer > buildFaultBranchFromBusId(String busId, Network network) {
-        Bus bus = network.getBusBreakerView().getBus(busId);
-        String branchId = "";
-        int branchSide = 0;
-        boolean isFound = false;
-        for (Branch<?> branch : network.getBranches()) {
-            Bus bus1 = branch.getTerminal1().getBusBreakerView().getBus();
-            Bus bus2 = branch.getTerminal2().getBusBreakerView().getBus();
-            if (bus == bus1) {
-                branchId = branch.getId();
-                branchSide = 1;
-                isFound = true;
-                break;
-            } else if (bus == bus2) {
-                branchId = branch.getId();
-                branchSide = 2;
-                isFound = true;
-                break;
-            }
+    public void run() {
+        if (impedanceLinearResolutions.size() == 1) {
+            impedanceLinearResolutions.get(0).run();
+            return;
         }
 
-        if (!isFound) {
-            LOGGER.warn(" input CC Bus {} could not be associated with a bipole", busId);
+        // synchronous components are independent and solved concurrently
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        for (ImpedanceLinearResolution impedanceLinearResolution : impedanceLinearResolutions) {
+            futures.add(CompletableFuture.runAsync(impedanceLinearResolution::run, parameters.getExecutor()));
         }
-
-        return new Pair<>(branchId, branchSide);
-    }
-
-    private static Pair<String, Integer> buildFaultT3WbranchFromBusId(String busId, Network tmpNetwork) {
-        Bus bus = tmpNetwork.getBusBreakerView().getBus(busId);
-        String branchId = "";
-        int legNum = 0;
-        boolean isFound = false;
-        for (ThreeWindingsTransformer t3w : tmpNetwork.getThreeWindingsTransformers()) {
-            Bus bus1 = t3w.getLeg1().getTerminal().getBusBreakerView().getBus();
-            Bus bus2 = t3w.getLeg2().getTerminal().getBusBreakerView().getBus();
-            Bus bus3 = t3w.getLeg3().getTerminal().getBusBreakerView().getBus();
-
-            if (bus == bus1) {
-                branchId = t3w.getId();
-                legNum = 1;
-                isFound = true;
-                break;
-            } else if (bus == bus2) {
-                branchId = t3w.getId();
-                legNum = 2;
-                isFound = true;
-                break;
-            } else if (bus == bus3) {
-                branchId = t3w.getId();
-                legNum = 3;
-                isFound = true;
-                break;
+        try {
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
             }
+            throw e;
         }
-
-        if (!isFound) {
-            LOGGER.warn(" input CC Bus {} could not be associated with a tripole", busId);
-        }
-
-        return new Pair<>(branchId, legNum);
     }
 
-    private static ImpedanceLinearResolutionParameters generateAdmittanceLinearResolutionParam(Network network, TheveninEquivalentParameters parameters) {
+    private static ImpedanceLinearResolutionParameters generateAdmittanceLinearResolutionParam(List<CalculationLocation> locations, TheveninEquivalentParameters parameters) {
 
         boolean voltageUpdate = parameters.isVoltageUpdate();
 
@@ -134,20 +103,6 @@ public class TheveninEquivalent {
             periodType = AdmittanceEquationSystem.AdmittancePeriodType.ADM_STEADY_STATE;
         }
 
-        List<CalculationLocation> locations = new ArrayList<>();
-        for (CalculationLocation calculationLocation : parameters.getLocations()) {
-            String busName = calculationLocation.getBusLocation();
-            Pair<String, Integer > branchFaultInfo = buildFaultBranchFromBusId(busName, network);
-
-            if (branchFaultInfo.getKey().equals("")) {
-                // Bus not found in branches, try three windings transformers
-                branchFaultInfo = buildFaultT3WbranchFromBusId(busName, network);
-            }
-
-            calculationLocation.setIidmBusInfo(branchFaultInfo);
-            locations.add(calculationLocation);
-        }
-
         return new ImpedanceLinearResolutionParameters(acLoadFlowParameters, parameters.getMatrixFactory(),
                 locations, voltageUpdate, admittanceVoltageProfileType, periodType,
                 AdmittanceEquationSystem.AdmittanceType.ADM_THEVENIN, parameters.isTheveninIgnoreShunts());
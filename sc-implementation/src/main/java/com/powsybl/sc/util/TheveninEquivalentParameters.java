@@ -12,6 +12,8 @@ import com.powsybl.openloadflow.ac.AcLoadFlowParameters;
 
 import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * @author Jean-Baptiste Heyberger <jbheyberger at gmail.com>
@@ -45,6 +47,8 @@ public class TheveninEquivalentParameters {
 
     private final TheveninPeriodType theveninPeriodType;
 
+    private Executor executor = ForkJoinPool.commonPool(); // used to solve the synchronous components of the network concurrently
+
     public TheveninEquivalentParameters(AcLoadFlowParameters acLoadFlowParameters, MatrixFactory matrixFactory, List<CalculationLocation> voltageLevels, boolean voltageUpdate, TheveninVoltageProfileType theveninVoltageProfileType, TheveninPeriodType theveninPeriodType, boolean theveninIgnoreShunts) {
         this.acLoadFlowParameters = Objects.requireNonNull(acLoadFlowParameters);
         this.matrixFactory = Objects.requireNonNull(matrixFactory);
@@ -83,4 +87,12 @@ public class TheveninEquivalentParameters {
         return theveninPeriodType;
     }
 
+    public Executor getExecutor() {
+        return executor;
+    }
+
+    public void setExecutor(Executor executor) {
+        this.executor = Objects.requireNonNull(executor);
+    }
+
 }
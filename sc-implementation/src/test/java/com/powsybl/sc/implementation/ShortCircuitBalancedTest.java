@@ -18,6 +18,10 @@ import com.powsybl.loadflow.LoadFlowResult;
 import com.powsybl.math.matrix.DenseMatrixFactory;
 import com.powsybl.math.matrix.MatrixFactory;
 import com.powsybl.openloadflow.OpenLoadFlowProvider;
+import com.powsybl.openloadflow.network.LfBranch;
+import com.powsybl.openloadflow.network.LfBus;
+import com.powsybl.openloadflow.network.LfNetwork;
+import com.powsybl.sc.util.FeedersAtBusResult;
 import com.powsybl.sc.util.ReferenceNetwork;
 import com.powsybl.sc.util.extensions.ThreeWindingsTransformerNorm;
 import com.powsybl.shortcircuit.*;
@@ -27,8 +31,19 @@ import org.junit.jupiter.api.Disabled;
 import org.junit.jupiter.api.Test;
 
 import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.function.Consumer;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 /**
  * @author Jean-Baptiste Heyberger <jbheyberger at gmail.com>
@@ -115,6 +130,74 @@ public class ShortCircuitBalancedTest {
 
     }
 
+    @Test
+    void openShortCircuitProviderPublish() {
+
+        Network nt2 = create2n(NetworkFactory.findDefault());
+        OpenShortCircuitProvider provider = new OpenShortCircuitProvider(new DenseMatrixFactory());
+        ComputationManager cm = LocalComputationManager.getDefault();
+        List<Fault> faults = List.of(new BusFault("F1", "B1"), new BusFault("F2", "B2"));
+
+        // all the results are delivered, then the completion
+        List<String> faultIds = new CopyOnWriteArrayList<>();
+        CompletableFuture<Void> completed = new CompletableFuture<>();
+        provider.publish(nt2, faults, cm).subscribe(new Flow.Subscriber<>() {
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                subscription.request(Long.MAX_VALUE);
+            }
+
+            @Override
+            public void onNext(FaultResult item) {
+                faultIds.add(item.getFault().getId());
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                completed.completeExceptionally(throwable);
+            }
+
+            @Override
+            public void onComplete() {
+                completed.complete(null);
+            }
+        });
+        completed.join();
+        assertEquals(List.of("F1", "F2"), faultIds);
+
+        // a subscription cancelled after the first result gets nothing more
+        List<String> cancelledFaultIds = new CopyOnWriteArrayList<>();
+        CompletableFuture<Void> firstReceived = new CompletableFuture<>();
+        provider.publish(nt2, faults, cm).subscribe(new Flow.Subscriber<>() {
+            private Flow.Subscription subscription;
+
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                this.subscription = subscription;
+                subscription.request(1);
+            }
+
+            @Override
+            public void onNext(FaultResult item) {
+                cancelledFaultIds.add(item.getFault().getId());
+                subscription.cancel();
+                firstReceived.complete(null);
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                cancelledFaultIds.add("error");
+            }
+
+            @Override
+            public void onComplete() {
+                cancelledFaultIds.add("complete");
+            }
+        });
+        firstReceived.join();
+        assertEquals(List.of("F1"), cancelledFaultIds);
+    }
+
     @Test
     void openShortCircuitProvider4n() {
 
@@ -158,6 +241,71 @@ public class ShortCircuitBalancedTest {
 
     }
 
+    @Test
+    void openShortCircuitProviderWithoutFeederResult() {
+
+        LoadFlowParameters loadFlowParameters = LoadFlowParameters.load();
+        loadFlowParameters.setTwtSplitShuntAdmittance(true);
+        Network nt4 = create4n(NetworkFactory.findDefault());
+        LoadFlow.run(nt4, loadFlowParameters);
+
+        ShortCircuitAnalysisProvider provider = new OpenShortCircuitProvider(new DenseMatrixFactory());
+        ComputationManager cm = LocalComputationManager.getDefault();
+        List<Fault> faults = new ArrayList<>();
+        faults.add(new BusFault("F1", "B1"));
+        faults.add(new BusFault("F2", "B2"));
+
+        ShortCircuitParameters scp = new ShortCircuitParameters();
+        MagnitudeFaultResult full = (MagnitudeFaultResult) provider.run(nt4, faults, scp, cm, Collections.emptyList()).join().getFaultResults().get(0);
+
+        // no voltage profile nor feeder result requested: only the short circuit currents are computed
+        scp.setWithVoltageResult(false);
+        scp.setWithFeederResult(false);
+        List<FaultResult> frs = provider.run(nt4, faults, scp, cm, Collections.emptyList()).join().getFaultResults();
+
+        MagnitudeFaultResult m0 = (MagnitudeFaultResult) frs.get(0);
+        assertFalse(full.getFeederResults().isEmpty());
+        assertTrue(m0.getFeederResults().isEmpty());
+        assertEquals(full.getCurrent(), m0.getCurrent(), 0.00001);
+        assertEquals(3.7476107037718006, ((MagnitudeFaultResult) frs.get(1)).getCurrent(), 0.00001);
+    }
+
+    @Test
+    void openShortCircuitProviderFortescueResult() {
+
+        LoadFlowParameters loadFlowParameters = LoadFlowParameters.load();
+        loadFlowParameters.setTwtSplitShuntAdmittance(true);
+        Network nt4 = create4n(NetworkFactory.findDefault());
+        LoadFlow.run(nt4, loadFlowParameters);
+
+        ShortCircuitAnalysisProvider provider = new OpenShortCircuitProvider(new DenseMatrixFactory());
+        ComputationManager cm = LocalComputationManager.getDefault();
+        List<Fault> faults = List.of(new BusFault("F1", "B1"));
+
+        ShortCircuitParameters scp = new ShortCircuitParameters();
+        MagnitudeFaultResult magnitudeResult = (MagnitudeFaultResult) provider.run(nt4, faults, scp, cm, Collections.emptyList()).join().getFaultResults().get(0);
+
+        scp.setWithFortescueResult(true);
+        FortescueFaultResult fortescueResult = (FortescueFaultResult) provider.run(nt4, faults, scp, cm, Collections.emptyList()).join().getFaultResults().get(0);
+
+        // the direct current of a balanced fault is Ik3 in kA, the voltage of a bolted fault is zero
+        assertEquals(3.5471650598424766, fortescueResult.getCurrent().getPositiveMagnitude(), 0.00001);
+        assertEquals(magnitudeResult.getCurrent(), fortescueResult.getCurrent().getPositiveMagnitude(), 0.00001);
+        assertEquals(0., fortescueResult.getVoltage().getPositiveMagnitude(), 0.00001);
+
+        // feeder results are built on first read, with the same ids, magnitude feeder results being sqrt(3).I(pu).Sb/Un
+        // when Fortescue ones are I(pu).Sb/(sqrt(3).Un) in kA
+        List<FeederResult> feederResults = fortescueResult.getFeederResults();
+        assertEquals(magnitudeResult.getFeederResults().size(), feederResults.size());
+        for (int i = 0; i < feederResults.size(); i++) {
+            MagnitudeFeederResult expected = (MagnitudeFeederResult) magnitudeResult.getFeederResults().get(i);
+            FortescueFeederResult actual = (FortescueFeederResult) feederResults.get(i);
+            assertEquals(expected.getConnectableId(), actual.getConnectableId());
+            assertEquals(expected.getCurrent() / 3., actual.getCurrent().getPositiveMagnitude(), 0.00001);
+        }
+        assertThrows(UnsupportedOperationException.class, () -> feederResults.add(feederResults.get(0)));
+    }
+
     @Test
     void openShortCircuitProvider2nTfo() {
 
@@ -421,6 +569,522 @@ public class ShortCircuitBalancedTest {
 
     }
 
+    @Test
+    void shortCircuitCancelled() {
+
+        Network network = ReferenceNetwork.createShortCircuitReference();
+
+        List<ShortCircuitFault> faultList = new ArrayList<>();
+        ShortCircuitFault sc1 = new ShortCircuitFault("B7", "sc1", new ShortCircuitFaultImpedance(new Complex(0.)), ShortCircuitFault.ShortCircuitType.TRIPHASED_GROUND);
+        faultList.add(sc1);
+
+        ShortCircuitEngineParameters scbParameters = new ShortCircuitEngineParameters(new LoadFlowParameters(), matrixFactory, ShortCircuitEngineParameters.AnalysisType.SELECTIVE, faultList, true,
+                ShortCircuitEngineParameters.VoltageProfileType.NOMINAL, false, ShortCircuitEngineParameters.PeriodType.SUB_TRANSIENT, new ShortCircuitNormNone());
+        ShortCircuitBalancedEngine scbEngine = new ShortCircuitBalancedEngine(network, scbParameters);
+
+        scbEngine.cancel();
+        assertThrows(CancellationException.class, scbEngine::run);
+        assertTrue(scbEngine.isCancelled());
+        assertTrue(scbEngine.resultsPerFault.isEmpty());
+    }
+
+    @Test
+    void shortCircuitSynchronousComponents() {
+        List<ShortCircuitFault> faultList = new ArrayList<>();
+        ShortCircuitFault sc2 = new ShortCircuitFault("B2", "sc2", new ShortCircuitFaultImpedance(new Complex(0.)), ShortCircuitFault.ShortCircuitType.TRIPHASED_GROUND);
+        faultList.add(sc2);
+        ShortCircuitFault sc7 = new ShortCircuitFault("B7", "sc7", new ShortCircuitFaultImpedance(new Complex(0.)), ShortCircuitFault.ShortCircuitType.TRIPHASED_GROUND);
+        faultList.add(sc7);
+
+        ShortCircuitEngineParameters scbParameters = new ShortCircuitEngineParameters(new LoadFlowParameters(), matrixFactory, ShortCircuitEngineParameters.AnalysisType.SELECTIVE, faultList, true,
+                ShortCircuitEngineParameters.VoltageProfileType.NOMINAL, false, ShortCircuitEngineParameters.PeriodType.SUB_TRANSIENT, new ShortCircuitNormNone());
+
+        ShortCircuitBalancedEngine connectedEngine = new ShortCircuitBalancedEngine(ReferenceNetwork.createShortCircuitReference(), scbParameters);
+        connectedEngine.run();
+
+        // opening B2_B6 splits the network in two components, B7 being only fed by M4
+        Network network = ReferenceNetwork.createShortCircuitReference();
+        network.getLine("B2_B6").getTerminal1().disconnect();
+        network.getLine("B2_B6").getTerminal2().disconnect();
+        ShortCircuitBalancedEngine splitEngine = new ShortCircuitBalancedEngine(network, scbParameters);
+        splitEngine.run();
+
+        assertEquals(2, splitEngine.resultsPerFault.size());
+        assertTrue(splitEngine.resultsPerFault.get(sc2).getIk().abs() > 0.);
+        assertTrue(splitEngine.resultsPerFault.get(sc7).getIk().abs() > 0.);
+        assertTrue(splitEngine.resultsPerFault.get(sc2).getIk().abs() < connectedEngine.resultsPerFault.get(sc2).getIk().abs());
+        assertTrue(splitEngine.resultsPerFault.get(sc7).getIk().abs() < connectedEngine.resultsPerFault.get(sc7).getIk().abs());
+
+        // without M4, the component of B7 has no generator and its fault is skipped
+        network.getGenerator("M4").getTerminal().disconnect();
+        ShortCircuitBalancedEngine noGeneratorEngine = new ShortCircuitBalancedEngine(network, scbParameters);
+        noGeneratorEngine.run();
+
+        assertEquals(1, noGeneratorEngine.resultsPerFault.size());
+        assertTrue(noGeneratorEngine.resultsPerFault.containsKey(sc2));
+        assertFalse(noGeneratorEngine.resultsPerFault.containsKey(sc7));
+        assertEquals(splitEngine.resultsPerFault.get(sc2).getIk().abs(), noGeneratorEngine.resultsPerFault.get(sc2).getIk().abs(), 0.000001);
+    }
+
+    @Test
+    void shortCircuitStreamedResults() {
+
+        Network network = ReferenceNetwork.createShortCircuitReference();
+
+        List<ShortCircuitFault> faultList = new ArrayList<>();
+        ShortCircuitFault sc1 = new ShortCircuitFault("B7", "sc1", new ShortCircuitFaultImpedance(new Complex(0.)), ShortCircuitFault.ShortCircuitType.TRIPHASED_GROUND);
+        ShortCircuitFault sc2 = new ShortCircuitFault("B2", "sc2", new ShortCircuitFaultImpedance(new Complex(0.)), ShortCircuitFault.ShortCircuitType.TRIPHASED_GROUND);
+        faultList.add(sc1);
+        faultList.add(sc2);
+
+        ShortCircuitEngineParameters scbParameters = new ShortCircuitEngineParameters(new LoadFlowParameters(), matrixFactory, ShortCircuitEngineParameters.AnalysisType.SELECTIVE, faultList, true,
+                ShortCircuitEngineParameters.VoltageProfileType.NOMINAL, false, ShortCircuitEngineParameters.PeriodType.SUB_TRANSIENT, new ShortCircuitNormNone());
+        ShortCircuitBalancedEngine scbEngine = new ShortCircuitBalancedEngine(network, scbParameters);
+        scbEngine.run();
+
+        ShortCircuitBalancedEngine streamedEngine = new ShortCircuitBalancedEngine(network, scbParameters);
+        Map<ShortCircuitFault, ShortCircuitResult> streamedResults = new LinkedHashMap<>();
+        streamedEngine.setResultConsumer(streamedResults::put);
+        streamedEngine.setResultsKept(false);
+        streamedEngine.run();
+
+        assertTrue(streamedEngine.resultsPerFault.isEmpty());
+        assertEquals(List.copyOf(scbEngine.resultsPerFault.keySet()), List.copyOf(streamedResults.keySet()));
+        assertEquals(scbEngine.resultsPerFault.get(sc1).getIk().abs(), streamedResults.get(sc1).getIk().abs(), 0.000001);
+        assertEquals(scbEngine.resultsPerFault.get(sc2).getIk().abs(), streamedResults.get(sc2).getIk().abs(), 0.000001);
+    }
+
+    private ShortCircuitEngineParameters createReferenceParameters(List<ShortCircuitFault> faultList) {
+        return new ShortCircuitEngineParameters(new LoadFlowParameters(), matrixFactory, ShortCircuitEngineParameters.AnalysisType.SELECTIVE, faultList, true,
+                ShortCircuitEngineParameters.VoltageProfileType.NOMINAL, false, ShortCircuitEngineParameters.PeriodType.SUB_TRANSIENT, new ShortCircuitNormNone());
+    }
+
+    /**
+     * Runs the fault sc1 at B7 with the reference parameters changed by the given option.
+     * Results of runs on the same lfNetworks can be compared bus by bus and branch by branch.
+     */
+    private ShortCircuitResult runB7Fault(Network network, List<LfNetwork> lfNetworks, Consumer<ShortCircuitEngineParameters> option) {
+        List<ShortCircuitFault> faultList = new ArrayList<>();
+        ShortCircuitFault sc1 = new ShortCircuitFault("B7", "sc1", new ShortCircuitFaultImpedance(new Complex(0.)), ShortCircuitFault.ShortCircuitType.TRIPHASED_GROUND);
+        faultList.add(sc1);
+
+        ShortCircuitEngineParameters scbParameters = createReferenceParameters(faultList);
+        option.accept(scbParameters);
+        ShortCircuitBalancedEngine scbEngine = new ShortCircuitBalancedEngine(network, scbParameters, lfNetworks);
+        scbEngine.run();
+        return scbEngine.resultsPerFault.get(sc1);
+    }
+
+    private static int assertSameVoltageDrops(ShortCircuitResult expected, ShortCircuitResult actual) {
+        // only the busses kept in the actual profile are compared, their number is returned
+        assertEquals(expected.getBusNum2Dv().size(), actual.getBusNum2Dv().size());
+        int nbVoltageDrops = 0;
+        for (int busNum = 0; busNum < expected.getBusNum2Dv().size(); busNum++) {
+            if (actual.hasVoltageDrop(busNum)) {
+                nbVoltageDrops++;
+                assertEquals(expected.getBusNum2Dv().get(busNum).getPositiveMagnitude(), actual.getBusNum2Dv().get(busNum).getPositiveMagnitude(), 0.000001);
+                assertEquals(expected.getBusNum2Dv().get(busNum).getPositiveAngle(), actual.getBusNum2Dv().get(busNum).getPositiveAngle(), 0.000001);
+            }
+        }
+        return nbVoltageDrops;
+    }
+
+    private static void assertSameFeeders(ShortCircuitResult expected, ShortCircuitResult actual) {
+        // the feeder busses of the actual result may be a subset of the expected ones
+        assertFalse(actual.getFeedersResultDirect().isEmpty());
+        for (Map.Entry<LfBus, FeedersAtBusResult> e : actual.getFeedersResultDirect().entrySet()) {
+            List<com.powsybl.sc.util.FeederResult> expectedFeeders = expected.getFeedersResultDirect().get(e.getKey()).getBusFeedersResult();
+            List<com.powsybl.sc.util.FeederResult> feeders = e.getValue().getBusFeedersResult();
+            assertEquals(expectedFeeders.size(), feeders.size());
+            for (int i = 0; i < feeders.size(); i++) {
+                assertEquals(expectedFeeders.get(i).getIContribution().getReal(), feeders.get(i).getIContribution().getReal(), 0.000001);
+                assertEquals(expectedFeeders.get(i).getIContribution().getImaginary(), feeders.get(i).getIContribution().getImaginary(), 0.000001);
+            }
+        }
+    }
+
+    private static void assertSameBranchCurrents(ShortCircuitResult expected, ShortCircuitResult actual) {
+        // the branches of the actual result may be a subset of the expected ones
+        assertFalse(actual.getBranchDi1().isEmpty());
+        for (LfBranch branch : actual.getBranchDi1().keySet()) {
+            assertEquals(expected.getBranchDi1().get(branch).getPositiveMagnitude(), actual.getBranchDi1().get(branch).getPositiveMagnitude(), 0.000001);
+            assertEquals(expected.getBranchDi1().get(branch).getPositiveAngle(), actual.getBranchDi1().get(branch).getPositiveAngle(), 0.000001);
+            assertEquals(expected.getBranchDi2().get(branch).getPositiveMagnitude(), actual.getBranchDi2().get(branch).getPositiveMagnitude(), 0.000001);
+        }
+    }
+
+    @Test
+    void shortCircuitFeederRadius() {
+
+        Network network = ReferenceNetwork.createShortCircuitReference();
+        List<LfNetwork> lfNetworks = AbstractShortCircuitEngine.loadLfNetworks(network, createReferenceParameters(new ArrayList<>()));
+        ShortCircuitResult res = runB7Fault(network, lfNetworks, parameters -> { });
+        ShortCircuitResult radiusRes = runB7Fault(network, lfNetworks, parameters -> parameters.setFeederRadius(1));
+
+        // feeders are only computed at the faulted bus and its direct neighbours, with the same contributions
+        Set<LfBus> neighbours = new HashSet<>();
+        neighbours.add(radiusRes.getLfBus());
+        for (LfBranch branch : radiusRes.getLfBus().getBranches()) {
+            neighbours.add(branch.getBus1());
+            neighbours.add(branch.getBus2());
+        }
+        assertEquals(neighbours, radiusRes.getFeedersResultDirect().keySet());
+        assertTrue(neighbours.size() < res.getFeedersResultDirect().size());
+        assertSameFeeders(res, radiusRes);
+        assertSameBranchCurrents(res, radiusRes);
+        assertTrue(radiusRes.getBranchDi1().size() < res.getBranchDi1().size());
+        assertEquals(res.getIk().abs(), radiusRes.getIk().abs(), 0.000001);
+    }
+
+    @Test
+    void shortCircuitVoltageDropThreshold() {
+
+        Network network = ReferenceNetwork.createShortCircuitReference();
+        List<LfNetwork> lfNetworks = AbstractShortCircuitEngine.loadLfNetworks(network, createReferenceParameters(new ArrayList<>()));
+        ShortCircuitResult res = runB7Fault(network, lfNetworks, parameters -> { });
+        ShortCircuitResult thresholdRes = runB7Fault(network, lfNetworks, parameters -> parameters.setMinVoltageDropProportionalThreshold(50.));
+
+        // only the voltage drops below half the drop at the faulted bus are left out of the profile
+        assertEquals(res.getIk().abs(), thresholdRes.getIk().abs(), 0.000001);
+        assertTrue(thresholdRes.hasVoltageDrop(thresholdRes.getLfBus().getNum()));
+        int nbVoltageDrops = assertSameVoltageDrops(res, thresholdRes);
+        assertTrue(nbVoltageDrops < res.getBusNum2Dv().size());
+        for (int busNum = 0; busNum < res.getBusNum2Dv().size(); busNum++) {
+            if (!thresholdRes.hasVoltageDrop(busNum)) {
+                assertTrue(res.getBusNum2Dv().get(busNum).getPositiveMagnitude() < 0.5);
+            }
+        }
+
+        // feeders and branch currents are still computed from the full voltage deltas
+        assertEquals(res.getFeedersResultDirect().keySet(), thresholdRes.getFeedersResultDirect().keySet());
+        assertSameFeeders(res, thresholdRes);
+        assertEquals(res.getBranchDi1().size(), thresholdRes.getBranchDi1().size());
+        assertSameBranchCurrents(res, thresholdRes);
+
+        // with feeders around the faulted bus, only their neighbourhood and the drops above the threshold are stored
+        ShortCircuitResult radiusThresholdRes = runB7Fault(network, lfNetworks, parameters -> {
+            parameters.setMinVoltageDropProportionalThreshold(50.);
+            parameters.setFeederRadius(1);
+        });
+        assertTrue(radiusThresholdRes.getBuiltVoltageProfile().getStoredCount() < res.getBuiltVoltageProfile().getStoredCount());
+        assertEquals(nbVoltageDrops, assertSameVoltageDrops(res, radiusThresholdRes));
+        assertSameFeeders(res, radiusThresholdRes);
+        assertSameBranchCurrents(res, radiusThresholdRes);
+
+        ShortCircuitEngineParameters thresholdParameters = createReferenceParameters(new ArrayList<>());
+        assertThrows(IllegalArgumentException.class, () -> thresholdParameters.setMinVoltageDropProportionalThreshold(-1.));
+    }
+
+    @Test
+    void shortCircuitMonitoredBusses() {
+
+        Network network = ReferenceNetwork.createShortCircuitReference();
+        List<LfNetwork> lfNetworks = AbstractShortCircuitEngine.loadLfNetworks(network, createReferenceParameters(new ArrayList<>()));
+        ShortCircuitResult res = runB7Fault(network, lfNetworks, parameters -> { });
+        ShortCircuitResult monitoredRes = runB7Fault(network, lfNetworks, parameters -> parameters.setMonitoredBusIds(Set.of("B2", "B7")));
+
+        // voltages are only computed at the monitored busses
+        assertEquals(res.getIk().abs(), monitoredRes.getIk().abs(), 0.000001);
+        assertEquals(2, assertSameVoltageDrops(res, monitoredRes));
+        assertTrue(monitoredRes.hasVoltageDrop(monitoredRes.getLfBus().getNum()));
+    }
+
+    @Test
+    void shortCircuitLazyVoltageProfile() {
+
+        Network network = ReferenceNetwork.createShortCircuitReference();
+        List<LfNetwork> lfNetworks = AbstractShortCircuitEngine.loadLfNetworks(network, createReferenceParameters(new ArrayList<>()));
+        ShortCircuitResult res = runB7Fault(network, lfNetworks, parameters -> { });
+        ShortCircuitResult lazyRes = runB7Fault(network, lfNetworks, parameters -> parameters.setLazyVoltageProfile(true));
+
+        assertFalse(res.isVoltageProfileLazy());
+        assertTrue(lazyRes.isVoltageProfileLazy());
+        assertEquals(res.getIk().abs(), lazyRes.getIk().abs(), 0.000001);
+
+        // the profile and its feeders are built on first access, and built again once released
+        for (int i = 0; i < 2; i++) {
+            assertEquals(res.getBusNum2Dv().size(), assertSameVoltageDrops(res, lazyRes));
+            assertEquals(res.getFeedersResultDirect().keySet(), lazyRes.getFeedersResultDirect().keySet());
+            assertSameFeeders(res, lazyRes);
+            assertSameBranchCurrents(res, lazyRes);
+            assertEquals(res.getMaxRoverX(), lazyRes.getMaxRoverX(), 0.000001);
+            lazyRes.releaseVoltageProfile();
+        }
+
+        // concurrent reads and releases always get a complete profile and its feeders
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<CompletableFuture<Void>> readers = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                readers.add(CompletableFuture.runAsync(() -> {
+                    for (int i = 0; i < 100; i++) {
+                        assertEquals(res.getFeedersResultDirect().size(), lazyRes.getFeedersResultDirect().size());
+                        assertEquals(res.getBusNum2Dv().size(), lazyRes.getBusNum2Dv().size());
+                        lazyRes.releaseVoltageProfile();
+                    }
+                }, executor));
+            }
+            readers.forEach(CompletableFuture::join);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void shortCircuitParallelPostProcessing() {
+
+        Network network = ReferenceNetwork.createShortCircuitReference();
+
+        ShortCircuitEngineParameters scbParameters = new ShortCircuitEngineParameters(new LoadFlowParameters(), matrixFactory, ShortCircuitEngineParameters.AnalysisType.SYSTEMATIC, new ArrayList<>(), true,
+                ShortCircuitEngineParameters.VoltageProfileType.NOMINAL, false, ShortCircuitEngineParameters.PeriodType.SUB_TRANSIENT, new ShortCircuitNormNone());
+        // both runs share their lfNetworks, so that feeders are compared at the same LfBus
+        List<LfNetwork> lfNetworks = AbstractShortCircuitEngine.loadLfNetworks(network, scbParameters);
+        ShortCircuitBalancedEngine scbEngine = new ShortCircuitBalancedEngine(network, scbParameters, lfNetworks);
+        scbEngine.run();
+
+        ExecutorService postProcessingExecutor = Executors.newFixedThreadPool(4);
+        try {
+            ShortCircuitEngineParameters parallelParameters = new ShortCircuitEngineParameters(scbParameters);
+            parallelParameters.setPostProcessingExecutor(postProcessingExecutor);
+            // the component tasks would wait for post-processing tasks queued behind them on the same bounded pool
+            assertThrows(IllegalArgumentException.class, () -> parallelParameters.setExecutor(postProcessingExecutor));
+            ShortCircuitBalancedEngine parallelEngine = new ShortCircuitBalancedEngine(network, parallelParameters, lfNetworks);
+            parallelEngine.run();
+
+            // same results, in the same order
+            assertFalse(scbEngine.resultsPerFault.isEmpty());
+            assertEquals(scbEngine.resultsPerFault.size(), parallelEngine.resultsPerFault.size());
+            Iterator<ShortCircuitResult> parallelResults = parallelEngine.resultsPerFault.values().iterator();
+            for (ShortCircuitResult res : scbEngine.resultsPerFault.values()) {
+                ShortCircuitResult parallelRes = parallelResults.next();
+                assertEquals(res.getShortCircuitFault().getFaultId(), parallelRes.getShortCircuitFault().getFaultId());
+                assertEquals(res.getFeedersResultDirect().size(), parallelRes.getFeedersResultDirect().size());
+                for (Map.Entry<LfBus, FeedersAtBusResult> e : res.getFeedersResultDirect().entrySet()) {
+                    List<com.powsybl.sc.util.FeederResult> feeders = e.getValue().getBusFeedersResult();
+                    List<com.powsybl.sc.util.FeederResult> parallelFeeders = parallelRes.getFeedersResultDirect().get(e.getKey()).getBusFeedersResult();
+                    assertEquals(feeders.size(), parallelFeeders.size());
+                    for (int i = 0; i < feeders.size(); i++) {
+                        assertEquals(feeders.get(i).getIContribution().abs(), parallelFeeders.get(i).getIContribution().abs(), 0.000001);
+                    }
+                }
+            }
+        } finally {
+            postProcessingExecutor.shutdown();
+        }
+    }
+
+    @Test
+    void shortCircuitOffHeapImpedanceColumns() {
+
+        Network network = ReferenceNetwork.createShortCircuitReference();
+        List<LfNetwork> lfNetworks = AbstractShortCircuitEngine.loadLfNetworks(network, createReferenceParameters(new ArrayList<>()));
+        ShortCircuitResult res = runB7Fault(network, lfNetworks, parameters -> { });
+
+        // same profiles and feeders with the columns kept off-heap, built right away or on first access
+        for (boolean lazy : List.of(false, true)) {
+            ShortCircuitResult offHeapRes = runB7Fault(network, lfNetworks, parameters -> {
+                parameters.setOffHeapImpedanceColumns(true);
+                parameters.setLazyVoltageProfile(lazy);
+            });
+            assertEquals(res.getBusNum2Dv().size(), assertSameVoltageDrops(res, offHeapRes));
+            assertEquals(res.getFeedersResultDirect().keySet(), offHeapRes.getFeedersResultDirect().keySet());
+            assertSameFeeders(res, offHeapRes);
+            assertSameBranchCurrents(res, offHeapRes);
+        }
+
+        // off-heap columns are stored whole and cannot be combined with a drop tolerance
+        assertThrows(IllegalArgumentException.class, () -> runB7Fault(network, lfNetworks, parameters -> {
+            parameters.setOffHeapImpedanceColumns(true);
+            parameters.setRelativeZDropTolerance(1e-6);
+        }));
+    }
+
+    @Test
+    void shortCircuitSparseImpedanceColumns() {
+
+        Network network = ReferenceNetwork.createShortCircuitReference();
+        List<LfNetwork> lfNetworks = AbstractShortCircuitEngine.loadLfNetworks(network, createReferenceParameters(new ArrayList<>()));
+        ShortCircuitResult res = runB7Fault(network, lfNetworks, parameters -> { });
+        ShortCircuitResult sparseRes = runB7Fault(network, lfNetworks, parameters -> {
+            parameters.setRelativeZDropTolerance(0.5);
+            parameters.getShortCircuitFaults().forEach(scf -> scf.setWithFeederResult(false));
+        });
+
+        // without feeders, a tolerance on the order of the smallest terms drops some busses and keeps the others unchanged
+        assertEquals(res.getIk().abs(), sparseRes.getIk().abs(), 0.000001);
+        assertTrue(sparseRes.hasVoltageDrop(sparseRes.getLfBus().getNum())); // the diagonal term is never dropped
+        assertTrue(assertSameVoltageDrops(res, sparseRes) < res.getBusNum2Dv().size());
+
+        // feeders computed on the whole lfNetwork keep every term
+        ShortCircuitResult feederRes = runB7Fault(network, lfNetworks, parameters -> parameters.setRelativeZDropTolerance(0.5));
+        assertEquals(res.getBusNum2Dv().size(), assertSameVoltageDrops(res, feederRes));
+        assertEquals(res.getFeedersResultDirect().keySet(), feederRes.getFeedersResultDirect().keySet());
+        assertSameFeeders(res, feederRes);
+        assertSameBranchCurrents(res, feederRes);
+
+        // feeders computed around the faulted bus keep the terms of the feeder busses and of their neighbours
+        ShortCircuitResult radiusRes = runB7Fault(network, lfNetworks, parameters -> parameters.setFeederRadius(1));
+        ShortCircuitResult sparseRadiusRes = runB7Fault(network, lfNetworks, parameters -> {
+            parameters.setRelativeZDropTolerance(0.5);
+            parameters.setFeederRadius(1);
+        });
+        for (LfBranch branch : sparseRadiusRes.getBranchDi1().keySet()) {
+            assertTrue(sparseRadiusRes.hasVoltageDrop(branch.getBus1().getNum()));
+            assertTrue(sparseRadiusRes.hasVoltageDrop(branch.getBus2().getNum()));
+        }
+        assertSameVoltageDrops(res, sparseRadiusRes);
+        assertEquals(radiusRes.getFeedersResultDirect().keySet(), sparseRadiusRes.getFeedersResultDirect().keySet());
+        assertEquals(radiusRes.getBranchDi1().keySet(), sparseRadiusRes.getBranchDi1().keySet());
+        assertSameFeeders(res, sparseRadiusRes);
+        assertSameBranchCurrents(res, sparseRadiusRes);
+
+        ShortCircuitEngineParameters sparseParameters = createReferenceParameters(new ArrayList<>());
+        assertThrows(IllegalArgumentException.class, () -> sparseParameters.setAbsoluteZDropTolerance(-1.));
+    }
+
+    @Test
+    void shortCircuitMultiVariant() {
+
+        Network network = ReferenceNetwork.createShortCircuitReference();
+        network.getVariantManager().cloneVariant(VariantManagerConstants.INITIAL_VARIANT_ID, "disconnected");
+        network.getVariantManager().setWorkingVariant("disconnected");
+        network.getLine("B2_B4").getTerminal1().disconnect();
+        network.getLine("B2_B4").getTerminal2().disconnect();
+        network.getVariantManager().setWorkingVariant(VariantManagerConstants.INITIAL_VARIANT_ID);
+
+        List<ShortCircuitFault> faultList = new ArrayList<>();
+        ShortCircuitFault sc1 = new ShortCircuitFault("B7", "sc1", new ShortCircuitFaultImpedance(new Complex(0.)), ShortCircuitFault.ShortCircuitType.TRIPHASED_GROUND);
+        ShortCircuitFault sc2 = new ShortCircuitFault("B4", "sc2", new ShortCircuitFaultImpedance(new Complex(0.)), ShortCircuitFault.ShortCircuitType.TRIPHASED_GROUND);
+        faultList.add(sc1);
+        faultList.add(sc2);
+
+        ShortCircuitEngineParameters scbParameters = new ShortCircuitEngineParameters(new LoadFlowParameters(), matrixFactory, ShortCircuitEngineParameters.AnalysisType.SELECTIVE, faultList, false,
+                ShortCircuitEngineParameters.VoltageProfileType.NOMINAL, false, ShortCircuitEngineParameters.PeriodType.SUB_TRANSIENT, new ShortCircuitNormNone());
+        List<String> variantIds = List.of(VariantManagerConstants.INITIAL_VARIANT_ID, "disconnected");
+        Map<String, Map<ShortCircuitFault, ShortCircuitResult>> resultsPerVariant = new ShortCircuitMultiVariantRunner(network, scbParameters, ShortCircuitBalancedEngine::new)
+                .run(variantIds);
+
+        assertEquals(variantIds, List.copyOf(resultsPerVariant.keySet()));
+        assertEquals(VariantManagerConstants.INITIAL_VARIANT_ID, network.getVariantManager().getWorkingVariantId());
+
+        // each variant gives the same results as a run on this variant only
+        for (String variantId : variantIds) {
+            network.getVariantManager().setWorkingVariant(variantId);
+            List<ShortCircuitFault> variantFaultList = new ArrayList<>();
+            ShortCircuitFault variantSc1 = new ShortCircuitFault(sc1);
+            ShortCircuitFault variantSc2 = new ShortCircuitFault(sc2);
+            variantFaultList.add(variantSc1);
+            variantFaultList.add(variantSc2);
+            ShortCircuitEngineParameters variantParameters = new ShortCircuitEngineParameters(scbParameters);
+            variantParameters.setShortCircuitFaults(variantFaultList);
+            ShortCircuitBalancedEngine scbEngine = new ShortCircuitBalancedEngine(network, variantParameters);
+            scbEngine.run();
+
+            Map<ShortCircuitFault, ShortCircuitResult> results = resultsPerVariant.get(variantId);
+            assertEquals(List.of(sc1, sc2), List.copyOf(results.keySet()));
+            assertEquals(scbEngine.resultsPerFault.get(variantSc1).getIk().abs(), results.get(sc1).getIk().abs(), 0.000001);
+            assertEquals(scbEngine.resultsPerFault.get(variantSc2).getIk().abs(), results.get(sc2).getIk().abs(), 0.000001);
+        }
+        network.getVariantManager().setWorkingVariant(VariantManagerConstants.INITIAL_VARIANT_ID);
+
+        // single thread pools: the variants and their components do not wait for each other on the same pool
+        ExecutorService componentExecutor = Executors.newSingleThreadExecutor();
+        ExecutorService variantExecutor = Executors.newSingleThreadExecutor();
+        try {
+            ShortCircuitEngineParameters boundedParameters = new ShortCircuitEngineParameters(scbParameters);
+            boundedParameters.setExecutor(componentExecutor);
+            Map<String, Map<ShortCircuitFault, ShortCircuitResult>> boundedResultsPerVariant
+                    = new ShortCircuitMultiVariantRunner(network, boundedParameters, ShortCircuitBalancedEngine::new, variantExecutor).run(variantIds);
+            for (String variantId : variantIds) {
+                assertEquals(resultsPerVariant.get(variantId).get(sc1).getIk().abs(), boundedResultsPerVariant.get(variantId).get(sc1).getIk().abs(), 0.000001);
+            }
+            assertThrows(IllegalArgumentException.class, () -> new ShortCircuitMultiVariantRunner(network, boundedParameters, ShortCircuitBalancedEngine::new, componentExecutor));
+        } finally {
+            componentExecutor.shutdown();
+            variantExecutor.shutdown();
+        }
+    }
+
+    @Test
+    void shortCircuitTimeSeries() {
+
+        Network network = ReferenceNetwork.createShortCircuitReference();
+        network.getVariantManager().cloneVariant(VariantManagerConstants.INITIAL_VARIANT_ID, List.of("h1", "h2"));
+        network.getVariantManager().setWorkingVariant("h2");
+        network.getLine("B2_B4").getTerminal1().disconnect();
+        network.getLine("B2_B4").getTerminal2().disconnect();
+        network.getVariantManager().setWorkingVariant(VariantManagerConstants.INITIAL_VARIANT_ID);
+
+        List<ShortCircuitFault> faultList = new ArrayList<>();
+        ShortCircuitFault sc1 = new ShortCircuitFault("B7", "sc1", new ShortCircuitFaultImpedance(new Complex(0.)), ShortCircuitFault.ShortCircuitType.TRIPHASED_GROUND);
+        faultList.add(sc1);
+
+        ShortCircuitEngineParameters scbParameters = new ShortCircuitEngineParameters(new LoadFlowParameters(), matrixFactory, ShortCircuitEngineParameters.AnalysisType.SELECTIVE, faultList, false,
+                ShortCircuitEngineParameters.VoltageProfileType.NOMINAL, false, ShortCircuitEngineParameters.PeriodType.SUB_TRANSIENT, new ShortCircuitNormNone());
+
+        List<String> steps = new ArrayList<>();
+        List<ShortCircuitTimeSeriesEngine.StepStatus> statuses = new ArrayList<>();
+        List<Double> iks = new ArrayList<>();
+        new ShortCircuitTimeSeriesEngine(network, scbParameters, ShortCircuitBalancedEngine::new)
+                .run(List.of(VariantManagerConstants.INITIAL_VARIANT_ID, "h1", "h2"), (variantId, status, results) -> {
+                    steps.add(variantId);
+                    statuses.add(status);
+                    iks.add(results.get(sc1).getIk().abs());
+                });
+
+        assertEquals(List.of(VariantManagerConstants.INITIAL_VARIANT_ID, "h1", "h2"), steps);
+        assertEquals(List.of(ShortCircuitTimeSeriesEngine.StepStatus.COMPUTED, ShortCircuitTimeSeriesEngine.StepStatus.UNCHANGED, ShortCircuitTimeSeriesEngine.StepStatus.COMPUTED), statuses);
+        assertEquals(iks.get(0), iks.get(1), 0.000001);
+        assertEquals(VariantManagerConstants.INITIAL_VARIANT_ID, network.getVariantManager().getWorkingVariantId());
+
+        // the changed step gives the same result as a run on this state only
+        network.getVariantManager().setWorkingVariant("h2");
+        ShortCircuitBalancedEngine scbEngine = new ShortCircuitBalancedEngine(network, scbParameters);
+        scbEngine.run();
+        assertEquals(scbEngine.resultsPerFault.get(sc1).getIk().abs(), iks.get(2), 0.000001);
+        network.getVariantManager().setWorkingVariant(VariantManagerConstants.INITIAL_VARIANT_ID);
+    }
+
+    @Test
+    void shortCircuitTimeSeriesUpdatedAdmittance() {
+
+        Network network = ReferenceNetwork.createShortCircuitReference();
+        network.getVariantManager().cloneVariant(VariantManagerConstants.INITIAL_VARIANT_ID, "h1");
+
+        List<ShortCircuitFault> faultList = new ArrayList<>();
+        ShortCircuitFault sc1 = new ShortCircuitFault("B7", "sc1", new ShortCircuitFaultImpedance(new Complex(0.)), ShortCircuitFault.ShortCircuitType.TRIPHASED_GROUND);
+        faultList.add(sc1);
+
+        ShortCircuitEngineParameters scbParameters = new ShortCircuitEngineParameters(new LoadFlowParameters(), matrixFactory, ShortCircuitEngineParameters.AnalysisType.SELECTIVE, faultList, true,
+                ShortCircuitEngineParameters.VoltageProfileType.NOMINAL, false, ShortCircuitEngineParameters.PeriodType.SUB_TRANSIENT, new ShortCircuitNormNone());
+
+        // the line reactance is changed once the first step is done: the second step only changes admittance values,
+        // its matrices are updated from the first step
+        Line line = network.getLine("B2_B4");
+        List<ShortCircuitTimeSeriesEngine.StepStatus> statuses = new ArrayList<>();
+        List<ShortCircuitResult> results = new ArrayList<>();
+        new ShortCircuitTimeSeriesEngine(network, scbParameters, ShortCircuitBalancedEngine::new)
+                .run(List.of(VariantManagerConstants.INITIAL_VARIANT_ID, "h1"), (variantId, status, stepResults) -> {
+                    statuses.add(status);
+                    results.add(stepResults.get(sc1));
+                    if (results.size() == 1) {
+                        line.setX(2 * line.getX());
+                    }
+                });
+
+        assertEquals(List.of(ShortCircuitTimeSeriesEngine.StepStatus.COMPUTED, ShortCircuitTimeSeriesEngine.StepStatus.COMPUTED), statuses);
+        assertNotEquals(results.get(0).getIk().abs(), results.get(1).getIk().abs(), 0.000001);
+
+        // same results as a run built from scratch on the changed state
+        ShortCircuitBalancedEngine scbEngine = new ShortCircuitBalancedEngine(network, scbParameters);
+        scbEngine.run();
+        ShortCircuitResult expected = scbEngine.resultsPerFault.get(sc1);
+        assertEquals(expected.getIk().abs(), results.get(1).getIk().abs(), 0.000001);
+        for (int busNum = 0; busNum < expected.getBusNum2Dv().size(); busNum++) {
+            assertEquals(expected.getBusNum2Dv().get(busNum).getPositiveMagnitude(), results.get(1).getBusNum2Dv().get(busNum).getPositiveMagnitude(), 0.000001);
+        }
+    }
+
     public static Network create2n(NetworkFactory networkFactory) {
         Objects.requireNonNull(networkFactory);
 
@@ -0,0 +1,65 @@
+/**
+ * Copyright (c) 2022, Jean-Baptiste Heyberger & Geoffroy Jamgotchian
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ * SPDX-License-Identifier: MPL-2.0
+ */
+package com.powsybl.sc.implementation;
+
+import com.powsybl.iidm.network.Network;
+import com.powsybl.loadflow.LoadFlowParameters;
+import com.powsybl.math.matrix.DenseMatrixFactory;
+import com.powsybl.sc.util.ReferenceNetwork;
+import org.apache.commons.math3.complex.Complex;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author Jean-Baptiste Heyberger <jbheyberger at gmail.com>
+ */
+class ShortCircuitCsvResultWriterTest {
+
+    @Test
+    void csvExportTest(@TempDir Path tempDir) throws IOException {
+        Network network = ReferenceNetwork.createShortCircuitReference();
+
+        ShortCircuitFault sc1 = new ShortCircuitFault("B7", "sc1", new ShortCircuitFaultImpedance(new Complex(0.)), ShortCircuitFault.ShortCircuitType.TRIPHASED_GROUND);
+        ShortCircuitFault sc2 = new ShortCircuitFault("B2", "sc2", new ShortCircuitFaultImpedance(new Complex(0.)), ShortCircuitFault.ShortCircuitType.TRIPHASED_GROUND);
+        ShortCircuitEngineParameters scbParameters = new ShortCircuitEngineParameters(new LoadFlowParameters(), new DenseMatrixFactory(), ShortCircuitEngineParameters.AnalysisType.SELECTIVE, List.of(sc1, sc2), true,
+                ShortCircuitEngineParameters.VoltageProfileType.NOMINAL, false, ShortCircuitEngineParameters.PeriodType.SUB_TRANSIENT, new ShortCircuitNormNone());
+        ShortCircuitBalancedEngine scbEngine = new ShortCircuitBalancedEngine(network, scbParameters);
+        try (ShortCircuitCsvResultWriter writer = new ShortCircuitCsvResultWriter(tempDir)) {
+            scbEngine.setResultConsumer(writer);
+            scbEngine.run();
+        }
+
+        List<String> faultLines = Files.readAllLines(tempDir.resolve(ShortCircuitCsvResultWriter.FAULTS_FILE_NAME));
+        assertEquals(3, faultLines.size());
+        assertTrue(faultLines.stream().anyMatch(line -> line.startsWith("sc1;") && line.contains(";TRIPHASED_GROUND;")));
+        assertEquals(16, faultLines.get(1).split(";", -1).length);
+
+        ShortCircuitResult sc1Result = scbEngine.getResultsPerFault().get(sc1);
+        long nbBusVoltages = Files.readAllLines(tempDir.resolve(ShortCircuitCsvResultWriter.BUS_VOLTAGES_FILE_NAME)).stream()
+                .filter(line -> line.startsWith("sc1;"))
+                .count();
+        long expectedNbBusVoltages = sc1Result.getLfNetwork().getBuses().stream()
+                .filter(bus -> sc1Result.hasVoltageDrop(bus.getNum()))
+                .count();
+        assertEquals(expectedNbBusVoltages, nbBusVoltages);
+
+        long nbBranchCurrents = Files.readAllLines(tempDir.resolve(ShortCircuitCsvResultWriter.BRANCH_CURRENTS_FILE_NAME)).stream()
+                .filter(line -> line.startsWith("sc1;"))
+                .count();
+        assertEquals(sc1Result.getBranchDi1().size(), nbBranchCurrents);
+        assertTrue(Files.readAllLines(tempDir.resolve(ShortCircuitCsvResultWriter.FEEDERS_FILE_NAME)).size() > 1);
+    }
+}
@@ -0,0 +1,69 @@
+/**
+ * Copyright (c) 2022, Jean-Baptiste Heyberger & Geoffroy Jamgotchian
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ * SPDX-License-Identifier: MPL-2.0
+ */
+package com.powsybl.sc.implementation;
+
+import com.powsybl.iidm.network.Network;
+import com.powsybl.openloadflow.network.LfNetwork;
+import com.powsybl.openloadflow.network.LfNetworkParameters;
+import com.powsybl.openloadflow.network.impl.LfNetworkLoaderImpl;
+import com.powsybl.sc.util.CalculationLocation;
+import com.powsybl.sc.util.LfBusIndex;
+import com.powsybl.sc.util.ReferenceNetwork;
+import org.apache.commons.math3.complex.Complex;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author Jean-Baptiste Heyberger <jbheyberger at gmail.com>
+ */
+class ShortCircuitFaultIndexTest {
+
+    @Test
+    void groupByBusAndTypeTest() {
+        Network network = ReferenceNetwork.createShortCircuitReference();
+        List<LfNetwork> lfNetworks = LfNetwork.load(network, new LfNetworkLoaderImpl(), new LfNetworkParameters());
+        LfNetwork lfNetwork = lfNetworks.get(0);
+        LfBusIndex lfBusIndex = new LfBusIndex(network, lfNetworks);
+
+        ShortCircuitFaultImpedance zf = new ShortCircuitFaultImpedance(new Complex(0.));
+        ShortCircuitFault sc1 = new ShortCircuitFault("B2", "sc1", zf, ShortCircuitFault.ShortCircuitType.MONOPHASED);
+        ShortCircuitFault sc2 = new ShortCircuitFault("B5", "sc2", zf, ShortCircuitFault.ShortCircuitType.BIPHASED);
+        ShortCircuitFault sc3 = new ShortCircuitFault("B2", "sc3", zf, ShortCircuitFault.ShortCircuitType.BIPHASED);
+        ShortCircuitFault sc4 = new ShortCircuitFault("B2", "sc4", zf, ShortCircuitFault.ShortCircuitType.MONOPHASED);
+        ShortCircuitFault sc5 = new ShortCircuitFault("UNKNOWN", "sc5", zf, ShortCircuitFault.ShortCircuitType.MONOPHASED); // not located in the lfNetwork
+
+        List<CalculationLocation> faults = new ArrayList<>();
+        faults.add(sc1);
+        faults.add(sc2);
+        faults.add(sc3);
+        faults.add(sc4);
+        faults.add(sc5);
+
+        for (CalculationLocation fault : faults) {
+            lfBusIndex.locate(fault);
+        }
+        assertEquals(-1, sc5.getLfBusNum());
+        assertNull(lfBusIndex.getLfBus("UNKNOWN"));
+
+        ShortCircuitFaultIndex faultIndex = new ShortCircuitFaultIndex(faults, lfNetwork);
+
+        int b2Num = lfBusIndex.getLfBus("B2").getNum();
+        int b5Num = lfBusIndex.getLfBus("B5").getNum();
+        assertEquals(List.of(sc1, sc3, sc4), faultIndex.getFaults(b2Num));
+        assertEquals(List.of(sc2), faultIndex.getFaults(b5Num));
+        assertEquals(List.of(sc1, sc4), faultIndex.getFaults(b2Num, ShortCircuitFault.ShortCircuitType.MONOPHASED));
+        assertEquals(List.of(sc3), faultIndex.getFaults(b2Num, ShortCircuitFault.ShortCircuitType.BIPHASED));
+        assertTrue(faultIndex.getFaults(b5Num, ShortCircuitFault.ShortCircuitType.BIPHASED_GROUND).isEmpty());
+    }
+}
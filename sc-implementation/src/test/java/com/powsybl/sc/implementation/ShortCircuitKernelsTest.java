@@ -0,0 +1,179 @@
+/**
+ * Copyright (c) 2022, Jean-Baptiste Heyberger & Geoffroy Jamgotchian
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ * SPDX-License-Identifier: MPL-2.0
+ */
+package com.powsybl.sc.implementation;
+
+import org.apache.commons.math3.complex.Complex;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * @author Jean-Baptiste Heyberger <jbheyberger at gmail.com>
+ */
+class ShortCircuitKernelsTest {
+
+    private static final Complex ZDF = new Complex(0.0021, 0.0315);
+    private static final Complex ZOF = new Complex(0.0052, 0.0487);
+    private static final Complex INIT_V = new Complex(1.02, -0.07);
+
+    private static void assertComplexEquals(Complex expected, Complex actual) {
+        assertEquals(expected.getReal(), actual.getReal(), 1e-8 * expected.abs());
+        assertEquals(expected.getImaginary(), actual.getImaginary(), 1e-8 * expected.abs());
+    }
+
+    private static void assertCurrentsEquals(AbstractShortCircuitCalculator expected, AbstractShortCircuitCalculator actual) {
+        assertComplexEquals(expected.getIo(), actual.getIo());
+        assertComplexEquals(expected.getId(), actual.getId());
+        assertComplexEquals(expected.getIi(), actual.getIi());
+    }
+
+    @Test
+    void triphasedTest() {
+        Complex zg = new Complex(0.01, 0.002);
+        double[] i = new double[2 * ShortCircuitKernels.CURRENTS_SIZE];
+        double[] v = new double[2 * ShortCircuitKernels.CURRENTS_SIZE];
+        int offset = ShortCircuitKernels.CURRENTS_SIZE;
+        ShortCircuitKernels.computeTriphasedCurrents(ZDF.getReal(), ZDF.getImaginary(), zg.getReal(), zg.getImaginary(),
+                INIT_V.getReal(), INIT_V.getImaginary(), i, offset);
+        ShortCircuitKernels.computeFaultVoltages(ZDF.getReal(), ZDF.getImaginary(), ZOF.getReal(), ZOF.getImaginary(), i, v, offset);
+
+        Complex id = INIT_V.divide(ZDF.add(zg));
+        assertComplexEquals(id, new Complex(i[offset + ShortCircuitKernels.D], i[offset + ShortCircuitKernels.D + 1]));
+        assertComplexEquals(ZDF.multiply(id).negate(), new Complex(v[offset + ShortCircuitKernels.D], v[offset + ShortCircuitKernels.D + 1]));
+        assertEquals(0., Math.hypot(i[offset + ShortCircuitKernels.O], i[offset + ShortCircuitKernels.O + 1]), 0.);
+        assertEquals(0., Math.hypot(v[offset + ShortCircuitKernels.I], v[offset + ShortCircuitKernels.I + 1]), 0.);
+    }
+
+    @Test
+    void monophasedTest() {
+        ShortCircuitFaultImpedance zFault = new ShortCircuitFaultImpedance(new Complex(0.01, 0.002));
+        MonophasedShortCircuitCalculator calculator = new MonophasedShortCircuitCalculator(ZDF, ZOF, zFault, INIT_V);
+        calculator.computeCurrents();
+
+        Complex zt = zFault.getZg().add(ZDF.multiply(2.).add(ZOF).divide(3.));
+        Complex io = INIT_V.multiply(calculator.geta()).divide(zt).divide(3.);
+        assertComplexEquals(io, calculator.getIo());
+        assertComplexEquals(io.multiply(calculator.geta2()), calculator.getId());
+        assertComplexEquals(io.multiply(calculator.geta()), calculator.getIi());
+    }
+
+    @Test
+    void biphasedTest() {
+        ShortCircuitFaultImpedance zFault = new ShortCircuitFaultImpedance(new Complex(0.), new Complex(0.003, 0.001), new Complex(0.));
+        BiphasedShortCircuitCalculator calculator = new BiphasedShortCircuitCalculator(ZDF, ZOF, zFault, INIT_V);
+        calculator.computeCurrents();
+
+        Complex ib = INIT_V.multiply(-Math.sqrt(3.)).divide(ZDF.multiply(2).add(zFault.getZb())).multiply(Complex.I);
+        Complex id = ib.divide(3.).multiply(calculator.geta().subtract(calculator.geta2()));
+        assertEquals(0., calculator.getIo().abs(), 0.);
+        assertComplexEquals(id, calculator.getId());
+        assertComplexEquals(id.negate(), calculator.getIi());
+    }
+
+    @Test
+    void biphasedGroundTest() {
+        // closed form compared with the LU resolution of the 13 equations system
+        ShortCircuitFaultImpedance zFault = new ShortCircuitFaultImpedance(new Complex(0.004, 0.001), new Complex(0.002, 0.003), new Complex(0.001, -0.002));
+        BiphasedGroundShortCircuitCalculator calculator = new BiphasedGroundShortCircuitCalculator(ZDF, ZOF, zFault, INIT_V);
+        calculator.computeCurrents();
+        BiphasedGroundShortCircuitCalculator reference = new BiphasedGroundShortCircuitCalculator(ZDF, ZOF, zFault, INIT_V);
+        reference.computeCurrentsGeneralForm();
+        assertCurrentsEquals(reference, calculator);
+
+        // without fault impedances, same result as the simplified form
+        ShortCircuitFaultImpedance noImpedance = new ShortCircuitFaultImpedance(new Complex(0.), new Complex(0.), new Complex(0.));
+        calculator = new BiphasedGroundShortCircuitCalculator(ZDF, ZOF, noImpedance, INIT_V);
+        calculator.computeCurrents();
+        reference = new BiphasedGroundShortCircuitCalculator(ZDF, ZOF, noImpedance, INIT_V);
+        reference.computeCurrentsSimplified();
+        assertCurrentsEquals(reference, calculator);
+    }
+
+    @Test
+    void commonSupportTest() {
+        Complex zd12 = new Complex(0.0011, 0.0102);
+        Complex zd21 = new Complex(0.0012, 0.0101);
+        Complex zd22 = new Complex(0.0025, 0.0298);
+        Complex zo12 = new Complex(0.0021, 0.0153);
+        Complex zo21 = new Complex(0.0022, 0.0151);
+        Complex zo22 = new Complex(0.0049, 0.0452);
+        Complex v2dInit = new Complex(1.01, -0.08);
+        ShortCircuitFaultImpedance zFault = new ShortCircuitFaultImpedance(new Complex(0.001, 0.001));
+
+        BiphasedC1C2Calculator calculator = new BiphasedC1C2Calculator(ZDF, ZOF, zFault, INIT_V, v2dInit,
+                zo12, zo22, zo21, zd12, zd22, zd21);
+
+        Complex zt = zFault.getZg().add(ZDF.subtract(zd12).add(zd22).subtract(zd21)
+                .add(ZOF).subtract(zo21).add(zo22).subtract(zo12)
+                .add(zd22).subtract(zd12).add(ZDF).subtract(zd21).divide(3.));
+        Complex io = calculator.geta().multiply(INIT_V.subtract(v2dInit)).divide(zt).divide(3.);
+        Complex id = io.multiply(calculator.geta2());
+        Complex ii = io.multiply(calculator.geta());
+        assertComplexEquals(io, calculator.getIo());
+        assertComplexEquals(id, calculator.getId());
+        assertComplexEquals(ii, calculator.getIi());
+        assertComplexEquals(id.negate(), calculator.getI2d());
+        assertComplexEquals(INIT_V.subtract(ZDF.multiply(id).subtract(zd12.multiply(id))), calculator.getVd());
+        assertComplexEquals(v2dInit.subtract(zd21.multiply(id).subtract(zd22.multiply(id))), calculator.getV2d());
+        assertComplexEquals(ZOF.multiply(io).subtract(zo12.multiply(io)).negate(), calculator.getVo());
+    }
+
+    @Test
+    void batchTest() {
+        ShortCircuitFaultImpedance zFault = new ShortCircuitFaultImpedance(new Complex(0.004, 0.001), new Complex(0.002, 0.003), new Complex(0.001, -0.002));
+        Complex[] zdfs = {ZDF, new Complex(0.0031, 0.0212), new Complex(0.0008, 0.0411)};
+
+        for (ShortCircuitFault.ShortCircuitType type : List.of(ShortCircuitFault.ShortCircuitType.MONOPHASED,
+                ShortCircuitFault.ShortCircuitType.BIPHASED, ShortCircuitFault.ShortCircuitType.BIPHASED_GROUND)) {
+            ShortCircuitFaultBatch batch = new ShortCircuitFaultBatch(type, 1);
+            for (Complex zdf : zdfs) {
+                batch.add(zdf, ZOF, INIT_V, zFault);
+            }
+            batch.compute();
+            assertEquals(zdfs.length, batch.size());
+
+            for (int k = 0; k < zdfs.length; k++) {
+                AbstractShortCircuitCalculator calculator = switch (type) {
+                    case MONOPHASED -> new MonophasedShortCircuitCalculator(zdfs[k], ZOF, zFault, INIT_V);
+                    case BIPHASED -> new BiphasedShortCircuitCalculator(zdfs[k], ZOF, zFault, INIT_V);
+                    default -> new BiphasedGroundShortCircuitCalculator(zdfs[k], ZOF, zFault, INIT_V);
+                };
+                calculator.computeCurrents();
+                assertComplexEquals(calculator.getIi(), batch.getIi(k));
+                assertComplexEquals(calculator.getId(), batch.getId(k));
+                assertComplexEquals(zdfs[k].multiply(calculator.getId()).negate(), batch.getVd(k));
+                if (type != ShortCircuitFault.ShortCircuitType.BIPHASED) {
+                    assertComplexEquals(calculator.getIo(), batch.getIo(k));
+                    assertComplexEquals(ZOF.multiply(calculator.getIo()).negate(), batch.getVo(k));
+                } else {
+                    assertEquals(0., batch.getIo(k).abs(), 0.);
+                }
+            }
+        }
+
+        // tags and primitive values survive the growth of the batch
+        ShortCircuitFaultBatch tagged = new ShortCircuitFaultBatch(ShortCircuitFault.ShortCircuitType.MONOPHASED, 1);
+        for (int k = 0; k < zdfs.length; k++) {
+            tagged.add(zdfs[k], ZOF, INIT_V, zFault, 10 + k);
+        }
+        tagged.compute();
+        for (int k = 0; k < zdfs.length; k++) {
+            assertEquals(10 + k, tagged.getTag(k));
+            assertEquals(tagged.getId(k).getReal(), tagged.getCurrent(k, ShortCircuitKernels.D), 0.);
+            assertEquals(tagged.getVo(k).getImaginary(), tagged.getVoltage(k, ShortCircuitKernels.O + 1), 0.);
+        }
+
+        ShortCircuitFaultBatch batch = new ShortCircuitFaultBatch(ShortCircuitFault.ShortCircuitType.MONOPHASED, 0);
+        batch.add(ZDF, ZOF, INIT_V, zFault);
+        assertThrows(IllegalStateException.class, () -> batch.getIo(0));
+        assertThrows(IllegalArgumentException.class, () -> new ShortCircuitFaultBatch(ShortCircuitFault.ShortCircuitType.TRIPHASED_GROUND, 0));
+    }
+}
@@ -23,12 +23,15 @@ import com.powsybl.sc.extensions.GeneratorFortescueTypeAdder;
 import com.powsybl.sc.util.ReferenceNetwork;
 import com.powsybl.shortcircuit.*;
 import org.apache.commons.math3.complex.Complex;
+import org.apache.commons.math3.complex.ComplexUtils;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import java.util.*;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 /**
  * @author Jean-Baptiste Heyberger <jbheyberger at gmail.com>
@@ -79,6 +82,69 @@ public class ShortCircuitMonophasedTest {
 
     }
 
+    @Test
+    void shortCircuitMono6NodesIec9094SystematicBatch() {
+
+        LoadFlowParameters loadFlowParameters = LoadFlowParameters.load();
+        loadFlowParameters.setTwtSplitShuntAdmittance(true);
+
+        Network network = ReferenceNetwork.create6NodesIec9094();
+
+        List<List<Complex>> currents = new ArrayList<>();
+        for (boolean batch : List.of(false, true)) {
+            ShortCircuitEngineParameters scbParameters = new ShortCircuitEngineParameters(loadFlowParameters, new DenseMatrixFactory(), ShortCircuitEngineParameters.AnalysisType.SYSTEMATIC, new ArrayList<>(), false, ShortCircuitEngineParameters.VoltageProfileType.NOMINAL, false, ShortCircuitEngineParameters.PeriodType.SUB_TRANSIENT, new ShortCircuitNormIec());
+            scbParameters.setBatchFaultEvaluation(batch);
+            ShortCircuitUnbalancedEngine scbEngine = new ShortCircuitUnbalancedEngine(network, scbParameters);
+            scbEngine.run();
+
+            List<Complex> ik = new ArrayList<>();
+            for (ShortCircuitResult res : scbEngine.resultsPerFault.values()) {
+                ik.add(res.getIk());
+            }
+            currents.add(ik);
+        }
+
+        assertFalse(currents.get(1).isEmpty());
+        assertEquals(currents.get(0).size(), currents.get(1).size());
+        for (int i = 0; i < currents.get(0).size(); i++) {
+            assertEquals(currents.get(0).get(i).getReal(), currents.get(1).get(i).getReal(), 1e-9);
+            assertEquals(currents.get(0).get(i).getImaginary(), currents.get(1).get(i).getImaginary(), 1e-9);
+        }
+    }
+
+    @Test
+    void shortCircuitMono6NodesIec9094SystematicVoltageProfiles() {
+
+        LoadFlowParameters loadFlowParameters = LoadFlowParameters.load();
+        loadFlowParameters.setTwtSplitShuntAdmittance(true);
+
+        Network network = ReferenceNetwork.create6NodesIec9094();
+
+        ShortCircuitEngineParameters scbParameters = new ShortCircuitEngineParameters(loadFlowParameters, new DenseMatrixFactory(), ShortCircuitEngineParameters.AnalysisType.SYSTEMATIC, new ArrayList<>(), true, ShortCircuitEngineParameters.VoltageProfileType.NOMINAL, false, ShortCircuitEngineParameters.PeriodType.SUB_TRANSIENT, new ShortCircuitNormIec());
+        ShortCircuitUnbalancedEngine scbEngine = new ShortCircuitUnbalancedEngine(network, scbParameters);
+        scbEngine.run();
+
+        // profiles computed by blocks of faults are the same as the ones computed fault by fault on first access
+        ShortCircuitEngineParameters lazyParameters = new ShortCircuitEngineParameters(scbParameters);
+        lazyParameters.setLazyVoltageProfile(true);
+        ShortCircuitUnbalancedEngine lazyEngine = new ShortCircuitUnbalancedEngine(network, lazyParameters);
+        lazyEngine.run();
+
+        assertFalse(scbEngine.resultsPerFault.isEmpty());
+        assertEquals(scbEngine.resultsPerFault.size(), lazyEngine.resultsPerFault.size());
+        Iterator<ShortCircuitResult> lazyResults = lazyEngine.resultsPerFault.values().iterator();
+        for (ShortCircuitResult res : scbEngine.resultsPerFault.values()) {
+            List<FortescueValue> dv = res.getBusNum2Dv();
+            List<FortescueValue> lazyDv = lazyResults.next().getBusNum2Dv();
+            assertEquals(dv.size(), lazyDv.size());
+            for (int busNum = 0; busNum < dv.size(); busNum++) {
+                assertEquals(dv.get(busNum).getPositiveMagnitude(), lazyDv.get(busNum).getPositiveMagnitude(), 1e-9);
+                assertEquals(dv.get(busNum).getZeroMagnitude(), lazyDv.get(busNum).getZeroMagnitude(), 1e-9);
+                assertEquals(dv.get(busNum).getNegativeMagnitude(), lazyDv.get(busNum).getNegativeMagnitude(), 1e-9);
+            }
+        }
+    }
+
     @Test
     void shortCircuitMono8NodesIEC9094() {
 
@@ -169,6 +235,38 @@ public class ShortCircuitMonophasedTest {
         MagnitudeFaultResult magnitudeFaultResult2 = (MagnitudeFaultResult) frs.get(1);
         assertEquals(14.464754153502392, magnitudeFaultResult2.getCurrent(), 0.00001);
 
+        // feeders of unbalanced faults are reported as requested
+        assertFalse(magnitudeFaultResult.getFeederResults().isEmpty());
+        for (FeederResult feederResult : magnitudeFaultResult.getFeederResults()) {
+            assertFalse(Double.isNaN(((MagnitudeFeederResult) feederResult).getCurrent()));
+        }
+        scp.setWithFeederResult(false);
+        MagnitudeFaultResult withoutFeeders = (MagnitudeFaultResult) provider.run(network, faults, scp, cm, Collections.emptyList()).join().getFaultResults().get(0);
+        assertTrue(withoutFeeders.getFeederResults().isEmpty());
+        assertEquals(magnitudeFaultResult.getCurrent(), withoutFeeders.getCurrent(), 0.00001);
+
+        // sequence currents in kA, all equal for a monophased fault with Ik1 = 3.Io
+        scp.setWithFeederResult(true);
+        scp.setWithFortescueResult(true);
+        FortescueFaultResult fortescueFaultResult = (FortescueFaultResult) provider.run(network, faults, scp, cm, Collections.emptyList()).join().getFaultResults().get(0);
+        assertEquals(14.548104511643936 / 3., fortescueFaultResult.getCurrent().getPositiveMagnitude(), 0.00001);
+        assertEquals(14.548104511643936 / 3., fortescueFaultResult.getCurrent().getZeroMagnitude(), 0.00001);
+        assertEquals(14.548104511643936 / 3., fortescueFaultResult.getCurrent().getNegativeMagnitude(), 0.00001);
+        List<FeederResult> fortescueFeederResults = fortescueFaultResult.getFeederResults();
+        assertEquals(magnitudeFaultResult.getFeederResults().size(), fortescueFeederResults.size());
+        for (int i = 0; i < fortescueFeederResults.size(); i++) {
+            // magnitude feeder results are sqrt(3).I(pu).Sb/Un, three times the phase current in kA
+            FortescueValue current = ((FortescueFeederResult) fortescueFeederResults.get(i)).getCurrent();
+            double maxPhaseMagnitude = ShortCircuitFeederResultList.getMaxPhaseMagnitude(
+                    ComplexUtils.polar2Complex(current.getPositiveMagnitude(), current.getPositiveAngle()),
+                    ComplexUtils.polar2Complex(current.getZeroMagnitude(), current.getZeroAngle()),
+                    ComplexUtils.polar2Complex(current.getNegativeMagnitude(), current.getNegativeAngle()));
+            assertEquals(((MagnitudeFeederResult) magnitudeFaultResult.getFeederResults().get(i)).getCurrent(), 3. * maxPhaseMagnitude, 0.00001);
+        }
+
+        // phase currents of the feeders: Ia = 3.Io for equal sequence currents, Id only for a balanced contribution
+        assertEquals(3., ShortCircuitFeederResultList.getMaxPhaseMagnitude(new Complex(1.), new Complex(1.), new Complex(1.)), 0.00001);
+        assertEquals(2., ShortCircuitFeederResultList.getMaxPhaseMagnitude(new Complex(0., 2.), Complex.ZERO, Complex.ZERO), 0.00001);
     }
 
     @Test
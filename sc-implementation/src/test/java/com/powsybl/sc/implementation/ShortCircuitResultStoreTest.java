@@ -0,0 +1,110 @@
+/**
+ * Copyright (c) 2022, Jean-Baptiste Heyberger & Geoffroy Jamgotchian
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ * SPDX-License-Identifier: MPL-2.0
+ */
+package com.powsybl.sc.implementation;
+
+import com.powsybl.iidm.network.Network;
+import com.powsybl.loadflow.LoadFlowParameters;
+import com.powsybl.math.matrix.DenseMatrixFactory;
+import com.powsybl.sc.util.ReferenceNetwork;
+import com.powsybl.shortcircuit.FortescueValue;
+import org.apache.commons.math3.complex.Complex;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author Jean-Baptiste Heyberger <jbheyberger at gmail.com>
+ */
+class ShortCircuitResultStoreTest {
+
+    @TempDir
+    Path tmpDir;
+
+    @Test
+    void spilledProfilesTest() {
+        Network network = ReferenceNetwork.createShortCircuitReference();
+
+        List<ShortCircuitFault> faultList = new ArrayList<>();
+        ShortCircuitFault sc1 = new ShortCircuitFault("B7", "sc1", new ShortCircuitFaultImpedance(new Complex(0.)), ShortCircuitFault.ShortCircuitType.TRIPHASED_GROUND);
+        ShortCircuitFault sc2 = new ShortCircuitFault("B2", "sc2", new ShortCircuitFaultImpedance(new Complex(0.)), ShortCircuitFault.ShortCircuitType.TRIPHASED_GROUND);
+        faultList.add(sc1);
+        faultList.add(sc2);
+
+        ShortCircuitEngineParameters scbParameters = new ShortCircuitEngineParameters(new LoadFlowParameters(), new DenseMatrixFactory(), ShortCircuitEngineParameters.AnalysisType.SELECTIVE, faultList, true,
+                ShortCircuitEngineParameters.VoltageProfileType.NOMINAL, false, ShortCircuitEngineParameters.PeriodType.SUB_TRANSIENT, new ShortCircuitNormNone());
+        ShortCircuitBalancedEngine scbEngine = new ShortCircuitBalancedEngine(network, scbParameters);
+        scbEngine.run();
+
+        try (ShortCircuitResultStore store = new ShortCircuitResultStore(tmpDir, 0)) {
+            ShortCircuitBalancedEngine spilledEngine = new ShortCircuitBalancedEngine(network, scbParameters);
+            spilledEngine.setResultConsumer(store);
+            spilledEngine.setResultsKept(false);
+            spilledEngine.run();
+
+            // with no memory budget, all profiles are on disk
+            assertTrue(spilledEngine.getResultsPerFault().isEmpty());
+            assertEquals(List.of(sc1, sc2), List.copyOf(store.getFaults()));
+            assertEquals(0, store.getResidentProfileCount());
+
+            for (ShortCircuitFault scf : List.of(sc1, sc2)) {
+                ShortCircuitResult expected = scbEngine.getResultsPerFault().get(scf);
+                ShortCircuitResult result = store.get(scf);
+                assertEquals(expected.getIk().abs(), result.getIk().abs(), 0.000001);
+                assertEquals(expected.getBusNum2Dv().size(), result.getBusNum2Dv().size());
+                for (int i = 0; i < expected.getBusNum2Dv().size(); i++) {
+                    FortescueValue expectedDv = expected.getBusNum2Dv().get(i);
+                    FortescueValue dv = result.getBusNum2Dv().get(i);
+                    assertEquals(expectedDv.getPositiveMagnitude(), dv.getPositiveMagnitude(), 0.000001);
+                    assertEquals(expectedDv.getPositiveAngle(), dv.getPositiveAngle(), 0.000001);
+                }
+                assertEquals(expected.getMaxRoverX(), result.getMaxRoverX(), 0.000001);
+                assertEquals(1, store.getResidentProfileCount()); // the result just read is the only one in memory
+            }
+        }
+    }
+
+    @Test
+    void systematicSpilledProfilesTest() {
+        Network network = ReferenceNetwork.createShortCircuitReference();
+
+        ShortCircuitEngineParameters scbParameters = new ShortCircuitEngineParameters(new LoadFlowParameters(), new DenseMatrixFactory(), ShortCircuitEngineParameters.AnalysisType.SYSTEMATIC, new ArrayList<>(), true,
+                ShortCircuitEngineParameters.VoltageProfileType.NOMINAL, false, ShortCircuitEngineParameters.PeriodType.SUB_TRANSIENT, new ShortCircuitNormNone());
+
+        try (ShortCircuitResultStore store = new ShortCircuitResultStore(tmpDir, 0)) {
+            ShortCircuitBalancedEngine spilledEngine = new ShortCircuitBalancedEngine(network, scbParameters);
+            spilledEngine.setResultConsumer((scf, res) -> {
+                // the feeders of every other fault are not requested
+                if (store.size() % 2 == 1) {
+                    scf.setWithFeederResult(false);
+                }
+                store.accept(scf, res);
+            });
+            spilledEngine.setResultsKept(false);
+            spilledEngine.run();
+
+            // with a result sink, the systematic analysis keeps the voltage update
+            assertTrue(scbParameters.isVoltageUpdate());
+            assertTrue(store.size() > 1);
+            int numFault = 0;
+            for (ShortCircuitFault scf : store.getFaults()) {
+                ShortCircuitResult result = store.get(scf);
+                assertTrue(result.isVoltageProfileUpdated());
+                assertTrue(result.hasVoltageDrop(result.getLfBus().getNum()));
+                // feeders are only rebuilt when the profile is paged in if they were requested
+                assertEquals(numFault % 2 == 0, result.getFeedersResultDirect() != null);
+                numFault++;
+            }
+        }
+    }
+}
@@ -0,0 +1,254 @@
+/**
+ * Copyright (c) 2022, Jean-Baptiste Heyberger & Geoffroy Jamgotchian
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ * SPDX-License-Identifier: MPL-2.0
+ */
+package com.powsybl.sc.implementation;
+
+import com.powsybl.iidm.network.Network;
+import com.powsybl.loadflow.LoadFlowParameters;
+import com.powsybl.math.matrix.DenseMatrixFactory;
+import com.powsybl.openloadflow.network.LfBranch;
+import com.powsybl.sc.util.ReferenceNetwork;
+import com.powsybl.shortcircuit.FortescueValue;
+import org.apache.commons.math3.complex.Complex;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author Jean-Baptiste Heyberger <jbheyberger at gmail.com>
+ */
+class ShortCircuitResultTableTest {
+
+    @Test
+    void columnarResultsTest() {
+        Network network = ReferenceNetwork.createShortCircuitReference();
+
+        List<ShortCircuitFault> faultList = new ArrayList<>();
+        ShortCircuitFault sc1 = new ShortCircuitFault("B7", "sc1", new ShortCircuitFaultImpedance(new Complex(0.)), ShortCircuitFault.ShortCircuitType.TRIPHASED_GROUND);
+        ShortCircuitFault sc2 = new ShortCircuitFault("B2", "sc2", new ShortCircuitFaultImpedance(new Complex(0.)), ShortCircuitFault.ShortCircuitType.TRIPHASED_GROUND);
+        faultList.add(sc1);
+        faultList.add(sc2);
+
+        ShortCircuitEngineParameters scbParameters = new ShortCircuitEngineParameters(new LoadFlowParameters(), new DenseMatrixFactory(), ShortCircuitEngineParameters.AnalysisType.SELECTIVE, faultList, true,
+                ShortCircuitEngineParameters.VoltageProfileType.NOMINAL, false, ShortCircuitEngineParameters.PeriodType.SUB_TRANSIENT, new ShortCircuitNormNone());
+        ShortCircuitBalancedEngine scbEngine = new ShortCircuitBalancedEngine(network, scbParameters);
+        ShortCircuitResultTable table = new ShortCircuitResultTable();
+        scbEngine.setResultConsumer(table);
+        scbEngine.run();
+
+        assertEquals(2, table.getFaultCount());
+        assertEquals(-1, table.getFaultNum(new ShortCircuitFault(sc1)));
+        for (ShortCircuitFault scf : List.of(sc1, sc2)) {
+            ShortCircuitResult expected = scbEngine.getResultsPerFault().get(scf);
+            int faultNum = table.getFaultNum(scf);
+            assertEquals(scf, table.getFault(faultNum));
+            assertEquals(expected.getIk().abs(), table.getIk(faultNum), 0.000001);
+            assertEquals(expected.getiFortescue().getPositiveMagnitude(), table.getCurrent(faultNum, ShortCircuitResult.FortescueType.DIRECT).abs(), 0.000001);
+            assertEquals(expected.getvFortescue().getPositiveMagnitude(), table.getVoltage(faultNum, ShortCircuitResult.FortescueType.DIRECT).abs(), 0.000001);
+
+            assertTrue(table.hasVoltageProfile(faultNum));
+            ShortCircuitResultTable.NetworkTable networkTable = table.getNetworkTable(faultNum);
+            assertEquals(expected.getBusNum2Dv().size(), networkTable.getBusIds().size());
+            double[] row = table.getBusDvRow(faultNum);
+            assertEquals(6 * expected.getBusNum2Dv().size(), row.length);
+            for (int busNum = 0; busNum < expected.getBusNum2Dv().size(); busNum++) {
+                FortescueValue dv = expected.getBusNum2Dv().get(busNum);
+                Complex tableDv = table.getBusDv(faultNum, busNum, ShortCircuitResult.FortescueType.DIRECT);
+                assertEquals(dv.getPositiveMagnitude(), tableDv.abs(), 0.000001);
+                assertEquals(tableDv.getReal(), row[6 * busNum], 0.);
+                assertTrue(table.getBusDv(faultNum, busNum, ShortCircuitResult.FortescueType.HOMOPOLAR).isNaN()); // no homopolar value in a balanced result
+            }
+            for (Map.Entry<LfBranch, FortescueValue> e : expected.getBranchDi1().entrySet()) {
+                assertEquals(e.getKey().getId(), networkTable.getBranchIds().get(e.getKey().getNum()));
+                assertEquals(e.getValue().getPositiveMagnitude(), table.getBranchDi1(faultNum, e.getKey().getNum(), ShortCircuitResult.FortescueType.DIRECT).abs(), 0.000001);
+            }
+        }
+        // both faults are in the same lfNetwork and share the same id tables
+        assertEquals(2, table.getNetworkTable(0).getRowCount());
+
+        // a fault without voltage profile only has its scalar results
+        ShortCircuitEngineParameters noVoltageParameters = new ShortCircuitEngineParameters(scbParameters);
+        noVoltageParameters.setVoltageUpdate(false);
+        ShortCircuitFault sc3 = new ShortCircuitFault(sc1);
+        noVoltageParameters.setShortCircuitFaults(List.of(sc3));
+        ShortCircuitBalancedEngine noVoltageEngine = new ShortCircuitBalancedEngine(network, noVoltageParameters);
+        noVoltageEngine.setResultConsumer(table);
+        noVoltageEngine.run();
+        int faultNum3 = table.getFaultNum(sc3);
+        assertEquals(table.getIk(0), table.getIk(faultNum3), 0.000001);
+        assertFalse(table.hasVoltageProfile(faultNum3));
+        assertThrows(IllegalStateException.class, () -> table.getBusDvRow(faultNum3));
+
+        // a lazy profile is copied without being kept built in the result
+        ShortCircuitEngineParameters lazyParameters = new ShortCircuitEngineParameters(scbParameters);
+        lazyParameters.setLazyVoltageProfile(true);
+        ShortCircuitFault sc4 = new ShortCircuitFault(sc1);
+        lazyParameters.setShortCircuitFaults(List.of(sc4));
+        ShortCircuitBalancedEngine lazyEngine = new ShortCircuitBalancedEngine(network, lazyParameters);
+        lazyEngine.setResultConsumer(table);
+        lazyEngine.run();
+        ShortCircuitResult lazyRes = lazyEngine.getResultsPerFault().get(sc4);
+        assertTrue(lazyRes.isVoltageProfileLazy());
+        assertNull(lazyRes.getVoltageProfile());
+        int faultNum4 = table.getFaultNum(sc4);
+        assertTrue(table.hasVoltageProfile(faultNum4));
+        assertArrayEquals(table.getBusDvRow(0), table.getBusDvRow(faultNum4), 0.000001);
+    }
+
+    @Test
+    void binaryExportTest(@TempDir Path tempDir) throws IOException {
+        Network network = ReferenceNetwork.createShortCircuitReference();
+
+        ShortCircuitFault sc1 = new ShortCircuitFault("B7", "sc1", new ShortCircuitFaultImpedance(new Complex(0.)), ShortCircuitFault.ShortCircuitType.TRIPHASED_GROUND);
+        ShortCircuitEngineParameters scbParameters = new ShortCircuitEngineParameters(new LoadFlowParameters(), new DenseMatrixFactory(), ShortCircuitEngineParameters.AnalysisType.SELECTIVE, List.of(sc1), true,
+                ShortCircuitEngineParameters.VoltageProfileType.NOMINAL, false, ShortCircuitEngineParameters.PeriodType.SUB_TRANSIENT, new ShortCircuitNormNone());
+        ShortCircuitBalancedEngine scbEngine = new ShortCircuitBalancedEngine(network, scbParameters);
+        ShortCircuitResultTable table = new ShortCircuitResultTable();
+        scbEngine.setResultConsumer(table);
+        scbEngine.run();
+
+        Path file = tempDir.resolve("results.bin");
+        table.write(file);
+
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(file)).order(ByteOrder.LITTLE_ENDIAN);
+        assertEquals(ShortCircuitResultTable.MAGIC, buffer.getInt());
+        assertEquals(ShortCircuitResultTable.VERSION, buffer.getInt());
+        assertEquals(ShortCircuitResultTable.Precision.DOUBLE.ordinal(), buffer.getInt());
+        assertEquals(1, buffer.getInt());
+        assertEquals(3, buffer.getInt());
+        byte[] faultId = new byte[3];
+        buffer.get(faultId);
+        assertEquals("sc1", new String(faultId));
+        assertEquals(table.getIk(0), buffer.getDouble(), 0.);
+
+        ShortCircuitResultTable.NetworkTable networkTable = table.getNetworkTable(0);
+        int idsSize = 0;
+        for (String id : networkTable.getBusIds()) {
+            idsSize += Integer.BYTES + id.length();
+        }
+        for (String id : networkTable.getBranchIds()) {
+            idsSize += Integer.BYTES + id.length();
+        }
+        int expectedSize = 4 * Integer.BYTES + Integer.BYTES + 3 // header and fault id
+                + 13 * Double.BYTES + 2 * Integer.BYTES // fault columns
+                + 4 * Integer.BYTES + idsSize // table header
+                + 6 * Double.BYTES * (networkTable.getBusIds().size() + 2 * networkTable.getBranchIds().size());
+        assertEquals(expectedSize, Files.size(file));
+    }
+
+    @Test
+    void reducedPrecisionTest(@TempDir Path tempDir) throws IOException {
+        Network network = ReferenceNetwork.createShortCircuitReference();
+
+        ShortCircuitFault sc1 = new ShortCircuitFault("B7", "sc1", new ShortCircuitFaultImpedance(new Complex(0.)), ShortCircuitFault.ShortCircuitType.TRIPHASED_GROUND);
+        ShortCircuitEngineParameters scbParameters = new ShortCircuitEngineParameters(new LoadFlowParameters(), new DenseMatrixFactory(), ShortCircuitEngineParameters.AnalysisType.SELECTIVE, List.of(sc1), true,
+                ShortCircuitEngineParameters.VoltageProfileType.NOMINAL, false, ShortCircuitEngineParameters.PeriodType.SUB_TRANSIENT, new ShortCircuitNormNone());
+        ShortCircuitBalancedEngine scbEngine = new ShortCircuitBalancedEngine(network, scbParameters);
+        ShortCircuitResultTable table = new ShortCircuitResultTable();
+        ShortCircuitResultTable floatTable = new ShortCircuitResultTable(ShortCircuitResultTable.Precision.FLOAT);
+        ShortCircuitResultTable quantizedTable = new ShortCircuitResultTable(ShortCircuitResultTable.Precision.INT16);
+        scbEngine.setResultConsumer((scf, res) -> {
+            table.accept(scf, res);
+            floatTable.accept(scf, res);
+            quantizedTable.accept(scf, res);
+        });
+        scbEngine.run();
+
+        double[] row = table.getBusDvRow(0);
+        double[] floatRow = floatTable.getBusDvRow(0);
+        double[] quantizedRow = quantizedTable.getBusDvRow(0);
+        double maxAbs = 0;
+        for (double value : row) {
+            if (!Double.isNaN(value)) {
+                maxAbs = Math.max(maxAbs, Math.abs(value));
+            }
+        }
+        for (int i = 0; i < row.length; i++) {
+            if (Double.isNaN(row[i])) {
+                assertTrue(Double.isNaN(floatRow[i]));
+                assertTrue(Double.isNaN(quantizedRow[i]));
+            } else {
+                assertEquals(row[i], floatRow[i], Math.abs(row[i]) * 0x1p-24);
+                assertEquals(row[i], quantizedRow[i], maxAbs / 65534 + 1e-12);
+            }
+        }
+        // scalar results are not rounded
+        assertEquals(table.getIk(0), quantizedTable.getIk(0), 0.);
+
+        // bulk values take 8, 4 and about 2 bytes in the export
+        table.write(tempDir.resolve("double.bin"));
+        floatTable.write(tempDir.resolve("float.bin"));
+        quantizedTable.write(tempDir.resolve("int16.bin"));
+        long doubleSize = Files.size(tempDir.resolve("double.bin"));
+        long floatSize = Files.size(tempDir.resolve("float.bin"));
+        long quantizedSize = Files.size(tempDir.resolve("int16.bin"));
+        assertTrue(floatSize < doubleSize);
+        assertTrue(quantizedSize < floatSize);
+    }
+
+    @Test
+    void chunkedRowsTest(@TempDir Path tempDir) throws IOException {
+        Network network = ReferenceNetwork.createShortCircuitReference();
+
+        ShortCircuitEngineParameters scbParameters = new ShortCircuitEngineParameters(new LoadFlowParameters(), new DenseMatrixFactory(), ShortCircuitEngineParameters.AnalysisType.SYSTEMATIC, new ArrayList<>(), true,
+                ShortCircuitEngineParameters.VoltageProfileType.NOMINAL, false, ShortCircuitEngineParameters.PeriodType.SUB_TRANSIENT, new ShortCircuitNormNone());
+        ShortCircuitBalancedEngine scbEngine = new ShortCircuitBalancedEngine(network, scbParameters);
+
+        // rows split in chunks of one row, and of a few rows, give the same values and the same export as a single chunk
+        List<ShortCircuitResultTable> tables = new ArrayList<>();
+        List<ShortCircuitResultTable> chunkedTables = new ArrayList<>();
+        for (ShortCircuitResultTable.Precision precision : ShortCircuitResultTable.Precision.values()) {
+            for (int maxChunkSize : new int[] {1, 200}) {
+                tables.add(new ShortCircuitResultTable(precision));
+                chunkedTables.add(new ShortCircuitResultTable(precision, maxChunkSize));
+            }
+        }
+        scbEngine.setResultConsumer((scf, res) -> {
+            tables.forEach(table -> table.accept(scf, res));
+            chunkedTables.forEach(table -> table.accept(scf, res));
+        });
+        scbEngine.run();
+
+        for (int t = 0; t < tables.size(); t++) {
+            ShortCircuitResultTable table = tables.get(t);
+            ShortCircuitResultTable chunkedTable = chunkedTables.get(t);
+            assertTrue(table.getFaultCount() > 1);
+            for (int faultNum = 0; faultNum < table.getFaultCount(); faultNum++) {
+                double[] row = table.getBusDvRow(faultNum);
+                double[] chunkedRow = chunkedTable.getBusDvRow(faultNum);
+                for (int i = 0; i < row.length; i++) {
+                    assertEquals(row[i], chunkedRow[i], 0.);
+                }
+                for (int branchNum = 0; branchNum < table.getNetworkTable(faultNum).getBranchIds().size(); branchNum++) {
+                    assertEquals(table.getBranchDi2(faultNum, branchNum, ShortCircuitResult.FortescueType.DIRECT),
+                            chunkedTable.getBranchDi2(faultNum, branchNum, ShortCircuitResult.FortescueType.DIRECT));
+                }
+            }
+            Path file = tempDir.resolve("table" + t + ".bin");
+            Path chunkedFile = tempDir.resolve("chunked" + t + ".bin");
+            table.write(file);
+            chunkedTable.write(chunkedFile);
+            assertEquals(-1, Files.mismatch(file, chunkedFile));
+        }
+        assertThrows(IllegalArgumentException.class, () -> new ShortCircuitResultTable(ShortCircuitResultTable.Precision.DOUBLE, 0));
+    }
+}
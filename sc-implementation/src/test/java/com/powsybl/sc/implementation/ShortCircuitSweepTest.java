@@ -0,0 +1,94 @@
+/**
+ * Copyright (c) 2022, Jean-Baptiste Heyberger & Geoffroy Jamgotchian
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ * SPDX-License-Identifier: MPL-2.0
+ */
+package com.powsybl.sc.implementation;
+
+import com.powsybl.iidm.network.Network;
+import com.powsybl.loadflow.LoadFlowParameters;
+import com.powsybl.math.matrix.DenseMatrixFactory;
+import com.powsybl.sc.util.ReferenceNetwork;
+import org.apache.commons.math3.complex.Complex;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author Jean-Baptiste Heyberger <jbheyberger at gmail.com>
+ */
+class ShortCircuitSweepTest {
+
+    private static ShortCircuitEngineParameters createParameters(List<ShortCircuitFault> faults) {
+        LoadFlowParameters loadFlowParameters = LoadFlowParameters.load();
+        loadFlowParameters.setTwtSplitShuntAdmittance(true);
+        return new ShortCircuitEngineParameters(loadFlowParameters, new DenseMatrixFactory(), ShortCircuitEngineParameters.AnalysisType.SELECTIVE, faults, false,
+                ShortCircuitEngineParameters.VoltageProfileType.NOMINAL, false, ShortCircuitEngineParameters.PeriodType.SUB_TRANSIENT, new ShortCircuitNormIec());
+    }
+
+    @Test
+    void sweepMatchesEnginesTest() {
+        Network network = ReferenceNetwork.create6NodesIec9094();
+
+        List<ShortCircuitFaultImpedance> impedances = List.of(
+                new ShortCircuitFaultImpedance(new Complex(0.)),
+                new ShortCircuitFaultImpedance(new Complex(0.000007, 0.00005), new Complex(0.0001, 0.0002), new Complex(0.0003, 0.0004)));
+        List<ShortCircuitFault.ShortCircuitType> types = List.of(ShortCircuitFault.ShortCircuitType.TRIPHASED_GROUND,
+                ShortCircuitFault.ShortCircuitType.MONOPHASED,
+                ShortCircuitFault.ShortCircuitType.BIPHASED,
+                ShortCircuitFault.ShortCircuitType.BIPHASED_GROUND);
+        List<String> busIds = List.of("B3", "B4", "UNKNOWN");
+
+        ShortCircuitEngineParameters sweepParameters = createParameters(new ArrayList<>());
+        ShortCircuitSweepEngine sweepEngine = new ShortCircuitSweepEngine(network, sweepParameters, busIds, impedances, types);
+        sweepEngine.run();
+        ShortCircuitSweepResult sweepResult = sweepEngine.getSweepResult();
+        // the sweep locations are not written into the caller's parameters
+        assertTrue(sweepParameters.getShortCircuitFaults().isEmpty());
+        assertEquals(busIds.size() * impedances.size() * types.size(), sweepResult.getRowCount());
+
+        // same faults computed one by one by the engines
+        for (int b = 0; b < 2; b++) {
+            for (int z = 0; z < impedances.size(); z++) {
+                for (int t = 0; t < types.size(); t++) {
+                    ShortCircuitFault.ShortCircuitType type = types.get(t);
+                    List<ShortCircuitFault> faults = new ArrayList<>();
+                    ShortCircuitFault sc = new ShortCircuitFault(busIds.get(b), "sc", impedances.get(z), type);
+                    faults.add(sc);
+                    AbstractShortCircuitEngine engine = type == ShortCircuitFault.ShortCircuitType.TRIPHASED_GROUND
+                            ? new ShortCircuitBalancedEngine(network, createParameters(faults))
+                            : new ShortCircuitUnbalancedEngine(network, createParameters(faults));
+                    engine.run();
+                    ShortCircuitResult res = engine.getResultsPerFault().get(sc);
+
+                    assertEquals(res.getIk().abs(), sweepResult.getIk(b, z, t), 0.00001);
+                    assertEquals(res.getvFortescue().getPositiveMagnitude(), sweepResult.getVd(b, z, t), 0.00001);
+                    if (type != ShortCircuitFault.ShortCircuitType.TRIPHASED_GROUND) {
+                        assertEquals(res.getvFortescue().getZeroMagnitude(), sweepResult.getVo(b, z, t), 0.00001);
+                        assertEquals(res.getvFortescue().getNegativeMagnitude(), sweepResult.getVi(b, z, t), 0.00001);
+                    }
+                }
+            }
+        }
+
+        // a bus that is not in the network is left empty
+        assertTrue(Double.isNaN(sweepResult.getIk(2, 0, 0)));
+    }
+
+    @Test
+    void commonSupportNotHandledTest() {
+        Network network = ReferenceNetwork.create6NodesIec9094();
+        List<ShortCircuitFaultImpedance> impedances = List.of(new ShortCircuitFaultImpedance(new Complex(0.)));
+        List<ShortCircuitFault.ShortCircuitType> types = List.of(ShortCircuitFault.ShortCircuitType.BIPHASED_COMMON_SUPPORT);
+        List<String> busIds = List.of("B3");
+        ShortCircuitEngineParameters parameters = createParameters(new ArrayList<>());
+        assertThrows(IllegalArgumentException.class, () -> new ShortCircuitSweepEngine(network, parameters, busIds, impedances, types));
+    }
+}
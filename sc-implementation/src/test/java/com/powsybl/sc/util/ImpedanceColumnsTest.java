@@ -0,0 +1,80 @@
+/**
+ * Copyright (c) 2022, Jean-Baptiste Heyberger & Geoffroy Jamgotchian
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ * SPDX-License-Identifier: MPL-2.0
+ */
+package com.powsybl.sc.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author Jean-Baptiste Heyberger <jbheyberger at gmail.com>
+ */
+class ImpedanceColumnsTest {
+
+    @Test
+    void retainedColumnsTest() {
+        ImpedanceColumns columns = new ImpedanceColumns(3, 2);
+        columns.setColumn(0, new double[] {1., 2., Double.NaN, Double.NaN});
+        columns.setColumn(1, new double[] {Double.NaN, Double.NaN, 3., 4.});
+        columns.setColumn(2, new double[] {5., 6., Double.NaN, Double.NaN});
+        assertEquals(3, columns.getResidentColumnCount());
+        assertThrows(IllegalStateException.class, () -> columns.setColumn(0, new double[4]));
+
+        assertNull(columns.get(1, 0));
+
+        // only the extracted terms are copied
+        int[] busNums = new int[2];
+        double[] values = new double[4];
+        assertEquals(1, columns.copyColumn(1, busNums, values));
+        assertEquals(1, busNums[0]);
+        assertEquals(3., values[0], 0.);
+        assertEquals(4., values[1], 0.);
+
+        // a retained column stays readable once closed, the others are dropped
+        columns.retain(1);
+        columns.retain(1);
+        columns.close();
+        assertTrue(columns.isClosed());
+        assertEquals(1, columns.getResidentColumnCount());
+        assertEquals(3., columns.getReal(1, 1), 0.);
+        assertThrows(IllegalStateException.class, () -> columns.getReal(0, 0));
+        assertThrows(IllegalStateException.class, () -> columns.retain(2));
+        assertThrows(IllegalStateException.class, () -> columns.setColumn(1, new double[4]));
+
+        // dropped when its last holder releases it
+        columns.release(1);
+        assertEquals(4., columns.getImaginary(1, 1), 0.);
+        columns.release(1);
+        assertEquals(0, columns.getResidentColumnCount());
+        assertThrows(IllegalStateException.class, () -> columns.getReal(1, 1));
+        assertThrows(IllegalStateException.class, () -> columns.release(1));
+    }
+
+    @Test
+    void monitoredRowsTest() {
+        // rows of the monitored busses 3 and 1 only, in increasing bus order
+        ImpedanceColumns columns = new ImpedanceColumns(1, 5, new int[] {3, 1});
+        assertEquals(2, columns.getRowCount());
+        assertEquals(0, columns.getRow(1));
+        assertEquals(1, columns.getRow(3));
+        assertTrue(columns.getRow(2) < 0);
+        columns.setColumn(0, new double[] {1., 2., 3., 4.});
+        assertEquals(3., columns.getReal(0, 3), 0.);
+        assertTrue(Double.isNaN(columns.getReal(0, 2)));
+
+        int[] busNums = new int[2];
+        double[] values = new double[4];
+        assertEquals(2, columns.copyColumn(0, busNums, values));
+        assertEquals(1, busNums[0]);
+        assertEquals(3, busNums[1]);
+        assertEquals(4., values[3], 0.);
+    }
+}